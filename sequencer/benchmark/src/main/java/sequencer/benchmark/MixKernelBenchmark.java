@@ -0,0 +1,88 @@
+package sequencer.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sequencer.core.MixKernel;
+
+/**
+ * Measures how long each {@link MixKernel} takes to render one buffer, by mixing a number of
+ * voices into it and clipping the sum. Dividing the length of a buffer in time by the result gives
+ * how many such buffers can be rendered at once by one core.
+ *
+ * <p>
+ * Run with {@code java -jar benchmark/target/benchmarks.jar} after {@code mvn package}. The forked
+ * JVMs add the {@code jdk.incubator.vector} module, so both kernels are measured.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class MixKernelBenchmark {
+
+  // The length of each voice, about a quarter of a second at 44.1 kHz like most of the samples
+  private static final int SAMPLE_LENGTH = 1 << 14;
+
+  @Param({MixKernel.SCALAR, MixKernel.VECTOR})
+  private String kernelName;
+
+  @Param({"1", "8", "32", "128"})
+  private int polyphony;
+
+  // 512 frames is about 12 ms at 44.1 kHz
+  @Param({"512"})
+  private int bufferSize;
+
+  private MixKernel kernel;
+  private float[][] voices;
+  private int[] offsets;
+  private float[] gains;
+  private float[] output;
+
+  /**
+   * Creates voices of random samples, each played from a different offset and with its own gain.
+   */
+  @Setup
+  public void setUp() {
+    kernel = MixKernel.of(kernelName);
+    final Random random = new Random(1901);
+    voices = new float[polyphony][SAMPLE_LENGTH];
+    offsets = new int[polyphony];
+    gains = new float[polyphony];
+    for (int v = 0; v < polyphony; v++) {
+      for (int i = 0; i < SAMPLE_LENGTH; i++) {
+        voices[v][i] = random.nextFloat() * 2 - 1;
+      }
+      offsets[v] = random.nextInt(SAMPLE_LENGTH - bufferSize);
+      gains[v] = random.nextFloat() / polyphony;
+    }
+    output = new float[bufferSize];
+  }
+
+  /**
+   * Renders one buffer, returning it so the work is not optimized away.
+   */
+  @Benchmark
+  public float[] mixBuffer() {
+    Arrays.fill(output, 0f);
+    for (int v = 0; v < polyphony; v++) {
+      kernel.mix(voices[v], offsets[v], gains[v], output, bufferSize);
+    }
+    kernel.clip(output, bufferSize);
+    return output;
+  }
+}
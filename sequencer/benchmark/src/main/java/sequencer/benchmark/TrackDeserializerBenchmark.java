@@ -0,0 +1,137 @@
+package sequencer.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sequencer.core.Track;
+import sequencer.json.TrackModule;
+
+/**
+ * Measures how long it takes to deserialize a track from json, either directly from the tokens of
+ * the parser as the track deserializer does, or by reading the json into a tree and walking it as
+ * it did before.
+ *
+ * <p>
+ * Run with {@code java -jar benchmark/target/benchmarks.jar TrackDeserializer} after
+ * {@code mvn package}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackDeserializerBenchmark {
+
+  @Param({"8", "64"})
+  private int instruments;
+
+  @Param({"16", "256"})
+  private int length;
+
+  private final ObjectMapper mapper = new ObjectMapper().registerModule(new TrackModule());
+  private String json;
+
+  /**
+   * Writes a track with random patterns to json.
+   */
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    final Random random = new Random(1901);
+    final Track track = new Track();
+    track.setTrackName("Benchmark");
+    track.setArtistName("Sequencer");
+    track.setLength(length);
+    for (int i = 0; i < instruments; i++) {
+      final String instrument = "instrument " + i;
+      track.addInstrument(instrument);
+      for (int j = 0; j < length; j++) {
+        if (random.nextBoolean()) {
+          track.toggleSixteenth(instrument, j);
+        }
+      }
+    }
+    json = mapper.writeValueAsString(track);
+  }
+
+  /**
+   * Deserializes the track directly from the tokens of the parser.
+   */
+  @Benchmark
+  public Track streaming() throws JsonProcessingException {
+    return mapper.readValue(json, Track.class);
+  }
+
+  /**
+   * Reads the json into a tree, and deserializes the track by walking the tree, as the track
+   * deserializer did before.
+   */
+  @Benchmark
+  public Track tree() throws JsonProcessingException {
+    return readTrack(mapper.readTree(json));
+  }
+
+  // Helpers
+
+  /**
+   * The node walk of the track deserializer before it read the tokens of the parser directly. The
+   * length of the track is read as well, as the patterns could not be added otherwise.
+   */
+  private static Track readTrack(JsonNode treeNode) {
+    if (!(treeNode instanceof ObjectNode)) {
+      return null;
+    }
+    final ObjectNode objectNode = (ObjectNode) treeNode;
+    final Track track = new Track();
+
+    final JsonNode nameNode = objectNode.get("name");
+    if (nameNode instanceof TextNode) {
+      track.setTrackName(nameNode.asText());
+    }
+    final JsonNode artistNode = objectNode.get("artist");
+    if (artistNode instanceof TextNode) {
+      track.setArtistName(artistNode.asText());
+    }
+    final JsonNode lengthNode = objectNode.get("length");
+    if (lengthNode instanceof IntNode) {
+      track.setLength(lengthNode.asInt());
+    }
+
+    final JsonNode itemsNode = objectNode.get("instruments");
+    if (itemsNode instanceof ObjectNode) {
+      final ObjectNode instrumentPatternObject = (ObjectNode) itemsNode;
+      instrumentPatternObject.fieldNames().forEachRemaining(instrument -> {
+        final List<Boolean> pattern = new ArrayList<>();
+        final JsonNode patternNode = instrumentPatternObject.get(instrument);
+        if (patternNode instanceof ArrayNode) {
+          for (JsonNode valueNode : patternNode) {
+            pattern.add(valueNode instanceof BooleanNode && valueNode.asBoolean());
+          }
+        }
+        track.addInstrument(instrument, pattern);
+      });
+    }
+    return track;
+  }
+}
@@ -1,4 +1,5 @@
 module sequencer.core {
+  requires java.desktop;
   requires javafx.media;
   requires transitive com.fasterxml.jackson.core;
   requires transitive com.fasterxml.jackson.databind;
@@ -6,8 +7,11 @@ module sequencer.core {
 
   exports sequencer.core;
   exports sequencer.json;
+  exports sequencer.binary;
 
   opens sequencer.core to sequencer.json;
   opens sequencer.json to com.fasterxml.jackson.databind;
-}
 
+  // The vector mix kernel is provided by the sequencer.vectormix module
+  uses sequencer.core.MixKernel;
+}
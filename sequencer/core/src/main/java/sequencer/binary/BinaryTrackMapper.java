@@ -0,0 +1,442 @@
+package sequencer.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StreamCorruptedException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import sequencer.core.Track;
+import sequencer.core.TrackMapperInterface;
+
+/**
+ * The {@code BinaryTrackMapper} class serializes {@link Track}s to a compact, versioned binary
+ * format, as an alternative to the {@code json} format of {@link sequencer.json.TrackMapper}.
+ *
+ * <p>
+ * Version 2 of the format is laid out as follows, where all integers are unsigned varints (7 bits
+ * per byte, least significant group first):
+ * </p>
+ *
+ * <pre>
+ * magic         'S' 'Q' 'B'
+ * version       1 byte
+ * name          string
+ * artist        string
+ * count         number of instruments
+ * instruments   count times:
+ *   id          index + 1 in {@link #INSTRUMENTS}, or 0 followed by the name as a string
+ *   length      number of sixteenths in the pattern
+ *   pattern     (length + 7) / 8 bytes, one bit per sixteenth, least significant bit first
+ * settings      until the end of the input, any of:
+ *   1 length    number of sixteenths in the track
+ *   2 bpm       float
+ *   3 swing     float
+ *   4 velocities  instrument index, then one byte per sixteenth of its pattern
+ *   5 probabilities  instrument index, then one byte per sixteenth of its pattern
+ *   6 own length  instrument index
+ *
+ * string        0 if null, otherwise the number of UTF-8 bytes + 1 followed by the bytes
+ * float         the 4 bytes of {@link Float#floatToIntBits(float)}, most significant byte first
+ * </pre>
+ *
+ * <p>
+ * Settings are only written when they differ from the defaults in {@link Track}. Instruments with
+ * a pattern length of their own are marked by setting 6, while the patterns of other instruments
+ * must have the length of the track. The velocities and probabilities of an instrument are only
+ * written when any of its sixteenths differ from the maximum, and the instrument index refers to
+ * the order the instruments were written in.
+ * </p>
+ *
+ * <p>
+ * Version 1 has no own length setting, and is still read. Instruments whose pattern does not have
+ * the length of the track are then read with a pattern length of their own. Readers of version 1
+ * which predate the settings ignore them, which is why they were moved to a new version.
+ * </p>
+ *
+ * <p>
+ * The format is written byte for byte with {@link #writeTrack(Track, OutputStream)}. When used
+ * with character streams, each byte is mapped to the character with the same value.
+ * </p>
+ */
+public class BinaryTrackMapper implements TrackMapperInterface {
+
+  public static final String FORMAT = "seqb";
+  public static final int VERSION = 2;
+  // Versions which are still read, where pattern lengths of their own are not marked
+  private static final int VERSION_WITHOUT_OWN_LENGTHS = 1;
+
+  private static final byte[] MAGIC = {'S', 'Q', 'B'};
+
+  // Instruments which are written as a single byte. New instruments may be appended to the list,
+  // but the order of existing instruments must never change, as it is part of the format
+  static final List<String> INSTRUMENTS = List.of("kick", "hihat", "snare", "maraccas",
+      "rim shot", "cow bell", "claves", "clap");
+
+  // Upper bound for lengths read from a stream, as to fail early on corrupt data
+  private static final int MAX_LENGTH = 1 << 16;
+
+  // Ids of the settings written after the instruments
+  private static final int SETTING_LENGTH = 1;
+  private static final int SETTING_BPM = 2;
+  private static final int SETTING_SWING = 3;
+  private static final int SETTING_VELOCITIES = 4;
+  private static final int SETTING_PROBABILITIES = 5;
+  private static final int SETTING_OWN_LENGTH = 6;
+
+  /**
+   * Returns the format of BinaryTrackMapper. This will give the same as BinaryTrackMapper.FORMAT,
+   * but also follows the TrackMapperInterface specifications.
+   */
+  @Override
+  public String getFormat() {
+    return FORMAT;
+  }
+
+  /**
+   * Deserializes track from a given input stream.
+   *
+   * @param input the input stream from which the track will be created
+   * @throws IllegalArgumentException if input is {@code null}
+   * @throws StreamCorruptedException if the input is not in the expected format or version
+   * @throws IOException if the input stream fails
+   */
+  @Override
+  public Track readTrack(InputStream input) throws IOException {
+    if (input == null) {
+      throw new IllegalArgumentException("input cannot be null.");
+    }
+
+    for (byte expected : MAGIC) {
+      if (readByte(input) != expected) {
+        throw new StreamCorruptedException("Input is not in the %s format".formatted(FORMAT));
+      }
+    }
+    final int version = readByte(input);
+    if (version != VERSION && version != VERSION_WITHOUT_OWN_LENGTHS) {
+      throw new StreamCorruptedException("Unsupported %s version: %s".formatted(FORMAT, version));
+    }
+
+    final Track track = new Track();
+    track.setTrackName(readString(input));
+    track.setArtistName(readString(input));
+
+    final int count = readLength(input);
+    final Map<String, List<Boolean>> patterns = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      final int id = readLength(input);
+      final String instrument;
+      if (id == 0) {
+        instrument = readString(input);
+      } else if (id <= INSTRUMENTS.size()) {
+        instrument = INSTRUMENTS.get(id - 1);
+      } else {
+        throw new StreamCorruptedException("Unknown instrument id: " + id);
+      }
+
+      final int length = readLength(input);
+      final byte[] packed = readBytes(input, (length + 7) / 8);
+      final List<Boolean> pattern = new ArrayList<>(length);
+      for (int j = 0; j < length; j++) {
+        pattern.add((packed[j / 8] & (1 << (j % 8))) != 0);
+      }
+      patterns.put(instrument, pattern);
+    }
+
+    // The settings are read before the instruments are added, as the length of the track decides
+    // which instruments have a pattern length of their own
+    final List<String> instruments = new ArrayList<>(patterns.keySet());
+    final Map<String, byte[]> velocities = new LinkedHashMap<>();
+    final Map<String, byte[]> probabilities = new LinkedHashMap<>();
+    final Set<String> ownLengths = new HashSet<>();
+    try {
+      int setting;
+      while ((setting = input.read()) != -1) {
+        switch (setting) {
+          case SETTING_LENGTH -> track.setLength(readLength(input));
+          case SETTING_BPM -> track.setBpm(readFloat(input));
+          case SETTING_SWING -> track.setSwing(readFloat(input));
+          case SETTING_VELOCITIES -> readSixteenthValues(input, instruments, patterns, velocities);
+          case SETTING_PROBABILITIES ->
+              readSixteenthValues(input, instruments, patterns, probabilities);
+          case SETTING_OWN_LENGTH -> {
+            if (version == VERSION_WITHOUT_OWN_LENGTHS) {
+              throw new StreamCorruptedException("Unknown setting id: " + setting);
+            }
+            ownLengths.add(readInstrument(input, instruments));
+          }
+          default -> throw new StreamCorruptedException("Unknown setting id: " + setting);
+        }
+      }
+
+      for (Map.Entry<String, List<Boolean>> entry : patterns.entrySet()) {
+        final List<Boolean> pattern = entry.getValue();
+        final boolean ownLength = version == VERSION_WITHOUT_OWN_LENGTHS
+            ? pattern.size() != track.getLength() : ownLengths.contains(entry.getKey());
+        if (!ownLength) {
+          track.addInstrument(entry.getKey(), pattern);
+          continue;
+        }
+        track.addInstrument(entry.getKey());
+        track.setPatternLength(entry.getKey(), pattern.size());
+        for (int j = 0; j < pattern.size(); j++) {
+          if (pattern.get(j)) {
+            track.toggleSixteenth(entry.getKey(), j);
+          }
+        }
+      }
+      for (Map.Entry<String, byte[]> entry : velocities.entrySet()) {
+        for (int j = 0; j < entry.getValue().length; j++) {
+          track.setVelocity(entry.getKey(), j, entry.getValue()[j]);
+        }
+      }
+      for (Map.Entry<String, byte[]> entry : probabilities.entrySet()) {
+        for (int j = 0; j < entry.getValue().length; j++) {
+          track.setProbability(entry.getKey(), j, entry.getValue()[j]);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      throw new StreamCorruptedException("Invalid track: " + e.getMessage());
+    }
+
+    return track;
+  }
+
+  /**
+   * Writes serialized track to a given output stream.
+   *
+   * @param track the track which will be serialized.
+   * @param output the output stream to which the track will be serialized.
+   * @throws IllegalArgumentException if the track or the output stream is {@code null}.
+   */
+  @Override
+  public void writeTrack(Track track, OutputStream output) throws IOException {
+    if (track == null) {
+      throw new IllegalArgumentException("track cannot be null.");
+    }
+    if (output == null) {
+      throw new IllegalArgumentException("output cannot be null.");
+    }
+
+    output.write(MAGIC);
+    output.write(VERSION);
+    writeString(output, track.getTrackName());
+    writeString(output, track.getArtistName());
+
+    final List<String> instruments = track.getInstrumentNames();
+    writeVarInt(output, instruments.size());
+    for (String instrument : instruments) {
+      final int index = INSTRUMENTS.indexOf(instrument);
+      writeVarInt(output, index + 1);
+      if (index == -1) {
+        writeString(output, instrument);
+      }
+
+      final List<Boolean> pattern = track.getPattern(instrument);
+      final byte[] packed = new byte[(pattern.size() + 7) / 8];
+      for (int j = 0; j < pattern.size(); j++) {
+        if (pattern.get(j)) {
+          packed[j / 8] |= 1 << (j % 8);
+        }
+      }
+      writeVarInt(output, pattern.size());
+      output.write(packed);
+    }
+
+    if (track.getLength() != Track.TRACK_LENGTH) {
+      output.write(SETTING_LENGTH);
+      writeVarInt(output, track.getLength());
+    }
+    if (track.getBpm() != Track.BPM) {
+      output.write(SETTING_BPM);
+      writeFloat(output, track.getBpm());
+    }
+    if (track.getSwing() != Track.SWING) {
+      output.write(SETTING_SWING);
+      writeFloat(output, track.getSwing());
+    }
+    for (int i = 0; i < instruments.size(); i++) {
+      final String instrument = instruments.get(i);
+      if (track.hasOwnLength(instrument)) {
+        output.write(SETTING_OWN_LENGTH);
+        writeVarInt(output, i);
+      }
+      if (track.hasVelocities(instrument)) {
+        output.write(SETTING_VELOCITIES);
+        writeVarInt(output, i);
+        for (int j = 0; j < track.getPatternLength(instrument); j++) {
+          output.write(track.getVelocity(instrument, j));
+        }
+      }
+      if (track.hasProbabilities(instrument)) {
+        output.write(SETTING_PROBABILITIES);
+        writeVarInt(output, i);
+        for (int j = 0; j < track.getPatternLength(instrument); j++) {
+          output.write(track.getProbability(instrument, j));
+        }
+      }
+    }
+    output.flush();
+  }
+
+  /**
+   * Deserializes track from a given reader, where each character holds one byte.
+   *
+   * @param reader the reader from which the track will be created
+   * @throws IllegalArgumentException if reader is {@code null}
+   * @throws StreamCorruptedException if the input is not in the expected format or version
+   */
+  @Override
+  public Track readTrack(Reader reader) throws IOException {
+    if (reader == null) {
+      throw new IllegalArgumentException("reader cannot be null.");
+    }
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int value;
+    while ((value = reader.read()) != -1) {
+      if (value > 0xFF) {
+        throw new StreamCorruptedException("Input is not in the %s format".formatted(FORMAT));
+      }
+      bytes.write(value);
+    }
+    return readTrack(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+  /**
+   * Writes serialized track to a given writer, where each character holds one byte.
+   *
+   * @param track the track which will be serialized.
+   * @param writer the writer to which the track will be serialized.
+   * @throws IllegalArgumentException if the track or the writer is {@code null}.
+   */
+  @Override
+  public void writeTrack(Track track, Writer writer) throws IOException {
+    if (writer == null) {
+      throw new IllegalArgumentException("writer cannot be null.");
+    }
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    writeTrack(track, bytes);
+    for (byte b : bytes.toByteArray()) {
+      writer.write(b & 0xFF);
+    }
+    writer.flush();
+  }
+
+  /**
+   * Returns a copy of this object. As the mapper has no state, this is the object itself.
+   */
+  @Override
+  public BinaryTrackMapper copy() {
+    return this;
+  }
+
+  // Helpers
+
+  private static void writeVarInt(OutputStream output, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      output.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.write(value);
+  }
+
+  private static void writeString(OutputStream output, String value) throws IOException {
+    if (value == null) {
+      writeVarInt(output, 0);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(output, bytes.length + 1);
+    output.write(bytes);
+  }
+
+  private static void writeFloat(OutputStream output, float value) throws IOException {
+    final int bits = Float.floatToIntBits(value);
+    for (int shift = Integer.SIZE - 8; shift >= 0; shift -= 8) {
+      output.write(bits >>> shift);
+    }
+  }
+
+  private static float readFloat(InputStream input) throws IOException {
+    int bits = 0;
+    for (int i = 0; i < Integer.BYTES; i++) {
+      bits = (bits << 8) | readByte(input);
+    }
+    return Float.intBitsToFloat(bits);
+  }
+
+  private static int readByte(InputStream input) throws IOException {
+    final int value = input.read();
+    if (value == -1) {
+      throw new EOFException("Unexpected end of %s input".formatted(FORMAT));
+    }
+    return value;
+  }
+
+  private static byte[] readBytes(InputStream input, int length) throws IOException {
+    final byte[] bytes = input.readNBytes(length);
+    if (bytes.length != length) {
+      throw new EOFException("Unexpected end of %s input".formatted(FORMAT));
+    }
+    return bytes;
+  }
+
+  /**
+   * Reads a varint which is used as a length or count, and must be within MAX_LENGTH.
+   */
+  private static int readLength(InputStream input) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      final int b = readByte(input);
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0 || value > MAX_LENGTH) {
+          throw new StreamCorruptedException("Length out of bounds: " + value);
+        }
+        return value;
+      }
+    }
+    throw new StreamCorruptedException("Malformed varint");
+  }
+
+  /**
+   * Reads the index of an instrument followed by one byte for each sixteenth of its pattern.
+   */
+  private static void readSixteenthValues(InputStream input, List<String> instruments,
+      Map<String, List<Boolean>> patterns, Map<String, byte[]> values) throws IOException {
+    final String instrument = readInstrument(input, instruments);
+    values.put(instrument, readBytes(input, patterns.get(instrument).size()));
+  }
+
+  /**
+   * Reads the index of an instrument in the order the instruments were written in.
+   */
+  private static String readInstrument(InputStream input, List<String> instruments)
+      throws IOException {
+    final int index = readLength(input);
+    if (index >= instruments.size()) {
+      throw new StreamCorruptedException("Instrument index out of bounds: " + index);
+    }
+    return instruments.get(index);
+  }
+
+  private static String readString(InputStream input) throws IOException {
+    final int length = readLength(input);
+    if (length == 0) {
+      return null;
+    }
+    return new String(readBytes(input, length - 1), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,274 @@
+package sequencer.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link Arrangement} class represents a song, made by playing the patterns of several
+ * {@link Track}s one after another.
+ *
+ * <p>
+ * The patterns of the arrangement are tracks given a name, and the song is a list of
+ * {@link Section}s, each playing one of the patterns a number of times at a given tempo. The same
+ * pattern may be played by several sections, e.g. a verse returning after the chorus. When the
+ * arrangement is looped, the first section follows the last.
+ * </p>
+ */
+public class Arrangement {
+
+  private String name;
+  private String artistName;
+  private boolean looped;
+  private final Map<String, Track> patterns = new LinkedHashMap<>();
+  private final List<Section> sections = new ArrayList<>();
+
+  /**
+   * A part of the song, playing a pattern of the arrangement.
+   *
+   * @param pattern the name of the pattern to play
+   * @param repeats how many times the pattern is played
+   * @param bpm the tempo of the section, or null to play the pattern at its own tempo
+   */
+  public record Section(String pattern, int repeats, Float bpm) {
+
+    /**
+     * Creates a section, see {@link Section}.
+     *
+     * @throws IllegalArgumentException if pattern is null, repeats is not positive, or bpm is not
+     *         within [Track.MIN_BPM-Track.MAX_BPM]
+     */
+    public Section {
+      if (pattern == null) {
+        throw new IllegalArgumentException("pattern cannot be null");
+      }
+      if (repeats < 1) {
+        throw new IllegalArgumentException(
+            "A section must be played at least once. Found %s".formatted(repeats));
+      }
+      if (bpm != null && !(bpm >= Track.MIN_BPM && bpm <= Track.MAX_BPM)) {
+        throw new IllegalArgumentException("BPM must be within [%s-%s]. Found %s"
+            .formatted(Track.MIN_BPM, Track.MAX_BPM, bpm));
+      }
+    }
+
+    /**
+     * Creates a section playing the pattern at its own tempo.
+     */
+    public Section(String pattern, int repeats) {
+      this(pattern, repeats, null);
+    }
+  }
+
+  /**
+   * Constructor for creating an empty arrangement, which patterns and sections are added to later.
+   */
+  public Arrangement() {}
+
+  /**
+   * Get the name of the song.
+   *
+   * @return name, or null if name is not set
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Changes the name of the song.
+   *
+   * @param name new name of the song
+   * @throws IllegalArgumentException if name is more than Track.TRACK_NAME_LENGTH characters long
+   */
+  public void setName(String name) {
+    if (name != null && name.length() > Track.TRACK_NAME_LENGTH) {
+      throw new IllegalArgumentException("Name cannot be more than %s characters long. Found %s"
+          .formatted(Track.TRACK_NAME_LENGTH, name.length()));
+    }
+    this.name = name;
+  }
+
+  /**
+   * Get the name of who made the song.
+   *
+   * @return artistName, or null if artistName is not set
+   */
+  public String getArtistName() {
+    return artistName;
+  }
+
+  /**
+   * Changes name of who made the song.
+   *
+   * @param artistName new name of artist
+   * @throws IllegalArgumentException if artistName is more than Track.ARTIST_NAME_LENGTH
+   *         characters long
+   */
+  public void setArtistName(String artistName) {
+    if (artistName != null && artistName.length() > Track.ARTIST_NAME_LENGTH) {
+      throw new IllegalArgumentException(
+          "Artist name cannot be more than %s characters long. Found %s"
+              .formatted(Track.ARTIST_NAME_LENGTH, artistName.length()));
+    }
+    this.artistName = artistName;
+  }
+
+  /**
+   * Returns true if the first section is played again after the last.
+   */
+  public boolean isLooped() {
+    return looped;
+  }
+
+  public void setLooped(boolean looped) {
+    this.looped = looped;
+  }
+
+  /**
+   * Get the names of all patterns, in the order they were added.
+   */
+  public List<String> getPatternNames() {
+    return new ArrayList<>(patterns.keySet());
+  }
+
+  /**
+   * Get a pattern of the arrangement.
+   *
+   * @param patternName the name of the pattern
+   * @return a copy of the pattern
+   * @throws IllegalArgumentException if there is no pattern with the name
+   */
+  public Track getPattern(String patternName) {
+    checkPattern(patternName);
+    return patterns.get(patternName).copy();
+  }
+
+  /**
+   * Adds a pattern to the arrangement, or replaces the pattern with the same name. The sections
+   * playing a replaced pattern play the new one.
+   *
+   * @param patternName the name of the pattern
+   * @param pattern the track to play, which is copied
+   * @throws IllegalArgumentException if the name or the pattern is null
+   */
+  public void putPattern(String patternName, Track pattern) {
+    if (patternName == null || pattern == null) {
+      throw new IllegalArgumentException("Neither the name nor the pattern can be null");
+    }
+    patterns.put(patternName, pattern.copy());
+  }
+
+  /**
+   * Removes a pattern from the arrangement.
+   *
+   * @param patternName the name of the pattern to remove
+   * @throws IllegalArgumentException if there is no pattern with the name, or it is played by a
+   *         section
+   */
+  public void removePattern(String patternName) {
+    checkPattern(patternName);
+    if (sections.stream().anyMatch(section -> section.pattern().equals(patternName))) {
+      throw new IllegalArgumentException(
+          "Pattern %s cannot be removed while played by a section".formatted(patternName));
+    }
+    patterns.remove(patternName);
+  }
+
+  /**
+   * Get the sections of the song, in the order they are played.
+   */
+  public List<Section> getSections() {
+    return new ArrayList<>(sections);
+  }
+
+  /**
+   * Adds a section to the end of the song.
+   *
+   * @param section the section to add
+   * @throws IllegalArgumentException if the section is null, or plays a pattern which is not part
+   *         of the arrangement
+   */
+  public void addSection(Section section) {
+    addSection(sections.size(), section);
+  }
+
+  /**
+   * Inserts a section into the song.
+   *
+   * @param index where to insert the section
+   * @param section the section to insert
+   * @throws IllegalArgumentException if the section is null, plays a pattern which is not part of
+   *         the arrangement, or the index is outside [0-sections]
+   */
+  public void addSection(int index, Section section) {
+    if (section == null) {
+      throw new IllegalArgumentException("section cannot be null");
+    }
+    checkPattern(section.pattern());
+    if (index < 0 || index > sections.size()) {
+      throw new IllegalArgumentException("Section index is outside the song bounds [0-%s]: %s"
+          .formatted(sections.size(), index));
+    }
+    sections.add(index, section);
+  }
+
+  /**
+   * Removes a section from the song.
+   *
+   * @param index the index of the section to remove
+   * @throws IllegalArgumentException if the index is outside [0-sections)
+   */
+  public void removeSection(int index) {
+    if (index < 0 || index >= sections.size()) {
+      throw new IllegalArgumentException("Section index is outside the song bounds [0-%s): %s"
+          .formatted(sections.size(), index));
+    }
+    sections.remove(index);
+  }
+
+  /**
+   * Returns the track played by each section, in order, with the tempo of the section. Sections
+   * playing the same pattern at the same tempo share the same track.
+   */
+  public List<Track> getSectionTracks() {
+    final Map<Section, Track> tracks = new HashMap<>();
+    final List<Track> sectionTracks = new ArrayList<>();
+    for (Section section : sections) {
+      sectionTracks.add(tracks.computeIfAbsent(new Section(section.pattern(), 1, section.bpm()),
+          key -> {
+            final Track track = getPattern(key.pattern());
+            if (key.bpm() != null) {
+              track.setBpm(key.bpm());
+            }
+            return track;
+          }));
+    }
+    return sectionTracks;
+  }
+
+  /**
+   * Returns a copy of this arrangement.
+   */
+  public Arrangement copy() {
+    final Arrangement newArrangement = new Arrangement();
+    newArrangement.setName(name);
+    newArrangement.setArtistName(artistName);
+    newArrangement.setLooped(looped);
+    for (Map.Entry<String, Track> entry : patterns.entrySet()) {
+      newArrangement.putPattern(entry.getKey(), entry.getValue());
+    }
+    newArrangement.sections.addAll(sections);
+    return newArrangement;
+  }
+
+  // Helpers
+
+  private void checkPattern(String patternName) {
+    if (patternName == null || !patterns.containsKey(patternName)) {
+      throw new IllegalArgumentException(
+          "Pattern %s is not part of the arrangement".formatted(patternName));
+    }
+  }
+}
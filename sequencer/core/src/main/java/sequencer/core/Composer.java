@@ -2,9 +2,12 @@ package sequencer.core;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -13,25 +16,91 @@ import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import javafx.scene.media.AudioClip;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
 
 /**
  * The {@link Composer} encapsulated a {@link Track}. It handles the playback of this track,
  * mutating it and ensuring each sound is played at the correct sixteenth according to the track's
  * pattern.
+ *
+ * <p>
+ * The composer is edited from the UI thread while the track is played from the timer thread. To
+ * avoid locking, the track held by the composer is never changed once it has been published: each
+ * edit changes a copy, which replaces the track atomically. The timer thread reads the track once
+ * per sixteenth, and therefore always plays a complete version of it. Listeners may be added and
+ * removed while the composer is playing.
+ * </p>
+ *
+ * <p>
+ * Listeners are run on the timer thread, and delay the next sixteenth if they are slow. Consumers
+ * doing more work, or needing to know when each sixteenth was scheduled, should instead read the
+ * {@link ComposerEvent}s of the composer on their own thread, through {@link #newEventReader()}.
+ * </p>
  */
 public class Composer {
 
-  private Track track;
+  // Never mutated after being set, see edit()
+  private final AtomicReference<Track> track = new AtomicReference<>(new Track());
 
-  private int progress; // How many sixteenths of the measure has been played
+  // How many sixteenths of the measure has been played
+  private volatile int progress;
   private final Timer timer;
   private TimerTask progressBeatTask;
-  private boolean playing;
+  private volatile boolean playing;
   private final Collection<ComposerListener> listeners;
 
+  private static final int EVENT_BUFFER_CAPACITY = 256;
+  // How long a voice is kept for sounds whose length cannot be read from the audio file
+  private static final long UNKNOWN_SOUND_NANOS = 2_000_000_000L;
+  private final ComposerEventBuffer events = new ComposerEventBuffer(EVENT_BUFFER_CAPACITY);
+  // When the first sixteenth after the timer was scheduled, and how many have been played since.
+  // Only used by the timer thread after being set by scheduleTimer()
+  private long startNanoTime;
+  private long sixteenthsSinceStart;
+  private long nanosBetweenSixteenths;
+  // How many sixteenths have been played since start(), which instruments with a pattern length of
+  // their own are looped over. Only used by the timer thread after being set by start()
+  private long sixteenthsPlayed;
+
+  // The arrangement played by the composer, or null to loop the track. The tracks of its sections
+  // are created by setArrangement(), so the timer thread only has to switch between them
+  private volatile ArrangementSchedule arrangement;
+  // The arrangement being played, and the section and repeat of it being played. Only used by the
+  // timer thread after being set by start()
+  private ArrangementSchedule playedArrangement;
+  private int playedSection;
+  private int playedRepeat;
+
+  // Decides which sixteenths with a probability are played. The decisions depend on the number of
+  // sixteenths played since start(), so playing from the start with the same seed is reproducible
+  private volatile StepRandom random = new StepRandom(0);
+
+  private record ArrangementSchedule(List<Track> tracks, List<Integer> repeats, boolean looped) {
+  }
+
   private final Map<String, AudioClip> instrumentAudioClips;
 
+  // The available instruments are played as the sounds of the voice pool, which bounds how many
+  // are played at once. The notes of a sixteenth are gathered in arrays reused every sixteenth,
+  // so playing a note does not allocate
+  private final Map<String, Integer> instrumentSounds;
+  private final VoicePool voices;
+  private final int[] noteSounds;
+  private final double[] noteVolumes;
+  // The notes of a swung sixteenth are played later by swingTask, from arrays of their own, as
+  // the arrays above are reused by the next sixteenth. The task is cancelled when the composer
+  // stops, so a swung note is never played after it
+  private final int[] swungSounds;
+  private final double[] swungVolumes;
+  private int swungNotes;
+  private TimerTask swingTask;
+
   // Used for detecting changes in BPM, and updating the timer to reflect this
   private float lastCheckedBpm;
 
@@ -49,7 +118,20 @@ public class Composer {
    */
   public static Composer createSilentComposer(TrackMapperInterface newTrackMapper)
       throws IOException {
-    return new Composer(false, true, newTrackMapper);
+    return new Composer(false, true, newTrackMapper, null);
+  }
+
+  /**
+   * Factory function that creates a composer like {@link #createSilentComposer}, which plays its
+   * notes on the given output instead of audio clips. Useful for testing what is played.
+   *
+   * @param output plays and stops the sounds of the notes, with the sounds numbered in the order
+   *        of instrumentNames.csv
+   * @throws IOException if the reader fails to read instrumentNames.csv
+   */
+  static Composer createSilentComposer(TrackMapperInterface newTrackMapper,
+      VoicePool.Output output) throws IOException {
+    return new Composer(false, true, newTrackMapper, output);
   }
 
   /**
@@ -59,7 +141,7 @@ public class Composer {
    *         load
    */
   public Composer(TrackMapperInterface newTrackMapper) throws IOException {
-    this(true, false, newTrackMapper);
+    this(true, false, newTrackMapper, null);
   }
 
   /**
@@ -69,38 +151,83 @@ public class Composer {
    *        {@linktourl https://docs.oracle.com/javase/7/docs/api/java/lang/Thread.html#setDaemon(boolean)}.
    *        If set to false, the composer will not stop when the window is closed
    * @param testMode If testMode is set to true, the AudioClips will not be loaded
+   * @param testOutput plays the notes instead of the AudioClips, or null to play the AudioClips
    * @throws IOException if the reader fails to read instrumentNames.csv, or the AudioClips fail to
    *         load
    */
-  private Composer(boolean createDaemonTimer, boolean testMode, TrackMapperInterface newTrackMapper)
-      throws IOException {
+  private Composer(boolean createDaemonTimer, boolean testMode, TrackMapperInterface newTrackMapper,
+      VoicePool.Output testOutput) throws IOException {
 
     progress = 0;
     timer = new Timer(createDaemonTimer);
     playing = false;
-    listeners = new ArrayList<>();
-    track = new Track();
+    listeners = new CopyOnWriteArrayList<>();
     trackMapper = newTrackMapper.copy();
 
     // Map instrumentsNames to audio files.
     instrumentAudioClips = new HashMap<>();
+    instrumentSounds = new HashMap<>();
+    final List<AudioClip> audioClips = new ArrayList<>();
+    final List<Long> soundNanos = new ArrayList<>();
     try (BufferedReader instrumentReader = new BufferedReader(new InputStreamReader(
         Composer.class.getResource("instrumentNames.csv").openStream(), StandardCharsets.UTF_8))) {
 
       String line;
       while ((line = instrumentReader.readLine()) != null) {
         final String[] instrument = line.split(",");
+        final URL url = Composer.class.getResource(instrument[1]);
         if (testMode) {
           // Don't load audio during testing. This is because audio is never played, and can't load
           // during CI
           instrumentAudioClips.put(instrument[0], null);
         } else {
-          instrumentAudioClips.put(instrument[0],
-              new AudioClip(Composer.class.getResource(instrument[1]).toExternalForm()));
+          instrumentAudioClips.put(instrument[0], new AudioClip(url.toExternalForm()));
+        }
+        instrumentSounds.put(instrument[0], audioClips.size());
+        audioClips.add(instrumentAudioClips.get(instrument[0]));
+        soundNanos.add(readSoundNanos(url));
+
+      }
+    }
+
+    final VoicePool.Output audioClipOutput = new VoicePool.Output() {
+      @Override
+      public void play(int sound, double volume) {
+        // AudioClips are not loaded in test mode
+        if (audioClips.get(sound) != null) {
+          audioClips.get(sound).play(volume);
         }
+      }
 
+      @Override
+      public void stop(int sound) {
+        if (audioClips.get(sound) != null) {
+          audioClips.get(sound).stop();
+        }
+      }
+    };
+    voices = new VoicePool(VoicePool.DEFAULT_POLYPHONY,
+        soundNanos.stream().mapToLong(Long::longValue).toArray(),
+        testOutput != null ? testOutput : audioClipOutput);
+    noteSounds = new int[audioClips.size()];
+    noteVolumes = new double[audioClips.size()];
+    swungSounds = new int[audioClips.size()];
+    swungVolumes = new double[audioClips.size()];
+  }
+
+  /**
+   * Reads how long the sound in an audio file plays, in nanoseconds.
+   */
+  private static long readSoundNanos(URL url) throws IOException {
+    try {
+      final AudioFileFormat format = AudioSystem.getAudioFileFormat(url);
+      if (format.getFrameLength() != AudioSystem.NOT_SPECIFIED) {
+        return (long) (format.getFrameLength() / format.getFormat().getFrameRate() * 1e9);
       }
+    } catch (UnsupportedAudioFileException e) {
+      // The voice is kept for UNKNOWN_SOUND_NANOS instead
     }
+    return UNKNOWN_SOUND_NANOS;
   }
 
   /**
@@ -123,7 +250,27 @@ public class Composer {
     if (track == null) {
       throw new IllegalArgumentException("Track cannot be null");
     }
-    this.track = track;
+    this.track.set(track);
+  }
+
+  /**
+   * Applies a change to a copy of the track, and replaces the track with the copy. If the track is
+   * replaced by another thread in the meantime, the change is applied again to a copy of the new
+   * track.
+   *
+   * @param change the change to apply
+   * @throws IllegalArgumentException if the change is not valid for the track. The track is then
+   *         left unchanged
+   */
+  private void edit(Consumer<Track> change) {
+    while (true) {
+      final Track current = track.get();
+      final Track changed = current.copy();
+      change.accept(changed);
+      if (track.compareAndSet(current, changed)) {
+        return;
+      }
+    }
   }
 
   /**
@@ -137,30 +284,114 @@ public class Composer {
    * Sets up a scheduled timer task to fire progressBeat(), where the time between sixteenths is
    * calculated by millisecondsBetweenSixteenths().
    */
-  public void start() {
+  public synchronized void start() {
     if (playing) {
       stop();
     }
-    progressBeatTask = new TimerTask() {
-      public void run() {
-        progressBeat();
-      }
-    };
-    timer.scheduleAtFixedRate(progressBeatTask, 0, millisecondsBetweenSixteenths(Track.BPM));
-    lastCheckedBpm = Track.BPM;
+    sixteenthsPlayed = 0;
+    playedArrangement = arrangement;
+    playedSection = 0;
+    playedRepeat = 0;
+    if (playedArrangement != null) {
+      track.set(playedArrangement.tracks().get(0));
+    }
     playing = true;
+    scheduleTimer(track.get().getBpm(), System.nanoTime());
   }
 
   /**
-   * Stops the Composer.
+   * Stops the Composer, and the sounds it is playing.
    */
-  public void stop() {
+  public synchronized void stop() {
     progressBeatTask.cancel();
+    cancelSwingTask();
     playing = false;
+    voices.stopAll();
     progress = 0;
+    events.publish(ComposerEvent.Type.STOPPED, 0, System.nanoTime());
     listeners.forEach(listener -> listener.run(progress));
   }
 
+  /**
+   * Replaces the timer task with one firing progressBeat() at the given BPM, starting at the given
+   * time. Does nothing if the composer has been stopped, as to not restart it when the BPM changes
+   * just as the composer is stopped.
+   *
+   * @param bpm the BPM to play at
+   * @param firstNanoTime when the first sixteenth is due, as given by {@link System#nanoTime()}
+   */
+  private synchronized void scheduleTimer(float bpm, long firstNanoTime) {
+    if (!playing) {
+      return;
+    }
+    if (progressBeatTask != null) {
+      progressBeatTask.cancel();
+    }
+    cancelSwingTask();
+    progressBeatTask = new TimerTask() {
+      public void run() {
+        progressBeat();
+      }
+    };
+    final int period = millisecondsBetweenSixteenths(bpm);
+    final long now = System.nanoTime();
+    final long delay = Math.max(0, (firstNanoTime - now + 500_000L) / 1_000_000L);
+    startNanoTime = now + delay * 1_000_000L;
+    sixteenthsSinceStart = 0;
+    nanosBetweenSixteenths = period * 1_000_000L;
+    timer.scheduleAtFixedRate(progressBeatTask, delay, period);
+    lastCheckedBpm = bpm;
+  }
+
+  /**
+   * Cancels the swung notes waiting to be played, if any.
+   */
+  private synchronized void cancelSwingTask() {
+    if (swingTask != null) {
+      swingTask.cancel();
+      swingTask = null;
+    }
+  }
+
+  /**
+   * Plays the notes of the current sixteenth after the given delay, unless the composer is stopped
+   * or rescheduled first. The delay is less than the period of the timer, so the notes are played
+   * before the next sixteenth reuses the arrays.
+   *
+   * @param notes the number of notes gathered for the sixteenth
+   * @param delay the delay in milliseconds
+   */
+  private synchronized void scheduleSwungNotes(int notes, long delay) {
+    if (!playing) {
+      return;
+    }
+    System.arraycopy(noteSounds, 0, swungSounds, 0, notes);
+    System.arraycopy(noteVolumes, 0, swungVolumes, 0, notes);
+    swungNotes = notes;
+    swingTask = new TimerTask() {
+      public void run() {
+        synchronized (Composer.this) {
+          // Checked while holding the lock, as stop() may have cancelled the task as it started
+          if (swingTask == this) {
+            swingTask = null;
+            playNotes(swungSounds, swungVolumes, swungNotes);
+          }
+        }
+      }
+    };
+    timer.schedule(swingTask, delay);
+  }
+
+  /**
+   * Plays the first count notes through the voice pool.
+   */
+  private void playNotes(int[] sounds, double[] volumes, int count) {
+    final long now = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      voices.noteOn(sounds[i], volumes[i], now);
+    }
+  }
+
   /**
    * Calculates time in milliseconds between sixteenths with the given BPM.
    *
@@ -175,19 +406,134 @@ public class Composer {
    * Plays everything that is set for the current sixteenth. The method runs every sixteenth.
    */
   private void progressBeat() {
-    // Restarts timer if BPM has changed
-    if (lastCheckedBpm != Track.BPM) {
-      start();
+    // The same version of the track is used for the whole sixteenth
+    final Track playedTrack = track.get();
+    // Restarts timer if BPM has changed, continuing from the same sixteenth
+    if (lastCheckedBpm != playedTrack.getBpm()) {
+      scheduleTimer(playedTrack.getBpm(), System.nanoTime());
+      return;
+    }
+    // The track may have been shortened since the last sixteenth
+    final int playedSixteenth = progress < playedTrack.getLength() ? progress : 0;
+    // The timer runs at a fixed rate, so each sixteenth is scheduled a fixed time after the first.
+    // With swing, every second sixteenth is played later than it was scheduled
+    final long swingNanos = playedSixteenth % 2 == 1
+        ? (long) (playedTrack.getSwing() * nanosBetweenSixteenths)
+        : 0;
+    events.publish(ComposerEvent.Type.SIXTEENTH, playedSixteenth,
+        startNanoTime + sixteenthsSinceStart++ * nanosBetweenSixteenths + swingNanos);
+
+    final StepRandom playedRandom = random;
+    int notes = 0;
+    for (String instrument : playedTrack.getInstrumentNames()) {
+      // Instruments with a length of their own loop their pattern regardless of the track
+      final int patternLength = playedTrack.getPatternLength(instrument);
+      final int index = playedTrack.hasOwnLength(instrument)
+          ? (int) (sixteenthsPlayed % patternLength) : playedSixteenth;
+      final Integer sound = instrumentSounds.get(instrument);
+      if (sound != null && playedTrack.isActive(instrument, index) && playedRandom
+          .isPlayed(instrument, sixteenthsPlayed, playedTrack.getProbability(instrument, index))) {
+        noteSounds[notes] = sound;
+        noteVolumes[notes] = (double) playedTrack.getVelocity(instrument, index)
+            / Track.MAX_VELOCITY;
+        notes++;
+      }
+    }
+    if (swingNanos >= 1_000_000L && notes > 0) {
+      scheduleSwungNotes(notes, swingNanos / 1_000_000L);
+    } else {
+      playNotes(noteSounds, noteVolumes, notes);
+    }
+    sixteenthsPlayed++;
+    progress = (playedSixteenth + 1) % playedTrack.getLength();
+    if (progress == 0 && !switchSection()) {
+      stop();
       return;
     }
-    track.getInstrumentNames().stream()
-        .filter(instrument -> track.getPattern(instrument).get(progress)).forEach(instrument -> {
-          instrumentAudioClips.get(instrument).play();
-        });
-    progress++;
-    progress = progress % Track.TRACK_LENGTH;
     // Fire events
-    listeners.forEach(listener -> listener.run(progress));
+    final int nextSixteenth = progress;
+    listeners.forEach(listener -> listener.run(nextSixteenth));
+  }
+
+  /**
+   * Moves on to the next repeat or section of the arrangement, once the track has been played to
+   * the end. The track of the next section is set as soon as the last sixteenth of the previous
+   * one has been played, a sixteenth ahead of when it is due. If the tempo changes, the timer is
+   * rescheduled to play the first sixteenth of the section when the next sixteenth was due, so
+   * switching sections does not move the beat.
+   *
+   * @return false if the arrangement has been played to the end
+   */
+  private boolean switchSection() {
+    final ArrangementSchedule current = arrangement;
+    if (current == null) {
+      playedArrangement = null;
+      return true;
+    }
+    if (current != playedArrangement) {
+      // A new arrangement is played from the start
+      playedArrangement = current;
+      playedSection = 0;
+      playedRepeat = 0;
+    } else if (++playedRepeat < current.repeats().get(playedSection)) {
+      // The track, including any edits, is repeated
+      return true;
+    } else {
+      playedRepeat = 0;
+      playedSection++;
+      if (playedSection == current.tracks().size()) {
+        if (!current.looped()) {
+          return false;
+        }
+        playedSection = 0;
+      }
+    }
+
+    final Track nextTrack = current.tracks().get(playedSection);
+    track.set(nextTrack);
+    if (nextTrack.getBpm() != lastCheckedBpm) {
+      scheduleTimer(nextTrack.getBpm(),
+          startNanoTime + sixteenthsSinceStart * nanosBetweenSixteenths);
+    }
+    return true;
+  }
+
+  /**
+   * Plays an arrangement instead of looping the track. If the composer is playing, the current
+   * track is played to the end before the arrangement starts, and otherwise the track of the first
+   * section is set right away.
+   *
+   * <p>
+   * The track of each section is created from the arrangement when it is set, so later changes to
+   * the arrangement are not played unless it is set again. The track being played may be edited as
+   * usual, and the edits are kept while its section is repeated, but not when the section is
+   * played again later.
+   * </p>
+   *
+   * @param arrangement the arrangement to play
+   * @throws IllegalArgumentException if the arrangement is null or has no sections
+   */
+  public void setArrangement(Arrangement arrangement) {
+    if (arrangement == null || arrangement.getSections().isEmpty()) {
+      throw new IllegalArgumentException("An arrangement must have at least one section");
+    }
+    final ArrangementSchedule newArrangement = new ArrangementSchedule(
+        arrangement.getSectionTracks(),
+        arrangement.getSections().stream().map(Arrangement.Section::repeats).toList(),
+        arrangement.isLooped());
+    synchronized (this) {
+      this.arrangement = newArrangement;
+      if (!playing) {
+        setTrack(newArrangement.tracks().get(0));
+      }
+    }
+  }
+
+  /**
+   * Stops playing the arrangement, if any, so the current track is looped.
+   */
+  public void clearArrangement() {
+    arrangement = null;
   }
 
   /**
@@ -198,7 +544,8 @@ public class Composer {
   }
 
   /**
-   * Adds a listener that listens for when the beat progresses.
+   * Adds a listener that listens for when the beat progresses. The listener is run on the timer
+   * thread, and should return quickly, as the next sixteenth waits for it.
    *
    * @param listener the listener to be added
    */
@@ -206,6 +553,14 @@ public class Composer {
     listeners.add(listener);
   }
 
+  /**
+   * Creates a reader of the events published by the composer from now on. Each consumer should
+   * have its own reader, and drain it on its own thread.
+   */
+  public ComposerEventBuffer.Reader newEventReader() {
+    return events.newReader();
+  }
+
   /**
    * Removes a listener that listens for when the beat progresses.
    *
@@ -217,26 +572,75 @@ public class Composer {
   }
 
   /**
-   * Returns the track length.
+   * Returns the length of new tracks, i.e. {@link Track#TRACK_LENGTH}. See {@link #getLength()} for
+   * the length of the current track.
    */
   public static int getTrackLength() {
     return Track.TRACK_LENGTH;
   }
 
+  /**
+   * Returns the number of sixteenths the track loops over.
+   */
+  public int getLength() {
+    return track.get().getLength();
+  }
+
+  /**
+   * Sets the number of sixteenths the track loops over. See {@link Track#setLength(int)}.
+   *
+   * @param length the new length of the track
+   */
+  public void setLength(int length) {
+    edit(changed -> changed.setLength(length));
+  }
+
+  /**
+   * Returns the tempo of the track in beats per minute.
+   */
+  public float getBpm() {
+    return track.get().getBpm();
+  }
+
+  /**
+   * Sets the tempo of the track. A playing composer changes tempo from the next sixteenth.
+   *
+   * @param bpm the new tempo in beats per minute
+   */
+  public void setBpm(float bpm) {
+    edit(changed -> changed.setBpm(bpm));
+  }
+
+  /**
+   * Returns the swing of the track, as a fraction of a sixteenth.
+   */
+  public float getSwing() {
+    return track.get().getSwing();
+  }
+
+  /**
+   * Sets the swing of the track. See {@link Track#setSwing(float)}.
+   *
+   * @param swing the new swing, as a fraction of a sixteenth
+   */
+  public void setSwing(float swing) {
+    edit(changed -> changed.setSwing(swing));
+  }
+
   /**
    * Sets the track's name.
    *
    * @param trackName the new name
    */
   public void setTrackName(String trackName) {
-    track.setTrackName(trackName);
+    edit(changed -> changed.setTrackName(trackName));
   }
 
   /**
    * Gets the track's name.
    */
   public String getTrackName() {
-    return track.getTrackName();
+    return track.get().getTrackName();
   }
 
   /**
@@ -245,21 +649,21 @@ public class Composer {
    * @param artistName the new artist name
    */
   public void setArtistName(String artistName) {
-    track.setArtistName(artistName);
+    edit(changed -> changed.setArtistName(artistName));
   }
 
   /**
    * Gets the artist name of the track.
    */
   public String getArtistName() {
-    return track.getArtistName();
+    return track.get().getArtistName();
   }
 
   /**
    * Returns a list of all instruments in the track.
    */
   public List<String> getInstrumentsInTrack() {
-    return track.getInstrumentNames();
+    return track.get().getInstrumentNames();
   }
 
   /**
@@ -268,7 +672,7 @@ public class Composer {
    * @param instrumentName the name of the instrument to add
    */
   public void addInstrumentToTrack(String instrumentName) {
-    track.addInstrument(instrumentName);
+    edit(changed -> changed.addInstrument(instrumentName));
   }
 
   /**
@@ -278,7 +682,7 @@ public class Composer {
    * @param pattern the pattern of the instrument
    */
   public void addInstrumentToTrack(String instrumentName, List<Boolean> pattern) {
-    track.addInstrument(instrumentName, pattern);
+    edit(changed -> changed.addInstrument(instrumentName, pattern));
   }
 
   /**
@@ -287,7 +691,7 @@ public class Composer {
    * @param instrumentName the name of the instrument to remove
    */
   public void removeInstrumentFromTrack(String instrumentName) {
-    track.removeInstrument(instrumentName);
+    edit(changed -> changed.removeInstrument(instrumentName));
   }
 
   /**
@@ -296,7 +700,27 @@ public class Composer {
    * @param instrumentName the name of the instrument to get the pattern of
    */
   public List<Boolean> getTrackPattern(String instrumentName) {
-    return track.getPattern(instrumentName);
+    return track.get().getPattern(instrumentName);
+  }
+
+  /**
+   * Returns the number of sixteenths in the pattern of the instrument.
+   *
+   * @param instrumentName the name of the instrument to get the pattern length of
+   */
+  public int getPatternLength(String instrumentName) {
+    return track.get().getPatternLength(instrumentName);
+  }
+
+  /**
+   * Gives the instrument a pattern length of its own. See
+   * {@link Track#setPatternLength(String, int)}.
+   *
+   * @param instrumentName the name of the instrument to change
+   * @param patternLength the new number of sixteenths in the pattern of the instrument
+   */
+  public void setPatternLength(String instrumentName, int patternLength) {
+    edit(changed -> changed.setPatternLength(instrumentName, patternLength));
   }
 
   /**
@@ -306,7 +730,125 @@ public class Composer {
    * @param sixteenthIndex the index of the sixteenth
    */
   public void toggleTrackSixteenth(String instrumentName, int sixteenthIndex) {
-    track.toggleSixteenth(instrumentName, sixteenthIndex);
+    edit(changed -> changed.toggleSixteenth(instrumentName, sixteenthIndex));
+  }
+
+  /**
+   * Returns how hard a sixteenth of the track is played, within [0-Track.MAX_VELOCITY].
+   *
+   * @param instrumentName the name of the instrument that plays the sixteenth
+   * @param sixteenthIndex the index of the sixteenth
+   */
+  public int getTrackVelocity(String instrumentName, int sixteenthIndex) {
+    return track.get().getVelocity(instrumentName, sixteenthIndex);
+  }
+
+  /**
+   * Sets how hard a sixteenth of the track is played.
+   *
+   * @param instrumentName the name of the instrument that plays the sixteenth
+   * @param sixteenthIndex the index of the sixteenth
+   * @param velocity the new velocity, within [0-Track.MAX_VELOCITY]
+   */
+  public void setTrackVelocity(String instrumentName, int sixteenthIndex, int velocity) {
+    edit(changed -> changed.setVelocity(instrumentName, sixteenthIndex, velocity));
+  }
+
+  /**
+   * Returns the probability in percent of a sixteenth of the track being played.
+   *
+   * @param instrumentName the name of the instrument that plays the sixteenth
+   * @param sixteenthIndex the index of the sixteenth
+   */
+  public int getTrackProbability(String instrumentName, int sixteenthIndex) {
+    return track.get().getProbability(instrumentName, sixteenthIndex);
+  }
+
+  /**
+   * Sets the probability of a sixteenth of the track being played.
+   *
+   * @param instrumentName the name of the instrument that plays the sixteenth
+   * @param sixteenthIndex the index of the sixteenth
+   * @param probability the new probability in percent, within [0-Track.MAX_PROBABILITY]
+   */
+  public void setTrackProbability(String instrumentName, int sixteenthIndex, int probability) {
+    edit(changed -> changed.setProbability(instrumentName, sixteenthIndex, probability));
+  }
+
+  /**
+   * Returns the seed deciding which sixteenths with a probability are played.
+   */
+  public long getSeed() {
+    return random.getSeed();
+  }
+
+  /**
+   * Sets the seed deciding which sixteenths with a probability are played. Playing a track from
+   * the start with the same seed plays the same sixteenths.
+   *
+   * @param seed the new seed
+   */
+  public void setSeed(long seed) {
+    random = new StepRandom(seed);
+  }
+
+  /**
+   * Returns how many sounds may be played at once.
+   */
+  public int getMaxPolyphony() {
+    return voices.getMaxPolyphony();
+  }
+
+  /**
+   * Returns how many sounds are being played.
+   */
+  int getActiveVoices() {
+    return voices.getActiveVoices(System.nanoTime());
+  }
+
+  /**
+   * Sets how many sounds may be played at once. When a note is played while all voices are
+   * playing, the oldest voice is stopped.
+   *
+   * @param maxPolyphony the new number of voices, within [1-VoicePool.MAX_POLYPHONY]
+   */
+  public void setMaxPolyphony(int maxPolyphony) {
+    voices.setMaxPolyphony(maxPolyphony);
+  }
+
+  /**
+   * Returns the choke group of an instrument, or VoicePool.NO_CHOKE_GROUP if it is not in one.
+   *
+   * @param instrumentName the name of an available instrument
+   * @throws IllegalArgumentException if the instrument is not available
+   */
+  public int getChokeGroup(String instrumentName) {
+    return voices.getChokeGroup(getSound(instrumentName));
+  }
+
+  /**
+   * Puts an instrument in a choke group, where playing the instrument stops every instrument of
+   * the same group, e.g. a closed hihat cutting off an open one.
+   *
+   * @param instrumentName the name of an available instrument
+   * @param chokeGroup the group, or VoicePool.NO_CHOKE_GROUP to remove the instrument from its
+   *        group
+   * @throws IllegalArgumentException if the instrument is not available, or the group is negative
+   */
+  public void setChokeGroup(String instrumentName, int chokeGroup) {
+    voices.setChokeGroup(getSound(instrumentName), chokeGroup);
+  }
+
+  /**
+   * Returns the index of an available instrument in the voice pool.
+   */
+  private int getSound(String instrumentName) {
+    final Integer sound = instrumentSounds.get(instrumentName);
+    if (sound == null) {
+      throw new IllegalArgumentException(
+          "Instrument %s is not available".formatted(instrumentName));
+    }
+    return sound;
   }
 
   /**
@@ -324,7 +866,17 @@ public class Composer {
    * @throws IOException if the writing fails
    */
   public void saveTrack(Writer writer) throws IOException {
-    trackMapper.writeTrack(track.copy(), writer);
+    trackMapper.writeTrack(track.get().copy(), writer);
+  }
+
+  /**
+   * Uses the output stream to save the track from the composer.
+   *
+   * @param output the output stream that the track is written to
+   * @throws IOException if the writing fails
+   */
+  public void saveTrack(OutputStream output) throws IOException {
+    trackMapper.writeTrack(track.get().copy(), output);
   }
 
   /**
@@ -335,9 +887,23 @@ public class Composer {
    * @throws IllegalArgumentException if any of the read tracks are null
    */
   public void loadTrack(Reader reader) throws IOException {
-    Track newTrack = null;
-    newTrack = trackMapper.readTrack(reader);
-    if (newTrack.getArtistName() == null || newTrack.getTrackName() == null) {
+    loadTrack(trackMapper.readTrack(reader));
+  }
+
+  /**
+   * Uses the input stream to load a new track into the composer.
+   *
+   * @param input the input stream of the track to load
+   * @throws IOException if the reading fails
+   * @throws IllegalArgumentException if any of the read tracks are null
+   */
+  public void loadTrack(InputStream input) throws IOException {
+    loadTrack(trackMapper.readTrack(input));
+  }
+
+  private void loadTrack(Track newTrack) {
+    if (newTrack == null || newTrack.getArtistName() == null
+        || newTrack.getTrackName() == null) {
       throw new IllegalArgumentException("Reader gave a track with null fields");
     } else {
       setTrack(newTrack);
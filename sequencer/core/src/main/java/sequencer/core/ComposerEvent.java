@@ -0,0 +1,29 @@
+package sequencer.core;
+
+/**
+ * An event published by the {@link Composer} to its {@link ComposerEventBuffer}.
+ *
+ * @param sequence the number of events published before this one, which increases by one for each
+ *        event
+ * @param type what happened
+ * @param sixteenth the index of the sixteenth played, or 0 when the composer is stopped
+ * @param nanoTime when the event was scheduled to happen, as given by {@link System#nanoTime()}.
+ *        Sixteenths are scheduled a fixed interval apart, so the time of a sixteenth does not
+ *        include any delay before it was played
+ */
+public record ComposerEvent(long sequence, Type type, int sixteenth, long nanoTime) {
+
+  /**
+   * The types of events published by the composer.
+   */
+  public enum Type {
+    /**
+     * The sixteenth was played.
+     */
+    SIXTEENTH,
+    /**
+     * The composer was stopped.
+     */
+    STOPPED
+  }
+}
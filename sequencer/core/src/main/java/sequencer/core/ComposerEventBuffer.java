@@ -0,0 +1,118 @@
+package sequencer.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A fixed size ring buffer of the latest {@link ComposerEvent}s, which any number of consumers can
+ * read on their own threads.
+ *
+ * <p>
+ * Publishing an event never waits for the consumers, and neither publishing nor reading takes any
+ * locks. Each consumer reads through its own {@link Reader}. A reader which falls more than the
+ * capacity of the buffer behind misses the oldest events, as they are overwritten, and continues
+ * from the oldest event still in the buffer.
+ * </p>
+ */
+public class ComposerEventBuffer {
+
+  private final AtomicReferenceArray<ComposerEvent> slots;
+  private final int mask;
+  // The sequence of the next event to be published
+  private final AtomicLong nextSequence = new AtomicLong();
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param capacity the number of events kept in the buffer, which must be a power of two
+   * @throws IllegalArgumentException if the capacity is not a power of two
+   */
+  public ComposerEventBuffer(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+          "Capacity must be a power of two. Found %s".formatted(capacity));
+    }
+    slots = new AtomicReferenceArray<>(capacity);
+    mask = capacity - 1;
+  }
+
+  public int getCapacity() {
+    return slots.length();
+  }
+
+  /**
+   * Publishes an event to all readers. May be called from several threads at once.
+   *
+   * @param type what happened
+   * @param sixteenth the index of the sixteenth played
+   * @param nanoTime when the event was scheduled to happen
+   * @return the published event
+   */
+  ComposerEvent publish(ComposerEvent.Type type, int sixteenth, long nanoTime) {
+    final long sequence = nextSequence.getAndIncrement();
+    final ComposerEvent event = new ComposerEvent(sequence, type, sixteenth, nanoTime);
+    slots.set(index(sequence), event);
+    return event;
+  }
+
+  /**
+   * Creates a reader of the events published from now on. A reader should only be used by one
+   * thread at a time.
+   */
+  public Reader newReader() {
+    return new Reader(nextSequence.get());
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence & mask);
+  }
+
+  /**
+   * Reads the events of a {@link ComposerEventBuffer} in the order they were published.
+   */
+  public class Reader {
+
+    private long readSequence;
+    private long dropped;
+
+    private Reader(long readSequence) {
+      this.readSequence = readSequence;
+    }
+
+    /**
+     * Passes all events published since the last call to the consumer, in order, and returns the
+     * number of events passed. Events which were overwritten before being read are skipped, and
+     * counted by {@link #getDropped()}.
+     *
+     * @param consumer the consumer of the events
+     */
+    public int drain(Consumer<ComposerEvent> consumer) {
+      int drained = 0;
+      while (true) {
+        final ComposerEvent event = slots.get(index(readSequence));
+        if (event == null || event.sequence() < readSequence) {
+          // The event has not been published yet
+          return drained;
+        }
+        if (event.sequence() > readSequence) {
+          // The event was overwritten, so continue from the oldest event in the buffer
+          final long oldest = Math.max(readSequence + 1, nextSequence.get() - slots.length());
+          dropped += oldest - readSequence;
+          readSequence = oldest;
+          continue;
+        }
+        consumer.accept(event);
+        readSequence++;
+        drained++;
+      }
+    }
+
+    /**
+     * Returns the number of events this reader has missed, because it fell too far behind.
+     */
+    public long getDropped() {
+      return dropped;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package sequencer.core;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Mixes voices of PCM samples into an output buffer, the inner loop of rendering sound in
+ * software.
+ *
+ * <p>
+ * Samples are floats within [-1, 1]. A buffer is rendered by clearing it, adding each voice to it
+ * with {@link #mix(float[], int, float, float[], int)}, and finally clipping the sum with
+ * {@link #clip(float[], int)}. All kernels give exactly the same results, and only differ in
+ * speed.
+ * </p>
+ *
+ * <p>
+ * The {@link #VECTOR} kernel uses the incubating Vector API, and is provided as a service by the
+ * {@code sequencer.vectormix} module, so this module is built against the API of a release. It is
+ * only available when that module is found together with the {@code jdk.incubator.vector} module,
+ * and otherwise the {@link #SCALAR} kernel is used. The kernel can also be chosen with the
+ * {@value #KERNEL_PROPERTY} system property.
+ * </p>
+ */
+public interface MixKernel {
+
+  /**
+   * Name of the kernel adding one sample at a time.
+   */
+  String SCALAR = "scalar";
+
+  /**
+   * Name of the kernel adding as many samples at a time as the CPU supports.
+   */
+  String VECTOR = "vector";
+
+  /**
+   * System property with the name of the kernel returned by {@link #create()}.
+   */
+  String KERNEL_PROPERTY = "sequencer.mixKernel";
+
+  /**
+   * Returns the name of the kernel, as given to {@link #of(String)}.
+   */
+  String getName();
+
+  /**
+   * Adds samples multiplied by a gain to the output, i.e.
+   * {@code output[i] += samples[sampleOffset + i] * gain} for each i within [0-length).
+   *
+   * @param samples the samples of the voice
+   * @param sampleOffset the index of the first sample to add
+   * @param gain the gain of the voice
+   * @param output the buffer to add the samples to, from index 0
+   * @param length the number of samples to add
+   * @throws IndexOutOfBoundsException if the samples or the output are shorter than length
+   */
+  void mix(float[] samples, int sampleOffset, float gain, float[] output, int length);
+
+  /**
+   * Limits the samples of the output to [-1, 1].
+   *
+   * @param output the buffer to clip, from index 0
+   * @param length the number of samples to clip
+   * @throws IndexOutOfBoundsException if the output is shorter than length
+   */
+  void clip(float[] output, int length);
+
+  /**
+   * Returns true if the {@link #VECTOR} kernel can be used.
+   */
+  static boolean isVectorAvailable() {
+    return findProvided(VECTOR).isPresent();
+  }
+
+  /**
+   * Returns the kernel with the given name.
+   *
+   * @param name {@link #SCALAR} or {@link #VECTOR}
+   * @throws IllegalArgumentException if there is no kernel with the name, or it is not available
+   */
+  static MixKernel of(String name) {
+    if (SCALAR.equals(name)) {
+      return new ScalarMixKernel();
+    }
+    if (VECTOR.equals(name)) {
+      return findProvided(VECTOR).orElseThrow(() -> new IllegalArgumentException(
+          "The %s kernel requires the sequencer.vectormix and jdk.incubator.vector modules"
+              .formatted(VECTOR)));
+    }
+    throw new IllegalArgumentException("Unknown mix kernel: " + name);
+  }
+
+  /**
+   * Returns the kernel named by the {@value #KERNEL_PROPERTY} system property, or the fastest
+   * available kernel if the property is not set.
+   *
+   * @throws IllegalArgumentException if the property names a kernel which is not available
+   */
+  static MixKernel create() {
+    final String name = System.getProperty(KERNEL_PROPERTY);
+    if (name != null) {
+      return of(name);
+    }
+    return of(isVectorAvailable() ? VECTOR : SCALAR);
+  }
+
+  /**
+   * Returns the kernel with the given name provided as a service, if any. Providers which fail to
+   * load, such as the vector kernel on a class path without the jdk.incubator.vector module, are
+   * skipped.
+   */
+  private static Optional<MixKernel> findProvided(String name) {
+    final Iterator<MixKernel> providers = ServiceLoader.load(MixKernel.class).iterator();
+    try {
+      while (providers.hasNext()) {
+        try {
+          final MixKernel kernel = providers.next();
+          if (name.equals(kernel.getName())) {
+            return Optional.of(kernel);
+          }
+        } catch (ServiceConfigurationError | LinkageError e) {
+          // The provider could not be created, so the next one is tried instead
+        }
+      }
+    } catch (ServiceConfigurationError e) {
+      // The remaining providers could not be found
+    }
+    return Optional.empty();
+  }
+}
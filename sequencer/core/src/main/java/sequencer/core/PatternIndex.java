@@ -0,0 +1,185 @@
+package sequencer.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The {@link PatternIndex} keeps the patterns of many tracks in memory as bit masks, and is used to
+ * find the tracks with the most similar rhythm to a given track.
+ *
+ * <p>
+ * Each instrument seen by the index is given a slot of {@link Track#TRACK_LENGTH} bits, and the
+ * signature of a track is the patterns of all its instruments packed into their slots. Only the
+ * first {@link Track#TRACK_LENGTH} sixteenths of a track are indexed, so longer tracks are compared
+ * by their first bar, and instruments with a pattern length of their own are looped over it. The
+ * distance between two tracks is the Hamming distance between their signatures, i.e. the number of
+ * sixteenths which are played in only one of the tracks, which is computed with
+ * {@link Long#bitCount(long)} one word at a time.
+ * </p>
+ */
+public class PatternIndex {
+
+  private final Map<String, Integer> instrumentSlots = new HashMap<>();
+  private final Map<Integer, long[]> signatures = new HashMap<>();
+
+  private record Neighbour(int id, int distance) {
+  }
+
+  /**
+   * Adds the pattern of a track to the index, replacing any track previously added with the id.
+   *
+   * @param id the id of the track
+   * @param track the track to add
+   * @throws IllegalArgumentException if track is {@code null}
+   */
+  public synchronized void add(int id, Track track) {
+    if (track == null) {
+      throw new IllegalArgumentException("track cannot be null");
+    }
+    signatures.put(id, signatureOf(track));
+  }
+
+  /**
+   * Removes a track from the index.
+   *
+   * @param id the id of the track to remove
+   */
+  public synchronized void remove(int id) {
+    signatures.remove(id);
+  }
+
+  /**
+   * Removes all tracks from the index.
+   */
+  public synchronized void clear() {
+    signatures.clear();
+  }
+
+  /**
+   * Returns true if a track with the given id is in the index.
+   */
+  public synchronized boolean contains(int id) {
+    return signatures.containsKey(id);
+  }
+
+  /**
+   * Returns the number of tracks in the index.
+   */
+  public synchronized int size() {
+    return signatures.size();
+  }
+
+  /**
+   * Returns the distance between two tracks in the index.
+   *
+   * @throws IllegalArgumentException if any of the tracks are not in the index
+   */
+  public synchronized int distance(int id, int otherId) {
+    return distance(getSignature(id), getSignature(otherId));
+  }
+
+  /**
+   * Returns the ids of the tracks with the most similar patterns to the track with the given id,
+   * nearest first. The track itself is not included.
+   *
+   * @param id the id of the track to compare with
+   * @param k the maximum number of ids to return
+   * @throws IllegalArgumentException if the track is not in the index, or k is negative
+   */
+  public synchronized List<Integer> nearest(int id, int k) {
+    return nearest(getSignature(id), id, k);
+  }
+
+  /**
+   * Returns the ids of the tracks with the most similar patterns to the given track, nearest first.
+   *
+   * @param track the track to compare with
+   * @param k the maximum number of ids to return
+   * @throws IllegalArgumentException if k is negative
+   */
+  public synchronized List<Integer> nearest(Track track, int k) {
+    return nearest(signatureOf(track), null, k);
+  }
+
+  // Helpers
+
+  private long[] getSignature(int id) {
+    final long[] signature = signatures.get(id);
+    if (signature == null) {
+      throw new IllegalArgumentException("No track in the index with the id " + id);
+    }
+    return signature;
+  }
+
+  private List<Integer> nearest(long[] signature, Integer excludedId, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k cannot be negative: " + k);
+    }
+
+    // The k nearest tracks so far, with the furthest of them at the head
+    final Comparator<Neighbour> byDistance =
+        Comparator.comparingInt(Neighbour::distance).thenComparingInt(Neighbour::id);
+    final PriorityQueue<Neighbour> nearest = new PriorityQueue<>(byDistance.reversed());
+
+    for (Map.Entry<Integer, long[]> entry : signatures.entrySet()) {
+      if (k == 0 || entry.getKey().equals(excludedId)) {
+        continue;
+      }
+      final Neighbour candidate =
+          new Neighbour(entry.getKey(), distance(signature, entry.getValue()));
+      if (nearest.size() < k) {
+        nearest.add(candidate);
+      } else if (byDistance.compare(candidate, nearest.peek()) < 0) {
+        nearest.poll();
+        nearest.add(candidate);
+      }
+    }
+
+    final List<Neighbour> sorted = new ArrayList<>(nearest);
+    sorted.sort(byDistance);
+    return sorted.stream().map(Neighbour::id).toList();
+  }
+
+  private long[] signatureOf(Track track) {
+    for (String instrument : track.getInstrumentNames()) {
+      instrumentSlots.putIfAbsent(instrument, instrumentSlots.size());
+    }
+
+    final long[] signature =
+        new long[(instrumentSlots.size() * Track.TRACK_LENGTH + Long.SIZE - 1) / Long.SIZE];
+    for (String instrument : track.getInstrumentNames()) {
+      final int offset = instrumentSlots.get(instrument) * Track.TRACK_LENGTH;
+      final int indexedLength = Math.min(track.getLength(), Track.TRACK_LENGTH);
+      final int patternLength = track.getPatternLength(instrument);
+      for (int i = 0; i < indexedLength; i++) {
+        if (track.isActive(instrument, i % patternLength)) {
+          final int bit = offset + i;
+          signature[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+        }
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Returns the Hamming distance between two signatures. Signatures created before new instruments
+   * were added to the index are shorter, and their missing words are treated as empty.
+   */
+  private static int distance(long[] signature, long[] other) {
+    final long[] shorter = signature.length <= other.length ? signature : other;
+    final long[] longer = shorter == signature ? other : signature;
+
+    int distance = 0;
+    for (int i = 0; i < shorter.length; i++) {
+      distance += Long.bitCount(shorter[i] ^ longer[i]);
+    }
+    for (int i = shorter.length; i < longer.length; i++) {
+      distance += Long.bitCount(longer[i]);
+    }
+    return distance;
+  }
+}
@@ -0,0 +1,32 @@
+package sequencer.core;
+
+import java.util.Objects;
+
+/**
+ * The {@link MixKernel#SCALAR} kernel, adding one sample at a time. Used when the Vector API is not
+ * available.
+ */
+final class ScalarMixKernel implements MixKernel {
+
+  @Override
+  public String getName() {
+    return SCALAR;
+  }
+
+  @Override
+  public void mix(float[] samples, int sampleOffset, float gain, float[] output, int length) {
+    Objects.checkFromIndexSize(sampleOffset, length, samples.length);
+    Objects.checkFromIndexSize(0, length, output.length);
+    for (int i = 0; i < length; i++) {
+      output[i] += samples[sampleOffset + i] * gain;
+    }
+  }
+
+  @Override
+  public void clip(float[] output, int length) {
+    Objects.checkFromIndexSize(0, length, output.length);
+    for (int i = 0; i < length; i++) {
+      output[i] = Math.max(-1f, Math.min(1f, output[i]));
+    }
+  }
+}
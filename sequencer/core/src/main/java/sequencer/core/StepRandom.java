@@ -0,0 +1,61 @@
+package sequencer.core;
+
+/**
+ * Decides whether sixteenths with a probability below {@link Track#MAX_PROBABILITY} are played.
+ *
+ * <p>
+ * The decision is a hash of the seed, the instrument and how many sixteenths have been played, so
+ * it does not depend on which other sixteenths were decided before it. Playing the same track with
+ * the same seed therefore plays the same sixteenths every time, even if other instruments are
+ * edited, and the decision can be made from any thread without locking or allocating.
+ * </p>
+ */
+public class StepRandom {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final long seed;
+
+  /**
+   * Creates a random source with the given seed.
+   *
+   * @param seed the seed, where equal seeds make equal decisions
+   */
+  public StepRandom(long seed) {
+    this.seed = seed;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Returns true if the sixteenth should be played.
+   *
+   * @param instrumentName the instrument playing the sixteenth
+   * @param sixteenthsPlayed how many sixteenths have been played before this one
+   * @param probability the probability of playing the sixteenth, in percent
+   */
+  public boolean isPlayed(String instrumentName, long sixteenthsPlayed, int probability) {
+    if (probability >= Track.MAX_PROBABILITY) {
+      return true;
+    }
+    if (probability <= 0) {
+      return false;
+    }
+    final long hash = mix(seed ^ mix(sixteenthsPlayed + instrumentName.hashCode() * GOLDEN_GAMMA));
+    // The upper 31 bits give a uniform value in [0, 2^31)
+    return (hash >>> 33) * Track.MAX_PROBABILITY < (long) probability << 31;
+  }
+
+  // Helpers
+
+  /**
+   * The finalizer of SplitMix64, which spreads every bit of the input over the whole output.
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+}
@@ -1,6 +1,7 @@
 package sequencer.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,18 +9,46 @@ import java.util.Map;
 /**
  * The {@link Track} class represents a group of instruments programmed to a specific pattern, and
  * is also used to edit the pattern of these instruments.
+ *
+ * <p>
+ * A track loops over its length in sixteenths, which is {@link #TRACK_LENGTH} (one bar of 4/4)
+ * unless changed, so a bar of 3/4 is 12 sixteenths and four bars of 4/4 are 64. Each instrument
+ * usually has a pattern of the same length as the track, but may be given a length of its own to
+ * play a polyrhythm, in which case it loops its own pattern regardless of the track. Patterns are
+ * stored with one bit per sixteenth, so a track takes memory in proportion to its length.
+ * </p>
+ *
+ * <p>
+ * Each sixteenth also has a velocity, i.e. how hard it is played, and a probability of being
+ * played at all. They are stored with a byte per sixteenth, but only for instruments where any
+ * sixteenth differs from {@link #MAX_VELOCITY} and {@link #MAX_PROBABILITY}, so tracks which do not
+ * use them take no extra memory.
+ * </p>
  */
 public class Track {
 
+  // The default tempo, length and swing of a track
   public static final float BPM = 128f;
   public static final int TRACK_LENGTH = 16;
+  public static final float SWING = 0f;
+
+  public static final float MIN_BPM = 20f;
+  public static final float MAX_BPM = 300f;
+  public static final int MAX_LENGTH = 256;
+  public static final float MAX_SWING = 0.5f;
+  public static final int MAX_VELOCITY = 127;
+  // Probabilities are given in percent
+  public static final int MAX_PROBABILITY = 100;
 
   public static final int TRACK_NAME_LENGTH = 30;
   public static final int ARTIST_NAME_LENGTH = 30;
 
   private String trackName;
   private String artistName;
-  private Map<String, List<Boolean>> instruments = new HashMap<>();
+  private float bpm = BPM;
+  private int length = TRACK_LENGTH;
+  private float swing = SWING;
+  private Map<String, PackedPattern> instruments = new HashMap<>();
 
   /**
    * Constructor for creating an empty track. We always construct the track empty and then add
@@ -69,7 +98,139 @@ public class Track {
       throw new IllegalArgumentException(
           "Could not find pattern for instrument since it was not part of the track");
     }
-    return new ArrayList<>(instruments.get(instrumentName));
+    return instruments.get(instrumentName).toList();
+  }
+
+  /**
+   * Returns whether an instrument is played at a sixteenth of its pattern. Unlike
+   * {@link #getPattern(String)}, the pattern is not copied.
+   *
+   * @param instrumentName the instrument to check
+   * @param sixteenthIndex index of the sixteenth in the instruments pattern
+   * @throws IllegalArgumentException if the instrument is not in the track, or the index is outside
+   *         the pattern of the instrument
+   */
+  public boolean isActive(String instrumentName, int sixteenthIndex) {
+    return getPackedPattern(instrumentName, sixteenthIndex).get(sixteenthIndex);
+  }
+
+  /**
+   * Get the number of sixteenths in the pattern of an instrument.
+   *
+   * @param instrumentName the instrument which we want the pattern length of
+   * @throws IllegalArgumentException if the instrument is not in the track
+   */
+  public int getPatternLength(String instrumentName) {
+    if (instrumentName == null || !instruments.containsKey(instrumentName)) {
+      throw new IllegalArgumentException(
+          "Could not find pattern for instrument since it was not part of the track");
+    }
+    return instruments.get(instrumentName).length;
+  }
+
+  /**
+   * Returns true if the instrument was given a pattern length of its own with
+   * {@link #setPatternLength(String, int)}, even if it is the same as the length of the track.
+   *
+   * @param instrumentName the instrument to check
+   * @throws IllegalArgumentException if the instrument is not in the track
+   */
+  public boolean hasOwnLength(String instrumentName) {
+    return getPackedPattern(instrumentName, 0).ownLength;
+  }
+
+  /**
+   * Gives an instrument a pattern length of its own, e.g. to play three sixteenths against the
+   * four of the other instruments. The pattern is cut at the end, or filled with inactive
+   * sixteenths. The instrument keeps its length when the length of the track is changed, also if
+   * the two lengths are the same.
+   *
+   * @param instrumentName the instrument to change
+   * @param patternLength the new number of sixteenths in the pattern of the instrument
+   * @throws IllegalArgumentException if the instrument is not in the track, or the length is not
+   *         within [1-MAX_LENGTH]
+   */
+  public void setPatternLength(String instrumentName, int patternLength) {
+    if (instrumentName == null || !instruments.containsKey(instrumentName)) {
+      throw new IllegalArgumentException(
+          "Cannot update instrument since it was not part of the track");
+    }
+    checkLength(patternLength);
+    final PackedPattern resized = instruments.get(instrumentName).resized(patternLength);
+    resized.ownLength = true;
+    instruments.put(instrumentName, resized);
+  }
+
+  /**
+   * Get the tempo of the track.
+   *
+   * @return the tempo in beats (quarter notes) per minute
+   */
+  public float getBpm() {
+    return bpm;
+  }
+
+  /**
+   * Changes the tempo of the track.
+   *
+   * @param bpm the new tempo in beats per minute
+   * @throws IllegalArgumentException if bpm is not within [MIN_BPM-MAX_BPM]
+   */
+  public void setBpm(float bpm) {
+    if (!(bpm >= MIN_BPM && bpm <= MAX_BPM)) {
+      throw new IllegalArgumentException(
+          "BPM must be within [%s-%s]. Found %s".formatted(MIN_BPM, MAX_BPM, bpm));
+    }
+    this.bpm = bpm;
+  }
+
+  /**
+   * Get the number of sixteenths the track loops over.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Changes the number of sixteenths the track loops over. Instruments are changed with it, by
+   * cutting their pattern at the end or filling it with inactive sixteenths, unless they have a
+   * pattern length of their own, see {@link #hasOwnLength(String)}.
+   *
+   * @param length the new length of the track
+   * @throws IllegalArgumentException if the length is not within [1-MAX_LENGTH]
+   */
+  public void setLength(int length) {
+    checkLength(length);
+    for (Map.Entry<String, PackedPattern> entry : instruments.entrySet()) {
+      if (!entry.getValue().ownLength) {
+        entry.setValue(entry.getValue().resized(length));
+      }
+    }
+    this.length = length;
+  }
+
+  /**
+   * Get the swing of the track.
+   *
+   * @return how far every second sixteenth is delayed, as a fraction of a sixteenth
+   */
+  public float getSwing() {
+    return swing;
+  }
+
+  /**
+   * Changes the swing of the track, i.e. how far every second sixteenth is delayed. A swing of 0
+   * plays all sixteenths evenly, while a swing of 1/3 gives a triplet feel.
+   *
+   * @param swing the new swing, as a fraction of a sixteenth
+   * @throws IllegalArgumentException if swing is not within [0-MAX_SWING]
+   */
+  public void setSwing(float swing) {
+    if (!(swing >= 0 && swing <= MAX_SWING)) {
+      throw new IllegalArgumentException(
+          "Swing must be within [0-%s]. Found %s".formatted(MAX_SWING, swing));
+    }
+    this.swing = swing;
   }
 
   /**
@@ -110,29 +271,28 @@ public class Track {
    *        Collection, is so that when using the method one is forced to pass in an ordered list,
    *        as this matches the intended meaning of a pattern: it is supposed to have an order.
    * 
+   *        The pattern must have the length of the track, see
+   *        {@link #setPatternLength(String, int)} for giving an instrument a length of its own.
+   * 
    * @throws IllegalArgumentException if the given pattern is null or has an illegal length
    * 
    */
   public void addInstrument(String instrumentName, List<Boolean> pattern) {
-    if (pattern == null || pattern.size() != TRACK_LENGTH) {
+    if (pattern == null || pattern.size() != length) {
       throw new IllegalArgumentException(
           "Cannot add instrument. The instrument had an illegal format");
     }
-    instruments.put(instrumentName, new ArrayList<>(pattern));
+    instruments.put(instrumentName, PackedPattern.of(pattern));
   }
 
   /**
-   * Adds another instrument to the track with length TRACK_LENGTH and sets all values/sixteenths in
-   * the pattern to be inactive (false).
+   * Adds another instrument to the track with the length of the track and sets all
+   * values/sixteenths in the pattern to be inactive (false).
    *
    * @param instrumentName name of the new instrument
    */
   public void addInstrument(String instrumentName) {
-    final List<Boolean> pattern = new ArrayList<>();
-    for (int i = 0; i < TRACK_LENGTH; i++) {
-      pattern.add(false);
-    }
-    addInstrument(instrumentName, pattern);
+    instruments.put(instrumentName, new PackedPattern(length));
   }
 
   /**
@@ -160,16 +320,111 @@ public class Track {
    */
   public void toggleSixteenth(String instrumentName, int sixteenthIndex)
       throws IllegalArgumentException {
-    final List<Boolean> pattern = instruments.get(instrumentName);
-    if (pattern == null) {
-      throw new IllegalArgumentException("Cannot update non-existing instrument");
+    getPackedPattern(instrumentName, sixteenthIndex).flip(sixteenthIndex);
+  }
+
+  /**
+   * Get how hard a sixteenth is played.
+   *
+   * @param instrumentName the instrument which plays the sixteenth
+   * @param sixteenthIndex index of the sixteenth in the instruments pattern
+   * @return the velocity, within [0-MAX_VELOCITY]
+   * @throws IllegalArgumentException if the instrument is not in the track, or the index is outside
+   *         the pattern of the instrument
+   */
+  public int getVelocity(String instrumentName, int sixteenthIndex) {
+    final byte[] velocities = getPackedPattern(instrumentName, sixteenthIndex).velocities;
+    return velocities == null ? MAX_VELOCITY : velocities[sixteenthIndex];
+  }
+
+  /**
+   * Changes how hard a sixteenth is played.
+   *
+   * @param instrumentName the instrument which plays the sixteenth
+   * @param sixteenthIndex index of the sixteenth in the instruments pattern
+   * @param velocity the new velocity, within [0-MAX_VELOCITY]
+   * @throws IllegalArgumentException if the instrument is not in the track, the index is outside
+   *         the pattern of the instrument, or the velocity is out of bounds
+   */
+  public void setVelocity(String instrumentName, int sixteenthIndex, int velocity) {
+    final PackedPattern pattern = getPackedPattern(instrumentName, sixteenthIndex);
+    checkByte("Velocity", velocity, MAX_VELOCITY);
+    if (pattern.velocities == null) {
+      if (velocity == MAX_VELOCITY) {
+        return;
+      }
+      pattern.velocities = PackedPattern.filled(pattern.length, MAX_VELOCITY);
     }
-    if (0 > sixteenthIndex || sixteenthIndex >= TRACK_LENGTH) {
-      throw new IllegalArgumentException(
-          "Cannot update instrument. Sixteenth index is outside the track bounds [0-%s): %s"
-              .formatted(TRACK_LENGTH, sixteenthIndex));
+    pattern.velocities[sixteenthIndex] = (byte) velocity;
+  }
+
+  /**
+   * Returns true if any sixteenth of the instrument has a velocity below MAX_VELOCITY.
+   *
+   * @throws IllegalArgumentException if the instrument is not in the track
+   */
+  public boolean hasVelocities(String instrumentName) {
+    final byte[] velocities = getPackedPattern(instrumentName, 0).velocities;
+    if (velocities != null) {
+      for (byte velocity : velocities) {
+        if (velocity != MAX_VELOCITY) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the probability of a sixteenth being played when it is active.
+   *
+   * @param instrumentName the instrument which plays the sixteenth
+   * @param sixteenthIndex index of the sixteenth in the instruments pattern
+   * @return the probability in percent, within [0-MAX_PROBABILITY]
+   * @throws IllegalArgumentException if the instrument is not in the track, or the index is outside
+   *         the pattern of the instrument
+   */
+  public int getProbability(String instrumentName, int sixteenthIndex) {
+    final byte[] probabilities = getPackedPattern(instrumentName, sixteenthIndex).probabilities;
+    return probabilities == null ? MAX_PROBABILITY : probabilities[sixteenthIndex];
+  }
+
+  /**
+   * Changes the probability of a sixteenth being played when it is active.
+   *
+   * @param instrumentName the instrument which plays the sixteenth
+   * @param sixteenthIndex index of the sixteenth in the instruments pattern
+   * @param probability the new probability in percent, within [0-MAX_PROBABILITY]
+   * @throws IllegalArgumentException if the instrument is not in the track, the index is outside
+   *         the pattern of the instrument, or the probability is out of bounds
+   */
+  public void setProbability(String instrumentName, int sixteenthIndex, int probability) {
+    final PackedPattern pattern = getPackedPattern(instrumentName, sixteenthIndex);
+    checkByte("Probability", probability, MAX_PROBABILITY);
+    if (pattern.probabilities == null) {
+      if (probability == MAX_PROBABILITY) {
+        return;
+      }
+      pattern.probabilities = PackedPattern.filled(pattern.length, MAX_PROBABILITY);
+    }
+    pattern.probabilities[sixteenthIndex] = (byte) probability;
+  }
+
+  /**
+   * Returns true if any sixteenth of the instrument has a probability below MAX_PROBABILITY.
+   *
+   * @throws IllegalArgumentException if the instrument is not in the track
+   */
+  public boolean hasProbabilities(String instrumentName) {
+    final byte[] probabilities = getPackedPattern(instrumentName, 0).probabilities;
+    if (probabilities != null) {
+      for (byte probability : probabilities) {
+        if (probability != MAX_PROBABILITY) {
+          return true;
+        }
+      }
     }
-    pattern.set(sixteenthIndex, !pattern.get(sixteenthIndex));
+    return false;
   }
 
   /**
@@ -179,9 +434,132 @@ public class Track {
     final Track newTrack = new Track();
     newTrack.setArtistName(artistName);
     newTrack.setTrackName(trackName);
-    for (String instrument : getInstrumentNames()) {
-      newTrack.addInstrument(instrument, getPattern(instrument));
+    newTrack.bpm = bpm;
+    newTrack.length = length;
+    newTrack.swing = swing;
+    for (Map.Entry<String, PackedPattern> entry : instruments.entrySet()) {
+      newTrack.instruments.put(entry.getKey(), entry.getValue().copy());
     }
     return newTrack;
   }
+
+  // Helpers
+
+  private static void checkLength(int length) {
+    if (length < 1 || length > MAX_LENGTH) {
+      throw new IllegalArgumentException(
+          "Length must be within [1-%s]. Found %s".formatted(MAX_LENGTH, length));
+    }
+  }
+
+  private static void checkByte(String name, int value, int max) {
+    if (value < 0 || value > max) {
+      throw new IllegalArgumentException(
+          "%s must be within [0-%s]. Found %s".formatted(name, max, value));
+    }
+  }
+
+  private PackedPattern getPackedPattern(String instrumentName, int sixteenthIndex) {
+    final PackedPattern pattern = instrumentName == null ? null : instruments.get(instrumentName);
+    if (pattern == null) {
+      throw new IllegalArgumentException("Instrument %s is not part of the track"
+          .formatted(instrumentName));
+    }
+    if (0 > sixteenthIndex || sixteenthIndex >= pattern.length) {
+      throw new IllegalArgumentException(
+          "Sixteenth index is outside the pattern bounds [0-%s): %s"
+              .formatted(pattern.length, sixteenthIndex));
+    }
+    return pattern;
+  }
+
+  /**
+   * The pattern of an instrument, with one bit for each sixteenth. The velocities and
+   * probabilities are only allocated once any of them is changed from the maximum.
+   */
+  private static final class PackedPattern {
+
+    private final int length;
+    private final long[] bits;
+    private byte[] velocities;
+    private byte[] probabilities;
+    // Whether the length was given to the instrument, rather than following the track
+    private boolean ownLength;
+
+    private PackedPattern(int length) {
+      this(length, new long[(length + Long.SIZE - 1) / Long.SIZE]);
+    }
+
+    private PackedPattern(int length, long[] bits) {
+      this.length = length;
+      this.bits = bits;
+    }
+
+    private static PackedPattern of(List<Boolean> pattern) {
+      final PackedPattern packed = new PackedPattern(pattern.size());
+      for (int i = 0; i < pattern.size(); i++) {
+        if (pattern.get(i)) {
+          packed.flip(i);
+        }
+      }
+      return packed;
+    }
+
+    private static byte[] filled(int length, int value) {
+      final byte[] values = new byte[length];
+      Arrays.fill(values, (byte) value);
+      return values;
+    }
+
+    /**
+     * Returns a copy of the values with a new length, where added values are the given value.
+     */
+    private static byte[] resized(byte[] values, int newLength, int value) {
+      if (values == null) {
+        return null;
+      }
+      final byte[] resized = Arrays.copyOf(values, newLength);
+      if (newLength > values.length) {
+        Arrays.fill(resized, values.length, newLength, (byte) value);
+      }
+      return resized;
+    }
+
+    private boolean get(int index) {
+      return (bits[index / Long.SIZE] & (1L << (index % Long.SIZE))) != 0;
+    }
+
+    private void flip(int index) {
+      bits[index / Long.SIZE] ^= 1L << (index % Long.SIZE);
+    }
+
+    private PackedPattern copy() {
+      final PackedPattern copy = new PackedPattern(length, bits.clone());
+      copy.velocities = velocities == null ? null : velocities.clone();
+      copy.probabilities = probabilities == null ? null : probabilities.clone();
+      copy.ownLength = ownLength;
+      return copy;
+    }
+
+    private PackedPattern resized(int newLength) {
+      final PackedPattern resized = new PackedPattern(newLength,
+          Arrays.copyOf(bits, (newLength + Long.SIZE - 1) / Long.SIZE));
+      // Clear the sixteenths after the end of a shortened pattern
+      if (newLength % Long.SIZE != 0) {
+        resized.bits[resized.bits.length - 1] &= (1L << (newLength % Long.SIZE)) - 1;
+      }
+      resized.velocities = resized(velocities, newLength, MAX_VELOCITY);
+      resized.probabilities = resized(probabilities, newLength, MAX_PROBABILITY);
+      resized.ownLength = ownLength;
+      return resized;
+    }
+
+    private List<Boolean> toList() {
+      final List<Boolean> pattern = new ArrayList<>(length);
+      for (int i = 0; i < length; i++) {
+        pattern.add(get(i));
+      }
+      return pattern;
+    }
+  }
 }
@@ -1,8 +1,13 @@
 package sequencer.core;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Interface for writing and reading tracks.
@@ -32,6 +37,32 @@ public interface TrackMapperInterface {
    */
   public void writeTrack(Track track, Writer writer) throws IOException;
 
+  /**
+   * Reads a track from the input stream. Text based formats are read as UTF-8, and binary formats
+   * should override this method to read the bytes directly.
+   *
+   * @param input The input stream to use
+   * @return the track
+   * @throws IOException if the input stream fails
+   */
+  public default Track readTrack(InputStream input) throws IOException {
+    return readTrack(new InputStreamReader(input, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes the track to the output stream. Text based formats are written as UTF-8, and binary
+   * formats should override this method to write the bytes directly.
+   *
+   * @param track The track to write
+   * @param output The output stream to use
+   * @throws IOException if the output stream fails
+   */
+  public default void writeTrack(Track track, OutputStream output) throws IOException {
+    final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    writeTrack(track, writer);
+    writer.flush();
+  }
+
   /**
    * Returns a copy of this object.
    */
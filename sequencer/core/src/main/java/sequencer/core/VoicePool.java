@@ -0,0 +1,228 @@
+package sequencer.core;
+
+import java.util.Arrays;
+
+/**
+ * A fixed number of voices playing the sounds of the {@link Composer}, bounding how many sounds
+ * are played at once.
+ *
+ * <p>
+ * Each note takes a voice until its sound has played to the end. When all voices are taken, the
+ * oldest voice is stolen by the new note. Sounds can also be put in choke groups, where a note
+ * stops every voice playing a sound of the same group, e.g. a closed hihat cutting off an open
+ * one. As the sounds are played through an {@link Output} which can only stop all voices of a
+ * sound at once, stopping one voice stops and frees every voice playing the same sound.
+ * </p>
+ *
+ * <p>
+ * The voices are kept in preallocated arrays, ordered from oldest to newest, so playing a note
+ * never allocates. All methods are synchronized, as notes are played by the timer thread of the
+ * composer while the pool may be configured by other threads.
+ * </p>
+ */
+public class VoicePool {
+
+  public static final int DEFAULT_POLYPHONY = 16;
+  public static final int MAX_POLYPHONY = 256;
+
+  // Choke group of sounds which are not in a group
+  public static final int NO_CHOKE_GROUP = 0;
+
+  /**
+   * Plays and stops the sounds of a {@link VoicePool}.
+   */
+  public interface Output {
+
+    /**
+     * Plays a new voice of the sound.
+     *
+     * @param sound the index of the sound
+     * @param volume the volume within [0-1]
+     */
+    void play(int sound, double volume);
+
+    /**
+     * Stops all voices playing the sound.
+     *
+     * @param sound the index of the sound
+     */
+    void stop(int sound);
+  }
+
+  private final Output output;
+  // How long each sound plays, and the choke group of each sound
+  private final long[] soundNanos;
+  private final int[] chokeGroups;
+
+  // The sound and end time of each voice, where voices [0-activeVoices) are playing, oldest first
+  private int[] voiceSounds;
+  private long[] voiceEndNanos;
+  private int activeVoices;
+
+  /**
+   * Creates a pool without any playing voices, where no sound is in a choke group.
+   *
+   * @param maxPolyphony the number of voices, within [1-MAX_POLYPHONY]
+   * @param soundNanos how long each sound plays, in nanoseconds. The sounds are referred to by
+   *        their index in this array
+   * @param output plays and stops the sounds
+   * @throws IllegalArgumentException if maxPolyphony is out of bounds, or output is null
+   */
+  public VoicePool(int maxPolyphony, long[] soundNanos, Output output) {
+    checkPolyphony(maxPolyphony);
+    if (output == null) {
+      throw new IllegalArgumentException("output cannot be null");
+    }
+    this.output = output;
+    this.soundNanos = soundNanos.clone();
+    chokeGroups = new int[soundNanos.length];
+    voiceSounds = new int[maxPolyphony];
+    voiceEndNanos = new long[maxPolyphony];
+  }
+
+  public synchronized int getMaxPolyphony() {
+    return voiceSounds.length;
+  }
+
+  /**
+   * Changes the number of voices. If more voices are playing than the new number, the oldest are
+   * stopped.
+   *
+   * @param maxPolyphony the new number of voices, within [1-MAX_POLYPHONY]
+   * @throws IllegalArgumentException if maxPolyphony is out of bounds
+   */
+  public synchronized void setMaxPolyphony(int maxPolyphony) {
+    checkPolyphony(maxPolyphony);
+    while (activeVoices > maxPolyphony) {
+      stopSound(voiceSounds[0]);
+    }
+    voiceSounds = Arrays.copyOf(voiceSounds, maxPolyphony);
+    voiceEndNanos = Arrays.copyOf(voiceEndNanos, maxPolyphony);
+  }
+
+  /**
+   * Get the choke group of a sound.
+   *
+   * @param sound the index of the sound
+   * @return the group, or NO_CHOKE_GROUP if the sound is not in a group
+   */
+  public synchronized int getChokeGroup(int sound) {
+    checkSound(sound);
+    return chokeGroups[sound];
+  }
+
+  /**
+   * Puts a sound in a choke group, where playing the sound stops all voices playing a sound of the
+   * same group, including itself.
+   *
+   * @param sound the index of the sound
+   * @param chokeGroup the group, or NO_CHOKE_GROUP to remove the sound from its group
+   * @throws IllegalArgumentException if there is no sound with the index, or the group is negative
+   */
+  public synchronized void setChokeGroup(int sound, int chokeGroup) {
+    checkSound(sound);
+    if (chokeGroup < NO_CHOKE_GROUP) {
+      throw new IllegalArgumentException(
+          "Choke group cannot be negative. Found %s".formatted(chokeGroup));
+    }
+    chokeGroups[sound] = chokeGroup;
+  }
+
+  /**
+   * Plays a note, stopping the sounds of its choke group, and stealing the oldest voice if all
+   * voices are playing.
+   *
+   * @param sound the index of the sound
+   * @param volume the volume within [0-1]
+   * @param nanoTime when the note is played, as given by {@link System#nanoTime()}
+   * @throws IllegalArgumentException if there is no sound with the index
+   */
+  public synchronized void noteOn(int sound, double volume, long nanoTime) {
+    checkSound(sound);
+    releaseEnded(nanoTime);
+
+    final int chokeGroup = chokeGroups[sound];
+    if (chokeGroup != NO_CHOKE_GROUP) {
+      for (int i = activeVoices - 1; i >= 0; i--) {
+        // Stopping a sound frees voices at and after i, so i may be past the end
+        if (i < activeVoices && chokeGroups[voiceSounds[i]] == chokeGroup) {
+          stopSound(voiceSounds[i]);
+        }
+      }
+    }
+    if (activeVoices == voiceSounds.length) {
+      stopSound(voiceSounds[0]);
+    }
+
+    voiceSounds[activeVoices] = sound;
+    voiceEndNanos[activeVoices] = nanoTime + soundNanos[sound];
+    activeVoices++;
+    output.play(sound, volume);
+  }
+
+  /**
+   * Returns the number of voices playing at the given time.
+   *
+   * @param nanoTime the time, as given by {@link System#nanoTime()}
+   */
+  public synchronized int getActiveVoices(long nanoTime) {
+    releaseEnded(nanoTime);
+    return activeVoices;
+  }
+
+  /**
+   * Stops all playing voices.
+   */
+  public synchronized void stopAll() {
+    while (activeVoices > 0) {
+      stopSound(voiceSounds[0]);
+    }
+  }
+
+  // Helpers
+
+  /**
+   * Frees the voices which have played their sound to the end.
+   */
+  private void releaseEnded(long nanoTime) {
+    int kept = 0;
+    for (int i = 0; i < activeVoices; i++) {
+      if (voiceEndNanos[i] - nanoTime > 0) {
+        voiceSounds[kept] = voiceSounds[i];
+        voiceEndNanos[kept] = voiceEndNanos[i];
+        kept++;
+      }
+    }
+    activeVoices = kept;
+  }
+
+  /**
+   * Stops a sound, and frees every voice playing it while keeping the order of the others.
+   */
+  private void stopSound(int sound) {
+    int kept = 0;
+    for (int i = 0; i < activeVoices; i++) {
+      if (voiceSounds[i] != sound) {
+        voiceSounds[kept] = voiceSounds[i];
+        voiceEndNanos[kept] = voiceEndNanos[i];
+        kept++;
+      }
+    }
+    activeVoices = kept;
+    output.stop(sound);
+  }
+
+  private void checkSound(int sound) {
+    if (sound < 0 || sound >= soundNanos.length) {
+      throw new IllegalArgumentException(
+          "Sound index is outside the bounds [0-%s): %s".formatted(soundNanos.length, sound));
+    }
+  }
+
+  private static void checkPolyphony(int maxPolyphony) {
+    if (maxPolyphony < 1 || maxPolyphony > MAX_POLYPHONY) {
+      throw new IllegalArgumentException("Polyphony must be within [1-%s]. Found %s"
+          .formatted(MAX_POLYPHONY, maxPolyphony));
+    }
+  }
+}
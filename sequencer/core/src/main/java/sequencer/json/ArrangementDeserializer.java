@@ -0,0 +1,140 @@
+package sequencer.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import sequencer.core.Arrangement;
+import sequencer.core.Track;
+
+/**
+ * The {@code ArrangementDeserializer} is a custom deserializer of the {@link Arrangement} class.
+ * Patterns are read as tracks by {@link TrackDeserializer}.
+ *
+ * <p>
+ * Like the track deserializer, it is lenient about fields of an unexpected type, which are
+ * ignored. A section without a number of repeats is played once, and the arrangement is only
+ * looped if "looped" is true.
+ * </p>
+ */
+class ArrangementDeserializer extends JsonDeserializer<Arrangement> {
+
+  @Override
+  public Arrangement deserialize(JsonParser parser, DeserializationContext ctxt)
+      throws IOException, JsonProcessingException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    } else if (token != JsonToken.FIELD_NAME) {
+      // Anything else than an object is not an arrangement
+      parser.skipChildren();
+      return null;
+    }
+
+    final Arrangement arrangement = new Arrangement();
+    final Map<String, Track> patterns = new LinkedHashMap<>();
+    final List<Arrangement.Section> sections = new ArrayList<>();
+
+    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      final String field = parser.currentName();
+      final JsonToken valueToken = parser.nextToken();
+
+      switch (field) {
+        case "name" -> arrangement.setName(readText(parser, valueToken));
+        case "artist" -> arrangement.setArtistName(readText(parser, valueToken));
+        case "looped" -> arrangement.setLooped(valueToken == JsonToken.VALUE_TRUE);
+        case "patterns" -> readPatterns(parser, ctxt, valueToken, patterns);
+        case "sections" -> readSections(parser, valueToken, sections);
+        default -> parser.skipChildren();
+      }
+    }
+
+    // Sections can only be added once the patterns they play are known
+    patterns.forEach(arrangement::putPattern);
+    sections.forEach(arrangement::addSection);
+    return arrangement;
+  }
+
+  // Helpers
+
+  /**
+   * Returns the text of the current value, or null if the value is not a string.
+   */
+  private static String readText(JsonParser parser, JsonToken valueToken) throws IOException {
+    if (valueToken == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  /**
+   * Reads the patterns in the current value, which is expected to be an object of tracks. Values
+   * which are not tracks are ignored.
+   */
+  private static void readPatterns(JsonParser parser, DeserializationContext ctxt,
+      JsonToken valueToken, Map<String, Track> patterns) throws IOException {
+    if (valueToken != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String pattern = parser.currentName();
+      parser.nextToken();
+      final Track track = ctxt.readValue(parser, Track.class);
+      if (track != null) {
+        patterns.put(pattern, track);
+      }
+    }
+  }
+
+  /**
+   * Reads the sections in the current value, which is expected to be an array of objects. Values
+   * which are not objects are ignored.
+   */
+  private static void readSections(JsonParser parser, JsonToken valueToken,
+      List<Arrangement.Section> sections) throws IOException {
+    if (valueToken != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == null) {
+        throw new IOException("Unexpected end of input in sections");
+      }
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+
+      String pattern = null;
+      int repeats = 1;
+      Float bpm = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.currentName();
+        final JsonToken fieldToken = parser.nextToken();
+        switch (field) {
+          case "pattern" -> pattern = readText(parser, fieldToken);
+          case "repeats" -> repeats = fieldToken == JsonToken.VALUE_NUMBER_INT
+              ? parser.getIntValue()
+              : repeats;
+          case "bpm" -> bpm = fieldToken.isNumeric() ? parser.getFloatValue() : bpm;
+          default -> {
+          }
+        }
+        // Values of an unexpected type are skipped, including any nested arrays and objects
+        parser.skipChildren();
+      }
+      sections.add(new Arrangement.Section(pattern, repeats, bpm));
+    }
+  }
+}
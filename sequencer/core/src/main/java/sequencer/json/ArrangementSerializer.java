@@ -0,0 +1,45 @@
+package sequencer.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import java.io.IOException;
+import sequencer.core.Arrangement;
+
+/**
+ * The {@code ArrangementSerializer} is a custom serializer of the {@link Arrangement} class. Each
+ * pattern is written as a track by {@link TrackSerializer}, and the tempo of a section is only
+ * written when it has one.
+ */
+class ArrangementSerializer extends JsonSerializer<Arrangement> {
+
+  @Override
+  public void serialize(Arrangement arrangement, JsonGenerator jsonGen,
+      SerializerProvider serializers) throws IOException {
+    jsonGen.writeStartObject();
+
+    jsonGen.writeStringField("name", arrangement.getName());
+    jsonGen.writeStringField("artist", arrangement.getArtistName());
+    jsonGen.writeBooleanField("looped", arrangement.isLooped());
+
+    jsonGen.writeObjectFieldStart("patterns");
+    for (String pattern : arrangement.getPatternNames()) {
+      jsonGen.writeObjectField(pattern, arrangement.getPattern(pattern));
+    }
+    jsonGen.writeEndObject(); // End of "patterns"
+
+    jsonGen.writeArrayFieldStart("sections");
+    for (Arrangement.Section section : arrangement.getSections()) {
+      jsonGen.writeStartObject();
+      jsonGen.writeStringField("pattern", section.pattern());
+      jsonGen.writeNumberField("repeats", section.repeats());
+      if (section.bpm() != null) {
+        jsonGen.writeNumberField("bpm", section.bpm());
+      }
+      jsonGen.writeEndObject();
+    }
+    jsonGen.writeEndArray(); // End of "sections"
+
+    jsonGen.writeEndObject(); // End of entire object
+  }
+}
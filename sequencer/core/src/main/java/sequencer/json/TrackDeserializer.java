@@ -2,77 +2,268 @@ package sequencer.json;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.BooleanNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.TextNode;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import sequencer.core.Track;
 
 /**
- * The {@code TrackDeserializer} is a custom deserializer of the {@link Track} class.
+ * The {@code TrackDeserializer} is a custom deserializer of the {@link Track} class. The track is
+ * built directly from the tokens of the parser, without reading the content into a tree first.
+ *
+ * <p>
+ * The deserializer is lenient: fields of an unexpected type are ignored, values in a pattern which
+ * are not booleans are read as {@code false}, and if a field is given more than once the last value
+ * is used.
+ * </p>
+ *
+ * <p>
+ * Patterns must have the length of the track, unless the instrument is given a length of its own
+ * in "patternLengths". Such patterns are cut at the end, or filled with inactive sixteenths, to the
+ * given length.
+ * </p>
+ *
+ * <p>
+ * The velocities and probabilities in "velocities" and "probabilities" are given as a list of
+ * integers for each instrument. Sixteenths without a value, i.e. beyond the end of the list or with
+ * a value which is not an integer, keep the maximum, and instruments which are not in the track
+ * are ignored.
+ * </p>
  */
 class TrackDeserializer extends JsonDeserializer<Track> {
 
   @Override
   public Track deserialize(JsonParser parser, DeserializationContext ctxt)
       throws IOException, JsonProcessingException {
-    TreeNode treeNode = parser.getCodec().readTree(parser);
-
-    return deserialize(treeNode);
-  }
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    } else if (token != JsonToken.FIELD_NAME) {
+      // Anything else than an object is not a track
+      parser.skipChildren();
+      return null;
+    }
 
-  Track deserialize(TreeNode treeNode) {
-    if (treeNode instanceof ObjectNode) {
-      final ObjectNode objectNode = (ObjectNode) treeNode;
+    String trackName = null;
+    String artistName = null;
+    Number bpm = null;
+    Number length = null;
+    Number swing = null;
+    Map<String, List<Boolean>> instruments = new LinkedHashMap<>();
+    Map<String, Integer> patternLengths = new LinkedHashMap<>();
+    Map<String, List<Integer>> velocities = new LinkedHashMap<>();
+    Map<String, List<Integer>> probabilities = new LinkedHashMap<>();
 
-      final Track track = new Track();
+    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      final String field = parser.currentName();
+      final JsonToken valueToken = parser.nextToken();
 
-      // Get track meta
-      final JsonNode nameNode = objectNode.get("name");
-      if (nameNode instanceof TextNode) {
-        track.setTrackName(nameNode.asText());
+      switch (field) {
+        case "name" -> trackName = readText(parser, valueToken);
+        case "artist" -> artistName = readText(parser, valueToken);
+        case "bpm" -> bpm = readNumber(parser, valueToken);
+        case "length" -> length = readNumber(parser, valueToken);
+        case "swing" -> swing = readNumber(parser, valueToken);
+        case "instruments" -> instruments = readInstruments(parser, valueToken);
+        case "patternLengths" -> patternLengths = readPatternLengths(parser, valueToken);
+        case "velocities" -> velocities = readSixteenthValues(parser, valueToken);
+        case "probabilities" -> probabilities = readSixteenthValues(parser, valueToken);
+        default -> parser.skipChildren();
       }
+    }
 
-      final JsonNode artistNode = objectNode.get("artist");
-      if (artistNode instanceof TextNode) {
-        track.setArtistName(artistNode.asText());
+    final Track track = new Track();
+    if (trackName != null) {
+      track.setTrackName(trackName);
+    }
+    if (artistName != null) {
+      track.setArtistName(artistName);
+    }
+    if (bpm != null) {
+      track.setBpm(bpm.floatValue());
+    }
+    if (length != null) {
+      track.setLength(length.intValue());
+    }
+    if (swing != null) {
+      track.setSwing(swing.floatValue());
+    }
+    for (Map.Entry<String, List<Boolean>> entry : instruments.entrySet()) {
+      final Integer patternLength = patternLengths.get(entry.getKey());
+      if (patternLength == null) {
+        track.addInstrument(entry.getKey(), entry.getValue());
+        continue;
       }
+      track.addInstrument(entry.getKey());
+      track.setPatternLength(entry.getKey(), patternLength);
+      final List<Boolean> pattern = entry.getValue();
+      for (int i = 0; i < Math.min(pattern.size(), patternLength); i++) {
+        if (pattern.get(i)) {
+          track.toggleSixteenth(entry.getKey(), i);
+        }
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : velocities.entrySet()) {
+      forEachSixteenthValue(track, entry, track::setVelocity);
+    }
+    for (Map.Entry<String, List<Integer>> entry : probabilities.entrySet()) {
+      forEachSixteenthValue(track, entry, track::setProbability);
+    }
+    return track;
+  }
 
-      // Get instruments and patterns
-      final JsonNode itemsNode = objectNode.get("instruments");
-      if (itemsNode instanceof ObjectNode) {
-        final ObjectNode instrumentPatternObject = (ObjectNode) itemsNode;
+  /**
+   * Sets the values of an instrument in the track, see {@code readSixteenthValues}.
+   */
+  @FunctionalInterface
+  private interface SixteenthValueSetter {
+    void set(String instrument, int sixteenthIndex, int value);
+  }
 
-        // Get pattern
-        instrumentPatternObject.fieldNames().forEachRemaining((instrument) -> {
+  // Helpers
 
-          final List<Boolean> pattern = new ArrayList<>();
-          final JsonNode patternNode = instrumentPatternObject.get(instrument);
+  /**
+   * Returns the text of the current value, or null if the value is not a string.
+   */
+  private static String readText(JsonParser parser, JsonToken valueToken) throws IOException {
+    if (valueToken == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+    parser.skipChildren();
+    return null;
+  }
 
-          if (patternNode instanceof ArrayNode) {
-            for (JsonNode valueNode : patternNode) {
-              if (valueNode instanceof BooleanNode) {
-                pattern.add(valueNode.asBoolean());
-              } else {
-                pattern.add(false);
-              }
-            }
-          }
+  /**
+   * Returns the current value, or null if the value is not a number.
+   */
+  private static Number readNumber(JsonParser parser, JsonToken valueToken) throws IOException {
+    if (valueToken == JsonToken.VALUE_NUMBER_INT || valueToken == JsonToken.VALUE_NUMBER_FLOAT) {
+      return parser.getNumberValue();
+    }
+    parser.skipChildren();
+    return null;
+  }
 
-          track.addInstrument(instrument, pattern);
-        });
+  /**
+   * Reads the pattern lengths in the current value, which is expected to be an object of numbers.
+   * Lengths which are not integers are ignored.
+   */
+  private static Map<String, Integer> readPatternLengths(JsonParser parser, JsonToken valueToken)
+      throws IOException {
+    final Map<String, Integer> patternLengths = new LinkedHashMap<>();
+    if (valueToken != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return patternLengths;
+    }
 
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String instrument = parser.currentName();
+      if (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+        patternLengths.put(instrument, parser.getIntValue());
+      } else {
+        parser.skipChildren();
       }
-      return track;
     }
+    return patternLengths;
+  }
 
-    return null;
+  /**
+   * Reads the values in the current value, which is expected to be an object with a list of
+   * integers for each instrument. Values in a list which are not integers are read as null.
+   */
+  private static Map<String, List<Integer>> readSixteenthValues(JsonParser parser,
+      JsonToken valueToken) throws IOException {
+    final Map<String, List<Integer>> values = new LinkedHashMap<>();
+    if (valueToken != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return values;
+    }
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String instrument = parser.currentName();
+      final List<Integer> instrumentValues = new ArrayList<>();
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        parser.skipChildren();
+        continue;
+      }
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new IOException("Unexpected end of input in " + instrument);
+        }
+        instrumentValues.add(token == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null);
+        // Nested arrays and objects count as a single value
+        parser.skipChildren();
+      }
+      values.put(instrument, instrumentValues);
+    }
+    return values;
+  }
+
+  /**
+   * Sets the values of an instrument in the track, skipping sixteenths without a value. Values of
+   * instruments which are not in the track are ignored.
+   */
+  private static void forEachSixteenthValue(Track track, Map.Entry<String, List<Integer>> entry,
+      SixteenthValueSetter setter) {
+    if (!track.getInstrumentNames().contains(entry.getKey())) {
+      return;
+    }
+    final List<Integer> values = entry.getValue();
+    final int length = Math.min(values.size(), track.getPatternLength(entry.getKey()));
+    for (int i = 0; i < length; i++) {
+      if (values.get(i) != null) {
+        setter.set(entry.getKey(), i, values.get(i));
+      }
+    }
+  }
+
+  /**
+   * Reads the patterns of all instruments in the current value, which is expected to be an object.
+   * Values which are not an object are read as no instruments.
+   */
+  private static Map<String, List<Boolean>> readInstruments(JsonParser parser,
+      JsonToken valueToken) throws IOException {
+    final Map<String, List<Boolean>> instruments = new LinkedHashMap<>();
+    if (valueToken != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return instruments;
+    }
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String instrument = parser.currentName();
+      instruments.put(instrument, readPattern(parser, parser.nextToken()));
+    }
+    return instruments;
+  }
+
+  /**
+   * Reads the pattern in the current value, which is expected to be an array. Values in the array
+   * which are not booleans are read as false, and a value which is not an array is read as an
+   * empty pattern.
+   */
+  private static List<Boolean> readPattern(JsonParser parser, JsonToken valueToken)
+      throws IOException {
+    final List<Boolean> pattern = new ArrayList<>(Track.TRACK_LENGTH);
+    if (valueToken != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return pattern;
+    }
+
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == null) {
+        throw new IOException("Unexpected end of input in pattern");
+      }
+      pattern.add(token == JsonToken.VALUE_TRUE);
+      // Nested arrays and objects count as a single value
+      parser.skipChildren();
+    }
+    return pattern;
   }
 }
@@ -4,9 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import sequencer.core.Arrangement;
 import sequencer.core.Track;
 import sequencer.core.TrackMapperInterface;
 
@@ -14,16 +19,56 @@ import sequencer.core.TrackMapperInterface;
  * The {@code TrackMapper} class will handle all serialization of {@link Track} class and its
  * subclasses with jackson's {@code json} format. The class is possible to use with character
  * streams, though the {@link IOException} must be handled separately.
+ *
+ * <p>
+ * All instances share one {@link ObjectMapper} and its readers and writers, which are immutable
+ * and thread-safe once created. The mapper itself is therefore immutable, and cheap to create and
+ * copy.
+ * </p>
  */
 
 public class TrackMapper implements TrackMapperInterface {
 
-  private final ObjectMapper mapper;
   public static final String FORMAT = "json";
 
+  private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new TrackModule());
+  private static final ObjectReader TRACK_READER = MAPPER.readerFor(Track.class);
+  private static final ObjectWriter COMPACT_WRITER = MAPPER.writerFor(Track.class);
+  private static final ObjectWriter PRETTY_WRITER = COMPACT_WRITER.withDefaultPrettyPrinter();
+  private static final ObjectReader ARRANGEMENT_READER = MAPPER.readerFor(Arrangement.class);
+  private static final ObjectWriter COMPACT_ARRANGEMENT_WRITER =
+      MAPPER.writerFor(Arrangement.class);
+  private static final ObjectWriter PRETTY_ARRANGEMENT_WRITER =
+      COMPACT_ARRANGEMENT_WRITER.withDefaultPrettyPrinter();
+
+  private final boolean prettyPrint;
+  private final ObjectWriter trackWriter;
+  private final ObjectWriter arrangementWriter;
+
+  /**
+   * Creates a mapper which writes tracks with indentation and line breaks.
+   */
   public TrackMapper() {
-    mapper = new ObjectMapper();
-    mapper.registerModule(new TrackModule());
+    this(true);
+  }
+
+  /**
+   * Creates a mapper which writes tracks either indented for readability, or compact without any
+   * whitespace, which is preferred when sending or storing many tracks.
+   *
+   * @param prettyPrint true to write indented json, false to write compact json
+   */
+  public TrackMapper(boolean prettyPrint) {
+    this.prettyPrint = prettyPrint;
+    trackWriter = prettyPrint ? PRETTY_WRITER : COMPACT_WRITER;
+    arrangementWriter = prettyPrint ? PRETTY_ARRANGEMENT_WRITER : COMPACT_ARRANGEMENT_WRITER;
+  }
+
+  /**
+   * Returns true if tracks are written with indentation and line breaks.
+   */
+  public boolean isPrettyPrint() {
+    return prettyPrint;
   }
 
   /**
@@ -45,7 +90,7 @@ public class TrackMapper implements TrackMapperInterface {
       throw new IllegalArgumentException("reader cannot be null.");
     }
 
-    return mapper.readValue(reader, Track.class);
+    return TRACK_READER.readValue(reader);
   }
 
   /**
@@ -62,7 +107,72 @@ public class TrackMapper implements TrackMapperInterface {
     if (writer == null) {
       throw new IllegalArgumentException("writer cannot be null.");
     }
-    mapper.writerWithDefaultPrettyPrinter().writeValue(writer, track);
+    trackWriter.writeValue(writer, track);
+  }
+
+  /**
+   * Deserializes track from a given input stream, which jackson reads as UTF-8.
+   *
+   * @param input the input stream from which the track will be created
+   * @throws IllegalArgumentException if input is {@code null}
+   */
+  @Override
+  public Track readTrack(InputStream input) throws IOException {
+    if (input == null) {
+      throw new IllegalArgumentException("input cannot be null.");
+    }
+
+    return TRACK_READER.readValue(input);
+  }
+
+  /**
+   * Writes serialized track to a given output stream as UTF-8.
+   *
+   * @param track the track which will be serialized.
+   * @param output the output stream to which the track will be serialized.
+   * @throws IllegalArgumentException if the track or the output stream is {@code null}.
+   */
+  @Override
+  public void writeTrack(Track track, OutputStream output) throws IOException {
+    if (track == null) {
+      throw new IllegalArgumentException("track cannot be null.");
+    }
+    if (output == null) {
+      throw new IllegalArgumentException("output cannot be null.");
+    }
+    trackWriter.writeValue(output, track);
+  }
+
+  /**
+   * Deserializes an arrangement from a given reader. The patterns of the arrangement are read in
+   * the same format as tracks.
+   *
+   * @param reader the reader from which the arrangement will be created
+   * @throws IllegalArgumentException if reader is {@code null}, or the arrangement is not valid
+   */
+  public Arrangement readArrangement(Reader reader) throws IOException {
+    if (reader == null) {
+      throw new IllegalArgumentException("reader cannot be null.");
+    }
+
+    return ARRANGEMENT_READER.readValue(reader);
+  }
+
+  /**
+   * Writes a serialized arrangement to a given writer.
+   *
+   * @param arrangement the arrangement which will be serialized.
+   * @param writer the writer to which the arrangement will be serialized.
+   * @throws IllegalArgumentException if the arrangement or the writer is {@code null}.
+   */
+  public void writeArrangement(Arrangement arrangement, Writer writer) throws IOException {
+    if (arrangement == null) {
+      throw new IllegalArgumentException("arrangement cannot be null.");
+    }
+    if (writer == null) {
+      throw new IllegalArgumentException("writer cannot be null.");
+    }
+    arrangementWriter.writeValue(writer, arrangement);
   }
 
   /**
@@ -79,7 +189,7 @@ public class TrackMapper implements TrackMapperInterface {
     String jsonString;
 
     try {
-      jsonString = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(track);
+      jsonString = trackWriter.writeValueAsString(track);
     } catch (JsonProcessingException e) {
       throw new IllegalArgumentException("The given track cannot be processed by jackson.", e);
     }
@@ -99,13 +209,31 @@ public class TrackMapper implements TrackMapperInterface {
    */
   public <T> T readFromString(String content, TypeReference<T> valueTypeRef)
       throws JsonProcessingException, JsonMappingException {
-    return mapper.readValue(content, valueTypeRef);
+    return MAPPER.readValue(content, valueTypeRef);
+  }
+
+  /**
+   * Deserializes object directly from the given input stream, which jackson reads as UTF-8. The
+   * stream is closed when read.
+   *
+   * @param input the input stream of JSON from which the object will be created
+   * @param valueTypeRef the type of object which we want to deserialize
+   * @throws IOException if the input stream cannot be read, or the JSON structure does not match
+   *         the expected type
+   * @throws IllegalArgumentException if input is {@code null}
+   */
+  public <T> T readFromStream(InputStream input, TypeReference<T> valueTypeRef)
+      throws IOException {
+    if (input == null) {
+      throw new IllegalArgumentException("input cannot be null.");
+    }
+    return MAPPER.readValue(input, valueTypeRef);
   }
 
   /**
-   * Returns a copy of this object.
+   * Returns a copy of this object. As the mapper is immutable, this is the object itself.
    */
   public TrackMapper copy() {
-    return new TrackMapper();
+    return this;
   }
 }
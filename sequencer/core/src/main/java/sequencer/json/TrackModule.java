@@ -2,6 +2,7 @@ package sequencer.json;
 
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import sequencer.core.Arrangement;
 import sequencer.core.Track;
 
 /**
@@ -13,11 +14,13 @@ public class TrackModule extends SimpleModule {
   public static final String NAME = "TrackModule";
 
   /**
-   * Contains serializer and deserializer for the {@link Track} class.
+   * Contains serializers and deserializers for the {@link Track} and {@link Arrangement} classes.
    */
   public TrackModule() {
     super(NAME, Version.unknownVersion());
     addSerializer(Track.class, new TrackSerializer());
     addDeserializer(Track.class, new TrackDeserializer());
+    addSerializer(Arrangement.class, new ArrangementSerializer());
+    addDeserializer(Arrangement.class, new ArrangementDeserializer());
   }
 }
@@ -6,10 +6,20 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
 import sequencer.core.Track;
 
 /**
  * The {@code TrackSerializer} is a custom serializer of the {@link Track} class.
+ *
+ * <p>
+ * The tempo, length and swing of the track are only written when they differ from the defaults in
+ * {@link Track}, and the lengths of instruments with a pattern length of their own are written to
+ * "patternLengths", so tracks using neither are written as before they were added. Likewise, the
+ * velocities and probabilities of an instrument are only written to "velocities" and
+ * "probabilities" when any of its sixteenths differ from the maximum.
+ * </p>
  */
 class TrackSerializer extends JsonSerializer<Track> {
 
@@ -20,6 +30,15 @@ class TrackSerializer extends JsonSerializer<Track> {
 
     jsonGen.writeStringField("name", track.getTrackName());
     jsonGen.writeStringField("artist", track.getArtistName());
+    if (track.getBpm() != Track.BPM) {
+      jsonGen.writeNumberField("bpm", track.getBpm());
+    }
+    if (track.getLength() != Track.TRACK_LENGTH) {
+      jsonGen.writeNumberField("length", track.getLength());
+    }
+    if (track.getSwing() != Track.SWING) {
+      jsonGen.writeNumberField("swing", track.getSwing());
+    }
 
     jsonGen.writeObjectFieldStart("instruments");
     final List<String> instruments = track.getInstrumentNames();
@@ -31,6 +50,46 @@ class TrackSerializer extends JsonSerializer<Track> {
     }
     jsonGen.writeEndObject(); // End of "instruments"
 
+    final List<String> polyrhythmicInstruments = instruments.stream()
+        .filter(track::hasOwnLength).toList();
+    if (!polyrhythmicInstruments.isEmpty()) {
+      jsonGen.writeObjectFieldStart("patternLengths");
+      for (String instrument : polyrhythmicInstruments) {
+        jsonGen.writeNumberField(instrument, track.getPatternLength(instrument));
+      }
+      jsonGen.writeEndObject(); // End of "patternLengths"
+    }
+
+    writeSixteenthValues(jsonGen, track, instruments, "velocities", track::hasVelocities,
+        track::getVelocity);
+    writeSixteenthValues(jsonGen, track, instruments, "probabilities", track::hasProbabilities,
+        track::getProbability);
+
     jsonGen.writeEndObject(); // End of entire object
   }
+
+  // Helpers
+
+  /**
+   * Writes an object with a list of values for each instrument, with one value for each sixteenth
+   * of its pattern. Only instruments with values are written, and the object is left out if there
+   * are none.
+   */
+  private static void writeSixteenthValues(JsonGenerator jsonGen, Track track,
+      List<String> instruments, String field, Predicate<String> hasValues,
+      ToIntBiFunction<String, Integer> getValue) throws IOException {
+    final List<String> instrumentsWithValues = instruments.stream().filter(hasValues).toList();
+    if (instrumentsWithValues.isEmpty()) {
+      return;
+    }
+    jsonGen.writeObjectFieldStart(field);
+    for (String instrument : instrumentsWithValues) {
+      jsonGen.writeArrayFieldStart(instrument);
+      for (int i = 0; i < track.getPatternLength(instrument); i++) {
+        jsonGen.writeNumber(getValue.applyAsInt(instrument, i));
+      }
+      jsonGen.writeEndArray();
+    }
+    jsonGen.writeEndObject();
+  }
 }
@@ -0,0 +1,210 @@
+package sequencer.binary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.core.Track;
+import sequencer.json.TrackMapper;
+
+/**
+ * Tests consist of serializing tracks to the binary format and back, and making sure malformed
+ * input is rejected.
+ */
+public class BinaryTrackMapperTest {
+
+  private final BinaryTrackMapper trackMapper = new BinaryTrackMapper();
+
+  private static Track createTrack() {
+    final Track track = new Track();
+    track.setTrackName("Tiem of lief");
+    track.setArtistName("mr. Worldwide æøå");
+    track.addInstrument("hihat", Arrays.asList(true, false, true, false, false, false, false, true,
+        true, true, true, false, true, false, true, true));
+    track.addInstrument("kick");
+    track.toggleSixteenth("kick", 15);
+    // Instruments outside the known list are written by name
+    track.addInstrument("triangle");
+    track.toggleSixteenth("triangle", 3);
+    return track;
+  }
+
+  private static void assertTracksEqual(Track expected, Track actual) {
+    assertEquals(expected.getTrackName(), actual.getTrackName());
+    assertEquals(expected.getArtistName(), actual.getArtistName());
+    assertEquals(expected.getBpm(), actual.getBpm());
+    assertEquals(expected.getLength(), actual.getLength());
+    assertEquals(expected.getSwing(), actual.getSwing());
+    assertEquals(expected.getInstrumentNames(), actual.getInstrumentNames());
+    for (String instrument : expected.getInstrumentNames()) {
+      assertEquals(expected.getPattern(instrument), actual.getPattern(instrument),
+          "Pattern of %s did not match".formatted(instrument));
+      assertEquals(expected.hasOwnLength(instrument), actual.hasOwnLength(instrument),
+          "Own length of %s did not match".formatted(instrument));
+      for (int i = 0; i < expected.getPatternLength(instrument); i++) {
+        assertEquals(expected.getVelocity(instrument, i), actual.getVelocity(instrument, i));
+        assertEquals(expected.getProbability(instrument, i), actual.getProbability(instrument, i));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test if tracks are (de)serialized with byte streams without changing them")
+  public void testSerAndDeserWithStreams() throws IOException {
+    for (Track track : List.of(new Track(), createTrack())) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      trackMapper.writeTrack(track, output);
+
+      final Track newTrack =
+          trackMapper.readTrack(new ByteArrayInputStream(output.toByteArray()));
+      assertTracksEqual(track, newTrack);
+    }
+  }
+
+  @Test
+  @DisplayName("Test if the settings and pattern lengths of a track are (de)serialized")
+  public void testSerAndDeserSettings() throws IOException {
+    final Track track = createTrack();
+    track.setLength(Track.MAX_LENGTH);
+    track.setBpm(97.5f);
+    track.setSwing(0.33f);
+    track.toggleSixteenth("kick", Track.MAX_LENGTH - 1);
+    track.setPatternLength("triangle", 7);
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    trackMapper.writeTrack(track, output);
+    final Track newTrack = trackMapper.readTrack(new ByteArrayInputStream(output.toByteArray()));
+    assertTracksEqual(track, newTrack);
+    assertEquals(7, newTrack.getPatternLength("triangle"));
+
+    // Settings which are not valid for a track are rejected
+    final byte[] invalidLength = Arrays.copyOf(output.toByteArray(), output.size() + 2);
+    invalidLength[output.size()] = 1;
+    assertThrows(StreamCorruptedException.class,
+        () -> trackMapper.readTrack(new ByteArrayInputStream(invalidLength)));
+  }
+
+  @Test
+  @DisplayName("Test if an own pattern length equal to the length of the track is (de)serialized")
+  public void testSerAndDeserOwnLengthOfTrackLength() throws IOException {
+    final Track track = createTrack();
+    track.setPatternLength("triangle", Track.TRACK_LENGTH);
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    trackMapper.writeTrack(track, output);
+    final Track newTrack = trackMapper.readTrack(new ByteArrayInputStream(output.toByteArray()));
+    assertTracksEqual(track, newTrack);
+    newTrack.setLength(Track.MAX_LENGTH);
+    assertEquals(Track.TRACK_LENGTH, newTrack.getPatternLength("triangle"));
+  }
+
+  @Test
+  @DisplayName("Test if version 1 is still read, inferring pattern lengths of their own")
+  public void testReadVersion1() throws IOException {
+    final Track track = createTrack();
+    track.setLength(32);
+    track.setPatternLength("triangle", 7);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    trackMapper.writeTrack(track, output);
+    final byte[] version2 = output.toByteArray();
+    assertEquals(BinaryTrackMapper.VERSION, version2[3]);
+
+    // Version 1 is written the same, without the own length setting at the end
+    final int ownLengthSetting = version2.length - 2;
+    assertEquals(6, version2[ownLengthSetting]);
+    final byte[] version1 = Arrays.copyOf(version2, ownLengthSetting);
+    version1[3] = 1;
+    assertTracksEqual(track, trackMapper.readTrack(new ByteArrayInputStream(version1)));
+
+    // The own length setting does not exist in version 1
+    final byte[] invalidVersion1 = version2.clone();
+    invalidVersion1[3] = 1;
+    assertThrows(StreamCorruptedException.class,
+        () -> trackMapper.readTrack(new ByteArrayInputStream(invalidVersion1)));
+  }
+
+  @Test
+  @DisplayName("Test if velocities and probabilities are (de)serialized")
+  public void testSerAndDeserVelocitiesAndProbabilities() throws IOException {
+    final Track track = createTrack();
+    final ByteArrayOutputStream plainOutput = new ByteArrayOutputStream();
+    trackMapper.writeTrack(track, plainOutput);
+
+    track.setPatternLength("triangle", 7);
+    track.setVelocity("kick", 3, 0);
+    track.setVelocity("triangle", 6, 64);
+    track.setProbability("kick", 15, 50);
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    trackMapper.writeTrack(track, output);
+    assertTracksEqual(track, trackMapper.readTrack(new ByteArrayInputStream(output.toByteArray())));
+    assertTrue(output.size() > plainOutput.size());
+
+    // Values which are not valid for a track are rejected
+    final byte[] invalidVelocity = Arrays.copyOf(output.toByteArray(),
+        output.size() + 2 + Track.TRACK_LENGTH);
+    invalidVelocity[output.size()] = 4;
+    Arrays.fill(invalidVelocity, output.size() + 2, invalidVelocity.length, (byte) 0xFF);
+    assertThrows(StreamCorruptedException.class,
+        () -> trackMapper.readTrack(new ByteArrayInputStream(invalidVelocity)));
+  }
+
+  @Test
+  @DisplayName("Test if tracks are (de)serialized with character streams without changing them")
+  public void testSerAndDeserWithCharacters() throws IOException {
+    final Track track = createTrack();
+    final StringWriter writer = new StringWriter();
+    trackMapper.writeTrack(track, writer);
+
+    assertTracksEqual(track, trackMapper.readTrack(new StringReader(writer.toString())));
+  }
+
+  @Test
+  @DisplayName("Test if the binary format is smaller than the json format")
+  public void testSize() throws IOException {
+    final Track track = createTrack();
+
+    final ByteArrayOutputStream binaryOutput = new ByteArrayOutputStream();
+    trackMapper.writeTrack(track, binaryOutput);
+    final ByteArrayOutputStream jsonOutput = new ByteArrayOutputStream();
+    new TrackMapper().writeTrack(track, jsonOutput);
+
+    assertTrue(binaryOutput.size() * 4 < jsonOutput.size(),
+        "Expected binary format to be a fraction of json, was %s and %s bytes"
+            .formatted(binaryOutput.size(), jsonOutput.size()));
+  }
+
+  @Test
+  @DisplayName("Test if input in other formats, versions or truncated input is rejected")
+  public void testMalformedInput() throws IOException {
+    assertThrows(StreamCorruptedException.class,
+        () -> trackMapper.readTrack(new StringReader("{\"name\":null}")));
+    assertThrows(StreamCorruptedException.class,
+        () -> trackMapper.readTrack(new ByteArrayInputStream(new byte[] {'S', 'Q', 'B', 0})));
+    assertThrows(StreamCorruptedException.class,
+        () -> trackMapper.readTrack(new ByteArrayInputStream(new byte[] {'S', 'Q', 'B', 3})));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    trackMapper.writeTrack(createTrack(), output);
+    final byte[] truncated = Arrays.copyOf(output.toByteArray(), output.size() - 1);
+    assertThrows(IOException.class,
+        () -> trackMapper.readTrack(new ByteArrayInputStream(truncated)));
+  }
+
+  @Test
+  @DisplayName("Test if the format is given as expected")
+  public void testFormat() {
+    assertEquals(BinaryTrackMapper.FORMAT, trackMapper.getFormat());
+    assertEquals(trackMapper.getFormat(), trackMapper.copy().getFormat());
+  }
+}
@@ -0,0 +1,91 @@
+package sequencer.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the arrangement.
+ */
+public class ArrangementTest {
+
+  private Arrangement arrangement;
+
+  /**
+   * Creates an arrangement with a verse and a chorus before each test.
+   */
+  @BeforeEach
+  public void createArrangement() {
+    arrangement = new Arrangement();
+    final Track verse = new Track();
+    verse.addInstrument("kick");
+    verse.toggleSixteenth("kick", 0);
+    arrangement.putPattern("verse", verse);
+    final Track chorus = new Track();
+    chorus.setLength(8);
+    chorus.addInstrument("snare");
+    arrangement.putPattern("chorus", chorus);
+  }
+
+  @Test
+  @DisplayName("Test if sections are added and removed, and must play a pattern of the song")
+  public void testSections() {
+    arrangement.addSection(new Arrangement.Section("chorus", 2));
+    arrangement.addSection(0, new Arrangement.Section("verse", 4, 100f));
+    assertEquals(List.of(new Arrangement.Section("verse", 4, 100f),
+        new Arrangement.Section("chorus", 2)), arrangement.getSections());
+
+    assertThrows(IllegalArgumentException.class,
+        () -> arrangement.addSection(new Arrangement.Section("bridge", 1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> arrangement.addSection(3, new Arrangement.Section("verse", 1)));
+    assertThrows(IllegalArgumentException.class, () -> new Arrangement.Section("verse", 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new Arrangement.Section("verse", 1, Track.MAX_BPM + 1));
+    assertThrows(IllegalArgumentException.class, () -> arrangement.removePattern("verse"),
+        "Did not expect a pattern played by a section to be removed");
+
+    arrangement.removeSection(0);
+    arrangement.removePattern("verse");
+    assertEquals(List.of("chorus"), arrangement.getPatternNames());
+    assertThrows(IllegalArgumentException.class, () -> arrangement.removeSection(1));
+  }
+
+  @Test
+  @DisplayName("Test if the tracks of the sections have the tempo of their section")
+  public void testSectionTracks() {
+    arrangement.addSection(new Arrangement.Section("verse", 2));
+    arrangement.addSection(new Arrangement.Section("chorus", 1, 140f));
+    arrangement.addSection(new Arrangement.Section("verse", 1));
+
+    final List<Track> tracks = arrangement.getSectionTracks();
+    assertEquals(3, tracks.size());
+    assertEquals(Track.BPM, tracks.get(0).getBpm());
+    assertEquals(140f, tracks.get(1).getBpm());
+    assertEquals(8, tracks.get(1).getLength());
+    assertTrue(tracks.get(0).isActive("kick", 0));
+    assertSame(tracks.get(0), tracks.get(2), "Expected sections with the same track to share it");
+  }
+
+  @Test
+  @DisplayName("Test if patterns are copied in and out of the arrangement")
+  public void testCopies() {
+    final Track verse = arrangement.getPattern("verse");
+    verse.toggleSixteenth("kick", 0);
+    assertTrue(arrangement.getPattern("verse").isActive("kick", 0));
+
+    arrangement.addSection(new Arrangement.Section("verse", 1));
+    arrangement.setLooped(true);
+    final Arrangement copy = arrangement.copy();
+    copy.putPattern("verse", verse);
+    assertTrue(arrangement.getPattern("verse").isActive("kick", 0));
+    assertEquals(arrangement.getSections(), copy.getSections());
+    assertTrue(copy.isLooped());
+  }
+}
@@ -0,0 +1,119 @@
+package sequencer.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the ring buffer of composer events.
+ */
+public class ComposerEventBufferTest {
+
+  /**
+   * Helper for reading the sequences of all available events.
+   */
+  private static List<Long> drainSequences(ComposerEventBuffer.Reader reader) {
+    final List<Long> sequences = new ArrayList<>();
+    reader.drain(event -> sequences.add(event.sequence()));
+    return sequences;
+  }
+
+  @Test
+  @DisplayName("Test if readers get the events published after they were created, in order")
+  public void testReadingEvents() {
+    // SETUP
+    final ComposerEventBuffer buffer = new ComposerEventBuffer(8);
+    buffer.publish(ComposerEvent.Type.SIXTEENTH, 0, 10);
+    final ComposerEventBuffer.Reader reader = buffer.newReader();
+    final ComposerEventBuffer.Reader otherReader = buffer.newReader();
+
+    // TEST
+    assertEquals(List.of(), drainSequences(reader));
+    buffer.publish(ComposerEvent.Type.SIXTEENTH, 1, 20);
+    buffer.publish(ComposerEvent.Type.STOPPED, 0, 30);
+
+    final List<ComposerEvent> events = new ArrayList<>();
+    assertEquals(2, reader.drain(events::add));
+    assertEquals(List.of(new ComposerEvent(1, ComposerEvent.Type.SIXTEENTH, 1, 20),
+        new ComposerEvent(2, ComposerEvent.Type.STOPPED, 0, 30)), events);
+    assertEquals(List.of(), drainSequences(reader));
+
+    // Readers are independent of each other
+    assertEquals(List.of(1L, 2L), drainSequences(otherReader));
+    assertEquals(0, reader.getDropped());
+
+    assertThrows(IllegalArgumentException.class, () -> new ComposerEventBuffer(6));
+    assertThrows(IllegalArgumentException.class, () -> new ComposerEventBuffer(0));
+  }
+
+  @Test
+  @DisplayName("Test if a reader falling behind skips the overwritten events")
+  public void testFallingBehind() {
+    // SETUP
+    final ComposerEventBuffer buffer = new ComposerEventBuffer(4);
+    final ComposerEventBuffer.Reader reader = buffer.newReader();
+
+    // TEST
+    for (int i = 0; i < 10; i++) {
+      buffer.publish(ComposerEvent.Type.SIXTEENTH, i, i);
+    }
+    assertEquals(List.of(6L, 7L, 8L, 9L), drainSequences(reader));
+    assertEquals(6, reader.getDropped());
+
+    buffer.publish(ComposerEvent.Type.SIXTEENTH, 10, 10);
+    assertEquals(List.of(10L), drainSequences(reader));
+    assertEquals(6, reader.getDropped());
+  }
+
+  @Test
+  @DisplayName("Test if events published from several threads are read in order while published")
+  public void testConcurrentPublishing() throws InterruptedException {
+    // SETUP
+    final ComposerEventBuffer buffer = new ComposerEventBuffer(64);
+    final ComposerEventBuffer.Reader reader = buffer.newReader();
+    final int eventsPerThread = 10000;
+    final List<Thread> publishers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      publishers.add(new Thread(() -> {
+        for (int j = 0; j < eventsPerThread; j++) {
+          buffer.publish(ComposerEvent.Type.SIXTEENTH, j % Track.TRACK_LENGTH, System.nanoTime());
+        }
+      }));
+    }
+
+    // TEST
+    final List<Long> sequences = new ArrayList<>();
+    final AtomicBoolean published = new AtomicBoolean();
+    publishers.forEach(Thread::start);
+    final Thread waiter = new Thread(() -> {
+      publishers.forEach(publisher -> {
+        try {
+          publisher.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      published.set(true);
+    });
+    waiter.start();
+    while (!published.get()) {
+      sequences.addAll(drainSequences(reader));
+    }
+    waiter.join();
+    sequences.addAll(drainSequences(reader));
+
+    // Every event was either read once, in order, or counted as dropped
+    assertTrue(LongStream.range(1, sequences.size())
+        .allMatch(i -> sequences.get((int) i) > sequences.get((int) i - 1)),
+        "Expected events to be read in the order they were published");
+    assertEquals(2L * eventsPerThread, sequences.size() + reader.getDropped());
+    assertEquals(2L * eventsPerThread - 1, sequences.get(sequences.size() - 1));
+  }
+}
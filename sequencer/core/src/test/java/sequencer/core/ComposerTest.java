@@ -2,6 +2,7 @@ package sequencer.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
@@ -9,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,6 +22,11 @@ import sequencer.json.TrackMapper;
  */
 public class ComposerTest {
 
+  // The sounds of the instruments, numbered in the order of instrumentNames.csv
+  private static final int KICK_SOUND = 0;
+  private static final int SNARE_SOUND = 2;
+  private static final long SEED = 42;
+
   private Composer composer;
 
   /**
@@ -97,6 +104,19 @@ public class ComposerTest {
         .allMatch(instrument -> instrument.equals("snare")), "Expected snare in track");
   }
 
+  @Test
+  @DisplayName("Test if polyphony and choke groups are set for available instruments")
+  public void testPolyphonyAndChokeGroups() {
+    assertEquals(VoicePool.DEFAULT_POLYPHONY, composer.getMaxPolyphony());
+    composer.setMaxPolyphony(4);
+    assertEquals(4, composer.getMaxPolyphony());
+
+    assertEquals(VoicePool.NO_CHOKE_GROUP, composer.getChokeGroup("hihat"));
+    composer.setChokeGroup("hihat", 1);
+    assertEquals(1, composer.getChokeGroup("hihat"));
+    assertThrows(IllegalArgumentException.class, () -> composer.setChokeGroup("triangle", 1));
+  }
+
   @Test
   @DisplayName("Test if isPlaying returns the expected state")
   public void testStartingAndStopping() {
@@ -110,4 +130,280 @@ public class ComposerTest {
     composer.stop();
     assertFalse(composer.isPlaying(), "Did not expect composer to be playing");
   }
+
+  @Test
+  @DisplayName("Test if edits from several threads are all kept while the composer is playing")
+  public void testConcurrentEditing() throws InterruptedException {
+    // SETUP
+    composer.addInstrumentToTrack("kick");
+    composer.addInstrumentToTrack("snare");
+    final int toggles = 1001;
+    final List<Throwable> errors = new CopyOnWriteArrayList<>();
+    final Thread kickThread = new Thread(() -> {
+      for (int i = 0; i < toggles; i++) {
+        composer.toggleTrackSixteenth("kick", 0);
+      }
+    });
+    final Thread snareThread = new Thread(() -> {
+      for (int i = 0; i < toggles; i++) {
+        composer.toggleTrackSixteenth("snare", 1);
+        final ComposerListener listener = progress -> {
+        };
+        composer.addListener(listener);
+        composer.removeListener(listener);
+      }
+    });
+    kickThread.setUncaughtExceptionHandler((thread, e) -> errors.add(e));
+    snareThread.setUncaughtExceptionHandler((thread, e) -> errors.add(e));
+
+    // TEST
+    composer.start();
+    kickThread.start();
+    snareThread.start();
+    kickThread.join();
+    snareThread.join();
+    composer.stop();
+
+    assertTrue(errors.isEmpty(), "Did not expect concurrent edits to fail: " + errors);
+    // Both sixteenths were toggled an odd number of times, so no toggle may have been lost
+    assertTrue(composer.getTrackPattern("kick").get(0), "Expected kick to be active at index 0");
+    assertTrue(composer.getTrackPattern("snare").get(1), "Expected snare to be active at index 1");
+  }
+
+  @Test
+  @DisplayName("Test if played sixteenths are published as events with their scheduled time")
+  public void testEvents() throws InterruptedException {
+    // SETUP
+    final ComposerEventBuffer.Reader reader = composer.newEventReader();
+    final List<ComposerEvent> events = new ArrayList<>();
+
+    // TEST
+    composer.start();
+    while (events.size() < 3) {
+      reader.drain(events::add);
+      Thread.sleep(10);
+    }
+    composer.stop();
+    reader.drain(events::add);
+
+    // Sixteenths are scheduled one period apart, starting from the first sixteenth
+    final long period = events.get(1).nanoTime() - events.get(0).nanoTime();
+    assertTrue(period > 0, "Expected sixteenths to be scheduled one after another");
+    for (int i = 0; i < 3; i++) {
+      assertEquals(ComposerEvent.Type.SIXTEENTH, events.get(i).type());
+      assertEquals(i, events.get(i).sixteenth());
+      assertEquals(events.get(0).nanoTime() + i * period, events.get(i).nanoTime());
+    }
+    assertEquals(ComposerEvent.Type.STOPPED, events.get(events.size() - 1).type());
+    assertEquals(0, reader.getDropped());
+  }
+
+  @Test
+  @DisplayName("Test if the composer loops over the length of the track, delaying swung sixteenths")
+  public void testLengthAndSwing() throws InterruptedException {
+    // SETUP
+    composer.setLength(3);
+    composer.setSwing(0.5f);
+    composer.setBpm(Track.MAX_BPM);
+    final ComposerEventBuffer.Reader reader = composer.newEventReader();
+    final List<ComposerEvent> events = new ArrayList<>();
+
+    // TEST
+    composer.start();
+    while (events.size() < 5) {
+      reader.drain(events::add);
+      Thread.sleep(10);
+    }
+    composer.stop();
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i % 3, events.get(i).sixteenth());
+    }
+    // Only the second sixteenth of the track is swung, by half a period
+    final long period = (events.get(2).nanoTime() - events.get(0).nanoTime()) / 2;
+    assertEquals(events.get(0).nanoTime() + period + period / 2, events.get(1).nanoTime());
+    assertEquals(events.get(0).nanoTime() + 3 * period, events.get(3).nanoTime());
+    assertEquals(events.get(0).nanoTime() + 4 * period + period / 2, events.get(4).nanoTime());
+  }
+
+  @Test
+  @DisplayName("Test if an arrangement is played section by section, and stops at the end")
+  public void testArrangement() throws InterruptedException {
+    // SETUP
+    final Arrangement arrangement = new Arrangement();
+    final Track verse = new Track();
+    verse.setLength(2);
+    verse.addInstrument("kick");
+    arrangement.putPattern("verse", verse);
+    final Track chorus = new Track();
+    chorus.setLength(3);
+    chorus.addInstrument("snare");
+    arrangement.putPattern("chorus", chorus);
+    arrangement.addSection(new Arrangement.Section("verse", 2, Track.MAX_BPM));
+    arrangement.addSection(new Arrangement.Section("chorus", 1, 250f));
+    composer.setArrangement(arrangement);
+    assertEquals(List.of("kick"), composer.getInstrumentsInTrack());
+
+    final ComposerEventBuffer.Reader reader = composer.newEventReader();
+    final List<ComposerEvent> events = new ArrayList<>();
+
+    // TEST
+    composer.start();
+    while (events.isEmpty() || events.get(events.size() - 1).type() != ComposerEvent.Type.STOPPED) {
+      reader.drain(events::add);
+      Thread.sleep(10);
+    }
+
+    assertFalse(composer.isPlaying(), "Expected the composer to stop after the last section");
+    assertEquals(List.of(0, 1, 0, 1, 0, 1, 2, 0),
+        events.stream().map(ComposerEvent::sixteenth).toList());
+    assertEquals(List.of("snare"), composer.getInstrumentsInTrack());
+    // The chorus starts when the next sixteenth of the verse was due, and keeps its own tempo
+    final long versePeriod = events.get(1).nanoTime() - events.get(0).nanoTime();
+    final long chorusPeriod = events.get(5).nanoTime() - events.get(4).nanoTime();
+    assertTrue(Math.abs(events.get(4).nanoTime() - events.get(3).nanoTime() - versePeriod)
+        < 1_000_000L, "Expected the chorus to start one sixteenth after the verse");
+    assertTrue(chorusPeriod > versePeriod, "Expected the chorus to be slower than the verse");
+  }
+
+  @Test
+  @DisplayName("Test if sixteenths are played at their velocity, as decided by their probability")
+  public void testVelocityAndProbability() throws IOException, InterruptedException {
+    // SETUP
+    final List<Note> played = new CopyOnWriteArrayList<>();
+    final Composer recorded = createRecordedComposer(played, new CopyOnWriteArrayList<>());
+    final Track pattern = new Track();
+    pattern.setBpm(Track.MAX_BPM);
+    pattern.addInstrument("kick");
+    pattern.toggleSixteenth("kick", 0);
+    pattern.toggleSixteenth("kick", 8);
+    pattern.setVelocity("kick", 8, 64);
+    pattern.addInstrument("snare");
+    for (int i = 0; i < pattern.getLength(); i++) {
+      pattern.toggleSixteenth("snare", i);
+      pattern.setVelocity("snare", i, 40 + i);
+      pattern.setProbability("snare", i, 50);
+    }
+    final Arrangement arrangement = new Arrangement();
+    arrangement.putPattern("pattern", pattern);
+    arrangement.addSection(new Arrangement.Section("pattern", 1));
+    recorded.setArrangement(arrangement);
+    recorded.setSeed(SEED);
+
+    // The notes expected in each sixteenth, kick before snare as they were added to the track
+    final StepRandom random = new StepRandom(SEED);
+    final List<Note> expected = new ArrayList<>();
+    for (int i = 0; i < pattern.getLength(); i++) {
+      if (i == 0) {
+        expected.add(new Note(KICK_SOUND, 1.0));
+      } else if (i == 8) {
+        expected.add(new Note(KICK_SOUND, 64.0 / Track.MAX_VELOCITY));
+      }
+      if (random.isPlayed("snare", i, 50)) {
+        expected.add(new Note(SNARE_SOUND, (40.0 + i) / Track.MAX_VELOCITY));
+      }
+    }
+    final long snares = expected.stream().filter(note -> note.sound() == SNARE_SOUND).count();
+    assertTrue(snares > 0 && snares < pattern.getLength(),
+        "Expected the seed to play some, but not all, of the snares");
+
+    // TEST
+    playToEnd(recorded);
+    assertEquals(expected, played);
+
+    // Playing again from the start with the same seed plays the same sixteenths
+    played.clear();
+    playToEnd(recorded);
+    assertEquals(expected, played);
+  }
+
+  @Test
+  @DisplayName("Test if stopping the composer stops the sounds it is playing")
+  public void testStopStopsVoices() throws IOException, InterruptedException {
+    // SETUP
+    final List<Note> played = new CopyOnWriteArrayList<>();
+    final List<Integer> stopped = new CopyOnWriteArrayList<>();
+    final Composer recorded = createRecordedComposer(played, stopped);
+    recorded.addInstrumentToTrack("kick");
+    recorded.toggleTrackSixteenth("kick", 0);
+
+    // TEST
+    recorded.start();
+    while (played.isEmpty()) {
+      Thread.sleep(10);
+    }
+    recorded.stop();
+    assertEquals(List.of(new Note(KICK_SOUND, 1.0)), played.subList(0, 1));
+    assertTrue(stopped.contains(KICK_SOUND), "Expected the kick to be stopped: " + stopped);
+    assertEquals(0, recorded.getActiveVoices());
+  }
+
+  @Test
+  @DisplayName("Test if a swung note waiting to be played is dropped when the composer stops")
+  public void testStopCancelsSwungNotes() throws IOException, InterruptedException {
+    // SETUP
+    final List<Note> played = new CopyOnWriteArrayList<>();
+    final Composer recorded = createRecordedComposer(played, new CopyOnWriteArrayList<>());
+    // Only the second sixteenth, which is swung, has a note. At 30 BPM it is played 250 ms late
+    recorded.addInstrumentToTrack("kick");
+    recorded.toggleTrackSixteenth("kick", 1);
+    recorded.setBpm(30f);
+    recorded.setSwing(Track.MAX_SWING);
+    final ComposerEventBuffer.Reader reader = recorded.newEventReader();
+    final List<ComposerEvent> events = new ArrayList<>();
+
+    // TEST
+    recorded.start();
+    while (events.stream().noneMatch(event -> event.type() == ComposerEvent.Type.SIXTEENTH
+        && event.sixteenth() == 1)) {
+      reader.drain(events::add);
+      Thread.sleep(1);
+    }
+    recorded.stop();
+    assertTrue(played.isEmpty(), "Expected the swung note to be waiting: " + played);
+
+    // The note would have been played by now, had it not been cancelled
+    Thread.sleep(500);
+    assertTrue(played.isEmpty(), "Expected no notes after the composer stopped: " + played);
+    assertEquals(0, recorded.getActiveVoices());
+  }
+
+  // Helpers
+
+  /**
+   * A note played by the voice pool of a composer.
+   */
+  private record Note(int sound, double volume) {
+  }
+
+  /**
+   * Creates a silent composer recording the notes it plays, and the sounds it stops.
+   */
+  private static Composer createRecordedComposer(List<Note> played, List<Integer> stopped)
+      throws IOException {
+    return Composer.createSilentComposer(new TrackMapper(), new VoicePool.Output() {
+      @Override
+      public void play(int sound, double volume) {
+        played.add(new Note(sound, volume));
+      }
+
+      @Override
+      public void stop(int sound) {
+        stopped.add(sound);
+      }
+    });
+  }
+
+  /**
+   * Starts the composer, and waits for it to stop at the end of its arrangement.
+   */
+  private static void playToEnd(Composer composer) throws InterruptedException {
+    final ComposerEventBuffer.Reader reader = composer.newEventReader();
+    final List<ComposerEvent> events = new ArrayList<>();
+    composer.start();
+    while (events.isEmpty() || events.get(events.size() - 1).type() != ComposerEvent.Type.STOPPED) {
+      reader.drain(events::add);
+      Thread.sleep(10);
+    }
+  }
 }
@@ -0,0 +1,93 @@
+package sequencer.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the mix kernels, comparing every available kernel to the scalar kernel.
+ */
+public class MixKernelTest {
+
+  private static List<MixKernel> availableKernels() {
+    final List<MixKernel> kernels = new ArrayList<>();
+    kernels.add(MixKernel.of(MixKernel.SCALAR));
+    if (MixKernel.isVectorAvailable()) {
+      kernels.add(MixKernel.of(MixKernel.VECTOR));
+    }
+    return kernels;
+  }
+
+  private static float[] randomSamples(Random random, int length) {
+    final float[] samples = new float[length];
+    for (int i = 0; i < length; i++) {
+      samples[i] = random.nextFloat() * 2 - 1;
+    }
+    return samples;
+  }
+
+  @Test
+  @DisplayName("Test if the kernels are selected by name, and the fastest available is created")
+  public void testSelection() {
+    assertEquals(MixKernel.SCALAR, MixKernel.of(MixKernel.SCALAR).getName());
+    assertThrows(IllegalArgumentException.class, () -> MixKernel.of("simd"));
+    if (!MixKernel.isVectorAvailable()) {
+      assertThrows(IllegalArgumentException.class, () -> MixKernel.of(MixKernel.VECTOR));
+      assertEquals(MixKernel.SCALAR, MixKernel.create().getName());
+    }
+
+    // The vector kernel is only provided when the sequencer.vectormix module is present
+    assumeTrue(MixKernel.isVectorAvailable(), "The vector kernel is not available");
+    assertEquals(MixKernel.VECTOR, MixKernel.of(MixKernel.VECTOR).getName());
+    assertEquals(MixKernel.VECTOR, MixKernel.create().getName());
+  }
+
+  @Test
+  @DisplayName("Test if all kernels mix and clip voices exactly as the scalar kernel")
+  public void testMixAndClip() {
+    final Random random = new Random(1901);
+    final float[][] voices = new float[8][];
+    for (int v = 0; v < voices.length; v++) {
+      voices[v] = randomSamples(random, 1000);
+    }
+
+    // Lengths which are not a multiple of any vector length are mixed partly one at a time
+    for (int length : new int[] {0, 1, 7, 64, 333, 512}) {
+      final List<float[]> outputs = new ArrayList<>();
+      for (MixKernel kernel : availableKernels()) {
+        final float[] output = new float[length + 5];
+        for (int v = 0; v < voices.length; v++) {
+          kernel.mix(voices[v], v * 50, 0.25f * v, output, length);
+        }
+        kernel.clip(output, length);
+        outputs.add(output);
+      }
+      for (float[] output : outputs) {
+        assertArrayEquals(outputs.get(0), output, "Kernels differed at length " + length);
+        for (int i = 0; i < length + 5; i++) {
+          assertTrue(output[i] >= -1f && output[i] <= 1f);
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test if the kernels reject buffers shorter than the length")
+  public void testBounds() {
+    for (MixKernel kernel : availableKernels()) {
+      assertThrows(IndexOutOfBoundsException.class,
+          () -> kernel.mix(new float[10], 5, 1f, new float[10], 6));
+      assertThrows(IndexOutOfBoundsException.class,
+          () -> kernel.mix(new float[10], 0, 1f, new float[5], 6));
+      assertThrows(IndexOutOfBoundsException.class, () -> kernel.clip(new float[5], 6));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package sequencer.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the pattern index.
+ */
+public class PatternIndexTest {
+
+  private PatternIndex index;
+
+  /**
+   * Creates a track where the given instrument plays the given sixteenths.
+   */
+  private static Track trackWith(String instrument, int... sixteenths) {
+    final Track track = new Track();
+    track.addInstrument(instrument);
+    for (int sixteenth : sixteenths) {
+      track.toggleSixteenth(instrument, sixteenth);
+    }
+    return track;
+  }
+
+  @BeforeEach
+  public void createIndex() {
+    index = new PatternIndex();
+    index.add(1, trackWith("kick", 0, 4, 8, 12));
+    index.add(2, trackWith("kick", 0, 4, 8));
+    index.add(3, trackWith("kick", 0, 8));
+    index.add(4, trackWith("snare", 0, 4, 8, 12));
+  }
+
+  @Test
+  @DisplayName("Test if the distance is the number of sixteenths played in only one track")
+  public void testDistance() {
+    assertEquals(0, index.distance(1, 1));
+    assertEquals(1, index.distance(1, 2));
+    assertEquals(2, index.distance(1, 3));
+    // Different instruments share no sixteenths
+    assertEquals(8, index.distance(1, 4));
+
+    final Track both = trackWith("kick", 0, 4, 8, 12);
+    both.addInstrument("snare");
+    index.add(5, both);
+    // An instrument without any played sixteenths does not add to the distance
+    assertEquals(0, index.distance(5, 1));
+    assertEquals(8, index.distance(5, 4));
+  }
+
+  @Test
+  @DisplayName("Test if the nearest tracks are returned nearest first")
+  public void testNearest() {
+    assertEquals(List.of(2, 3, 4), index.nearest(1, 10));
+    assertEquals(List.of(2, 3), index.nearest(1, 2));
+    assertEquals(List.of(), index.nearest(1, 0));
+    assertEquals(List.of(3, 2), index.nearest(trackWith("kick", 0, 8), 2));
+
+    assertThrows(IllegalArgumentException.class, () -> index.nearest(1, -1));
+    assertThrows(IllegalArgumentException.class, () -> index.nearest(10, 1));
+  }
+
+  @Test
+  @DisplayName("Test if tracks can be replaced and removed")
+  public void testReplaceAndRemove() {
+    index.add(3, trackWith("snare", 0, 4, 8, 12));
+    assertEquals(List.of(3, 2, 1), index.nearest(4, 3));
+
+    index.remove(3);
+    assertFalse(index.contains(3));
+    assertEquals(3, index.size());
+  }
+}
@@ -0,0 +1,54 @@
+package sequencer.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the random source deciding which sixteenths are played.
+ */
+public class StepRandomTest {
+
+  private static final int SIXTEENTHS = 10_000;
+
+  private static List<Boolean> decisions(StepRandom random, String instrument, int probability) {
+    final List<Boolean> decisions = new ArrayList<>();
+    for (int i = 0; i < SIXTEENTHS; i++) {
+      decisions.add(random.isPlayed(instrument, i, probability));
+    }
+    return decisions;
+  }
+
+  @Test
+  @DisplayName("Test if equal seeds make equal decisions, and different seeds different ones")
+  public void testSeed() {
+    assertEquals(decisions(new StepRandom(42), "kick", 50),
+        decisions(new StepRandom(42), "kick", 50));
+    assertNotEquals(decisions(new StepRandom(42), "kick", 50),
+        decisions(new StepRandom(43), "kick", 50));
+    assertNotEquals(decisions(new StepRandom(42), "kick", 50),
+        decisions(new StepRandom(42), "snare", 50));
+  }
+
+  @Test
+  @DisplayName("Test if sixteenths are played as often as their probability")
+  public void testProbability() {
+    final StepRandom random = new StepRandom(7);
+    assertFalse(decisions(random, "kick", 0).contains(true));
+    assertFalse(decisions(random, "kick", Track.MAX_PROBABILITY).contains(false));
+
+    for (int probability : new int[] {1, 25, 50, 90}) {
+      final long played = decisions(random, "kick", probability).stream().filter(p -> p).count();
+      final double expected = SIXTEENTHS * probability / (double) Track.MAX_PROBABILITY;
+      assertTrue(Math.abs(played - expected) < SIXTEENTHS * 0.02,
+          "Expected about %s of %s sixteenths to be played, was %s"
+              .formatted(expected, SIXTEENTHS, played));
+    }
+  }
+}
@@ -187,5 +187,130 @@ public class TrackTest {
               Did not throw IllegalArgumentException when toggeling sixteenth with index
               out of bounds""");
     }
+
+    @Test
+    @DisplayName("Test if setLength resizes the instruments with the length of the track")
+    public void testSetLength() {
+      final String polyrhythmic = instruments.get(2);
+      track.setPatternLength(polyrhythmic, 3);
+
+      track.setLength(Track.MAX_LENGTH);
+      assertEquals(Track.MAX_LENGTH, track.getLength());
+      assertEquals(patterns.get(0), track.getPattern(instruments.get(0)).subList(0, 16));
+      assertEquals(Collections.nCopies(Track.MAX_LENGTH - 16, false),
+          track.getPattern(instruments.get(0)).subList(16, Track.MAX_LENGTH));
+      assertEquals(3, track.getPatternLength(polyrhythmic), "Expected own length to be kept");
+
+      track.toggleSixteenth(instruments.get(0), Track.MAX_LENGTH - 1);
+      assertTrue(track.isActive(instruments.get(0), Track.MAX_LENGTH - 1));
+      track.setLength(12);
+      assertEquals(patterns.get(0).subList(0, 12), track.getPattern(instruments.get(0)));
+      // Sixteenths cut from the pattern are not kept when it is made longer again
+      track.setLength(Track.MAX_LENGTH);
+      assertFalse(track.isActive(instruments.get(0), Track.MAX_LENGTH - 1));
+
+      assertThrows(IllegalArgumentException.class, () -> track.setLength(0));
+      assertThrows(IllegalArgumentException.class, () -> track.setLength(Track.MAX_LENGTH + 1));
+      assertThrows(IllegalArgumentException.class,
+          () -> track.setPatternLength("does not exist", 4));
+    }
+
+    @Test
+    @DisplayName("Test if an own length equal to the length of the track is kept by setLength")
+    public void testOwnLengthOfTrackLength() {
+      final String own = instruments.get(2);
+      assertFalse(track.hasOwnLength(own));
+      track.setPatternLength(own, Track.TRACK_LENGTH);
+      assertTrue(track.hasOwnLength(own));
+      assertFalse(track.hasOwnLength(instruments.get(0)));
+
+      track.setLength(Track.TRACK_LENGTH * 2);
+      assertEquals(Track.TRACK_LENGTH, track.getPatternLength(own));
+      assertEquals(Track.TRACK_LENGTH * 2, track.getPatternLength(instruments.get(0)));
+
+      // The own length is kept when copied, and when the pattern length is changed again
+      final Track copy = track.copy();
+      assertTrue(copy.hasOwnLength(own));
+      track.setPatternLength(own, 3);
+      track.setLength(Track.TRACK_LENGTH);
+      assertEquals(3, track.getPatternLength(own));
+      assertThrows(IllegalArgumentException.class, () -> track.hasOwnLength("does not exist"));
+    }
+
+    @Test
+    @DisplayName("Test setters/getters for bpm and swing with legal and illegal input")
+    public void testBpmAndSwing() {
+      assertEquals(Track.BPM, track.getBpm());
+      assertEquals(Track.SWING, track.getSwing());
+      track.setBpm(90f);
+      track.setSwing(Track.MAX_SWING);
+      assertEquals(90f, track.getBpm());
+      assertEquals(Track.MAX_SWING, track.getSwing());
+
+      assertThrows(IllegalArgumentException.class, () -> track.setBpm(Track.MAX_BPM + 1));
+      assertThrows(IllegalArgumentException.class, () -> track.setBpm(Float.NaN));
+      assertThrows(IllegalArgumentException.class, () -> track.setSwing(-0.1f));
+      assertThrows(IllegalArgumentException.class, () -> track.setSwing(Track.MAX_SWING + 0.1f));
+    }
+
+    @Test
+    @DisplayName("Test if copy keeps the settings and patterns, without sharing them")
+    public void testCopy() {
+      track.setLength(32);
+      track.setBpm(100f);
+      track.setSwing(0.25f);
+      track.setPatternLength(instruments.get(1), 70);
+      track.toggleSixteenth(instruments.get(1), 69);
+
+      final Track copy = track.copy();
+      assertEquals(32, copy.getLength());
+      assertEquals(100f, copy.getBpm());
+      assertEquals(0.25f, copy.getSwing());
+      for (String instrument : instruments) {
+        assertEquals(track.getPattern(instrument), copy.getPattern(instrument));
+      }
+
+      copy.toggleSixteenth(instruments.get(1), 69);
+      assertTrue(track.isActive(instruments.get(1), 69), "Expected the original to be unchanged");
+    }
+
+    @Test
+    @DisplayName("Test setters/getters for velocity and probability, and that they follow resizes")
+    public void testVelocityAndProbability() {
+      final String instrument = instruments.get(0);
+      assertEquals(Track.MAX_VELOCITY, track.getVelocity(instrument, 0));
+      assertEquals(Track.MAX_PROBABILITY, track.getProbability(instrument, 0));
+      // Setting the maximum does not count as having values
+      track.setVelocity(instrument, 0, Track.MAX_VELOCITY);
+      assertFalse(track.hasVelocities(instrument));
+      assertFalse(track.hasProbabilities(instrument));
+
+      track.setVelocity(instrument, 3, 0);
+      track.setProbability(instrument, 15, 25);
+      assertEquals(0, track.getVelocity(instrument, 3));
+      assertEquals(25, track.getProbability(instrument, 15));
+      assertTrue(track.hasVelocities(instrument));
+      assertTrue(track.hasProbabilities(instrument));
+      assertFalse(track.hasVelocities(instruments.get(1)));
+
+      final Track copy = track.copy();
+      copy.setVelocity(instrument, 3, 1);
+      assertEquals(0, track.getVelocity(instrument, 3), "Expected the original to be unchanged");
+
+      // Sixteenths added by a resize get the maximum, and cut sixteenths are not kept
+      track.setLength(8);
+      assertFalse(track.hasProbabilities(instrument));
+      track.setLength(32);
+      assertEquals(0, track.getVelocity(instrument, 3));
+      assertEquals(Track.MAX_PROBABILITY, track.getProbability(instrument, 15));
+      assertEquals(Track.MAX_VELOCITY, track.getVelocity(instrument, 31));
+
+      assertThrows(IllegalArgumentException.class,
+          () -> track.setVelocity(instrument, 0, Track.MAX_VELOCITY + 1));
+      assertThrows(IllegalArgumentException.class, () -> track.setProbability(instrument, 0, -1));
+      assertThrows(IllegalArgumentException.class, () -> track.getVelocity(instrument, 32));
+      assertThrows(IllegalArgumentException.class,
+          () -> track.setProbability("does not exist", 0, 50));
+    }
   }
 }
@@ -0,0 +1,108 @@
+package sequencer.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the voice pool, recording the sounds it plays and stops.
+ */
+public class VoicePoolTest {
+
+  private static final int KICK = 0;
+  private static final int OPEN_HIHAT = 1;
+  private static final int CLOSED_HIHAT = 2;
+
+  private final List<String> played = new ArrayList<>();
+  private VoicePool voices;
+
+  /**
+   * Create a pool of three voices before each test, with sounds playing for 100, 50 and 10 ns.
+   */
+  @BeforeEach
+  public void createPool() {
+    played.clear();
+    voices = new VoicePool(3, new long[] {100, 50, 10}, new VoicePool.Output() {
+      @Override
+      public void play(int sound, double volume) {
+        played.add("play " + sound);
+      }
+
+      @Override
+      public void stop(int sound) {
+        played.add("stop " + sound);
+      }
+    });
+  }
+
+  @Test
+  @DisplayName("Test if voices are freed when their sound has played to the end")
+  public void testSoundEnds() {
+    voices.noteOn(KICK, 1, 0);
+    voices.noteOn(OPEN_HIHAT, 1, 0);
+    assertEquals(2, voices.getActiveVoices(0));
+    assertEquals(1, voices.getActiveVoices(50));
+    assertEquals(0, voices.getActiveVoices(100));
+    assertEquals(List.of("play 0", "play 1"), played);
+  }
+
+  @Test
+  @DisplayName("Test if the oldest voice is stolen when all voices are playing")
+  public void testStealing() {
+    // SETUP
+    voices.noteOn(OPEN_HIHAT, 1, 0);
+    voices.noteOn(KICK, 1, 1);
+    voices.noteOn(KICK, 1, 2);
+
+    // TEST
+    voices.noteOn(CLOSED_HIHAT, 1, 3);
+    assertEquals(3, voices.getActiveVoices(3));
+    // Stopping the kick frees both of its voices
+    voices.noteOn(CLOSED_HIHAT, 1, 4);
+    assertEquals(2, voices.getActiveVoices(4));
+    assertEquals(List.of("play 1", "play 0", "play 0", "stop 1", "play 2", "stop 0", "play 2"),
+        played);
+  }
+
+  @Test
+  @DisplayName("Test if a note stops the sounds of its choke group")
+  public void testChokeGroup() {
+    // SETUP
+    voices.setChokeGroup(OPEN_HIHAT, 1);
+    voices.setChokeGroup(CLOSED_HIHAT, 1);
+    voices.noteOn(OPEN_HIHAT, 1, 0);
+    voices.noteOn(KICK, 1, 0);
+
+    // TEST
+    voices.noteOn(CLOSED_HIHAT, 1, 1);
+    assertEquals(2, voices.getActiveVoices(1));
+    voices.noteOn(CLOSED_HIHAT, 1, 2);
+    assertEquals(2, voices.getActiveVoices(2));
+    assertEquals(List.of("play 1", "play 0", "stop 1", "play 2", "stop 2", "play 2"), played);
+
+    voices.setChokeGroup(OPEN_HIHAT, VoicePool.NO_CHOKE_GROUP);
+    assertEquals(VoicePool.NO_CHOKE_GROUP, voices.getChokeGroup(OPEN_HIHAT));
+    assertThrows(IllegalArgumentException.class, () -> voices.setChokeGroup(KICK, -1));
+  }
+
+  @Test
+  @DisplayName("Test if reducing the polyphony stops the oldest voices")
+  public void testSetMaxPolyphony() {
+    voices.noteOn(KICK, 1, 0);
+    voices.noteOn(OPEN_HIHAT, 1, 1);
+    voices.setMaxPolyphony(1);
+    assertEquals(1, voices.getMaxPolyphony());
+    assertEquals(1, voices.getActiveVoices(1));
+    assertEquals(List.of("play 0", "play 1", "stop 0"), played);
+
+    assertThrows(IllegalArgumentException.class, () -> voices.setMaxPolyphony(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> voices.setMaxPolyphony(VoicePool.MAX_POLYPHONY + 1));
+    assertThrows(IllegalArgumentException.class, () -> voices.noteOn(3, 1, 0));
+  }
+}
@@ -0,0 +1,126 @@
+package sequencer.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.core.Track;
+
+/**
+ * Tests consist of deserializing tracks from hand written json, making sure unexpected content is
+ * handled as leniently as expected.
+ */
+public class TrackDeserializerTest {
+
+  private final TrackMapper trackMapper = new TrackMapper();
+
+  private Track read(String json) throws IOException {
+    return trackMapper.readTrack(new StringReader(json));
+  }
+
+  @Test
+  @DisplayName("Test if a track is deserialized with all its fields")
+  public void testDeserialize() throws IOException {
+    final Track track = read("""
+        {"name":"Example song","artist":"JSON Mraz","instruments":{
+          "hihat":[true,true,true,true,true,true,true,true,true,true,true,true,true,true,true,true],
+          "kick":[true,false,false,false,true,false,false,false,true,false,false,false,true,false,
+            false,false]}}""");
+
+    assertEquals("Example song", track.getTrackName());
+    assertEquals("JSON Mraz", track.getArtistName());
+    assertEquals(List.of("hihat", "kick"), track.getInstrumentNames().stream().sorted().toList());
+    assertEquals(Collections.nCopies(Track.TRACK_LENGTH, true), track.getPattern("hihat"));
+    for (int i = 0; i < Track.TRACK_LENGTH; i++) {
+      assertEquals(i % 4 == 0, track.getPattern("kick").get(i));
+    }
+  }
+
+  @Test
+  @DisplayName("Test if values of unexpected types are ignored or read as false")
+  public void testLenientDeserialize() throws IOException {
+    final Track track = read("""
+        {"unknown":{"name":"not the name","list":[1,2,{}]},"name":42,"artist":["JSON Mraz"],
+         "instruments":{"kick":[1,"true",null,{"a":[true]},[true],false,0.5,false,
+                                false,false,false,false,false,false,false,true]}}""");
+
+    assertNull(track.getTrackName());
+    assertNull(track.getArtistName());
+    final List<Boolean> pattern = track.getPattern("kick");
+    assertEquals(Collections.nCopies(Track.TRACK_LENGTH - 1, false),
+        pattern.subList(0, Track.TRACK_LENGTH - 1));
+    assertEquals(true, pattern.get(Track.TRACK_LENGTH - 1));
+
+    assertEquals(List.of(), read("{\"instruments\":[]}").getInstrumentNames());
+    assertEquals(List.of(), read("{}").getInstrumentNames());
+  }
+
+  @Test
+  @DisplayName("Test if the last value is used when a field is given more than once")
+  public void testDuplicateFields() throws IOException {
+    final Track track = read("""
+        {"name":"first","name":"second","artist":"first","artist":null,
+         "instruments":{"snare":[]},
+         "instruments":{"kick":[],"kick":[true,true,true,true,true,true,true,true,
+                                          true,true,true,true,true,true,true,true]}}""");
+
+    assertEquals("second", track.getTrackName());
+    assertNull(track.getArtistName());
+    assertEquals(List.of("kick"), track.getInstrumentNames());
+    assertEquals(Collections.nCopies(Track.TRACK_LENGTH, true), track.getPattern("kick"));
+  }
+
+  @Test
+  @DisplayName("Test if the settings and pattern lengths of a track are deserialized")
+  public void testDeserializeSettings() throws IOException {
+    final Track track = read("""
+        {"length":4,"bpm":100,"swing":0.5,"patternLengths":{"snare":3,"kick":"two"},
+         "instruments":{"kick":[true,false,true,false],"snare":[false,true,true,true,true]}}""");
+
+    assertEquals(4, track.getLength());
+    assertEquals(100f, track.getBpm());
+    assertEquals(0.5f, track.getSwing());
+    assertEquals(List.of(true, false, true, false), track.getPattern("kick"));
+    // Patterns with a length of their own are cut to the given length
+    assertEquals(List.of(false, true, true), track.getPattern("snare"));
+
+    assertThrows(IllegalArgumentException.class, () -> read("{\"length\":0}"));
+    assertThrows(IllegalArgumentException.class, () -> read("{\"swing\":2}"));
+  }
+
+  @Test
+  @DisplayName("Test if the velocities and probabilities of a track are deserialized")
+  public void testDeserializeVelocitiesAndProbabilities() throws IOException {
+    final Track track = read("""
+        {"length":2,"instruments":{"kick":[true,true],"snare":[false,true]},
+         "velocities":{"kick":[10,"loud",30],"cow bell":[1,2]},"probabilities":{"snare":[0]}}""");
+
+    assertEquals(10, track.getVelocity("kick", 0));
+    // Values which are not integers keep the maximum, and values beyond the pattern are ignored
+    assertEquals(Track.MAX_VELOCITY, track.getVelocity("kick", 1));
+    assertFalse(track.hasVelocities("snare"));
+    assertEquals(0, track.getProbability("snare", 0));
+    assertEquals(Track.MAX_PROBABILITY, track.getProbability("snare", 1));
+
+    assertThrows(IllegalArgumentException.class, () -> read("""
+        {"length":1,"instruments":{"kick":[true]},"velocities":{"kick":[128]}}"""));
+  }
+
+  @Test
+  @DisplayName("Test if content which is not a track is rejected")
+  public void testInvalidTrack() throws IOException {
+    assertNull(read("[]"));
+    assertNull(read("\"track\""));
+    // Patterns must still have the length of a track
+    assertThrows(IllegalArgumentException.class,
+        () -> read("{\"instruments\":{\"kick\":[true]}}"));
+    assertThrows(IOException.class, () -> read("{\"instruments\":{\"kick\":[true,"));
+  }
+}
@@ -2,17 +2,21 @@ package sequencer.json;
 
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import sequencer.core.Arrangement;
 import sequencer.core.Track;
 
 /**
@@ -61,6 +65,30 @@ public class TrackMapperTest {
 
   }
 
+  @Test
+  @DisplayName("Test if TrackMapper only writes whitespace when pretty printing")
+  public void testTrackMapperCompactString() {
+    final Track track = new Track();
+    track.setTrackName("placeholder name");
+    track.addInstrument("kick");
+
+    final TrackMapper compactMapper = new TrackMapper(false);
+    final String compactString = compactMapper.getTrackString(track);
+    Assertions.assertFalse(compactMapper.isPrettyPrint());
+    Assertions.assertEquals(clearWhitespace(compactString).length() + 1, compactString.length(),
+        "Only the space in the track name should remain in compact json: " + compactString);
+
+    final TrackMapper prettyMapper = new TrackMapper();
+    final String prettyString = prettyMapper.getTrackString(track);
+    Assertions.assertTrue(prettyMapper.isPrettyPrint());
+    Assertions.assertTrue(prettyString.contains("\n"), "Expected indented json: " + prettyString);
+    Assertions.assertEquals(clearWhitespace(compactString), clearWhitespace(prettyString));
+
+    // Copies keep the mode of the original
+    Assertions.assertEquals(compactString, compactMapper.copy().getTrackString(track));
+    Assertions.assertEquals(prettyString, prettyMapper.copy().getTrackString(track));
+  }
+
   private void testTrackMapperWithExpectedOutputString(Track track, String expectedString) {
     final TrackMapper trackMapper = new TrackMapper();
 
@@ -106,6 +134,77 @@ public class TrackMapperTest {
     track.setArtistName("artist2");
     testTrackMapperSerAndDeser(track);
 
+    track.setLength(Track.MAX_LENGTH);
+    track.setBpm(97.5f);
+    track.setSwing(0.33f);
+    track.toggleSixteenth("kick", Track.MAX_LENGTH - 1);
+    track.setPatternLength("hihat", 5);
+    testTrackMapperSerAndDeser(track);
+  }
+
+  @Test
+  @DisplayName("Test if TrackMapper serializes the settings and pattern lengths when not default")
+  public void testTrackMapperSettingsString() {
+    final Track track = new Track();
+    track.setLength(2);
+    track.setBpm(90f);
+    track.setSwing(0.25f);
+    track.addInstrument("kick");
+    track.toggleSixteenth("kick", 1);
+    track.addInstrument("snare");
+    track.setPatternLength("snare", 3);
+
+    testTrackMapperWithExpectedOutputString(track, """
+        {"name":null,"artist":null,"bpm":90.0,"length":2,"swing":0.25,
+         "instruments":{"kick":[false,true],"snare":[false,false,false]},
+         "patternLengths":{"snare":3}}""");
+  }
+
+  @Test
+  @DisplayName("Test if an own pattern length equal to the length of the track is serialized")
+  public void testTrackMapperOwnLengthOfTrackLength() {
+    final Track track = new Track();
+    track.setLength(2);
+    track.addInstrument("kick");
+    track.addInstrument("snare");
+    track.setPatternLength("snare", 2);
+
+    testTrackMapperWithExpectedOutputString(track, """
+        {"name":null,"artist":null,"length":2,
+         "instruments":{"kick":[false,false],"snare":[false,false]},
+         "patternLengths":{"snare":2}}""");
+    testTrackMapperSerAndDeser(track);
+  }
+
+  @Test
+  @DisplayName("Test if TrackMapper (de)serializes velocities and probabilities without changes")
+  public void testTrackMapperVelocitiesAndProbabilities() {
+    final Track track = new Track();
+    track.setLength(4);
+    track.addInstrument("kick");
+    track.toggleSixteenth("kick", 0);
+    track.toggleSixteenth("kick", 2);
+    track.setVelocity("kick", 2, 64);
+    track.addInstrument("hihat");
+    track.setPatternLength("hihat", 3);
+    track.setVelocity("hihat", 0, 0);
+    track.setProbability("hihat", 1, 50);
+    track.setProbability("hihat", 2, 0);
+    track.addInstrument("snare");
+    testTrackMapperSerAndDeser(track);
+
+    // Setting a velocity back to the maximum, and another one below it
+    track.setVelocity("kick", 2, Track.MAX_VELOCITY);
+    track.setVelocity("kick", 3, 1);
+    testTrackMapperSerAndDeser(track);
+
+    // Differing velocities must make the tracks differ
+    final Track other = track.copy();
+    other.setVelocity("kick", 3, 2);
+    Assertions.assertFalse(tracksAreEqual(track, other));
+    other.setVelocity("kick", 3, 1);
+    other.setProbability("snare", 0, 99);
+    Assertions.assertFalse(tracksAreEqual(track, other));
   }
 
   /**
@@ -140,7 +239,7 @@ public class TrackMapperTest {
 
   /**
    * Check if two tracks are equal: It compares trackname, artistname, and all instruments with
-   * their patterns.
+   * their patterns, velocities and probabilities.
    *
    * @param track1 track to be compared
    * @param track2 track to compare with
@@ -181,16 +280,79 @@ public class TrackMapperTest {
       return false;
     }
 
+    if (track1.getBpm() != track2.getBpm() || track1.getLength() != track2.getLength()
+        || track1.getSwing() != track2.getSwing()) {
+      return false;
+    }
+
     // Check if all the patterns for the instruments are equal
     for (String instrument : instruments1) {
       final List<Boolean> pattern1 = track1.getPattern(instrument);
       final List<Boolean> pattern2 = track2.getPattern(instrument);
-      if (!pattern1.equals(pattern2)) {
+      if (!pattern1.equals(pattern2)
+          || track1.hasOwnLength(instrument) != track2.hasOwnLength(instrument)) {
         return false;
       }
+      // Check if the velocities and probabilities of the sixteenths are equal
+      for (int i = 0; i < pattern1.size(); i++) {
+        if (track1.getVelocity(instrument, i) != track2.getVelocity(instrument, i)
+            || track1.getProbability(instrument, i) != track2.getProbability(instrument, i)) {
+          return false;
+        }
+      }
     }
 
     return true;
   }
 
+  @Test
+  @DisplayName("Test if TrackMapper reads other objects directly from a stream")
+  public void testTrackMapperReadFromStream() throws IOException {
+    final String content = "[{\"id\":1,\"name\":\"Moby Dick\",\"artist\":\"Herman Melville\","
+        + "\"timestamp\":0}]";
+    final List<TrackSearchResult> results = new TrackMapper().readFromStream(
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+        new TypeReference<List<TrackSearchResult>>() {});
+    Assertions.assertEquals(List.of(new TrackSearchResult(1, "Moby Dick", "Herman Melville", 0)),
+        results);
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new TrackMapper()
+        .readFromStream(null, new TypeReference<List<TrackSearchResult>>() {}));
+  }
+
+  @Test
+  @DisplayName("Test if TrackMapper (de)serializes arrangements without changing them")
+  public void testTrackMapperArrangement() throws IOException {
+    final Arrangement arrangement = new Arrangement();
+    arrangement.setName("Song");
+    arrangement.setLooped(true);
+    final Track verse = new Track();
+    verse.setLength(32);
+    verse.addInstrument("kick");
+    verse.toggleSixteenth("kick", 31);
+    arrangement.putPattern("verse", verse);
+    arrangement.putPattern("chorus", new Track());
+    arrangement.addSection(new Arrangement.Section("verse", 2));
+    arrangement.addSection(new Arrangement.Section("chorus", 1, 140f));
+
+    final TrackMapper trackMapper = new TrackMapper();
+    final StringWriter writer = new StringWriter();
+    trackMapper.writeArrangement(arrangement, writer);
+    final Arrangement newArrangement =
+        trackMapper.readArrangement(new StringReader(writer.toString()));
+
+    Assertions.assertEquals("Song", newArrangement.getName());
+    Assertions.assertNull(newArrangement.getArtistName());
+    Assertions.assertTrue(newArrangement.isLooped());
+    Assertions.assertEquals(arrangement.getSections(), newArrangement.getSections());
+    Assertions.assertEquals(arrangement.getPatternNames(), newArrangement.getPatternNames());
+    for (String pattern : arrangement.getPatternNames()) {
+      Assertions.assertTrue(
+          tracksAreEqual(arrangement.getPattern(pattern), newArrangement.getPattern(pattern)),
+          "Pattern %s did not match".formatted(pattern));
+    }
+
+    // Sections must play one of the patterns
+    Assertions.assertThrows(IllegalArgumentException.class, () -> trackMapper
+        .readArrangement(new StringReader("{\"sections\":[{\"pattern\":\"verse\"}]}")));
+  }
 }
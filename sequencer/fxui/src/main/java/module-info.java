@@ -5,6 +5,7 @@ module sequencer.ui {
 
   requires transitive sequencer.core;
   requires sequencer.persistence;
+  requires java.net.http;
 
   exports sequencer.ui;
 
@@ -0,0 +1,119 @@
+package sequencer.ui;
+
+import java.util.List;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/**
+ * {@link PatternGrid} drawn onto a single {@link Canvas}, so the number of nodes in the scene does
+ * not grow with the size of the pattern. Only the area of the sixteenths which changed is cleared
+ * and redrawn.
+ *
+ * <p>
+ * Active sixteenths are drawn with a glow which is kept within half of the gap around them, so
+ * redrawing a sixteenth never has to redraw its neighbours. A canvas can not be larger than the
+ * maximum texture size of the graphics card (often 8192 or 16384 pixels), so large patterns should
+ * use smaller sixteenths.
+ * </p>
+ */
+class CanvasGrid extends PatternGrid {
+
+  // Matches the arcs and stroke of the "sixteenth" and "playedSixteenth" classes
+  private static final double ARC = 30.0;
+  private static final Color PLAYED_STROKE = Color.web("FCBA03");
+  private static final double GLOW_OPACITY = 0.35;
+
+  private final Canvas canvas;
+  private final GraphicsContext graphics;
+  private final Color[] glowFills;
+  private final double glowMargin;
+
+  /**
+   * Creates the canvas of the grid, and adds it to the pane. See
+   * {@link PatternGrid#PatternGrid(int, int, double, double, double, double, List)}.
+   *
+   * @param pane the pane to add the canvas to
+   */
+  CanvasGrid(Pane pane, int rows, int columns, double sixteenthWidth, double sixteenthHeight,
+      double horizontalGap, double verticalGap, List<String[]> colors) {
+    super(rows, columns, sixteenthWidth, sixteenthHeight, horizontalGap, verticalGap, colors);
+
+    glowFills = new Color[rows];
+    for (int row = 0; row < rows; row++) {
+      glowFills[row] = activeFills[row].deriveColor(0, 1, 1, GLOW_OPACITY);
+    }
+    glowMargin = Math.min(horizontalGap, verticalGap) / 2;
+
+    canvas = new Canvas(getWidth(), getHeight());
+    canvas.setCursor(Cursor.HAND);
+    canvas.setOnMouseClicked(this::handleClick);
+    graphics = canvas.getGraphicsContext2D();
+    pane.getChildren().add(canvas);
+
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        drawSixteenth(row, col);
+      }
+    }
+  }
+
+  /**
+   * Finds the sixteenth which was clicked, if any, from the position of the click.
+   */
+  private void handleClick(MouseEvent event) {
+    // Each sixteenth is followed by a gap, after the gap around the grid, so the edges of a
+    // sixteenth are within its own column and row
+    final int column =
+        (int) Math.floor((event.getX() - horizontalGap) / (sixteenthWidth + horizontalGap));
+    final int row =
+        (int) Math.floor((event.getY() - verticalGap) / (sixteenthHeight + verticalGap));
+    if (column < 0 || column >= columns || row < 0 || row >= rows) {
+      return;
+    }
+    // Clicks in the gap after the sixteenth are ignored
+    final double x = event.getX() - getSixteenthX(column);
+    final double y = event.getY() - getSixteenthY(row);
+    if (x <= sixteenthWidth && y <= sixteenthHeight) {
+      fireToggle(row, column);
+    }
+  }
+
+  @Override
+  protected void drawSixteenth(int row, int column) {
+    final double x = getSixteenthX(column);
+    final double y = getSixteenthY(row);
+    graphics.clearRect(x - glowMargin, y - glowMargin, sixteenthWidth + 2 * glowMargin,
+        sixteenthHeight + 2 * glowMargin);
+
+    if (isActive(row, column)) {
+      graphics.setFill(glowFills[row]);
+      graphics.fillRoundRect(x - glowMargin, y - glowMargin, sixteenthWidth + 2 * glowMargin,
+          sixteenthHeight + 2 * glowMargin, ARC + glowMargin, ARC + glowMargin);
+      graphics.setFill(activeFills[row]);
+    } else {
+      graphics.setFill(inactiveFills[row]);
+    }
+    graphics.fillRoundRect(x, y, sixteenthWidth, sixteenthHeight, ARC, ARC);
+
+    if (column == getPlayedColumn()) {
+      graphics.setStroke(PLAYED_STROKE);
+      graphics.setLineWidth(1);
+      graphics.strokeRoundRect(x + 0.5, y + 0.5, sixteenthWidth - 1, sixteenthHeight - 1, ARC,
+          ARC);
+    }
+  }
+
+  @Override
+  protected void drawPlayedColumn(int previousColumn, int column) {
+    for (int row = 0; row < rows; row++) {
+      if (previousColumn >= 0) {
+        drawSixteenth(row, previousColumn);
+      }
+      drawSixteenth(row, column);
+    }
+  }
+}
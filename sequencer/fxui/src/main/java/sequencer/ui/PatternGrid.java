@@ -0,0 +1,162 @@
+package sequencer.ui;
+
+import java.util.List;
+import javafx.scene.paint.Color;
+
+/**
+ * The grid of clickable sixteenths in the UI, with a row for each instrument and a column for each
+ * sixteenth of the track. The grid only draws the pattern: clicks are reported to the
+ * {@link ToggleHandler}, which decides whether the sixteenth should be toggled.
+ *
+ * <p>
+ * The paints of each row are created once, when the grid is created, so toggling a sixteenth does
+ * not create any new paints or effects. Subclasses decide how the sixteenths are drawn, and only
+ * have to redraw the sixteenths which are changed.
+ * </p>
+ */
+abstract class PatternGrid {
+
+  /**
+   * Handles clicks on a sixteenth in the grid.
+   */
+  @FunctionalInterface
+  interface ToggleHandler {
+    void toggle(int row, int column);
+  }
+
+  protected final int rows;
+  protected final int columns;
+  protected final double sixteenthWidth;
+  protected final double sixteenthHeight;
+  protected final double horizontalGap;
+  protected final double verticalGap;
+
+  // The paints of each row, in the shade used when the sixteenth is active or inactive
+  protected final Color[] activeFills;
+  protected final Color[] inactiveFills;
+
+  private final boolean[][] active;
+  private int playedColumn = -1;
+  private ToggleHandler toggleHandler = (row, column) -> {
+  };
+
+  /**
+   * Creates a grid where all sixteenths are inactive.
+   *
+   * @param rows the number of rows
+   * @param columns the number of sixteenths in each row
+   * @param sixteenthWidth the width of each sixteenth
+   * @param sixteenthHeight the height of each sixteenth
+   * @param horizontalGap the space between two columns, and around the grid
+   * @param verticalGap the space between two rows, and around the grid
+   * @param colors the colors of the rows, as hex-strings of the active and inactive shade. Rows
+   *        reuse the colors from the start when there are more rows than colors
+   */
+  PatternGrid(int rows, int columns, double sixteenthWidth, double sixteenthHeight,
+      double horizontalGap, double verticalGap, List<String[]> colors) {
+    if (rows <= 0 || columns <= 0) {
+      throw new IllegalArgumentException("A grid must have at least one row and column");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.sixteenthWidth = sixteenthWidth;
+    this.sixteenthHeight = sixteenthHeight;
+    this.horizontalGap = horizontalGap;
+    this.verticalGap = verticalGap;
+
+    activeFills = new Color[rows];
+    inactiveFills = new Color[rows];
+    for (int row = 0; row < rows; row++) {
+      activeFills[row] = Color.web(colors.get(row % colors.size())[0]);
+      inactiveFills[row] = Color.web(colors.get(row % colors.size())[1]);
+    }
+    active = new boolean[rows][columns];
+  }
+
+  /**
+   * Sets the handler called when the user clicks on a sixteenth.
+   *
+   * @param toggleHandler the handler, given the row and column of the sixteenth
+   */
+  void setOnToggle(ToggleHandler toggleHandler) {
+    this.toggleHandler = toggleHandler;
+  }
+
+  protected void fireToggle(int row, int column) {
+    toggleHandler.toggle(row, column);
+  }
+
+  int getRows() {
+    return rows;
+  }
+
+  int getColumns() {
+    return columns;
+  }
+
+  boolean isActive(int row, int column) {
+    return active[row][column];
+  }
+
+  /**
+   * Sets whether a sixteenth is shown as active, and redraws it if it changed.
+   *
+   * @param row the row of the sixteenth
+   * @param column the column of the sixteenth
+   * @param isActive whether the sixteenth should be shown as active
+   */
+  void setActive(int row, int column, boolean isActive) {
+    if (active[row][column] == isActive) {
+      return;
+    }
+    active[row][column] = isActive;
+    drawSixteenth(row, column);
+  }
+
+  int getPlayedColumn() {
+    return playedColumn;
+  }
+
+  /**
+   * Marks the sixteenths in the column as the ones currently played.
+   *
+   * @param column the column being played
+   */
+  void setPlayedColumn(int column) {
+    if (column < 0 || column >= columns) {
+      throw new IllegalArgumentException("Column %s is outside the grid".formatted(column));
+    }
+    final int previousColumn = playedColumn;
+    playedColumn = column;
+    drawPlayedColumn(previousColumn, column);
+  }
+
+  double getWidth() {
+    return sixteenthWidth * columns + horizontalGap * (columns + 1);
+  }
+
+  double getHeight() {
+    return sixteenthHeight * rows + verticalGap * (rows + 1);
+  }
+
+  double getSixteenthX(int column) {
+    return sixteenthWidth * column + horizontalGap * (column + 1);
+  }
+
+  double getSixteenthY(int row) {
+    return sixteenthHeight * row + verticalGap * (row + 1);
+  }
+
+  /**
+   * Redraws a sixteenth after it has been toggled.
+   */
+  protected abstract void drawSixteenth(int row, int column);
+
+  /**
+   * Redraws the grid after the played column has changed.
+   *
+   * @param previousColumn the column which was played before, or -1 if none was
+   * @param column the column being played
+   */
+  protected abstract void drawPlayedColumn(int previousColumn, int column);
+}
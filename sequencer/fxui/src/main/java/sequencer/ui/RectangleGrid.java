@@ -0,0 +1,69 @@
+package sequencer.ui;
+
+import java.util.List;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * {@link PatternGrid} with a {@link Rectangle} for each sixteenth, styled by the "sixteenth" and
+ * "playedSixteenth" classes. Each rectangle has the id "column,row". Active sixteenths share the
+ * {@link DropShadow} of their row.
+ */
+class RectangleGrid extends PatternGrid {
+
+  private final Rectangle[][] sixteenths;
+  private final DropShadow[] dropShadows;
+
+  /**
+   * Creates the rectangles of the grid, and adds them to the pane. See
+   * {@link PatternGrid#PatternGrid(int, int, double, double, double, double, List)}.
+   *
+   * @param pane the pane to add the rectangles to
+   */
+  RectangleGrid(Pane pane, int rows, int columns, double sixteenthWidth, double sixteenthHeight,
+      double horizontalGap, double verticalGap, List<String[]> colors) {
+    super(rows, columns, sixteenthWidth, sixteenthHeight, horizontalGap, verticalGap, colors);
+
+    dropShadows = new DropShadow[rows];
+    sixteenths = new Rectangle[rows][columns];
+    for (int row = 0; row < rows; row++) {
+      dropShadows[row] = new DropShadow();
+      dropShadows[row].setRadius(sixteenthWidth / 2.5);
+      dropShadows[row].setColor(activeFills[row]);
+
+      for (int col = 0; col < columns; col++) {
+        final Rectangle sixteenth = new Rectangle(sixteenthWidth, sixteenthHeight);
+        sixteenth.setLayoutX(getSixteenthX(col));
+        sixteenth.setLayoutY(getSixteenthY(row));
+        sixteenth.setId(col + "," + row);
+        sixteenth.getStyleClass().add("sixteenth");
+        sixteenth.setFill(inactiveFills[row]);
+        final int rowArg = row;
+        final int colArg = col;
+        sixteenth.setOnMouseClicked(event -> fireToggle(rowArg, colArg));
+        sixteenths[row][col] = sixteenth;
+        pane.getChildren().add(sixteenth);
+      }
+    }
+  }
+
+  @Override
+  protected void drawSixteenth(int row, int column) {
+    final boolean active = isActive(row, column);
+    sixteenths[row][column].setEffect(active ? dropShadows[row] : null);
+    sixteenths[row][column].setFill(active ? activeFills[row] : inactiveFills[row]);
+  }
+
+  @Override
+  protected void drawPlayedColumn(int previousColumn, int column) {
+    // Only the sixteenths of the previous and current column change, so CSS is only reapplied to
+    // them
+    for (Rectangle[] row : sixteenths) {
+      if (previousColumn >= 0) {
+        row[previousColumn].getStyleClass().remove("playedSixteenth");
+      }
+      row[column].getStyleClass().add("playedSixteenth");
+    }
+  }
+}
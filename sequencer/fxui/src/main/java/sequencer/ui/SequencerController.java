@@ -2,11 +2,13 @@ package sequencer.ui;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
 import javafx.animation.Interpolator;
 import javafx.animation.ParallelTransition;
@@ -16,20 +18,20 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.control.TextField;
 import javafx.scene.effect.BoxBlur;
-import javafx.scene.effect.DropShadow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.util.Duration;
 import sequencer.core.Composer;
+import sequencer.core.Track;
 import sequencer.json.TrackMapper;
 import sequencer.ui.utils.LocalTrackAccess;
 import sequencer.ui.utils.RemoteTrackAccess;
@@ -44,6 +46,7 @@ public class SequencerController {
 
   private TrackAccessInterface trackAccess;
   public static final String SEQUENCER_ACCESS_ENV = "SEQUENCER_ACCESS";
+  public static final String SEQUENCER_GRID_ENV = "SEQUENCER_GRID";
   private TrackLoaderModalController trackLoaderModalController;
 
   private Timer statusMessageTimer;
@@ -52,11 +55,16 @@ public class SequencerController {
   @FXML
   void initialize() {
     try {
-      composer = new Composer(new TrackMapper());
+      composer = new Composer(new TrackMapper(false));
       composer.setTrackName(trackName.getText());
       composer.setArtistName(artistName.getText());
       composer.addListener(progress -> {
-        Platform.runLater(() -> addBorderToSixteenths(progress));
+        // Only the latest column is drawn, so ticks arriving faster than the UI can draw them are
+        // dropped rather than queued
+        latestPlayedColumn.set(progress);
+        if (playheadUpdateScheduled.compareAndSet(false, true)) {
+          Platform.runLater(playheadUpdater::start);
+        }
       });
     } catch (Exception e) {
       displayStatusMsg(
@@ -78,6 +86,7 @@ public class SequencerController {
 
     trackLoaderModalController = new TrackLoaderModalController(trackAccess);
 
+    createTrackSettings();
     createElements();
   }
 
@@ -89,9 +98,9 @@ public class SequencerController {
   // Ratio".
   private static final double HEIGHT_OF_SIXTEENTH = WIDTH_OF_SIXTEENTH * (1 + Math.sqrt(5)) / 2;
 
-  // The number of rows in the application, or in other words, the maximum number
-  // of instruments that can be played simultaneously. This can be safely changed
-  // according to one's needs, but 5 has been deemed a fitting number.
+  // The number of rows in the application, or in other words, the number of instruments that can
+  // be added to a new track. Tracks with more instruments get a row for each of them. This can be
+  // safely changed according to one's needs, but 5 has been deemed a fitting number.
   protected static final int NUMBER_OF_ROWS = 5;
 
   @FXML
@@ -106,6 +115,12 @@ public class SequencerController {
   @FXML
   TextField artistName;
 
+  @FXML
+  Spinner<Integer> trackLength;
+
+  @FXML
+  Spinner<Double> trackSwing;
+
   @FXML
   Pane instrumentsPanel;
 
@@ -128,18 +143,101 @@ public class SequencerController {
   // List is their respective row.
   private List<ChoiceBox<String>> instrumentChoiceBoxes = new ArrayList<>();
 
+  // The clickable sixteenths of all rows
+  private PatternGrid patternGrid;
+
+  // The column last played by the composer, which is drawn by playheadUpdater on the next pulse
+  private final AtomicInteger latestPlayedColumn = new AtomicInteger();
+  private final AtomicBoolean playheadUpdateScheduled = new AtomicBoolean();
+  private final AnimationTimer playheadUpdater = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      // Cleared before reading the column, so a tick arriving after this schedules a new update
+      playheadUpdateScheduled.set(false);
+      final int column = latestPlayedColumn.get();
+      // The composer may play a column past the grid until the grid of a longer track is created
+      if (column < patternGrid.getColumns() && column != patternGrid.getPlayedColumn()) {
+        patternGrid.setPlayedColumn(column);
+      }
+      stop();
+    }
+  };
+
+  /**
+   * Creates the grid of clickable sixteenths for the track of the composer. The grid has a row for
+   * each instrument in the track, but at least NUMBER_OF_ROWS, and a column for each sixteenth of
+   * the track. Sixteenths are narrowed in tracks longer than a bar, so the grid keeps the width of
+   * a bar. They are drawn onto a single canvas instead of as separate nodes if gridType says so.
+   *
+   * @param pane the pane to add the grid to
+   * @param composer the composer holding the track, or null if it could not be created
+   * @param gridType the value of the environment variable SEQUENCER_GRID_ENV, see docs about valid
+   *        values
+   * @return the grid
+   */
+  static PatternGrid createPatternGrid(Pane pane, Composer composer, String gridType) {
+    final int rows = composer != null
+        ? Math.max(NUMBER_OF_ROWS, composer.getInstrumentsInTrack().size())
+        : NUMBER_OF_ROWS;
+    final int columns = composer != null ? composer.getLength() : Composer.getTrackLength();
+    // A grid of n sixteenths, and gaps of a tenth of a sixteenth, is (11n + 1) / 10 sixteenths wide
+    final int barLength = Composer.getTrackLength();
+    final double sixteenthWidth = columns <= barLength ? WIDTH_OF_SIXTEENTH
+        : WIDTH_OF_SIXTEENTH * (11 * barLength + 1) / (11 * columns + 1);
+
+    if ("CANVAS".equalsIgnoreCase(gridType)) {
+      return new CanvasGrid(pane, rows, columns, sixteenthWidth, HEIGHT_OF_SIXTEENTH,
+          sixteenthWidth / 10, WIDTH_OF_SIXTEENTH / NUMBER_OF_ROWS, COLORS);
+    }
+    return new RectangleGrid(pane, rows, columns, sixteenthWidth, HEIGHT_OF_SIXTEENTH,
+        sixteenthWidth / 10, WIDTH_OF_SIXTEENTH / NUMBER_OF_ROWS, COLORS);
+  }
+
+  /**
+   * Creates the spinners for the length and swing of the track, which edit the track of the
+   * composer. A new grid is created when the length changes.
+   */
+  private void createTrackSettings() {
+    if (composer == null) {
+      trackLength.setDisable(true);
+      trackSwing.setDisable(true);
+      return;
+    }
+    trackLength.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1,
+        Track.MAX_LENGTH, composer.getLength()));
+    trackLength.valueProperty().addListener((observable, oldValue, newValue) -> {
+      composer.setLength(newValue);
+      if (patternGrid.getColumns() != newValue) {
+        updateElements();
+      }
+    });
+
+    trackSwing.setValueFactory(new SpinnerValueFactory.DoubleSpinnerValueFactory(0,
+        Track.MAX_SWING, composer.getSwing(), 0.05));
+    trackSwing.valueProperty()
+        .addListener((observable, oldValue, newValue) -> composer.setSwing(newValue.floatValue()));
+  }
+
   /**
    * Rendering all major elements, including all the sixteenth rectangles. WIDTH_OF_SIXTEENTH is
    * heavily utilized, and makes the application responsive according to one's needs (e.g. scaling).
+   * Fires on initialization, and again to replace the grid and instrument panels when the track of
+   * the composer has another number of instruments or sixteenths than the grid.
    */
   private void createElements() {
+    instrumentsPattern.getChildren().clear();
+    instrumentsPanel.getChildren().clear();
+    instrumentChoiceBoxes.clear();
+
+    // Creating all the clickable sixteenths. See docs about valid values of the environment
+    // variable.
+    patternGrid =
+        createPatternGrid(instrumentsPattern, composer, System.getenv(SEQUENCER_GRID_ENV));
+    patternGrid.setOnToggle(this::toggleSixteenth);
+
     // Giving all of the sections of the application their respective sizes and
     // layout locations:
-    instrumentsPattern.setPrefSize(
-        WIDTH_OF_SIXTEENTH * Composer.getTrackLength()
-            + (WIDTH_OF_SIXTEENTH / 10) * (Composer.getTrackLength() + 1),
-        HEIGHT_OF_SIXTEENTH * NUMBER_OF_ROWS
-            + (WIDTH_OF_SIXTEENTH / NUMBER_OF_ROWS) * (NUMBER_OF_ROWS + 1));
+    instrumentsPattern.setPrefSize(patternGrid.getWidth(), patternGrid.getHeight());
     instrumentsPattern.setLayoutX(WIDTH_OF_SIXTEENTH * 3.5);
     instrumentsPattern.setLayoutY(WIDTH_OF_SIXTEENTH * 1.5 + HEIGHT_OF_SIXTEENTH / 3);
 
@@ -154,10 +252,8 @@ public class SequencerController {
     timeline.setLayoutX(instrumentsPattern.getLayoutX());
     timeline.setLayoutY(instrumentsPanel.getLayoutY());
 
-    // Using a nested loop to create the grid of rows and (col)umns:
-    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
-      double layoutY =
-          HEIGHT_OF_SIXTEENTH * row + (WIDTH_OF_SIXTEENTH / NUMBER_OF_ROWS) * (row + 1);
+    for (int row = 0; row < patternGrid.getRows(); row++) {
+      double layoutY = patternGrid.getSixteenthY(row);
 
       // Creating the sub panels inside of instrumentsPanel, which all contains
       // their own ChoiceBox with available instruments and a reset button:
@@ -190,34 +286,30 @@ public class SequencerController {
       instrumentSubPanel.add(resetRowBtn, 2, 0);
 
       instrumentsPanel.getChildren().add(instrumentSubPanel);
+    }
 
-      for (int col = 0; col < Composer.getTrackLength(); col++) {
-        // Creating all the clickable sixteenth-rectangles:
-        Rectangle sixteenth = new Rectangle(WIDTH_OF_SIXTEENTH, HEIGHT_OF_SIXTEENTH);
-        sixteenth.setLayoutX(WIDTH_OF_SIXTEENTH * col + (WIDTH_OF_SIXTEENTH / 10) * (col + 1));
-        sixteenth.setLayoutY(layoutY);
-        sixteenth.setId(col + "," + row);
-        sixteenth.getStyleClass().add("sixteenth");
-        sixteenth.setFill(Color.web(COLORS.get(row % COLORS.size())[1]));
-        sixteenth.setOnMouseClicked(event -> toggleSixteenth((Rectangle) event.getSource(), false));
-        instrumentsPattern.getChildren().add(sixteenth);
-      }
+    patternGrid.setPlayedColumn(0);
 
+    // The window is fitted to a grid of another size
+    if (content.getScene() != null && content.getScene().getWindow() != null) {
+      content.getScene().getWindow().sizeToScene();
     }
-
-    addBorderToSixteenths(0);
   }
 
   /**
-   * Updating elements when loading a new track, instead of re-using createElements(), as it
-   * contains unnecessery code.
+   * Updating elements when loading a new track, or changing its length. The grid and instrument
+   * panels are only created again with createElements() if the track does not fit the grid.
    */
   protected void updateElements() {
-    updateInstrumentAlternatives();
-
     List<String> instruments = composer.getInstrumentsInTrack();
 
-    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+    if (patternGrid.getColumns() != composer.getLength()
+        || patternGrid.getRows() != Math.max(NUMBER_OF_ROWS, instruments.size())) {
+      createElements();
+    }
+    updateInstrumentAlternatives();
+
+    for (int row = 0; row < patternGrid.getRows(); row++) {
       ChoiceBox<String> instrumentChoiceBox = instrumentChoiceBoxes.get(row);
 
       if (row >= instruments.size()) {
@@ -229,19 +321,16 @@ public class SequencerController {
       instrumentChoiceBox.setValue(instrument);
       List<Boolean> pattern = composer.getTrackPattern(instrument);
 
-      for (int col = 0; col < pattern.size(); col++) {
-        Rectangle sixteenth =
-            (Rectangle) instrumentsPattern.getChildren().get(row * Composer.getTrackLength() + col);
-        // Checking whether the sixteenth has an effect is a quick way of checking if it
-        // is "active"
-        if (pattern.get(col) != (sixteenth.getEffect() != null)) {
-          toggleSixteenth(sixteenth, true);
-        }
+      // Instruments with a length of their own may be shorter or longer than the grid
+      for (int col = 0; col < patternGrid.getColumns(); col++) {
+        patternGrid.setActive(row, col, col < pattern.size() && pattern.get(col));
       }
     }
 
     trackName.setText(composer.getTrackName());
     artistName.setText(composer.getArtistName());
+    trackLength.getValueFactory().setValue(composer.getLength());
+    trackSwing.getValueFactory().setValue((double) composer.getSwing());
   }
 
   @FXML
@@ -313,12 +402,8 @@ public class SequencerController {
     }
     instrumentChoiceBoxes.forEach(i -> i.getItems().add(instrument));
 
-    final String toggledColor = COLORS.get(row % COLORS.size())[1];
-    for (int col = 0; col < Composer.getTrackLength(); col++) {
-      Rectangle sixteenth =
-          (Rectangle) instrumentsPattern.getChildren().get(row * Composer.getTrackLength() + col);
-      sixteenth.setEffect(null);
-      sixteenth.setFill(Color.web(toggledColor));
+    for (int col = 0; col < patternGrid.getColumns(); col++) {
+      patternGrid.setActive(row, col, false);
     }
   }
 
@@ -346,40 +431,20 @@ public class SequencerController {
   /**
    * Toggles a specific sixteenth.
    *
-   * @param sixteenth the sixteenth which is to be toggled
-   * @param updatingElements indicates if we're updating a track in the GUI, and if so, the
-   *        sixteenth should not be toggled in the Track class
+   * @param row the row of the sixteenth which is to be toggled
+   * @param col the column of the sixteenth which is to be toggled
    */
-  private void toggleSixteenth(Rectangle sixteenth, boolean updatingElements) {
-    int[] sixteenthId =
-        Arrays.stream(sixteenth.getId().split(",")).mapToInt(Integer::parseInt).toArray();
-
-    ChoiceBox<String> instrumentChoiceBox = instrumentChoiceBoxes.get(sixteenthId[1]);
+  private void toggleSixteenth(int row, int col) {
+    ChoiceBox<String> instrumentChoiceBox = instrumentChoiceBoxes.get(row);
     String instrument = instrumentChoiceBox.getValue();
 
-    if (instrument == null) {
+    if (instrument == null || col >= composer.getPatternLength(instrument)) {
       return;
     }
 
-    // Refers to the index in a String[] in COLORS. In other words, which shade of
-    // the color.
-    int toggledIndex =
-        composer.getTrackPattern(instrument).get(sixteenthId[0]) ^ updatingElements ? 1 : 0;
-    String toggledColor = COLORS.get(sixteenthId[1] % COLORS.size())[toggledIndex];
-    if (toggledIndex == 0) {
-      DropShadow dropShadow = new DropShadow();
-      dropShadow.setRadius(WIDTH_OF_SIXTEENTH / 2.5);
-      dropShadow.setColor(Color.web(toggledColor));
-      sixteenth.setEffect(dropShadow);
-    } else {
-      sixteenth.setEffect(null);
-    }
-    sixteenth.setFill(Color.web(toggledColor));
-
-    if (!updatingElements) {
-      composer.toggleTrackSixteenth(instrument, sixteenthId[0]);
-    }
-
+    // The sixteenth becomes active if it is inactive before the user toggles it
+    patternGrid.setActive(row, col, !composer.getTrackPattern(instrument).get(col));
+    composer.toggleTrackSixteenth(instrument, col);
   }
 
   /**
@@ -428,10 +493,20 @@ public class SequencerController {
   @FXML
   private ImageView startStopBtn;
 
-  private static final Image PLAY_ICON =
-      new Image(SequencerController.class.getResource("images/play.png").toExternalForm());
-  private static final Image STOP_ICON =
-      new Image(SequencerController.class.getResource("images/stop.png").toExternalForm());
+  /**
+   * The icons of the controller, which are loaded when first used rather than with the controller
+   * class, as images can only be loaded once JavaFX has been started.
+   */
+  private static final class Icons {
+    private static final Image PLAY = load("images/play.png");
+    private static final Image STOP = load("images/stop.png");
+    private static final Image SUCCESS = load("images/checked.png");
+    private static final Image FAILURE = load("images/x-mark.png");
+
+    private static Image load(String path) {
+      return new Image(SequencerController.class.getResource(path).toExternalForm());
+    }
+  }
 
   /**
    * Fires when the "play" or "stop" button is pressed, toggling whether the track is played.
@@ -440,10 +515,10 @@ public class SequencerController {
   private void togglePlayingTrack() {
     if (composer.isPlaying()) {
       composer.stop();
-      startStopBtn.setImage(PLAY_ICON);
+      startStopBtn.setImage(Icons.PLAY);
     } else {
       composer.start();
-      startStopBtn.setImage(STOP_ICON);
+      startStopBtn.setImage(Icons.STOP);
     }
   }
 
@@ -456,11 +531,6 @@ public class SequencerController {
   @FXML
   Text statusMsgText;
 
-  private static final Image SUCCESS_ICON =
-      new Image(SequencerController.class.getResource("images/checked.png").toExternalForm());
-  private static final Image FAILURE_ICON =
-      new Image(SequencerController.class.getResource("images/x-mark.png").toExternalForm());
-
   /**
    * Displaying a status message to the user, regarding either success (e.g. track being saved) or
    * fail (e.g. failure to load track).
@@ -471,10 +541,11 @@ public class SequencerController {
    */
   protected void displayStatusMsg(String msg, boolean success) {
     statusMsg.setLayoutX(WIDTH_OF_SIXTEENTH);
-    statusMsg.setLayoutY(HEIGHT_OF_SIXTEENTH * NUMBER_OF_ROWS);
+    statusMsg.setLayoutY(
+        HEIGHT_OF_SIXTEENTH * (patternGrid != null ? patternGrid.getRows() : NUMBER_OF_ROWS));
     statusMsg.getStyleClass().setAll(success ? "successMsg" : "failureMsg");
 
-    statusMsgIcon.setImage(success ? SUCCESS_ICON : FAILURE_ICON);
+    statusMsgIcon.setImage(success ? Icons.SUCCESS : Icons.FAILURE);
 
     statusMsgText.setText(msg);
 
@@ -523,22 +594,4 @@ public class SequencerController {
     parallelTransition.play();
   }
 
-  /**
-   * Sets a border around all sixteenths in a column.
-   *
-   * @param column the column of the sixteenths to give the "playedSixteenth" class, which gives
-   *        them a stroke
-   */
-  private void addBorderToSixteenths(int column) {
-    // Remove all borders
-    instrumentsPattern.getChildren()
-        .forEach(sixteenth -> ((Rectangle) sixteenth).getStyleClass().remove("playedSixteenth"));
-    // Set the borders of all squares in the correct column
-    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
-      Rectangle sixteenth = (Rectangle) instrumentsPattern.getChildren()
-          .get(row * Composer.getTrackLength() + column);
-      sixteenth.getStyleClass().add("playedSixteenth");
-    }
-  }
-
 }
@@ -1,31 +1,54 @@
 package sequencer.ui;
 
-import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.DatePicker;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
-import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
 import javafx.util.StringConverter;
+import sequencer.core.Composer;
 import sequencer.json.TrackSearchResult;
 import sequencer.persistence.FileMetaData;
 import sequencer.ui.utils.TrackAccessInterface;
 
 /**
  * Controller for the modal used to find and load a track.
+ *
+ * <p>
+ * Searches are sent through {@link TrackAccessInterface#fetchTracksAsync(String, String, Long, int,
+ * int)}, so the UI stays responsive while waiting for the results. Editing a search field starts a
+ * search once the user has paused typing, and a new search cancels the one in progress, so results
+ * of an outdated search are never displayed.
+ * </p>
+ *
+ * <p>
+ * The results are shown in a {@link ListView}, which only creates nodes for the visible tracks and
+ * reuses them while scrolling. Only the first page of results is fetched at first, and the next
+ * page is fetched when the user scrolls close to the end of the list.
+ * </p>
+ *
+ * <p>
+ * A clicked track is loaded through {@link TrackAccessInterface#loadTrackAsync(Composer, int)},
+ * so reading or downloading it does not block the UI.
+ * </p>
  */
 public class TrackLoaderModalController {
 
@@ -36,6 +59,23 @@ public class TrackLoaderModalController {
   private final String[] validPatterns = {"d/M/yy", "d/M/yyyy", "d/MM/yy", "d/MM/yyyy", "dd/M/yy",
       "dd/M/yyyy", "dd/MM/yy", "dd/MM/yyyy"};
 
+  // How long to wait after the last edit of a search field before searching
+  private static final Duration SEARCH_DELAY = Duration.millis(250);
+  // How many tracks are fetched at a time
+  private static final int PAGE_SIZE = 100;
+
+  private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+  private CompletableFuture<List<TrackSearchResult>> pendingSearch;
+  // Incremented for each search, so results of a superseded search can be recognized and dropped
+  private long searchGeneration = 0;
+  private CompletableFuture<Void> pendingLoad;
+
+  // The search the displayed tracks were found by, used to fetch the following pages
+  private String searchName;
+  private String searchArtist;
+  private Long searchTimestamp;
+  private boolean allTracksFetched;
+
 
   TrackLoaderModalController(TrackAccessInterface trackAccess) {
     if (trackAccess == null) {
@@ -46,8 +86,18 @@ public class TrackLoaderModalController {
 
   @FXML
   void initialize() {
+    savedTracksList.setCellFactory(list -> new TrackOptionCell());
     fetchAndDisplayTracks("", "", null); // Empty strings and null will match all tracks
 
+    // Search when the user pauses editing the search fields
+    searchDelay.setOnFinished(event -> filterTracks());
+    trackNameField.textProperty()
+        .addListener((obs, oldText, newText) -> searchDelay.playFromStart());
+    artistNameField.textProperty()
+        .addListener((obs, oldText, newText) -> searchDelay.playFromStart());
+    timestampPicker.valueProperty()
+        .addListener((obs, oldDate, newDate) -> searchDelay.playFromStart());
+
     // Set properties of timestampPicker
     timestampPicker.setConverter(timestampPickerConverter);
     // https://stackoverflow.com/questions/37923502/how-to-get-entered-value-in-editable-combobox-in-javafx
@@ -75,95 +125,169 @@ public class TrackLoaderModalController {
    */
   @FXML
   private void closeTrackLoaderModal() {
+    cancelSearch();
     sequencerController.closeTrackLoaderModal();
   }
 
   @FXML
-  VBox savedTracksPanel;
-
-  @FXML
-  ScrollPane savedTracksScrollPane;
+  ListView<TrackSearchResult> savedTracksList;
 
   /**
-   * Fetch and display the saved tracks. Fires on initialization (and when called from filterTracks)
+   * Fetch and display the saved tracks. Fires on initialization (and when called from
+   * filterTracks). The first page of tracks is fetched in the background, and any search still in
+   * progress is cancelled.
    *
    * @param trackName the name of the track (or part of it) to search for
    * @param artistName the name of the artist (or part of it) to search for
    * @param timestamp the timestamp to search for
    */
   private void fetchAndDisplayTracks(String trackName, String artistName, Long timestamp) {
+    cancelSearch();
+    searchName = trackName;
+    searchArtist = artistName;
+    searchTimestamp = timestamp;
+    allTracksFetched = false;
+    fetchPage(0);
+  }
 
-    // Clearing savedTracksPanel
-    savedTracksPanel.getChildren().clear();
+  /**
+   * Fetches the next page of tracks of the current search, unless it is already being fetched or
+   * all tracks have been fetched.
+   */
+  private void fetchNextPage() {
+    if (pendingSearch == null && !allTracksFetched) {
+      fetchPage(savedTracksList.getItems().size());
+    }
+  }
 
-    List<TrackSearchResult> searchResult;
-    try {
-      searchResult = trackAccess.fetchTracks(trackName, artistName, timestamp);
-    } catch (IOException e) {
-      sequencerController.displayStatusMsg("Failed to load tracks", false);
-      return;
+  /**
+   * Fetches a page of tracks in the background, and adds them to the list. The first page replaces
+   * the tracks of the previous search.
+   *
+   * @param offset the number of tracks before the page
+   */
+  private void fetchPage(int offset) {
+    final long generation = searchGeneration;
+
+    pendingSearch = trackAccess.fetchTracksAsync(searchName, searchArtist, searchTimestamp, offset,
+        PAGE_SIZE);
+    pendingSearch.whenComplete((page, error) -> Platform.runLater(() -> {
+      // A newer search has been started, or the modal has been closed
+      if (generation != searchGeneration) {
+        return;
+      }
+      pendingSearch = null;
+      if (error != null) {
+        sequencerController.displayStatusMsg("Failed to load tracks", false);
+        return;
+      }
+      allTracksFetched = page.size() < PAGE_SIZE;
+      if (offset == 0) {
+        savedTracksList.getItems().setAll(page);
+        savedTracksList.scrollTo(0);
+      } else {
+        savedTracksList.getItems().addAll(page);
+      }
+    }));
+  }
+
+  /**
+   * Cancels the search in progress, if any, and ensures its results are not displayed.
+   */
+  private void cancelSearch() {
+    searchDelay.stop();
+    searchGeneration++;
+    if (pendingSearch != null) {
+      pendingSearch.cancel(true);
+      pendingSearch = null;
     }
+  }
+
+  /**
+   * Cell displaying a track in {@link #savedTracksList}. The nodes of a cell are reused for
+   * whichever track is scrolled into it. Displaying one of the last tracks of the list fetches the
+   * next page.
+   */
+  private class TrackOptionCell extends ListCell<TrackSearchResult> {
+
+    private final Text displayedTrackName = new Text();
+    private final Text displayedArtistName = new Text();
+    private final Text displayedTimestamp = new Text();
+    private final HBox trackOption;
 
-    final Text trackNameLabel = new Text("Name");
-    trackNameLabel.setWrappingWidth(140);
-    final Text artistNameLabel = new Text("Artist");
-    artistNameLabel.setWrappingWidth(140);
-    final Text timestampLabel = new Text("Date");
-
-    final Region region1 = new Region();
-    HBox.setHgrow(region1, Priority.ALWAYS);
-    final Region region2 = new Region();
-    HBox.setHgrow(region2, Priority.ALWAYS);
-    final HBox labelBox =
-        new HBox(trackNameLabel, region1, artistNameLabel, region2, timestampLabel);
-    labelBox.setId("labelBox");
-    savedTracksPanel.getChildren().add(labelBox);
-
-    for (TrackSearchResult track : searchResult) {
-      final Text displayedTrackName = new Text(track.name());
+    TrackOptionCell() {
       displayedTrackName.setWrappingWidth(140);
-      final Text displayedArtistName = new Text(track.artist());
       displayedArtistName.setWrappingWidth(140);
-      final String date =
-          FileMetaData.getDay(track.timestamp()).format(defaultFormatter).toString();
-      final Text displayedTimestamp = new Text(date);
-
-      final Region region3 = new Region();
-      HBox.setHgrow(region3, Priority.ALWAYS);
-      final Region region4 = new Region();
-      HBox.setHgrow(region4, Priority.ALWAYS);
-
-      final HBox trackOption =
-          new HBox(displayedTrackName, region3, displayedArtistName, region4, displayedTimestamp);
-      trackOption.setMaxWidth(savedTracksScrollPane.getPrefViewportWidth());
-      trackOption.getStyleClass().add("trackOption");
-      trackOption.setOnMousePressed(event -> loadTrack(event));
-      trackOption.setId(String.valueOf(track.id()));
 
-      savedTracksPanel.getChildren().add(trackOption);
+      final Region region1 = new Region();
+      HBox.setHgrow(region1, Priority.ALWAYS);
+      final Region region2 = new Region();
+      HBox.setHgrow(region2, Priority.ALWAYS);
+
+      trackOption = new HBox(displayedTrackName, region1, displayedArtistName, region2,
+          displayedTimestamp);
+      trackOption.getStyleClass().add("trackOption");
+      // Fill the width of the cell, except its right padding
+      trackOption.prefWidthProperty().bind(widthProperty().subtract(10));
+      setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+      setOnMousePressed(event -> {
+        if (!isEmpty()) {
+          loadTrack(getItem().id());
+        }
+      });
     }
 
+    @Override
+    protected void updateItem(TrackSearchResult track, boolean empty) {
+      super.updateItem(track, empty);
+      if (empty || track == null) {
+        setId(null);
+        setGraphic(null);
+        return;
+      }
+
+      displayedTrackName.setText(track.name());
+      displayedArtistName.setText(track.artist());
+      displayedTimestamp.setText(FileMetaData.getDay(track.timestamp()).format(defaultFormatter));
+      setId(String.valueOf(track.id()));
+      setGraphic(trackOption);
+
+      if (getIndex() >= getListView().getItems().size() - PAGE_SIZE / 2) {
+        fetchNextPage();
+      }
+    }
   }
 
   /**
    * Load the pattern and metadata of the specified track to the UI. Fires when the user clicks on a
    * track from the list.
+   *
+   * @param id the id of the track
    */
-  private void loadTrack(MouseEvent event) {
-    try {
-      trackAccess.loadTrack(sequencerController.composer,
-          Integer.parseInt(((HBox) event.getSource()).getId()));
-
-      // Track is successfully found and set
-      closeTrackLoaderModal();
-      sequencerController.updateElements();
-      sequencerController.displayStatusMsg(sequencerController.composer.getTrackName() + " loaded",
-          true);
-    } catch (IOException e) {
-      sequencerController.displayStatusMsg("Failed to load track.", false);
-    } catch (IllegalArgumentException e) {
-      sequencerController.displayStatusMsg("Track was corrupted, unable to load", false);
+  private void loadTrack(int id) {
+    // Clicks while a track is loading are ignored, so only the first track clicked is loaded
+    if (pendingLoad != null) {
+      return;
     }
+
+    pendingLoad = trackAccess.loadTrackAsync(sequencerController.composer, id);
+    pendingLoad.whenComplete((loaded, error) -> Platform.runLater(() -> {
+      pendingLoad = null;
+      if (error == null) {
+        // Track is successfully found and set
+        closeTrackLoaderModal();
+        sequencerController.updateElements();
+        sequencerController.displayStatusMsg(
+            sequencerController.composer.getTrackName() + " loaded", true);
+        return;
+      }
+      final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+      if (cause instanceof IllegalArgumentException) {
+        sequencerController.displayStatusMsg("Track was corrupted, unable to load", false);
+      } else {
+        sequencerController.displayStatusMsg("Failed to load track.", false);
+      }
+    }));
   }
 
 
@@ -217,8 +341,8 @@ public class TrackLoaderModalController {
   };
 
   /**
-   * Fires when the "Search" button is pushed. Fetches the trackName, artistName and timestamp to
-   * filter the tracks shown in UI
+   * Fires when the "Search" button is pushed, or when the user pauses editing the search fields.
+   * Fetches the trackName, artistName and timestamp to filter the tracks shown in UI
    */
   @FXML
   private void filterTracks() {
@@ -1,10 +1,17 @@
 package sequencer.ui.utils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javafx.application.Platform;
+import sequencer.core.Arrangement;
 import sequencer.core.Composer;
+import sequencer.json.TrackMapper;
 import sequencer.json.TrackSearchResult;
 import sequencer.persistence.FileMetaData;
 import sequencer.persistence.FilenameHandler;
@@ -12,38 +19,100 @@ import sequencer.persistence.PersistenceHandler;
 import sequencer.ui.SequencerController;
 
 /**
- * Saves/loads tracks locally via {@link PersistenceHandler}.
+ * Saves/loads tracks locally via {@link PersistenceHandler}. Arrangements are saved as json in the
+ * same directory, with their own file type, so they are not listed as tracks.
  */
 public class LocalTrackAccess implements TrackAccessInterface {
 
+  public static final String ARRANGEMENT_FILETYPE = "song";
+
   private PersistenceHandler persistenceHandler;
+  private PersistenceHandler arrangementHandler;
+  private final TrackMapper arrangementMapper = new TrackMapper(false);
+  // Runs the loading of read tracks into the composer
+  private final Executor loadExecutor;
 
   /**
    * Instantiates a new access class and attempts to get the directory name from the environment
    * variable. If it is not defined it will default to drum-sequencer-persistence. See docs about
-   * defining the environment variable.
+   * defining the environment variable. Tracks loaded asynchronously are loaded on the JavaFX
+   * application thread.
    */
   public LocalTrackAccess(Composer composer) {
+    this(composer, Platform::runLater);
+  }
+
+  /**
+   * Instantiates a new access class like {@link #LocalTrackAccess(Composer)}.
+   *
+   * @param composer the composer, whose serialization format the tracks are saved in
+   * @param loadExecutor runs the loading of tracks into the composer in
+   *        {@link #loadTrackAsync(Composer, int)}
+   */
+  LocalTrackAccess(Composer composer, Executor loadExecutor) {
+    this.loadExecutor = loadExecutor;
 
     final String sequencerAccess = System.getenv(SequencerController.SEQUENCER_ACCESS_ENV);
 
     final String configurationFlag = "LOCAL:";
 
+    final String saveDirectory;
     if (sequencerAccess.startsWith(configurationFlag)
         && sequencerAccess.length() > configurationFlag.length()) {
 
-      persistenceHandler = new PersistenceHandler(
-          sequencerAccess.substring(configurationFlag.length()), composer.getSerializationFormat());
+      saveDirectory = sequencerAccess.substring(configurationFlag.length());
 
     } else {
 
-      persistenceHandler = new PersistenceHandler("drum-sequencer-local-persistence",
-          composer.getSerializationFormat());
+      saveDirectory = "drum-sequencer-local-persistence";
 
     }
+    persistenceHandler = new PersistenceHandler(saveDirectory, composer.getSerializationFormat());
+    arrangementHandler = new PersistenceHandler(saveDirectory, ARRANGEMENT_FILETYPE);
 
   }
 
+  /**
+   * Saves an arrangement, and the patterns it plays, next to the tracks.
+   */
+  @Override
+  public int saveArrangement(Arrangement arrangement) throws IOException {
+    final int newId = arrangementHandler.listSavedFiles().stream().mapToInt(FileMetaData::id)
+        .max().orElse(0) + 1;
+    final String filename = FilenameHandler.generateFilenameFromMetaData(new FileMetaData(newId,
+        arrangement.getName(), arrangement.getArtistName(), Instant.now().toEpochMilli()));
+
+    try {
+      arrangementHandler.writeToFile(filename, writer -> {
+        try {
+          arrangementMapper.writeArrangement(arrangement, writer);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException | IOException e) {
+      throw new IOException("The program was unable to save the arrangement", e);
+    }
+    return newId;
+  }
+
+  @Override
+  public Arrangement loadArrangement(int id) throws IOException {
+    final Arrangement[] arrangement = new Arrangement[1];
+    try {
+      arrangementHandler.readFromFileWithId(id, reader -> {
+        try {
+          arrangement[0] = arrangementMapper.readArrangement(reader);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (IOException | UncheckedIOException e) {
+      throw new IOException("Arrangement failed to load", e);
+    }
+    return arrangement[0];
+  }
+
   @Override
   public void saveTrack(Composer composer) throws IOException, IllegalArgumentException {
 
@@ -56,9 +125,9 @@ public class LocalTrackAccess implements TrackAccessInterface {
       final String filename = FilenameHandler.generateFilenameFromMetaData(new FileMetaData(newId,
           composer.getTrackName(), composer.getArtistName(), Instant.now().toEpochMilli()));
 
-      persistenceHandler.writeToFile(filename, (writer) -> {
+      persistenceHandler.writeBytesToFile(filename, (output) -> {
         try {
-          composer.saveTrack(writer);
+          composer.saveTrack(output);
         } catch (IOException e) {
           throw new UncheckedIOException(e);
         }
@@ -74,9 +143,9 @@ public class LocalTrackAccess implements TrackAccessInterface {
   @Override
   public void loadTrack(Composer composer, int id) throws IOException {
     try {
-      persistenceHandler.readFromFileWithId(id, reader -> {
+      persistenceHandler.readBytesFromFileWithId(id, input -> {
         try {
-          composer.loadTrack(reader);
+          composer.loadTrack(input);
         } catch (IOException e) {
           throw new UncheckedIOException(e);
         }
@@ -86,6 +155,35 @@ public class LocalTrackAccess implements TrackAccessInterface {
     }
   }
 
+  /**
+   * Reads the file in the common pool, and loads the track into the composer with the load
+   * executor, which is the JavaFX application thread outside of tests.
+   */
+  @Override
+  public CompletableFuture<Void> loadTrackAsync(Composer composer, int id) {
+    return CompletableFuture.supplyAsync(() -> {
+      final byte[][] content = new byte[1][];
+      try {
+        persistenceHandler.readBytesFromFileWithId(id, input -> {
+          try {
+            content[0] = input.readAllBytes();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (IOException | UncheckedIOException e) {
+        throw new CompletionException(new IOException("Track failed to load", e));
+      }
+      return content[0];
+    }).thenAcceptAsync(content -> {
+      try {
+        composer.loadTrack(new ByteArrayInputStream(content));
+      } catch (IOException e) {
+        throw new CompletionException(new IOException("Track failed to load", e));
+      }
+    }, loadExecutor);
+  }
+
   @Override
   public List<TrackSearchResult> fetchTracks(String trackName, String artistName, Long timestamp)
       throws IOException {
@@ -1,18 +1,30 @@
 package sequencer.ui.utils;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import java.io.BufferedReader;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.ProtocolException;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import javafx.application.Platform;
+import sequencer.core.Arrangement;
 import sequencer.core.Composer;
 import sequencer.json.TrackMapper;
 import sequencer.json.TrackSearchResult;
@@ -20,153 +32,348 @@ import sequencer.ui.SequencerController;
 
 /**
  * Implementation of {@link TrackAccessInterface} that saves/loads tracks from a remote api.
+ *
+ * <p>
+ * All requests are sent through one {@link HttpClient}, which prefers HTTP/2 and keeps connections
+ * to the server open between requests, so only the first request has to set up a connection.
+ * Responses are parsed directly from the response stream as they are received.
+ * </p>
+ *
+ * <p>
+ * Loaded tracks are kept in a {@link TrackCache} in the user's home directory, so loading a track
+ * again does not download it, and tracks which were loaded before can be loaded without a
+ * connection to the server.
+ * </p>
  */
 public class RemoteTrackAccess implements TrackAccessInterface {
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final int CACHE_ENTRIES_IN_MEMORY = 64;
+  private static final int CACHE_ENTRIES_ON_DISK = 1024;
+  private static final Duration CACHE_MAX_AGE = Duration.ofDays(1);
+
   private final String baseUrl;
+  private final TrackMapper trackMapper = new TrackMapper(false);
+  private final HttpClient client =
+      HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).connectTimeout(TIMEOUT).build();
+  private final TrackCache cache;
+  // Runs the loading of downloaded tracks into the composer
+  private final Executor loadExecutor;
 
   /**
    * Instantiates a new access class and attempts to get the baseUrl from the environment variable.
    * If it is not defined it will default to http://localhost:8080/api. See docs about defining the
-   * environment variable.
+   * environment variable. Tracks loaded asynchronously are loaded on the JavaFX application thread.
    */
   public RemoteTrackAccess() {
+    this(readBaseUrl(), Platform::runLater);
+  }
+
+  /**
+   * Instantiates a new access class for the given server.
+   *
+   * @param baseUrl the url of the api
+   * @param loadExecutor runs the loading of tracks into the composer in
+   *        {@link #loadTrackAsync(Composer, int)}
+   */
+  RemoteTrackAccess(String baseUrl, Executor loadExecutor) {
+    this.baseUrl = baseUrl;
+    this.loadExecutor = loadExecutor;
+    System.out.println("Using remote access server with url: " + baseUrl);
+
+    // Tracks from different servers are kept apart, as they may share ids
+    cache = new TrackCache(
+        Path.of(System.getProperty("user.home"), "drum-sequencer-cache",
+            baseUrl.replaceAll("[^A-Za-z0-9]", "_")),
+        CACHE_ENTRIES_IN_MEMORY, CACHE_ENTRIES_ON_DISK, CACHE_MAX_AGE);
+  }
+
+  private static String readBaseUrl() {
     final String sequencerAccess = System.getenv(SequencerController.SEQUENCER_ACCESS_ENV);
     if (sequencerAccess == null || sequencerAccess.isBlank()) {
-      baseUrl = "http://localhost:8080/api";
-    } else {
-      baseUrl = sequencerAccess;
+      return "http://localhost:8080/api";
     }
-    System.out.println("Using remote access server with url: " + baseUrl);
+    return sequencerAccess;
+  }
+
+  TrackCache getCache() {
+    return cache;
   }
 
   /**
-   * Prepares a connection to the api.
+   * Prepares a request to the api.
    *
    * @param path the path (relative to baseUrl) for the endpoint you want to connect to
-   * @param requestMethod the requestMethod for the connection (e.g. GET, POST, etc.)
-   * @throws IOException if the url is wrongly formatted, the requestmetod is illegal or something
-   *         went wrong while opening the connection
+   * @throws IOException if the url is wrongly formatted
    */
-  private HttpURLConnection prepareConnection(String path, String requestMethod)
-      throws IOException {
-    final HttpURLConnection connection;
+  private HttpRequest.Builder prepareRequest(String path) throws IOException {
     try {
-      URL url = new URL(baseUrl + path);
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod(requestMethod);
-      connection.setRequestProperty("Content-Type", "application/json; utf-8");
-      connection.setRequestProperty("Accept", "application/json");
-      connection.setConnectTimeout(5000);
-      connection.setReadTimeout(5000);
-    } catch (MalformedURLException e) {
+      return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT)
+          .header("Accept", "application/json").header("Accept-Encoding", "gzip");
+    } catch (IllegalArgumentException e) {
       throw new IOException("The endpoint " + baseUrl + path + " is not on the correct format", e);
-    } catch (ProtocolException e) {
-      throw new IOException("The requestmethod " + requestMethod + " is not allowed", e);
-    } catch (IOException e) {
-      throw new IOException("The program was unable to preparing a connection to the server", e);
     }
-    return connection;
   }
 
   @Override
   public void saveTrack(Composer composer) throws IOException, IllegalArgumentException {
-    final HttpURLConnection connection = prepareConnection("/tracks", "POST");
-    connection.setDoOutput(true);
-
-    try (DataOutputStream out = new DataOutputStream(connection.getOutputStream())) {
-      final OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
-      composer.saveTrack(writer);
-      final int status = connection.getResponseCode();
-      if (status == 400) {
-        throw new IllegalArgumentException("Track was in a illegal format");
-      }
-    } catch (IOException e) {
-      throw new IOException("The program was unable to save the current track", e);
-    }
-
-    connection.disconnect();
+    await(saveTrackAsync(composer), "The program was unable to save the current track");
   }
 
+  /**
+   * Loads the track on the calling thread, which may be the JavaFX application thread, so it does
+   * not wait for a load posted to that same thread.
+   */
   @Override
   public void loadTrack(Composer composer, int id) throws IOException {
-    final String path = String.format("/tracks/%d", id);
-    final HttpURLConnection connection = prepareConnection(path, "GET");
+    final byte[] content =
+        await(fetchTrack(id), "The program was unable to load track with id " + id);
+    composer.loadTrack(new ByteArrayInputStream(content));
+  }
 
+  @Override
+  public List<TrackSearchResult> fetchTracks(String trackName, String artistName, Long timestamp)
+      throws IOException {
+    return await(fetchTracksAsync(trackName, artistName, timestamp),
+        "The program was unable to load list of tracks");
+  }
+
+  /**
+   * Arrangements are only saved locally, as the api has no endpoints for them.
+   *
+   * @throws IOException always
+   */
+  @Override
+  public int saveArrangement(Arrangement arrangement) throws IOException {
+    throw new IOException("Arrangements can only be saved locally, not to " + baseUrl);
+  }
+
+  /**
+   * Arrangements are only saved locally, as the api has no endpoints for them.
+   *
+   * @throws IOException always
+   */
+  @Override
+  public Arrangement loadArrangement(int id) throws IOException {
+    throw new IOException("Arrangements can only be loaded locally, not from " + baseUrl);
+  }
+
+  @Override
+  public CompletableFuture<Void> saveTrackAsync(Composer composer) {
+    final HttpRequest request;
     try {
-      final int status = connection.getResponseCode();
-      DataInputStream in;
+      final ByteArrayOutputStream body = new ByteArrayOutputStream();
+      composer.saveTrack(body);
+      request = prepareRequest("/tracks").header("Content-Type", "application/json; utf-8")
+          .POST(BodyPublishers.ofByteArray(body.toByteArray())).build();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
 
-      if (status == 200) {
-        in = new DataInputStream(connection.getInputStream());
+    return client.sendAsync(request, BodyHandlers.ofInputStream()).thenAccept(response -> {
+      try (InputStream body = decompressIfNeeded(response)) {
+        if (response.statusCode() == 400) {
+          throw new IllegalArgumentException("Track was in a illegal format");
+        }
+        checkStatus(response, body);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
 
-        final InputStreamReader reader = new InputStreamReader(in, "UTF-8");
-        composer.loadTrack(reader);
+  /**
+   * Fetches the track on the thread of the HTTP client, and loads it into the composer with the
+   * load executor, which is the JavaFX application thread outside of tests.
+   */
+  @Override
+  public CompletableFuture<Void> loadTrackAsync(Composer composer, int id) {
+    return fetchTrack(id).thenAcceptAsync(content -> {
+      try {
+        composer.loadTrack(new ByteArrayInputStream(content));
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }, loadExecutor);
+  }
 
-      } else {
-        String errorBody = readResponse(connection, status);
+  /**
+   * Returns the content of the track from the cache if it is fresh. Otherwise the cached copy is
+   * validated with the server by its ETag, and still used if the server can not be reached.
+   *
+   * @param id the id of the track
+   */
+  private CompletableFuture<byte[]> fetchTrack(int id) {
+    return CompletableFuture.supplyAsync(() -> cache.get(id)).thenCompose(cached -> {
+      if (cached.isPresent() && cache.isFresh(cached.get())) {
+        return CompletableFuture.completedFuture(cached.get().content());
+      }
+      return downloadTrack(id, cached.orElse(null));
+    });
+  }
 
-        throw new IOException(
-            "Request to server gave unexpected status: %s body: %s".formatted(status, errorBody));
+  /**
+   * Downloads the track, or validates the cached copy if there is one, and updates the cache.
+   *
+   * @param id the id of the track
+   * @param cached the cached copy of the track, or null if it is not cached
+   */
+  private CompletableFuture<byte[]> downloadTrack(int id, TrackCache.Entry cached) {
+    final HttpRequest request;
+    try {
+      final HttpRequest.Builder builder = prepareRequest("/tracks/" + id).GET();
+      if (cached != null && cached.etag() != null) {
+        builder.header("If-None-Match", cached.etag());
       }
+      request = builder.build();
     } catch (IOException e) {
-      throw new IOException("The program was unable to load track with id " + id, e);
+      return CompletableFuture.failedFuture(e);
     }
 
-    connection.disconnect();
+    return client.sendAsync(request, BodyHandlers.ofInputStream()).handle((response, error) -> {
+      if (error != null) {
+        if (cached != null) {
+          System.out.println("Server unavailable, using cached copy of track " + id);
+          return cached.content();
+        }
+        throw new CompletionException(error);
+      }
+      try (InputStream body = decompressIfNeeded(response)) {
+        if (response.statusCode() == 304 && cached != null) {
+          cache.markValidated(id);
+          return cached.content();
+        }
+        checkStatus(response, body);
+        final byte[] content = body.readAllBytes();
+        cache.put(id, content, response.headers().firstValue("ETag").orElse(null));
+        return content;
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
   }
 
   @Override
-  public List<TrackSearchResult> fetchTracks(String trackName, String artistName, Long timestamp)
-      throws IOException {
-    final String path = "/tracks?" + (trackName != null ? "name=" + trackName : "")
-        + (artistName != null ? "&artist=" + artistName : "")
-        + (timestamp != null ? "&timestamp=" + timestamp : "");
+  public CompletableFuture<List<TrackSearchResult>> fetchTracksAsync(String trackName,
+      String artistName, Long timestamp) {
+    return sendSearch(searchQuery(trackName, artistName, timestamp));
+  }
+
+  @Override
+  public CompletableFuture<List<TrackSearchResult>> fetchTracksAsync(String trackName,
+      String artistName, Long timestamp, int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("Offset and limit cannot be negative");
+    }
+    final List<String> query = searchQuery(trackName, artistName, timestamp);
+    query.add("offset=" + offset);
+    query.add("limit=" + limit);
+    return sendSearch(query);
+  }
 
-    final HttpURLConnection connection = prepareConnection(path, "GET");
+  /**
+   * Returns the query parameters of a search, with the names encoded.
+   */
+  private static List<String> searchQuery(String trackName, String artistName, Long timestamp) {
+    final List<String> query = new ArrayList<>();
+    if (trackName != null) {
+      query.add("name=" + URLEncoder.encode(trackName, StandardCharsets.UTF_8));
+    }
+    if (artistName != null) {
+      query.add("artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8));
+    }
+    if (timestamp != null) {
+      query.add("timestamp=" + timestamp);
+    }
+    return query;
+  }
 
-    String responseString;
+  /**
+   * Sends a search. Cancelling the returned future cancels the exchange with the server, which
+   * closes its connection, so a superseded search does not keep waiting for its response.
+   *
+   * @param query the query parameters of the search
+   */
+  private CompletableFuture<List<TrackSearchResult>> sendSearch(List<String> query) {
+    final HttpRequest request;
     try {
-      final int status = connection.getResponseCode();
-      responseString = readResponse(connection, status);
+      request = prepareRequest("/tracks?" + String.join("&", query)).GET().build();
     } catch (IOException e) {
-      throw new IOException("The program was unable to load list of tracks", e);
+      return CompletableFuture.failedFuture(e);
     }
 
-    connection.disconnect();
-
-    TrackMapper tm = new TrackMapper();
-    return tm.readFromString(responseString, new TypeReference<List<TrackSearchResult>>() {});
+    final CompletableFuture<HttpResponse<InputStream>> exchange =
+        client.sendAsync(request, BodyHandlers.ofInputStream());
+    final CompletableFuture<List<TrackSearchResult>> search = exchange.thenApply(response -> {
+      try (InputStream body = decompressIfNeeded(response)) {
+        checkStatus(response, body);
+        return trackMapper.readFromStream(body,
+            new TypeReference<List<TrackSearchResult>>() {});
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+    search.whenComplete((tracks, error) -> {
+      if (search.isCancelled()) {
+        exchange.cancel(true);
+      }
+    });
+    return search;
   }
 
   /**
-   * Reads the response after a call to one of the endpoints of the api has been made.
+   * Waits for the future of a request, and throws the exception it failed with, if any.
    *
-   * @param status the statusCode for the call made
-   * @return a string with the response from the call
-   * @throws IOException if the response can not be read
+   * @param future the future of the request
+   * @param message the message of the exception thrown if the request failed
+   * @throws IOException if the request failed, with the cause of the failure
+   * @throws IllegalArgumentException if the request was rejected as invalid
    */
-  private String readResponse(HttpURLConnection connection, int status) throws IOException {
-    Reader inputStreamReader;
-    if (status <= 299) {
-      inputStreamReader = new InputStreamReader(connection.getInputStream(), "UTF-8");
-    } else {
-      try {
-        inputStreamReader = new InputStreamReader(connection.getErrorStream(), "UTF-8");
-      } catch (IOException e) {
-        throw new IOException("Could not get inputstream from connection to server", e);
+  private static <T> T await(CompletableFuture<T> future, String message) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(message);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IllegalArgumentException illegalArgument) {
+        throw illegalArgument;
       }
+      throw new IOException(message, e.getCause());
     }
+  }
 
-    StringBuilder content = new StringBuilder();
-    try (BufferedReader in = new BufferedReader(inputStreamReader)) {
-      String inputLine;
-      while ((inputLine = in.readLine()) != null) {
-        content.append(inputLine);
-      }
-    } catch (IOException e) {
-      throw new IOException("Something went wrong while reading response from server", e);
+  /**
+   * Throws an exception with the response body if the request was not successful.
+   *
+   * @param response the response of the request
+   * @param body the decompressed response body
+   * @throws IOException if the response has an unexpected status
+   */
+  private static void checkStatus(HttpResponse<InputStream> response, InputStream body)
+      throws IOException {
+    final int status = response.statusCode();
+    if (status < 200 || status > 299) {
+      final String errorBody = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+      throw new IOException(
+          "Request to server gave unexpected status: %s body: %s".formatted(status, errorBody));
+    }
+  }
+
+  /**
+   * Wraps the response stream in a decompressing stream if the server compressed the response.
+   *
+   * @param response the response with the stream
+   * @throws IOException if the compressed response can not be read
+   */
+  private static InputStream decompressIfNeeded(HttpResponse<InputStream> response)
+      throws IOException {
+    final InputStream body = response.body();
+    if (body == null) {
+      return new ByteArrayInputStream(new byte[0]);
     }
-    return content.toString();
+    final boolean compressed = response.headers().firstValue("Content-Encoding")
+        .map("gzip"::equalsIgnoreCase).orElse(false);
+    return compressed ? new GZIPInputStream(body) : body;
   }
 
 }
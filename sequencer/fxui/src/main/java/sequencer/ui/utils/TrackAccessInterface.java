@@ -2,11 +2,28 @@ package sequencer.ui.utils;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import sequencer.core.Arrangement;
 import sequencer.core.Composer;
 import sequencer.json.TrackSearchResult;
 
 /**
  * Interface for classes that save/fetch tracks.
+ *
+ * <p>
+ * Each method has an asynchronous variant, which returns a {@link CompletableFuture} instead of
+ * blocking the calling thread. If the operation fails, the future completes exceptionally with the
+ * exception the blocking variant would throw, as the cause of the {@link CompletionException}. The
+ * default variants run the blocking methods in the common pool, and implementations doing I/O
+ * should override them.
+ * </p>
+ *
+ * <p>
+ * Loading a track asynchronously has one threading contract for all implementations, as the
+ * composer is shared with the user interface: the track is read off the calling thread, and only
+ * loaded into the composer on the JavaFX application thread.
+ * </p>
  */
 public interface TrackAccessInterface {
 
@@ -41,4 +58,108 @@ public interface TrackAccessInterface {
    */
   public List<TrackSearchResult> fetchTracks(String trackName, String artistName, Long timestamp)
       throws IOException;
+
+  /**
+   * Saves an arrangement, and the patterns it plays.
+   *
+   * @param arrangement the arrangement to save
+   * @return the id of the saved arrangement
+   * @throws IOException if the arrangement could not be saved, or the track access object can not
+   *         save arrangements
+   * @throws IllegalArgumentException if a valid filename cannot be created from the name and
+   *         artist of the arrangement
+   */
+  public int saveArrangement(Arrangement arrangement) throws IOException;
+
+  /**
+   * Loads a saved arrangement.
+   *
+   * @param id the id of the arrangement
+   * @return the arrangement
+   * @throws IOException if no arrangement has the id, it could not be read, or the track access
+   *         object can not load arrangements
+   */
+  public Arrangement loadArrangement(int id) throws IOException;
+
+  /**
+   * Saves the track that the composer is currently holding, without blocking. The track is read
+   * from the composer before this method returns.
+   *
+   * @param composer the composer holding the track you want to save
+   * @return a future which completes when the track is saved
+   */
+  public default CompletableFuture<Void> saveTrackAsync(Composer composer) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        saveTrack(composer);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  /**
+   * Loads the track with the given id into the composer, without blocking. The track is read off
+   * the calling thread, and loaded into the composer on the JavaFX application thread, so the
+   * future completes there after the track is loaded.
+   *
+   * @param composer the composer you want to load the track into
+   * @param id the id of the track you want to load
+   * @return a future which completes when the track is loaded
+   */
+  public CompletableFuture<Void> loadTrackAsync(Composer composer, int id);
+
+  /**
+   * Fetches all saved tracks matching the search, without blocking. See
+   * {@link #fetchTracks(String, String, Long)}.
+   *
+   * @param trackName the name of the track (or part of it) you want the returned tracks to match
+   * @param artistName the name of the artist (or part of it) you want the returned tracks to match
+   * @param timestamp the time which you want returned tracks to match (matches by day);
+   * @return a future with a list {@link TrackSearchResults} for all the saved tracks
+   */
+  public default CompletableFuture<List<TrackSearchResult>> fetchTracksAsync(String trackName,
+      String artistName, Long timestamp) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return fetchTracks(trackName, artistName, timestamp);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  /**
+   * Fetches a page of the saved tracks matching the search, without blocking. The tracks are
+   * ordered as in {@link #fetchTracks(String, String, Long)}, and a page shorter than the limit
+   * is the last one. Cancelling the returned future cancels the fetch, so a superseded search
+   * does not keep a request to the server open. The default variant fetches all tracks and returns
+   * the requested page, and implementations fetching tracks from a server should override it.
+   *
+   * @param trackName the name of the track (or part of it) you want the returned tracks to match
+   * @param artistName the name of the artist (or part of it) you want the returned tracks to match
+   * @param timestamp the time which you want returned tracks to match (matches by day);
+   * @param offset the number of matching tracks to skip
+   * @param limit the maximum number of tracks to return
+   * @return a future with a list {@link TrackSearchResults} for the tracks on the page
+   * @throws IllegalArgumentException if offset or limit is negative
+   */
+  public default CompletableFuture<List<TrackSearchResult>> fetchTracksAsync(String trackName,
+      String artistName, Long timestamp, int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("Offset and limit cannot be negative");
+    }
+    final CompletableFuture<List<TrackSearchResult>> fetch =
+        fetchTracksAsync(trackName, artistName, timestamp);
+    final CompletableFuture<List<TrackSearchResult>> page = fetch.thenApply(tracks -> {
+      final int start = Math.min(offset, tracks.size());
+      return tracks.subList(start, (int) Math.min((long) start + limit, tracks.size()));
+    });
+    page.whenComplete((tracks, error) -> {
+      if (page.isCancelled()) {
+        fetch.cancel(true);
+      }
+    });
+    return page;
+  }
 }
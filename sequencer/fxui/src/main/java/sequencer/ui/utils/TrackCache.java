@@ -0,0 +1,254 @@
+package sequencer.ui.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@code TrackCache} keeps the contents of loaded tracks by their id, so a track does not have to
+ * be downloaded every time it is loaded.
+ *
+ * <p>
+ * The most recently used tracks are kept in memory, and all cached tracks are kept in a directory,
+ * so they are available when the app is restarted or the connection is lost. Both are bounded, and
+ * the least recently used tracks are removed first. Each track is kept with the ETag it was served
+ * with, which is used to validate the cached copy with the server once it is older than the given
+ * maximum age.
+ * </p>
+ */
+public class TrackCache {
+
+  private static final String FILETYPE = ".track";
+
+  private final Path directory;
+  private final int maxEntriesOnDisk;
+  private final long maxAgeMillis;
+  private final Map<Integer, Entry> memory;
+
+  /**
+   * A cached track.
+   *
+   * @param content the content of the track, as it was served
+   * @param etag the ETag the track was served with, or null if it had none
+   * @param validatedAt the time the content was last received or validated, in milliseconds
+   */
+  public record Entry(byte[] content, String etag, long validatedAt) {
+  }
+
+  /**
+   * Creates a cache of tracks.
+   *
+   * @param directory the directory to keep cached tracks in, which is created when needed
+   * @param maxEntriesInMemory the maximum number of tracks to keep in memory
+   * @param maxEntriesOnDisk the maximum number of tracks to keep in the directory
+   * @param maxAge how long a cached track is used before it is validated with the server
+   * @throws IllegalArgumentException if a maximum is negative
+   */
+  public TrackCache(Path directory, int maxEntriesInMemory, int maxEntriesOnDisk,
+      Duration maxAge) {
+    if (maxEntriesInMemory < 0 || maxEntriesOnDisk < 0 || maxAge.isNegative()) {
+      throw new IllegalArgumentException("Cache limits cannot be negative");
+    }
+    this.directory = directory;
+    this.maxEntriesOnDisk = maxEntriesOnDisk;
+    this.maxAgeMillis = maxAge.toMillis();
+    this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, TrackCache.Entry> eldest) {
+        return size() > maxEntriesInMemory;
+      }
+    };
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Returns the cached track with the given id, if any.
+   *
+   * @param id the id of the track
+   */
+  public synchronized Optional<Entry> get(int id) {
+    Entry entry = memory.get(id);
+    if (entry == null) {
+      entry = readEntry(id);
+      if (entry != null) {
+        memory.put(id, entry);
+      }
+    }
+    if (entry != null) {
+      touch(id);
+    }
+    return Optional.ofNullable(entry);
+  }
+
+  /**
+   * Returns true if the entry was received or validated within the maximum age, and can be used
+   * without asking the server.
+   *
+   * @param entry the cached entry
+   */
+  public boolean isFresh(Entry entry) {
+    return System.currentTimeMillis() - entry.validatedAt() < maxAgeMillis;
+  }
+
+  /**
+   * Caches the content of a track which was just received.
+   *
+   * @param id the id of the track
+   * @param content the content of the track
+   * @param etag the ETag of the content, or null if it has none
+   */
+  public synchronized void put(int id, byte[] content, String etag) {
+    final Entry entry = new Entry(content.clone(), etag, System.currentTimeMillis());
+    memory.put(id, entry);
+    writeEntry(id, entry);
+    evictFromDisk();
+  }
+
+  /**
+   * Marks the cached track as validated by the server, so it is fresh again.
+   *
+   * @param id the id of the track
+   */
+  public synchronized void markValidated(int id) {
+    get(id).ifPresent(entry -> {
+      final Entry validated =
+          new Entry(entry.content(), entry.etag(), System.currentTimeMillis());
+      memory.put(id, validated);
+      writeEntry(id, validated);
+    });
+  }
+
+  /**
+   * Removes all cached tracks, from memory and the directory.
+   */
+  public synchronized void clear() {
+    memory.clear();
+    for (Path file : listFiles()) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  // Helpers
+  // The directory is only an optimization, so failing to read or write it is not an error
+
+  private Path getFile(int id) {
+    return directory.resolve(id + FILETYPE);
+  }
+
+  private Entry readEntry(int id) {
+    try (InputStream input = Files.newInputStream(getFile(id));
+        DataInputStream data = new DataInputStream(input)) {
+      final String etag = data.readBoolean() ? data.readUTF() : null;
+      final long validatedAt = data.readLong();
+      return new Entry(data.readAllBytes(), etag, validatedAt);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Writes the entry to a temporary file first, so a partially written entry is never read.
+   */
+  private void writeEntry(int id, Entry entry) {
+    if (maxEntriesOnDisk == 0) {
+      return;
+    }
+    try {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream data = new DataOutputStream(bytes)) {
+        data.writeBoolean(entry.etag() != null);
+        if (entry.etag() != null) {
+          data.writeUTF(entry.etag());
+        }
+        data.writeLong(entry.validatedAt());
+        data.write(entry.content());
+      }
+      Files.createDirectories(directory);
+      final Path temp = Files.createTempFile(directory, "tmp-", null);
+      try (OutputStream output = Files.newOutputStream(temp)) {
+        bytes.writeTo(output);
+      }
+      Files.move(temp, getFile(id), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Marks the file of the track as recently used.
+   */
+  private void touch(int id) {
+    try {
+      Files.setLastModifiedTime(getFile(id), FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (NoSuchFileException e) {
+      // The track is only kept in memory
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Deletes the least recently used files until the directory is within its bound.
+   */
+  private void evictFromDisk() {
+    final List<Path> files = listFiles();
+    if (files.size() <= maxEntriesOnDisk) {
+      return;
+    }
+    files.sort(Comparator.comparing(file -> {
+      try {
+        return Files.getLastModifiedTime(file);
+      } catch (IOException e) {
+        return FileTime.fromMillis(0);
+      }
+    }));
+    for (Path file : files.subList(0, files.size() - maxEntriesOnDisk)) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  private List<Path> listFiles() {
+    if (!Files.isDirectory(directory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(FILETYPE))
+          .collect(Collectors.toCollection(ArrayList::new));
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new ArrayList<>();
+    }
+  }
+}
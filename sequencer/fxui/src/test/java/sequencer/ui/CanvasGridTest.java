@@ -0,0 +1,110 @@
+package sequencer.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.Node;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link CanvasGrid}, clicking its canvas with synthetic mouse events. The grid has
+ * 2 rows and 4 columns of 10x20 sixteenths, with gaps of 2 between columns and 4 between rows, so
+ * the sixteenth in row r and column c spans [12c + 2, 12c + 12] x [24r + 4, 24r + 24].
+ */
+public class CanvasGridTest {
+
+  private static final int ROWS = 2;
+  private static final int COLUMNS = 4;
+  private static final List<String[]> COLORS =
+      List.<String[]>of(new String[] {"#FF0000", "#880000"});
+
+  private final List<String> toggled = new ArrayList<>();
+  private CanvasGrid grid;
+  private Node canvas;
+
+  /**
+   * Create the grid, recording the sixteenths it reports as clicked.
+   */
+  @BeforeEach
+  public void createGrid() {
+    toggled.clear();
+    final Pane pane = new Pane();
+    grid = new CanvasGrid(pane, ROWS, COLUMNS, 10, 20, 2, 4, COLORS);
+    grid.setOnToggle((row, column) -> toggled.add(row + "," + column));
+    canvas = pane.getChildren().get(0);
+  }
+
+  @Test
+  @DisplayName("Test if clicks on a sixteenth are reported with its row and column")
+  public void testClickOnSixteenth() {
+    assertEquals(50, grid.getWidth());
+    assertEquals(52, grid.getHeight());
+
+    click(7, 14);
+    click(31, 38);
+    // The corners of the last sixteenth
+    click(38, 28);
+    click(48, 48);
+    assertEquals(List.of("0,0", "1,2", "1,3", "1,3"), toggled);
+  }
+
+  @Test
+  @DisplayName("Test if clicks in the gaps or outside the grid are ignored")
+  public void testClickOutsideSixteenths() {
+    // Gaps around the grid, between two columns and between two rows
+    click(1, 10);
+    click(7, 2);
+    click(13, 10);
+    click(7, 26);
+    click(49, 10);
+    click(7, 51);
+    // Outside the grid
+    click(-5, 10);
+    click(7, -5);
+    click(60, 10);
+    click(7, 60);
+    assertTrue(toggled.isEmpty(), "Expected no toggles: " + toggled);
+  }
+
+  @Test
+  @DisplayName("Test if the played column is bounded by the grid and moved")
+  public void testSetPlayedColumn() {
+    assertEquals(-1, grid.getPlayedColumn());
+    grid.setPlayedColumn(0);
+    assertEquals(0, grid.getPlayedColumn());
+    grid.setPlayedColumn(COLUMNS - 1);
+    assertEquals(COLUMNS - 1, grid.getPlayedColumn());
+
+    assertThrows(IllegalArgumentException.class, () -> grid.setPlayedColumn(-1));
+    assertThrows(IllegalArgumentException.class, () -> grid.setPlayedColumn(COLUMNS));
+    assertEquals(COLUMNS - 1, grid.getPlayedColumn());
+  }
+
+  @Test
+  @DisplayName("Test if sixteenths are only shown as active when set, and grids cannot be empty")
+  public void testSetActive() {
+    grid.setActive(1, 2, true);
+    assertTrue(grid.isActive(1, 2));
+    grid.setActive(1, 2, false);
+    assertFalse(grid.isActive(1, 2));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> new CanvasGrid(new Pane(), 0, COLUMNS, 10, 20, 2, 4, COLORS));
+  }
+
+  // Helpers
+
+  private void click(double x, double y) {
+    canvas.fireEvent(new MouseEvent(MouseEvent.MOUSE_CLICKED, x, y, x, y, MouseButton.PRIMARY, 1,
+        false, false, false, false, true, false, false, false, false, true, null));
+  }
+}
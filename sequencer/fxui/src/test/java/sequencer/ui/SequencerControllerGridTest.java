@@ -0,0 +1,73 @@
+package sequencer.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import javafx.scene.layout.Pane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.core.Composer;
+import sequencer.json.TrackMapper;
+
+/**
+ * Tests for the grid created by the {@link SequencerController} for the track of its composer,
+ * without starting the app.
+ */
+public class SequencerControllerGridTest {
+
+  private Composer composer;
+  private Pane pane;
+
+  /**
+   * Create a silent composer, and the pane of the grid.
+   */
+  @BeforeEach
+  public void createComposer() throws IOException {
+    composer = Composer.createSilentComposer(new TrackMapper(false));
+    pane = new Pane();
+  }
+
+  @Test
+  @DisplayName("Test if the canvas grid has a row for each instrument and a column per sixteenth")
+  public void testCanvasGridFitsTrack() {
+    // SETUP
+    final List<String> instruments = List.copyOf(composer.getAvailableInstruments());
+    instruments.forEach(composer::addInstrumentToTrack);
+    composer.setLength(48);
+    final PatternGrid bar = SequencerController.createPatternGrid(new Pane(), null, "CANVAS");
+
+    // TEST
+    final PatternGrid grid = SequencerController.createPatternGrid(pane, composer, "CANVAS");
+    assertTrue(grid instanceof CanvasGrid);
+    assertTrue(instruments.size() > SequencerController.NUMBER_OF_ROWS,
+        "Expected more instruments than rows in a new track: " + instruments);
+    assertEquals(instruments.size(), grid.getRows());
+    assertEquals(48, grid.getColumns());
+    assertEquals(1, pane.getChildren().size());
+
+    // The sixteenths are narrowed, so the grid keeps the width of a bar
+    assertEquals(bar.getWidth(), grid.getWidth(), 1e-9);
+    assertEquals(Composer.getTrackLength(), bar.getColumns());
+
+    // Every sixteenth of the track can be played and toggled
+    grid.setPlayedColumn(47);
+    grid.setActive(instruments.size() - 1, 47, true);
+    assertTrue(grid.isActive(instruments.size() - 1, 47));
+  }
+
+  @Test
+  @DisplayName("Test if short tracks with few instruments still get the rows of a new track")
+  public void testGridOfShortTrack() {
+    composer.addInstrumentToTrack(composer.getAvailableInstruments().iterator().next());
+    composer.setLength(12);
+
+    final PatternGrid grid = SequencerController.createPatternGrid(pane, composer, null);
+    assertTrue(grid instanceof RectangleGrid);
+    assertEquals(SequencerController.NUMBER_OF_ROWS, grid.getRows());
+    assertEquals(12, grid.getColumns());
+    assertEquals(SequencerController.NUMBER_OF_ROWS * 12, pane.getChildren().size());
+  }
+}
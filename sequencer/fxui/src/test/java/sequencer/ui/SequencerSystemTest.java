@@ -12,15 +12,16 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.DatePicker;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -30,7 +31,9 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.testfx.framework.junit5.ApplicationTest;
+import org.testfx.util.WaitForAsyncUtils;
 import sequencer.core.Composer;
+import sequencer.json.TrackSearchResult;
 import sequencer.persistence.PersistenceHandler;
 
 /**
@@ -122,6 +125,22 @@ public class SequencerSystemTest extends ApplicationTest {
 
   }
 
+  /**
+   * Helper for getting the list of saved tracks, once the given amount of tracks is displayed.
+   * Searches are performed in the background, so the tracks are not displayed immediately.
+   */
+  private ListView<TrackSearchResult> awaitSavedTracksList(int expectedTracks) {
+    final ListView<TrackSearchResult> savedTracksList = lookup("#savedTracksList").query();
+    try {
+      WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS,
+          () -> savedTracksList.getItems().size() == expectedTracks);
+    } catch (TimeoutException e) {
+      // The amount of tracks is asserted by the caller
+    }
+    WaitForAsyncUtils.waitForFxEvents();
+    return savedTracksList;
+  }
+
   @Test
   @Order(1)
   @DisplayName("Create and save an instrument")
@@ -155,10 +174,9 @@ public class SequencerSystemTest extends ApplicationTest {
       clickOn("#saveTrackBtn");
     }
     clickOn("#modalOpener");
-    final VBox savedTracksPanel = lookup("#savedTracksPanel").query();
+    final ListView<TrackSearchResult> savedTracksList = awaitSavedTracksList(tracksCreated);
 
-    // Removing 1, as the panel also contains a node displaying the name of each column
-    assertEquals(tracksCreated, savedTracksPanel.getChildren().size() - 1, """
+    assertEquals(tracksCreated, savedTracksList.getItems().size(), """
         Amount of saved tracks was not as expected. Ensure both client and server are performing
         the POST-request as expected.""");
 
@@ -170,14 +188,13 @@ public class SequencerSystemTest extends ApplicationTest {
   @DisplayName("Load a single instrument and play it")
   public void loadIntrument() throws TimeoutException {
     clickOn("#modalOpener");
-    final VBox savedTracksPanel = lookup("#savedTracksPanel").query();
+    final ListView<TrackSearchResult> savedTracksList = awaitSavedTracksList(tracksCreated);
 
-    // Removing 1, as the panel also contains a node displaying the name of each column
-    assertEquals(tracksCreated, savedTracksPanel.getChildren().size() - 1, """
+    assertEquals(tracksCreated, savedTracksList.getItems().size(), """
         Amount of saved tracks was not as expected. Ensure both client and server are
         performing the POST-request as expected.""");
 
-    clickOn("#" + savedTracksPanel.getChildren().get(1).getId());
+    clickOn("#" + savedTracksList.getItems().get(0).id());
     clickOn("#startStopBtn");
     assertTrue(sequencerController.composer.isPlaying(), """
         Attempting to play the loaded instrument failed. Ensure the loaded track is
@@ -197,14 +214,13 @@ public class SequencerSystemTest extends ApplicationTest {
     clickOn("#trackNameField").write(testTrackNames[1].substring(1));
     clickOn("#searchBtn");
 
-    final VBox savedTracksPanel = lookup("#savedTracksPanel").query();
+    final ListView<TrackSearchResult> savedTracksList = awaitSavedTracksList(1);
 
-    // Removing 1, as the panel also contains a node displaying the name of each column
-    assertEquals(1, savedTracksPanel.getChildren().size() - 1, """
+    assertEquals(1, savedTracksList.getItems().size(), """
         Amount of tracks after searching by trackName was not as expected. Ensure both client and
         server are performing the GET-request as expected.""");
 
-    clickOn("#" + savedTracksPanel.getChildren().get(1).getId());
+    clickOn("#" + savedTracksList.getItems().get(0).id());
 
     assertEquals(trackNameField.getText(), testTrackNames[1],
         "Loaded unexpected track. Ensure sorting and meta are handled as expected.");
@@ -219,14 +235,13 @@ public class SequencerSystemTest extends ApplicationTest {
     clickOn("#artistNameField").write(testArtistNames[2].charAt(0));
     clickOn("#searchBtn");
 
-    final VBox savedTracksPanel = lookup("#savedTracksPanel").query();
+    final ListView<TrackSearchResult> savedTracksList = awaitSavedTracksList(2);
 
-    // Removing 1, as the panel also contains a node displaying the name of each column
-    assertEquals(2, savedTracksPanel.getChildren().size() - 1, """
+    assertEquals(2, savedTracksList.getItems().size(), """
         Amount of tracks after searching by artist was not as expected. Ensure both client
         and server are performing the GET-request as expected.""");
 
-    clickOn("#" + savedTracksPanel.getChildren().get(1).getId());
+    clickOn("#" + savedTracksList.getItems().get(0).id());
     // Sence track name is the same, should sorting ensure testTrack3 is the first
     // based on
     // alphabetical order in their names.
@@ -247,9 +262,8 @@ public class SequencerSystemTest extends ApplicationTest {
 
     clickOn("#searchBtn");
 
-    VBox savedTracksPanel = lookup("#savedTracksPanel").query();
-    // Removing 1, as the panel also contains a node displaying the name of each column
-    assertEquals(tracksCreated, savedTracksPanel.getChildren().size() - 1, """
+    ListView<TrackSearchResult> savedTracksList = awaitSavedTracksList(tracksCreated);
+    assertEquals(tracksCreated, savedTracksList.getItems().size(), """
         Amount of tracks after selecting date was not as expected. Ensure both client and server
         are performing the GET-request as expected.""");
 
@@ -259,8 +273,8 @@ public class SequencerSystemTest extends ApplicationTest {
 
     clickOn("#searchBtn");
 
-    savedTracksPanel = lookup("#savedTracksPanel").query();
-    assertEquals(0, savedTracksPanel.getChildren().size() - 1, """
+    savedTracksList = awaitSavedTracksList(0);
+    assertEquals(0, savedTracksList.getItems().size(), """
         Amount of tracks after selecting date was not as expected. Ensure both client and server
         are performing the GET-request as expected.""");
     sleep(500);
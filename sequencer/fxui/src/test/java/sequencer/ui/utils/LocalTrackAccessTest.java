@@ -0,0 +1,127 @@
+package sequencer.ui.utils;
+
+import static com.github.stefanbirkner.systemlambda.SystemLambda.withEnvironmentVariable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.core.Arrangement;
+import sequencer.core.Composer;
+import sequencer.core.Track;
+import sequencer.json.TrackMapper;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * Tests for saving and loading tracks and arrangements with the {@link LocalTrackAccess}, in its
+ * own test directory which is removed afterwards. Loads are handed to a queue standing in for the
+ * JavaFX application thread.
+ */
+public class LocalTrackAccessTest {
+
+  private static final String LOCAL_TEST_SAVE_DIR = "test-local-track-access-test";
+
+  private final BlockingQueue<Runnable> loads = new LinkedBlockingQueue<>();
+  private LocalTrackAccess trackAccess;
+
+  /**
+   * Create the track access with the test directory as save directory.
+   */
+  @BeforeEach
+  public void createTrackAccess() throws Exception {
+    final Composer composer = Composer.createSilentComposer(new TrackMapper(false));
+    trackAccess = withEnvironmentVariable("SEQUENCER_ACCESS", "LOCAL:" + LOCAL_TEST_SAVE_DIR)
+        .execute(() -> new LocalTrackAccess(composer, loads::add));
+  }
+
+  /**
+   * Remove the saved arrangements and the test directory.
+   */
+  @AfterEach
+  public void clearTestDirectory() {
+    final File directory = new PersistenceHandler(LOCAL_TEST_SAVE_DIR,
+        LocalTrackAccess.ARRANGEMENT_FILETYPE).getSaveDirectoryPath().toFile();
+    final File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  @DisplayName("Test if arrangements are saved and loaded without changing them")
+  public void testSaveAndLoadArrangement() throws IOException {
+    // SETUP
+    final Arrangement arrangement = new Arrangement();
+    arrangement.setName("Song");
+    arrangement.setLooped(true);
+    final Track verse = new Track();
+    verse.addInstrument("kick");
+    verse.toggleSixteenth("kick", 4);
+    arrangement.putPattern("verse", verse);
+    arrangement.addSection(new Arrangement.Section("verse", 2));
+    arrangement.addSection(new Arrangement.Section("verse", 1, 140f));
+
+    // TEST
+    final int id = trackAccess.saveArrangement(arrangement);
+    final Arrangement loaded = trackAccess.loadArrangement(id);
+    assertEquals("Song", loaded.getName());
+    assertNull(loaded.getArtistName());
+    assertTrue(loaded.isLooped());
+    assertEquals(arrangement.getSections(), loaded.getSections());
+    assertEquals(arrangement.getPatternNames(), loaded.getPatternNames());
+    assertEquals(verse.getPattern("kick"), loaded.getPattern("verse").getPattern("kick"));
+
+    // Arrangements get new ids, and are not listed as tracks
+    assertEquals(id + 1, trackAccess.saveArrangement(arrangement));
+    assertTrue(trackAccess.fetchTracks(null, null, null).isEmpty());
+    assertThrows(IOException.class, () -> trackAccess.loadArrangement(id + 2));
+  }
+
+  @Test
+  @DisplayName("Test if an asynchronous load is completed by the load executor, not before")
+  public void testLoadTrackAsyncOnLoadExecutor() throws Exception {
+    // SETUP
+    final Composer saved = Composer.createSilentComposer(new TrackMapper(false));
+    saved.setTrackName("Saved");
+    saved.setArtistName("Artist");
+    trackAccess.saveTrack(saved);
+    final int id = trackAccess.fetchTracks(null, null, null).get(0).id();
+    final Composer composer = Composer.createSilentComposer(new TrackMapper(false));
+
+    // TEST
+    final CompletableFuture<Void> load = trackAccess.loadTrackAsync(composer, id);
+
+    // The track is read, but not loaded until the executor runs the load
+    final Runnable pending = loads.poll(5, TimeUnit.SECONDS);
+    assertNotNull(pending, "Expected the load to be handed to the load executor");
+    assertFalse(load.isDone());
+    assertNull(composer.getTrackName());
+
+    pending.run();
+    assertTrue(load.isDone());
+    load.get();
+    assertEquals("Saved", composer.getTrackName());
+
+    // A missing track fails without reaching the load executor
+    final ExecutionException missing = assertThrows(ExecutionException.class,
+        () -> trackAccess.loadTrackAsync(composer, id + 1).get(5, TimeUnit.SECONDS));
+    assertTrue(missing.getCause() instanceof IOException);
+    assertTrue(loads.isEmpty());
+  }
+}
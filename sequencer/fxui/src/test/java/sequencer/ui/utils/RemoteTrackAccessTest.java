@@ -0,0 +1,138 @@
+package sequencer.ui.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.core.Arrangement;
+import sequencer.core.Composer;
+import sequencer.json.TrackMapper;
+import sequencer.json.TrackSearchResult;
+
+/**
+ * Tests for the {@link RemoteTrackAccess}, loading tracks from its cache so no server is needed.
+ * Loads are handed to a queue standing in for the JavaFX application thread.
+ */
+public class RemoteTrackAccessTest {
+
+  // No server is listening, and the cache is kept apart from the cache of the app
+  private static final String BASE_URL = "http://localhost:1/remote-track-access-test";
+  private static final int ID = 1;
+
+  private final BlockingQueue<Runnable> loads = new LinkedBlockingQueue<>();
+  private RemoteTrackAccess trackAccess;
+  private Composer composer;
+
+  /**
+   * Caches a track, as if it was just downloaded.
+   */
+  @BeforeEach
+  public void cacheTrack() throws IOException {
+    trackAccess = new RemoteTrackAccess(BASE_URL, loads::add);
+    composer = Composer.createSilentComposer(new TrackMapper(false));
+
+    final Composer saved = Composer.createSilentComposer(new TrackMapper(false));
+    saved.setTrackName("Cached");
+    saved.setArtistName("Artist");
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    saved.saveTrack(content);
+    trackAccess.getCache().put(ID, content.toByteArray(), null);
+  }
+
+  /**
+   * Remove the test cache.
+   */
+  @AfterEach
+  public void clearCache() {
+    trackAccess.getCache().clear();
+    trackAccess.getCache().getDirectory().toFile().delete();
+  }
+
+  @Test
+  @DisplayName("Test if an asynchronous load is completed by the load executor, not before")
+  public void testLoadTrackAsyncOnLoadExecutor() throws Exception {
+    final CompletableFuture<Void> load = trackAccess.loadTrackAsync(composer, ID);
+
+    // The track is fetched, but not loaded until the executor runs the load
+    final Runnable pending = loads.poll(5, TimeUnit.SECONDS);
+    assertNotNull(pending, "Expected the load to be handed to the load executor");
+    assertFalse(load.isDone());
+    assertNull(composer.getTrackName());
+
+    pending.run();
+    assertTrue(load.isDone());
+    load.get();
+    assertEquals("Cached", composer.getTrackName());
+  }
+
+  @Test
+  @DisplayName("Test if a blocking load loads on the calling thread, without the load executor")
+  public void testLoadTrackOnCallingThread() throws IOException {
+    trackAccess.loadTrack(composer, ID);
+    assertEquals("Cached", composer.getTrackName());
+    assertTrue(loads.isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test if arrangements are rejected, as they are only saved locally")
+  public void testArrangementsAreLocalOnly() {
+    assertThrows(IOException.class, () -> trackAccess.saveArrangement(new Arrangement()));
+    assertThrows(IOException.class, () -> trackAccess.loadArrangement(ID));
+  }
+
+  @Test
+  @DisplayName("Test if cancelling a search closes the connection of its request")
+  public void testCancelSearchClosesConnection() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      server.setSoTimeout(5000);
+      final RemoteTrackAccess access = new RemoteTrackAccess(
+          "http://127.0.0.1:" + server.getLocalPort() + "/api", loads::add);
+      try {
+        final CompletableFuture<List<TrackSearchResult>> search =
+            access.fetchTracksAsync(null, null, null, 0, 10);
+
+        // The server receives the request, but never answers it
+        try (Socket connection = server.accept()) {
+          connection.setSoTimeout(5000);
+          final InputStream request = connection.getInputStream();
+          readHeaders(request);
+
+          search.cancel(true);
+          assertEquals(-1, request.read(), "Expected the client to close the connection");
+        }
+      } finally {
+        access.getCache().getDirectory().toFile().delete();
+      }
+    }
+  }
+
+  // Helpers
+
+  private static void readHeaders(InputStream request) throws IOException {
+    int matched = 0;
+    final byte[] end = "\r\n\r\n".getBytes();
+    while (matched < end.length) {
+      final int next = request.read();
+      assertTrue(next != -1, "Expected the headers of a request");
+      matched = next == end[matched] ? matched + 1 : (next == end[0] ? 1 : 0);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package sequencer.ui.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link TrackCache}, kept in a temporary directory.
+ */
+public class TrackCacheTest {
+
+  private static final byte[] CONTENT = {1, 2, 3};
+  private static final byte[] OTHER_CONTENT = {4, 5};
+  private static final Duration MAX_AGE = Duration.ofDays(1);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("Test if cached tracks are found in memory and on disk, and others are missed")
+  public void testHitAndMiss() {
+    final TrackCache cache = new TrackCache(directory, 4, 4, MAX_AGE);
+    assertTrue(cache.get(1).isEmpty());
+
+    cache.put(1, CONTENT, "\"etag\"");
+    final TrackCache.Entry entry = cache.get(1).orElseThrow();
+    assertArrayEquals(CONTENT, entry.content());
+    assertEquals("\"etag\"", entry.etag());
+    assertTrue(cache.isFresh(entry));
+    assertTrue(cache.get(2).isEmpty());
+
+    // A new cache only has the directory, as when the app is restarted
+    final TrackCache restarted = new TrackCache(directory, 4, 4, MAX_AGE);
+    final TrackCache.Entry read = restarted.get(1).orElseThrow();
+    assertArrayEquals(CONTENT, read.content());
+    assertEquals("\"etag\"", read.etag());
+    assertEquals(entry.validatedAt(), read.validatedAt());
+  }
+
+  @Test
+  @DisplayName("Test if entries go stale after the maximum age until validated, and are cleared")
+  public void testInvalidation() throws InterruptedException {
+    final TrackCache cache = new TrackCache(directory, 4, 4, Duration.ofMillis(50));
+    cache.put(1, CONTENT, null);
+    assertTrue(cache.isFresh(cache.get(1).orElseThrow()));
+
+    Thread.sleep(100);
+    final TrackCache.Entry stale = cache.get(1).orElseThrow();
+    assertFalse(cache.isFresh(stale));
+    cache.markValidated(1);
+    final TrackCache.Entry validated = cache.get(1).orElseThrow();
+    assertTrue(cache.isFresh(validated));
+    assertArrayEquals(CONTENT, validated.content());
+
+    // Replacing the content of a track
+    cache.put(1, OTHER_CONTENT, null);
+    assertArrayEquals(OTHER_CONTENT, cache.get(1).orElseThrow().content());
+
+    cache.clear();
+    assertTrue(cache.get(1).isEmpty());
+    assertTrue(new TrackCache(directory, 4, 4, MAX_AGE).get(1).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test if the least recently used tracks are evicted from memory and disk")
+  public void testEviction() throws IOException {
+    // Only kept in memory
+    final TrackCache memory = new TrackCache(directory, 2, 0, MAX_AGE);
+    memory.put(1, CONTENT, null);
+    memory.put(2, CONTENT, null);
+    memory.get(1);
+    memory.put(3, CONTENT, null);
+    assertTrue(memory.get(1).isPresent());
+    assertTrue(memory.get(2).isEmpty());
+    assertTrue(memory.get(3).isPresent());
+
+    // Only kept on disk, where the least recently used file is the least recently modified
+    final TrackCache disk = new TrackCache(directory, 0, 2, MAX_AGE);
+    disk.put(1, CONTENT, null);
+    disk.put(2, CONTENT, null);
+    final long now = System.currentTimeMillis();
+    Files.setLastModifiedTime(directory.resolve("1.track"), FileTime.fromMillis(now - 1000));
+    Files.setLastModifiedTime(directory.resolve("2.track"), FileTime.fromMillis(now - 2000));
+    disk.put(3, CONTENT, null);
+    assertTrue(disk.get(1).isPresent());
+    assertTrue(disk.get(2).isEmpty());
+    assertTrue(disk.get(3).isPresent());
+  }
+
+  @Test
+  @DisplayName("Test if negative limits are rejected")
+  public void testInvalidLimits() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new TrackCache(directory, -1, 1, MAX_AGE));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TrackCache(directory, 1, -1, MAX_AGE));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TrackCache(directory, 1, 1, Duration.ofMillis(-1)));
+  }
+}
@@ -0,0 +1,253 @@
+package sequencer.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code BlobStore} class stores the contents of files by their SHA-256 hash, so that files
+ * with identical contents share the same data on disk.
+ *
+ * <p>
+ * Each blob is stored once in a hidden directory, and every file with the same contents is a hard
+ * link to the blob. The number of links to a blob is used as its reference count, so no separate
+ * bookkeeping has to be kept consistent with the files. This requires a file system with hard links
+ * and unix attributes, see {@link #isSupported(Path)}.
+ * </p>
+ */
+class BlobStore {
+
+  static final String DIRECTORY_NAME = ".blobs";
+  private static final String TEMP_PREFIX = "tmp-";
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private final Path directory;
+  // A lock rather than synchronized methods, as files are read and linked while it is
+  // held, which would pin the carrier of a virtual thread
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * Creates a blob store for files in the given directory. Nothing is created on disk before the
+   * first file is written.
+   *
+   * @param saveDirectory the directory of the files using the store
+   */
+  BlobStore(Path saveDirectory) {
+    directory = saveDirectory.resolve(DIRECTORY_NAME);
+  }
+
+  /**
+   * Returns true if the file system of the given path supports the hard links and link counts
+   * required by the store.
+   */
+  static boolean isSupported(Path path) {
+    return path.getFileSystem().supportedFileAttributeViews().contains("unix");
+  }
+
+  /**
+   * Returns true if any file has been written to the store.
+   */
+  boolean exists() {
+    return Files.isDirectory(directory);
+  }
+
+  /**
+   * Returns the directory of the blobs.
+   */
+  Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Opens a stream which writes to a new blob. When the stream is closed the target file is
+   * replaced with a link to the blob, or to an existing blob with the same contents.
+   *
+   * @param target the file which should have the written contents
+   * @throws IOException if the blob cannot be created
+   */
+  OutputStream openForWriting(Path target) throws IOException {
+    Files.createDirectories(directory);
+    final Path temp = Files.createTempFile(directory, TEMP_PREFIX, null);
+    return new BlobOutputStream(temp, target);
+  }
+
+  /**
+   * Deletes the file, and the blob it linked to if no other file links to it.
+   *
+   * @param file the file to delete
+   * @throws IOException if the file or blob cannot be deleted
+   */
+  void release(Path file) throws IOException {
+    lock.lock();
+    try {
+      final Path blob = getBlob(file);
+      Files.deleteIfExists(file);
+      deleteIfUnreferenced(blob);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of files linking to the blob with the contents of the given file, or 0 if
+   * the file is not stored as a blob.
+   *
+   * @param file a file which may link to a blob
+   * @throws IOException if the file cannot be read
+   */
+  int getReferenceCount(Path file) throws IOException {
+    lock.lock();
+    try {
+      final Path blob = getBlob(file);
+      return blob == null ? 0 : getReferenceCountOfBlob(blob);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Deletes all blobs which no file links to, e.g. after files were deleted directly.
+   *
+   * @return the number of deleted blobs
+   * @throws IOException if the blobs cannot be listed or deleted
+   */
+  int collectGarbage() throws IOException {
+    lock.lock();
+    try {
+      if (!exists()) {
+        return 0;
+      }
+      int deleted = 0;
+      try (DirectoryStream<Path> blobs = Files.newDirectoryStream(directory)) {
+        for (Path blob : blobs) {
+          // Temporary files may belong to writes in progress
+          if (!blob.getFileName().toString().startsWith(TEMP_PREFIX)
+              && deleteIfUnreferenced(blob)) {
+            deleted++;
+          }
+        }
+      }
+      return deleted;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Helpers
+
+  /**
+   * Returns the blob which the file links to, or null if it does not link to a blob.
+   */
+  private Path getBlob(Path file) throws IOException {
+    if (!exists() || !Files.isRegularFile(file)) {
+      return null;
+    }
+    final MessageDigest digest = createDigest();
+    try (InputStream input = Files.newInputStream(file)) {
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    final Path blob = directory.resolve(toHex(digest.digest()));
+    return Files.exists(blob) && Files.isSameFile(blob, file) ? blob : null;
+  }
+
+  private static int getReferenceCountOfBlob(Path blob) throws IOException {
+    // The blob itself is one of the links
+    return ((Number) Files.getAttribute(blob, "unix:nlink")).intValue() - 1;
+  }
+
+  private static boolean deleteIfUnreferenced(Path blob) throws IOException {
+    if (blob != null && getReferenceCountOfBlob(blob) == 0) {
+      Files.delete(blob);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves the written temporary file into the store, unless a blob with the same hash exists, and
+   * replaces the target with a link to the blob.
+   */
+  private void store(Path temp, String hash, Path target) throws IOException {
+    lock.lock();
+    try {
+      final Path previousBlob = getBlob(target);
+
+      final Path blob = directory.resolve(hash);
+      if (Files.exists(blob)) {
+        Files.delete(temp);
+      } else {
+        Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+      }
+
+      // Link next to the blob first, so the target is replaced in a single step
+      final Path link = directory.resolve(TEMP_PREFIX + hash + ".link");
+      Files.deleteIfExists(link);
+      Files.createLink(link, blob);
+      Files.move(link, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+
+      if (previousBlob != null && !previousBlob.equals(blob)) {
+        deleteIfUnreferenced(previousBlob);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Hashes the contents while writing them to a temporary file, which is stored when closed.
+   */
+  private class BlobOutputStream extends DigestOutputStream {
+
+    private final Path temp;
+    private final Path target;
+    private boolean closed = false;
+
+    BlobOutputStream(Path temp, Path target) throws IOException {
+      super(new BufferedOutputStream(Files.newOutputStream(temp)), createDigest());
+      this.temp = temp;
+      this.target = target;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      super.close();
+      store(temp, toHex(getMessageDigest().digest()), target);
+    }
+  }
+}
@@ -1,14 +1,22 @@
 package sequencer.persistence;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -16,17 +24,43 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * The {@code PersistenceHandler} class is tailored to save and load local files from a given
  * directory.
+ *
+ * <p>
+ * Files can optionally be compressed with gzip when written. Compressed files are recognized when
+ * read regardless of this setting, so enabling or disabling compression does not affect existing
+ * files.
+ * </p>
+ *
+ * <p>
+ * Files can also be deduplicated, in which case files with identical contents share the same data
+ * on disk through a {@link BlobStore}.
+ * </p>
+ *
+ * <p>
+ * The number of files written at the same time can be bounded, so that a large number of threads
+ * saving files do not all compete for the disk at once. Threads beyond the bound wait for a write
+ * to finish. Reads are never bounded.
+ * </p>
  */
 public class PersistenceHandler {
 
   private Path saveDirectoryPath;
   private String acceptedFiletype;
   private FilenameFilter filenameFilter;
+  private boolean compressed = false;
+  private boolean deduplicated = false;
+  private BlobStore blobStore;
+  private int maxConcurrentWrites = 0;
+  private Semaphore writePermits;
 
   /**
    * Initialize the class with a name of the directory which will store the files, and the filetype
@@ -54,13 +88,69 @@ public class PersistenceHandler {
     return acceptedFiletype;
   }
 
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  public boolean isDeduplicated() {
+    return deduplicated;
+  }
+
+  public int getMaxConcurrentWrites() {
+    return maxConcurrentWrites;
+  }
+
   // Setters
 
+  /**
+   * Change whether new files are compressed with gzip. Files are read correctly with either
+   * setting.
+   *
+   * @param compressed true if files should be compressed when written
+   */
+  public void setCompressed(boolean compressed) {
+    this.compressed = compressed;
+  }
+
+  /**
+   * Change whether new files with identical contents should share their data on disk. Existing
+   * files are not changed, and are read correctly with either setting.
+   *
+   * @param deduplicated true if new files should be deduplicated
+   * @throws IllegalStateException if deduplicated is true and the file system of the save
+   *         directory does not support hard links with link counts, which are used as reference
+   *         counts
+   */
+  public void setDeduplicated(boolean deduplicated) {
+    if (deduplicated) {
+      checkDeduplicationSupported(saveDirectoryPath);
+    }
+    this.deduplicated = deduplicated;
+  }
+
+  /**
+   * Change how many files may be written at the same time. Writes which have already started are
+   * not affected.
+   *
+   * @param maxConcurrentWrites the maximum number of concurrent writes, or 0 for no bound
+   * @throws IllegalArgumentException if maxConcurrentWrites is negative
+   */
+  public void setMaxConcurrentWrites(int maxConcurrentWrites) {
+    if (maxConcurrentWrites < 0) {
+      throw new IllegalArgumentException(
+          "maxConcurrentWrites cannot be negative: " + maxConcurrentWrites);
+    }
+    this.maxConcurrentWrites = maxConcurrentWrites;
+    this.writePermits = maxConcurrentWrites == 0 ? null : new Semaphore(maxConcurrentWrites, true);
+  }
+
   /**
    * Change the name of the save directory.
    *
    * @param saveDirectory the relative path from $HOME which will used to store the files
    * @throws IllegalArgumentException if saveDirectory is empty or blank
+   * @throws IllegalStateException if files are deduplicated, and the file system of the new
+   *         directory does not support it, see {@link #setDeduplicated(boolean)}
    * @throws InvalidPathException if path is invalid given by {@code Path.of()}
    */
   public void setSaveDirectory(String saveDirectory) throws InvalidPathException {
@@ -68,7 +158,12 @@ public class PersistenceHandler {
       throw new IllegalArgumentException("saveDirectory cannot be null or blank");
     }
 
-    this.saveDirectoryPath = Paths.get(System.getProperty("user.home"), saveDirectory);
+    final Path newSaveDirectoryPath = Paths.get(System.getProperty("user.home"), saveDirectory);
+    if (deduplicated) {
+      checkDeduplicationSupported(newSaveDirectoryPath);
+    }
+    this.saveDirectoryPath = newSaveDirectoryPath;
+    this.blobStore = new BlobStore(saveDirectoryPath);
   }
 
   /**
@@ -108,11 +203,28 @@ public class PersistenceHandler {
    * @throws IOException from the writer, which should be handled by the object using this method
    */
   public void writeToFile(String filename, Consumer<Writer> consumer) throws IOException {
-    try (Writer writer = getWriterToFile(filename)) {
+    try (WritePermit permit = acquireWritePermit(); Writer writer = getWriterToFile(filename)) {
       consumer.accept(writer);
     }
   }
 
+  /**
+   * Writes bytes to file with the given consumer. Used for binary formats.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @param consumer the {@code consumer} which can write the given file
+   * @throws IOException from the output stream, which should be handled by the object using this
+   *         method
+   */
+  public void writeBytesToFile(String filename, Consumer<OutputStream> consumer)
+      throws IOException {
+    try (WritePermit permit = acquireWritePermit();
+        OutputStream output = getOutputStreamToFile(filename)) {
+      consumer.accept(output);
+    }
+  }
+
   /**
    * Gets the writer which will write to a file with the given filename.
    *
@@ -123,18 +235,41 @@ public class PersistenceHandler {
    * @throws IOException from the writer, which should be handled by the object using this method
    */
   protected Writer getWriterToFile(String filename) throws IOException {
+    return new OutputStreamWriter(getOutputStreamToFile(filename), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets the output stream which will write to a file with the given filename.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @throws IllegalArgumentException if filename is null, blank or only contains filetype
+   * @throws IOException if the creation of neccesary directories does not succeed
+   * @throws IOException from the output stream, which should be handled by the object using this
+   *         method
+   */
+  protected OutputStream getOutputStreamToFile(String filename) throws IOException {
 
     validateFilename(filename);
 
-    // Attempt to create dircetory if it does not exist
-    if (!getSaveDirectoryPath().toFile().exists() && !getSaveDirectoryPath().toFile().mkdirs()) {
+    // Attempt to create dircetory if it does not exist. Another thread may create it concurrently
+    if (!getSaveDirectoryPath().toFile().exists() && !getSaveDirectoryPath().toFile().mkdirs()
+        && !getSaveDirectoryPath().toFile().isDirectory()) {
       throw new IOException("Program was unable to create folders to the given path.");
     }
 
-    return new FileWriter(
-        Paths.get(saveDirectoryPath.toString(), "%s.%s".formatted(filename, getAcceptedFiletype()))
-            .toFile(),
-        StandardCharsets.UTF_8);
+    final Path path = getFilePath(filename);
+    final OutputStream output;
+    if (deduplicated) {
+      output = blobStore.openForWriting(path);
+    } else {
+      if (blobStore.exists()) {
+        // The file may share its data with other files, which must not be overwritten
+        blobStore.release(path);
+      }
+      output = new BufferedOutputStream(new FileOutputStream(path.toFile()));
+    }
+    return compressed ? new GZIPOutputStream(output) : output;
   }
 
 
@@ -170,6 +305,41 @@ public class PersistenceHandler {
     throw new FileNotFoundException("No file found with the id " + id);
   }
 
+  /**
+   * Read bytes of the file with the given consumer. Used for binary formats.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @param consumer the {@code consumer} which can read contents the given file
+   * @throws IOException from the input stream, which should be handled by the object using this
+   *         method
+   */
+  public void readBytesFromFile(String filename, Consumer<InputStream> consumer)
+      throws IOException {
+    try (InputStream input = getInputStreamFromFile(filename)) {
+      consumer.accept(input);
+    }
+  }
+
+  /**
+   * Read bytes of the file corresponding to a track with the given ID. Used for binary formats.
+   *
+   * @param id the ID of the track to read
+   * @param consumer the {@code consumer} which has an input stream with contents of the given file
+   * @throws FileNotFoundException if no file is found with the given ID
+   * @throws IOException from the input stream, which should be handled by the object using this
+   *         method
+   */
+  public void readBytesFromFileWithId(int id, Consumer<InputStream> consumer) throws IOException {
+    for (String filename : listFilenames()) {
+      if (FilenameHandler.hasId(filename, id)) {
+        readBytesFromFile(filename, consumer);
+        return;
+      }
+    }
+    throw new FileNotFoundException("No file found with the id " + id);
+  }
+
   /**
    * Gets the reader which can be used to read contents of the file.
    *
@@ -181,6 +351,21 @@ public class PersistenceHandler {
    * @throws IOException from the reader, which should be handled by the object using this method
    */
   protected Reader getReaderFromFile(String filename) throws IOException {
+    return new InputStreamReader(getInputStreamFromFile(filename), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets the input stream which can be used to read bytes of the file.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @throws IllegalArgumentException if filename is null, invalid format or no file exist with its
+   *         name
+   * @throws FileNotFoundException if no file exists with it the give filename
+   * @throws IOException from the input stream, which should be handled by the object using this
+   *         method
+   */
+  protected InputStream getInputStreamFromFile(String filename) throws IOException {
 
     validateFilename(filename);
 
@@ -189,10 +374,23 @@ public class PersistenceHandler {
           .formatted(filename, listFilenames()));
     }
 
-    return new FileReader(
-        Paths.get(saveDirectoryPath.toString(), "%s.%s".formatted(filename, getAcceptedFiletype()))
-            .toFile(),
-        StandardCharsets.UTF_8);
+    return decompressIfNeeded(
+        new BufferedInputStream(new FileInputStream(getFilePath(filename).toFile())));
+  }
+
+  /**
+   * Returns the path of the file with the given filename, e.g. for reading or writing it with
+   * asynchronous channels. Files read this way may be compressed with gzip, and files written this
+   * way are neither compressed nor deduplicated.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @throws IllegalArgumentException if filename is null, blank or a path
+   */
+  public Path getFilePath(String filename) {
+    validateFilename(filename);
+    return Paths.get(saveDirectoryPath.toString(),
+        "%s.%s".formatted(filename, getAcceptedFiletype()));
   }
 
   /**
@@ -254,8 +452,135 @@ public class PersistenceHandler {
     return listFilenames().contains(filename);
   }
 
+  /**
+   * Deletes the file with the given filename. If the file was deduplicated, its shared data is
+   * deleted as well when no other file refers to it.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @throws IllegalArgumentException if filename is null, blank or only contains filetype
+   * @throws FileNotFoundException if no file exists with the given filename
+   * @throws IOException if the file cannot be deleted
+   */
+  public void deleteFile(String filename) throws IOException {
+
+    validateFilename(filename);
+
+    final Path path = getFilePath(filename);
+    if (!Files.isRegularFile(path)) {
+      throw new FileNotFoundException("No file found with the name " + filename);
+    }
+    if (blobStore.exists()) {
+      blobStore.release(path);
+    } else {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Returns the filenames of all other files sharing their data with the given file, i.e. files
+   * with identical contents written while deduplication was enabled.
+   *
+   * @param filename the {@code filename}, not including the {@code filetype}, which is set with
+   *        {@code setAcceptedFiletype()}
+   * @throws IllegalArgumentException if filename is null, blank or only contains filetype
+   * @throws FileNotFoundException if no file exists with the given filename
+   * @throws IOException if the files cannot be compared
+   */
+  public Collection<String> listDuplicates(String filename) throws IOException {
+
+    validateFilename(filename);
+
+    final Path path = getFilePath(filename);
+    if (!Files.isRegularFile(path)) {
+      throw new FileNotFoundException("No file found with the name " + filename);
+    }
+    if (blobStore.getReferenceCount(path) <= 1) {
+      return new ArrayList<>();
+    }
+
+    final List<String> duplicates = new ArrayList<>();
+    for (String other : listFilenames()) {
+      if (!other.equals(filename) && Files.isSameFile(path, getFilePath(other))) {
+        duplicates.add(other);
+      }
+    }
+    return duplicates;
+  }
+
+  /**
+   * Deletes shared data which no file refers to anymore, e.g. after files in the save directory
+   * were deleted by someone other than this handler.
+   *
+   * @return the number of deleted blobs of shared data
+   * @throws IOException if the shared data cannot be listed or deleted
+   */
+  public int collectGarbage() throws IOException {
+    return blobStore.collectGarbage();
+  }
+
+  /**
+   * Waits until a file may be written, bounded by {@link #setMaxConcurrentWrites(int)}. Used by
+   * writers which do not write through this handler, such as asynchronous file channels, which
+   * must close the permit when the file is written.
+   *
+   * @return the permit, which is released when closed
+   * @throws InterruptedIOException if interrupted while waiting
+   */
+  public WritePermit acquireWritePermit() throws IOException {
+    // The permits may be replaced while waiting, so the same permits must be released
+    final Semaphore permits = writePermits;
+    if (permits != null) {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting to write a file");
+      }
+    }
+    return new WritePermit(permits);
+  }
+
+  /**
+   * A permit to write a file, see {@link #acquireWritePermit()}. Closing the permit more than once
+   * releases it only once.
+   */
+  public static final class WritePermit implements AutoCloseable {
+
+    // Null if writes were not bounded when the permit was acquired
+    private final Semaphore permits;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private WritePermit(Semaphore permits) {
+      this.permits = permits;
+    }
+
+    @Override
+    public void close() {
+      if (permits != null && released.compareAndSet(false, true)) {
+        permits.release();
+      }
+    }
+  }
+
   // Helpers
 
+  /**
+   * Returns a stream with the decompressed contents if the input starts with the gzip header, or
+   * the input itself otherwise.
+   */
+  private static InputStream decompressIfNeeded(BufferedInputStream input) throws IOException {
+    input.mark(2);
+    final int first = input.read();
+    final int second = input.read();
+    input.reset();
+    if (first == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+        && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+      return new GZIPInputStream(input);
+    }
+    return input;
+  }
+
   /**
    * Throws relevant exceptions if the filename is in an invalid format.
    *
@@ -271,4 +596,17 @@ public class PersistenceHandler {
       throw new IllegalArgumentException("filename should not be a path: " + filename);
     }
   }
+
+  /**
+   * Checks that files in the directory can be deduplicated.
+   *
+   * @throws IllegalStateException if the file system of the directory does not support hard links
+   *         with link counts
+   */
+  private static void checkDeduplicationSupported(Path directory) {
+    if (!BlobStore.isSupported(directory)) {
+      throw new IllegalStateException(("Files cannot be deduplicated in %s, as its file system "
+          + "does not support hard links with link counts").formatted(directory));
+    }
+  }
 }
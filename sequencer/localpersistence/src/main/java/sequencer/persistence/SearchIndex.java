@@ -0,0 +1,280 @@
+package sequencer.persistence;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code SearchIndex} class keeps an in-memory index of {@link FileMetaData}, allowing
+ * typo-tolerant search on titles and authors without listing and filtering every saved file.
+ *
+ * <p>
+ * Titles and authors are split into lowercase words, which are stored in a prefix trie. A word in
+ * a query matches a word in the index either exactly, as a prefix, or fuzzily within a bounded
+ * edit distance (see {@link #maxEditsFor(String)}). The fuzzy lookup walks the trie while keeping
+ * one row of the Levenshtein matrix per visited node, so branches which can no longer match are
+ * pruned instead of being compared one by one.
+ * </p>
+ */
+public class SearchIndex {
+
+  // Scores given to a query word depending on how well it matched a word in the index
+  static final int EXACT_SCORE = 3;
+  static final int PREFIX_SCORE = 2;
+  static final int FUZZY_SCORE = 1;
+
+  private final Map<Integer, FileMetaData> files = new HashMap<>();
+  private final TrieNode titleRoot = new TrieNode();
+  private final TrieNode authorRoot = new TrieNode();
+
+  /**
+   * A node in the prefix trie. {@code ids} are the files with a word ending in this node, while
+   * {@code prefixIds} are the files with a word passing through it.
+   */
+  private static class TrieNode {
+    private final Map<Character, TrieNode> children = new HashMap<>();
+    private final Set<Integer> ids = new HashSet<>();
+    private final Set<Integer> prefixIds = new HashSet<>();
+  }
+
+  /**
+   * Adds the metadata of a file to the index, replacing any previously added file with its id.
+   *
+   * @param metaData the metadata to add
+   * @throws IllegalArgumentException if metaData is {@code null}
+   */
+  public synchronized void add(FileMetaData metaData) {
+    if (metaData == null) {
+      throw new IllegalArgumentException("metaData cannot be null");
+    }
+    final FileMetaData previous = files.put(metaData.id(), metaData);
+    if (previous != null) {
+      removeWords(titleRoot, previous.title(), previous.id());
+      removeWords(authorRoot, previous.author(), previous.id());
+    }
+    addWords(titleRoot, metaData.title(), metaData.id());
+    addWords(authorRoot, metaData.author(), metaData.id());
+  }
+
+  /**
+   * Adds the metadata of several files to the index.
+   *
+   * @param metaData the metadata to add
+   */
+  public synchronized void addAll(Collection<FileMetaData> metaData) {
+    metaData.forEach(this::add);
+  }
+
+  /**
+   * Removes all files from the index.
+   */
+  public synchronized void clear() {
+    files.clear();
+    titleRoot.children.clear();
+    authorRoot.children.clear();
+  }
+
+  /**
+   * Returns the number of files in the index.
+   */
+  public synchronized int size() {
+    return files.size();
+  }
+
+  /**
+   * Returns a {@link List} of files matching every word of the given title and author, ranked by
+   * how well they matched. Files with equal scores are sorted by FileMetaData's properties.
+   *
+   * @param title the words to search titles with. {@code null} or blank matches all titles
+   * @param author the words to search authors with. {@code null} or blank matches all authors
+   * @param timestamp the date to filter timestamp with (by day), or {@code null}
+   * @return a {@link List} with {@link FileMetaData}-objects, best match first
+   */
+  public synchronized List<FileMetaData> search(String title, String author, Long timestamp) {
+    final Map<Integer, Integer> titleScores = score(titleRoot, title);
+    final Map<Integer, Integer> authorScores = score(authorRoot, author);
+
+    // Only consider files matched in the trie, unless the query is empty
+    final Collection<Integer> candidates;
+    if (titleScores == null && authorScores == null) {
+      candidates = files.keySet();
+    } else if (titleScores == null || authorScores == null) {
+      candidates = titleScores != null ? titleScores.keySet() : authorScores.keySet();
+    } else {
+      candidates = titleScores.keySet().stream().filter(authorScores::containsKey).toList();
+    }
+
+    return candidates.stream().map(files::get)
+        .filter(metaData -> {
+          return timestamp == null || metaData.getDay().equals(FileMetaData.getDay(timestamp));
+        })
+        .sorted(Comparator
+            .<FileMetaData>comparingInt(metaData -> -(scoreOf(titleScores, metaData.id())
+                + scoreOf(authorScores, metaData.id())))
+            .thenComparing(Comparator.naturalOrder()))
+        .toList();
+  }
+
+  /**
+   * Returns the maximum number of edits allowed for a query word to fuzzily match a word, which
+   * grows with the length of the word so short words are not matched by almost anything.
+   */
+  static int maxEditsFor(String word) {
+    if (word.length() <= 2) {
+      return 0;
+    }
+    return word.length() <= 5 ? 1 : 2;
+  }
+
+  /**
+   * Returns the Levenshtein distance between two words.
+   */
+  static int editDistance(String a, String b) {
+    int[] row = initialRow(a);
+    for (char c : b.toCharArray()) {
+      row = nextRow(row, a, c);
+    }
+    return row[a.length()];
+  }
+
+  // Helpers
+
+  private static String[] words(String text) {
+    if (text == null || text.isBlank()) {
+      return new String[0];
+    }
+    return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+        .filter(word -> !word.isEmpty()).toArray(String[]::new);
+  }
+
+  private static int scoreOf(Map<Integer, Integer> scores, int id) {
+    return scores == null ? 0 : scores.getOrDefault(id, 0);
+  }
+
+  private void addWords(TrieNode root, String text, int id) {
+    for (String word : words(text)) {
+      TrieNode node = root;
+      for (char c : word.toCharArray()) {
+        node = node.children.computeIfAbsent(c, k -> new TrieNode());
+        node.prefixIds.add(id);
+      }
+      node.ids.add(id);
+    }
+  }
+
+  private void removeWords(TrieNode root, String text, int id) {
+    for (String word : words(text)) {
+      TrieNode node = root;
+      for (char c : word.toCharArray()) {
+        final TrieNode child = node.children.get(c);
+        if (child == null) {
+          break;
+        }
+        child.prefixIds.remove(id);
+        if (child.prefixIds.isEmpty()) {
+          // No other word passes through the branch, so it can be dropped entirely
+          node.children.remove(c);
+          break;
+        }
+        node = child;
+      }
+      node.ids.remove(id);
+    }
+  }
+
+  /**
+   * Scores every file matching all words of the query.
+   *
+   * @return a {@link Map} from id to score, or {@code null} if the query has no words (matching
+   *         every file)
+   */
+  private Map<Integer, Integer> score(TrieNode root, String query) {
+    final String[] queryWords = words(query);
+    if (queryWords.length == 0) {
+      return null;
+    }
+
+    Map<Integer, Integer> scores = null;
+    for (String queryWord : queryWords) {
+      final Map<Integer, Integer> wordScores = scoreWord(root, queryWord);
+
+      // Every word of the query has to match
+      if (scores == null) {
+        scores = wordScores;
+      } else {
+        final Map<Integer, Integer> previousScores = scores;
+        scores = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : wordScores.entrySet()) {
+          if (previousScores.containsKey(entry.getKey())) {
+            scores.put(entry.getKey(), previousScores.get(entry.getKey()) + entry.getValue());
+          }
+        }
+      }
+    }
+    return scores;
+  }
+
+  private Map<Integer, Integer> scoreWord(TrieNode root, String queryWord) {
+    final Map<Integer, Integer> scores = new HashMap<>();
+
+    // Fuzzy matches first, so they are overwritten by better matches
+    final int maxEdits = maxEditsFor(queryWord);
+    if (maxEdits > 0) {
+      final int[] row = initialRow(queryWord);
+      for (Map.Entry<Character, TrieNode> child : root.children.entrySet()) {
+        collectFuzzy(child.getValue(), child.getKey(), queryWord, row, maxEdits, scores);
+      }
+    }
+
+    // Walk down to the node of the query word
+    TrieNode node = root;
+    for (char c : queryWord.toCharArray()) {
+      node = node.children.get(c);
+      if (node == null) {
+        return scores;
+      }
+    }
+    node.prefixIds.forEach(id -> scores.merge(id, PREFIX_SCORE, Math::max));
+    node.ids.forEach(id -> scores.merge(id, EXACT_SCORE, Math::max));
+    return scores;
+  }
+
+  private void collectFuzzy(TrieNode node, char c, String queryWord, int[] previousRow,
+      int maxEdits, Map<Integer, Integer> scores) {
+    final int[] row = nextRow(previousRow, queryWord, c);
+
+    if (row[queryWord.length()] <= maxEdits) {
+      node.ids.forEach(id -> scores.put(id, FUZZY_SCORE));
+    }
+
+    // Prune the branch if no continuation can be within the allowed distance
+    if (Arrays.stream(row).min().getAsInt() <= maxEdits) {
+      for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+        collectFuzzy(child.getValue(), child.getKey(), queryWord, row, maxEdits, scores);
+      }
+    }
+  }
+
+  private static int[] initialRow(String word) {
+    final int[] row = new int[word.length() + 1];
+    for (int i = 0; i < row.length; i++) {
+      row[i] = i;
+    }
+    return row;
+  }
+
+  private static int[] nextRow(int[] previousRow, String word, char c) {
+    final int[] row = new int[previousRow.length];
+    row[0] = previousRow[0] + 1;
+    for (int i = 1; i < row.length; i++) {
+      final int substitution = previousRow[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+      row[i] = Math.min(substitution, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+    }
+    return row;
+  }
+}
@@ -0,0 +1,118 @@
+package sequencer.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests consist of writing files with identical and different contents through the blob store,
+ * making sure contents are shared and blobs are deleted when no file refers to them.
+ */
+public class BlobStoreTest {
+
+  private static final Path directory =
+      Path.of(System.getProperty("user.home"), "test-blobstore-test");
+
+  private BlobStore blobStore;
+
+  @BeforeEach
+  public void createBlobStore() throws IOException {
+    assumeTrue(BlobStore.isSupported(directory.getParent()),
+        "File system does not support hard links");
+    Files.createDirectories(directory);
+    blobStore = new BlobStore(directory);
+  }
+
+  /**
+   * Test directory should be removed after each test.
+   */
+  @AfterEach
+  public void clearTestDirectory() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private Path write(String filename, String content) throws IOException {
+    final Path file = directory.resolve(filename);
+    try (OutputStream output = blobStore.openForWriting(file)) {
+      output.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return file;
+  }
+
+  private long countBlobs() throws IOException {
+    try (Stream<Path> blobs = Files.list(blobStore.getDirectory())) {
+      return blobs.count();
+    }
+  }
+
+  @Test
+  @DisplayName("Test if files with identical contents share one blob")
+  public void testIdenticalContents() throws IOException {
+    assertFalse(blobStore.exists());
+
+    final Path first = write("first", "content");
+    final Path second = write("second", "content");
+    final Path other = write("other", "other content");
+
+    assertTrue(blobStore.exists());
+    assertEquals("content", Files.readString(first));
+    assertEquals("content", Files.readString(second));
+    assertTrue(Files.isSameFile(first, second));
+    assertFalse(Files.isSameFile(first, other));
+    assertEquals(2, blobStore.getReferenceCount(first));
+    assertEquals(1, blobStore.getReferenceCount(other));
+    assertEquals(2, countBlobs());
+  }
+
+  @Test
+  @DisplayName("Test if blobs are deleted when the last file referring to them is released")
+  public void testRelease() throws IOException {
+    final Path first = write("first", "content");
+    final Path second = write("second", "content");
+
+    blobStore.release(first);
+    assertFalse(Files.exists(first));
+    assertEquals(1, blobStore.getReferenceCount(second));
+    assertEquals(1, countBlobs());
+
+    // Overwriting the last reference with other contents releases the old blob
+    write("second", "new content");
+    assertEquals("new content", Files.readString(second));
+    assertEquals(1, countBlobs());
+
+    blobStore.release(second);
+    assertEquals(0, countBlobs());
+  }
+
+  @Test
+  @DisplayName("Test if unreferenced blobs are deleted when collecting garbage")
+  public void testCollectGarbage() throws IOException {
+    final Path first = write("first", "content");
+    write("second", "content");
+    final Path other = write("other", "other content");
+
+    // Files deleted directly do not release their blobs
+    Files.delete(first);
+    Files.delete(other);
+    assertEquals(2, countBlobs());
+
+    assertEquals(1, blobStore.collectGarbage());
+    assertEquals(1, countBlobs());
+    assertEquals(0, blobStore.collectGarbage());
+  }
+}
@@ -1,20 +1,32 @@
 package sequencer.persistence;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.DisplayName;
@@ -158,6 +170,278 @@ public class PersistenceHandlerTest {
   }
 
 
+  @Test
+  @DisplayName("Test if bytes are saved/loaded without being changed by any character encoding")
+  public void testBytesToAndFromFile() throws IOException {
+
+    // SETUP
+
+    final String filetype = ".seqb";
+    final PersistenceHandler ph = new PersistenceHandler(testDirectory, filetype);
+    final byte[] content = new byte[256];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+
+    // TEST
+
+    ph.writeBytesToFile(filename, output -> {
+      try {
+        output.write(content);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    final byte[][] loadedContent = new byte[1][];
+    ph.readBytesFromFile(filename, input -> {
+      try {
+        loadedContent[0] = input.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    assertArrayEquals(content, loadedContent[0]);
+
+    // TEARDOWN
+
+    Path.of(ph.getSaveDirectoryPath().toString(), filename + filetype).toFile().delete();
+    ph.getSaveDirectoryPath().toFile().delete();
+  }
+
+  @Test
+  @DisplayName("Test if compressed files are written as gzip and read regardless of the setting")
+  public void testCompression() throws IOException {
+
+    // SETUP
+
+    final String filetype = ".json";
+    final String content = "{\"instruments\":{}}".repeat(20);
+    final PersistenceHandler ph = new PersistenceHandler(testDirectory, filetype);
+    final File file =
+        Path.of(ph.getSaveDirectoryPath().toString(), filename + filetype).toFile();
+
+    // TEST
+
+    assertFalse(ph.isCompressed());
+    ph.setCompressed(true);
+    ph.writeToFile(filename, writer -> {
+      try {
+        writer.write(content);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    final byte[] stored = Files.readAllBytes(file.toPath());
+    assertEquals(0x1f, stored[0] & 0xFF, "Expected file to start with the gzip header");
+    assertEquals(0x8b, stored[1] & 0xFF, "Expected file to start with the gzip header");
+    assertTrue(stored.length < content.length(), "Expected file to be smaller than its content");
+
+    // Compressed files are still read when compression is disabled, and vice versa
+    for (boolean compressed : new boolean[] {false, true}) {
+      ph.setCompressed(compressed);
+      assertEquals(content, readContent(ph));
+    }
+    ph.setCompressed(false);
+    ph.writeToFile(filename, writer -> {
+      try {
+        writer.write(content);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    ph.setCompressed(true);
+    assertEquals(content, readContent(ph));
+
+    // TEARDOWN
+
+    file.delete();
+    ph.getSaveDirectoryPath().toFile().delete();
+  }
+
+  @Test
+  @DisplayName("Test if no more files than the bound are written at the same time")
+  public void testMaxConcurrentWrites() throws Exception {
+
+    // SETUP
+
+    final String filetype = ".json";
+    final int threads = 8;
+    final PersistenceHandler ph = new PersistenceHandler(testDirectory, filetype);
+    final AtomicInteger writing = new AtomicInteger();
+    final AtomicInteger maxWriting = new AtomicInteger();
+
+    // TEST
+
+    assertEquals(0, ph.getMaxConcurrentWrites());
+    assertThrows(IllegalArgumentException.class, () -> ph.setMaxConcurrentWrites(-1));
+    ph.setMaxConcurrentWrites(2);
+    assertEquals(2, ph.getMaxConcurrentWrites());
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final List<Future<?>> writes = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      final String name = filename + i;
+      writes.add(executor.submit(() -> {
+        ph.writeToFile(name, writer -> {
+          maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+          try {
+            // Give the other threads time to start writing, if they are allowed to
+            Thread.sleep(20);
+            writer.write(name);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            writing.decrementAndGet();
+          }
+        });
+        return null;
+      }));
+    }
+    for (Future<?> write : writes) {
+      write.get();
+    }
+    executor.shutdown();
+
+    assertTrue(maxWriting.get() <= 2, "Expected at most 2 concurrent writes: " + maxWriting);
+    assertEquals(threads, ph.listFilenames().size());
+
+    // TEARDOWN
+
+    for (int i = 0; i < threads; i++) {
+      Path.of(ph.getSaveDirectoryPath().toString(), filename + i + filetype).toFile().delete();
+    }
+    ph.getSaveDirectoryPath().toFile().delete();
+  }
+
+  @Test
+  @DisplayName("Test if a write waits for a permit held elsewhere, which is released only once")
+  public void testWritePermit() throws Exception {
+
+    // SETUP
+
+    final String filetype = ".json";
+    final PersistenceHandler ph = new PersistenceHandler(testDirectory, filetype);
+    ph.setMaxConcurrentWrites(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // TEST
+
+    // Closing a permit twice must not release two permits
+    final PersistenceHandler.WritePermit first = ph.acquireWritePermit();
+    first.close();
+    first.close();
+    final PersistenceHandler.WritePermit second = ph.acquireWritePermit();
+
+    final Future<?> write = executor.submit(() -> {
+      ph.writeToFile(filename, writer -> {
+        try {
+          writer.write(filename);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      return null;
+    });
+    assertThrows(TimeoutException.class, () -> write.get(100, TimeUnit.MILLISECONDS));
+    second.close();
+    write.get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+    assertEquals(1, ph.listFilenames().size());
+
+    // Permits are not bounded without a maximum
+    ph.setMaxConcurrentWrites(0);
+    try (PersistenceHandler.WritePermit permit = ph.acquireWritePermit()) {
+      ph.acquireWritePermit().close();
+    }
+
+    // TEARDOWN
+
+    Path.of(ph.getSaveDirectoryPath().toString(), filename + filetype).toFile().delete();
+    ph.getSaveDirectoryPath().toFile().delete();
+  }
+
+  @Test
+  @DisplayName("Test if deduplicated files share their data and can be listed and deleted")
+  public void testDeduplication() throws IOException {
+
+    // SETUP
+
+    final String filetype = ".json";
+    final PersistenceHandler ph = new PersistenceHandler(testDirectory, filetype);
+    assumeTrue(BlobStore.isSupported(ph.getSaveDirectoryPath()),
+        "File system does not support hard links");
+    ph.setDeduplicated(true);
+    ph.setCompressed(true);
+
+    // TEST
+
+    for (String name : List.of(filename + 0, filename + 1, filename + 2)) {
+      final String content = name.equals(filename + 2) ? "other" : "shared";
+      ph.writeToFile(name, writer -> {
+        try {
+          writer.write(content);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+
+    assertEquals(List.of(filename + 1), ph.listDuplicates(filename + 0));
+    assertEquals(List.of(), ph.listDuplicates(filename + 2));
+
+    // Writing without deduplication must not change the shared data of other files
+    ph.setDeduplicated(false);
+    ph.writeToFile(filename + 1, writer -> {
+      try {
+        writer.write("changed");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    assertEquals(List.of(), ph.listDuplicates(filename + 0));
+    assertEquals("shared", readContent(ph, filename + 0));
+    assertEquals("changed", readContent(ph, filename + 1));
+
+    // TEARDOWN
+
+    for (String name : List.of(filename + 0, filename + 1, filename + 2)) {
+      ph.deleteFile(name);
+    }
+    assertThrows(FileNotFoundException.class, () -> ph.deleteFile(filename));
+    assertEquals(0, ph.collectGarbage());
+
+    final File blobDirectory = new BlobStore(ph.getSaveDirectoryPath()).getDirectory().toFile();
+    assertEquals(0, blobDirectory.list().length, "All shared data should have been deleted");
+    blobDirectory.delete();
+    ph.getSaveDirectoryPath().toFile().delete();
+  }
+
+  /**
+   * Reads the content of the test file as a string.
+   */
+  private static String readContent(PersistenceHandler ph) throws IOException {
+    return readContent(ph, filename);
+  }
+
+  /**
+   * Reads the content of the file with the given filename as a string.
+   */
+  private static String readContent(PersistenceHandler ph, String filename) throws IOException {
+    final StringBuilder loadedContent = new StringBuilder();
+    try (Reader reader = ph.getReaderFromFile(filename)) {
+      int intValue;
+      while ((intValue = reader.read()) != -1) {
+        loadedContent.append((char) intValue);
+      }
+    }
+    return loadedContent.toString();
+  }
+
   @Test
   @DisplayName("""
       Test if listFileNames updates as expected when files of different filetypes are saved""")
@@ -0,0 +1,89 @@
+package sequencer.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests consist of searching an index with exact, prefix and misspelled queries, and making sure
+ * the expected files are returned in the expected order.
+ */
+public class SearchIndexTest {
+
+  private SearchIndex index;
+
+  private static final long day = 24 * 60 * 60 * 1000L;
+
+  private final FileMetaData mobyDick = new FileMetaData(1, "Moby Dick", "Herman Melville", 0);
+  private final FileMetaData typee = new FileMetaData(2, "Typee", "Herman Melville", day);
+  private final FileMetaData animalFarm = new FileMetaData(3, "Animal Farm", "George Orwell", 0);
+  private final FileMetaData mobyRemix = new FileMetaData(4, "Mobyy Dick", "DJ Moby", 0);
+
+  @BeforeEach
+  public void createIndex() {
+    index = new SearchIndex();
+    index.addAll(List.of(mobyDick, typee, animalFarm, mobyRemix));
+  }
+
+  @Test
+  @DisplayName("Test if an empty search returns every file sorted by FileMetaData's properties")
+  public void testEmptySearch() {
+    assertEquals(List.of(typee, animalFarm, mobyDick, mobyRemix), index.search(null, "", null));
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  @DisplayName("Test if exact and prefix matches are found and ranked before fuzzy matches")
+  public void testExactAndPrefixSearch() {
+    assertEquals(List.of(mobyDick, mobyRemix), index.search("moby", null, null),
+        "Exact match on 'moby' should be ranked before the fuzzy match on 'mobyy'");
+    assertEquals(List.of(animalFarm), index.search("ANIM", null, null));
+    assertEquals(List.of(typee, mobyDick), index.search(null, "herm mel", null));
+    assertEquals(List.of(mobyDick), index.search("dick", "melville", null));
+  }
+
+  @Test
+  @DisplayName("Test if misspelled words are matched within the allowed edit distance")
+  public void testFuzzySearch() {
+    assertEquals(List.of(typee, mobyDick), index.search(null, "Melvile", null));
+    assertEquals(List.of(typee, mobyDick), index.search(null, "hreman", null));
+    assertEquals(List.of(animalFarm), index.search(null, "orwel", null));
+
+    // Too many edits for the length of the word
+    assertTrue(index.search("dcik", null, null).isEmpty());
+    assertTrue(index.search("xx", null, null).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test if searches are filtered by day")
+  public void testTimestampFilter() {
+    assertEquals(List.of(typee), index.search(null, "melville", day + 1));
+  }
+
+  @Test
+  @DisplayName("Test if files added with an existing id replace the old file")
+  public void testReplace() {
+    final FileMetaData renamed = new FileMetaData(3, "Nineteen Eighty Four", "George Orwell", 0);
+    index.add(renamed);
+
+    assertEquals(4, index.size());
+    assertTrue(index.search("animal", null, null).isEmpty());
+    assertEquals(List.of(renamed), index.search("eighty", null, null));
+
+    index.clear();
+    assertTrue(index.search(null, null, null).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test if the edit distance is calculated correctly")
+  public void testEditDistance() {
+    assertEquals(0, SearchIndex.editDistance("melville", "melville"));
+    assertEquals(1, SearchIndex.editDistance("melville", "melvile"));
+    assertEquals(2, SearchIndex.editDistance("herman", "hreman"));
+    assertEquals(3, SearchIndex.editDistance("kitten", "sitting"));
+  }
+}
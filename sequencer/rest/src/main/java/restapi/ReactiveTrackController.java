@@ -0,0 +1,293 @@
+package restapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import sequencer.core.Track;
+import sequencer.json.TrackSearchResult;
+import sequencer.persistence.FileMetaData;
+import sequencer.persistence.FilenameHandler;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * Reactive controller for the /api/tracks endpoints in the REST API, used instead of
+ * {@link SequencerRestController} when the server is started with the "reactive" profile.
+ *
+ * <p>
+ * Track files are read and written through {@link AsynchronousFileChannel}s, so no thread waits
+ * for the disk while a track is sent or received. Listings are streamed element by element when
+ * requested as {@code application/x-ndjson}. Work which can only be done by blocking, such as
+ * listing the save directory, runs on a bounded elastic scheduler. The search cache and indices
+ * are shared with the servlet controller through {@link TrackIndices}.
+ * </p>
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveTrackController {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  @Autowired
+  private PersistenceHandler persistenceHandler;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private TrackSearchCache searchCache;
+  @Autowired
+  private TrackSearchIndex searchIndex;
+  @Autowired
+  private TrackSimilarityIndex similarityIndex;
+  @Autowired
+  private TrackIdAllocator idAllocator;
+  @Autowired
+  private TrackIndices trackIndices;
+
+  private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+  /**
+   * Returns all tracks matching the given filter, or a page of them. See
+   * {@link SequencerRestController#getTracks(String, String, Long, int, Integer)}.
+   */
+  @GetMapping(value = "/api/tracks",
+      produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public Flux<TrackSearchResult> getTracks(@RequestParam(required = false) String name,
+      @RequestParam(required = false) String artist,
+      @RequestParam(required = false) Long timestamp, @RequestParam(defaultValue = "0") int offset,
+      @RequestParam(required = false) Integer limit) {
+    if (offset < 0 || (limit != null && limit < 0)) {
+      return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+    }
+
+    // If no search query is sent, search for "" (matches everything)
+    final String searchName = name != null ? name : "";
+    final String searchArtist = artist != null ? artist : "";
+
+    final Flux<TrackSearchResult> results = blocking(() -> searchCache.get(searchName,
+        searchArtist, timestamp,
+        () -> persistenceHandler.listSavedFiles(searchName, searchArtist, timestamp).stream()
+            .map(TrackSearchResult::createFromFileMetaData).toList()))
+        .flatMapIterable(list -> list).skip(offset);
+    return limit != null ? results.take(limit) : results;
+  }
+
+  /**
+   * Returns the tracks matching the search, ranked by relevance. See
+   * {@link SequencerRestController#searchTracks(String, String, Long)}.
+   */
+  @GetMapping(value = "/api/tracks/search",
+      produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public Flux<TrackSearchResult> searchTracks(@RequestParam(required = false) String name,
+      @RequestParam(required = false) String artist,
+      @RequestParam(required = false) Long timestamp) {
+    return blocking(() -> searchIndex.search(name, artist, timestamp))
+        .flatMapIterable(results -> results).map(TrackSearchResult::createFromFileMetaData);
+  }
+
+  /**
+   * Returns the tracks with the most similar patterns to the given track, most similar first. See
+   * {@link SequencerRestController#getSimilarTracks(int, int)}.
+   */
+  @GetMapping(value = "/api/tracks/similar/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<List<TrackSearchResult>>> getSimilarTracks(@PathVariable int id,
+      @RequestParam(defaultValue = "10") int k) {
+    if (k < 0) {
+      return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+    }
+    return blocking(() -> similarityIndex.nearest(id, k))
+        .map(nearest -> nearest.map(similar -> new ResponseEntity<>(
+            similar.stream().map(TrackSearchResult::createFromFileMetaData).toList(),
+            HttpStatus.OK)).orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+  }
+
+  /**
+   * Returns a track as a JSON-object, streamed from its file.
+   *
+   * @param id the id of the track to load
+   */
+  @GetMapping(value = "/api/tracks/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<Flux<DataBuffer>>> getTrack(@PathVariable int id) {
+    return blocking(() -> findFilename(id))
+        .map(filename -> filename
+            .map(name -> new ResponseEntity<>(readFile(persistenceHandler.getFilePath(name)),
+                HttpStatus.OK))
+            .orElseGet(() -> message("Track not found", HttpStatus.NOT_FOUND)));
+  }
+
+  /**
+   * Save a track to a file. See {@link SequencerRestController#postTrack(String)}.
+   *
+   * @param trackAsJson the track as a JSON-object
+   * @param request the request, used to create the location of the saved track
+   */
+  @PostMapping("/api/tracks")
+  public Mono<ResponseEntity<String>> postTrack(@RequestBody String trackAsJson,
+      ServerHttpRequest request) {
+    final Track track;
+    try {
+      track = objectMapper.readValue(trackAsJson, Track.class);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return Mono.just(new ResponseEntity<>("", HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+    if (track.getTrackName() == null || track.getTrackName().isBlank()
+        || track.getArtistName() == null || track.getArtistName().isBlank()) {
+      return Mono.just(new ResponseEntity<>("{ message: \"Track name and artist name required\" }",
+          HttpStatus.BAD_REQUEST));
+    }
+
+    // The first allocation may list the save directory
+    return blocking(() -> idAllocator.allocate(1)).flatMap(id -> {
+      final FileMetaData metaData = new FileMetaData(id, track.getTrackName(),
+          track.getArtistName(), Instant.now().toEpochMilli());
+      final String filename;
+      final byte[] content;
+      try {
+        filename = FilenameHandler.generateFilenameFromMetaData(metaData);
+        content = objectMapper.writeValueAsBytes(track);
+      } catch (IllegalArgumentException e) {
+        return Mono.just(new ResponseEntity<>(
+            "{ message:\"A field has han illegal format. "
+                + "Maybe track name or artist name contains special characters?\" }",
+            HttpStatus.BAD_REQUEST));
+      } catch (IOException e) {
+        e.printStackTrace();
+        return Mono.just(new ResponseEntity<>("", HttpStatus.INTERNAL_SERVER_ERROR));
+      }
+
+      // Attach id of the new file to the response, as per REST-standards
+      final URI location = UriComponentsBuilder.fromHttpRequest(request).path("/" + id).build()
+          .toUri();
+      return writeFile(filename, content)
+          .then(Mono.fromRunnable(() -> trackIndices.onTracksSaved(Map.of(metaData, track))))
+          .thenReturn(ResponseEntity.created(location)
+              .body(new String(content, StandardCharsets.UTF_8)));
+    }).onErrorResume(e -> e instanceof IOException || e instanceof UncheckedIOException, e -> {
+      e.printStackTrace();
+      return Mono.just(new ResponseEntity<>("", HttpStatus.INTERNAL_SERVER_ERROR));
+    });
+  }
+
+  // Helpers
+
+  /**
+   * Runs blocking work on a scheduler meant for it, rather than on a thread handling requests.
+   */
+  private static <T> Mono<T> blocking(Callable<T> callable) {
+    return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private Optional<String> findFilename(int id) {
+    return persistenceHandler.listFilenames().stream()
+        .filter(filename -> FilenameHandler.hasId(filename, id)).findFirst();
+  }
+
+  /**
+   * Reads the file as it is requested by the client. Compressed files are recognized by their first
+   * bytes, and are decompressed before being sent.
+   */
+  private Flux<DataBuffer> readFile(Path path) {
+    final Flux<DataBuffer> content = DataBufferUtils.readAsynchronousFileChannel(
+        () -> AsynchronousFileChannel.open(path, StandardOpenOption.READ), bufferFactory,
+        BUFFER_SIZE);
+    return content.switchOnFirst((first, buffers) -> {
+      if (first.hasValue() && isCompressed(first.get())) {
+        return DataBufferUtils.join(buffers).map(this::decompress).flux();
+      }
+      return buffers;
+    });
+  }
+
+  /**
+   * Writes the content to a new file. Compressed and deduplicated files are written by the
+   * {@link PersistenceHandler} instead, as compression and links are handled there. Files written
+   * through a channel hold a write permit of the handler until written, so they count towards its
+   * bound on concurrent writes.
+   */
+  private Mono<Void> writeFile(String filename, byte[] content) {
+    if (persistenceHandler.isCompressed() || persistenceHandler.isDeduplicated()) {
+      return blocking(() -> {
+        persistenceHandler.writeBytesToFile(filename, output -> {
+          try {
+            output.write(content);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        return null;
+      }).then();
+    }
+
+    final Path path = persistenceHandler.getFilePath(filename);
+    // Waiting for a permit blocks, as does creating the directories
+    return Mono.usingWhen(blocking(persistenceHandler::acquireWritePermit),
+        permit -> blocking(() -> Files.createDirectories(path.getParent()))
+            .then(Mono.using(
+                () -> AsynchronousFileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE),
+                channel -> DataBufferUtils.write(Mono.just(bufferFactory.wrap(content)), channel)
+                    .map(DataBufferUtils::release).then(),
+                channel -> {
+                  try {
+                    channel.close();
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                })),
+        permit -> Mono.fromRunnable(permit::close));
+  }
+
+  private static boolean isCompressed(DataBuffer buffer) {
+    final int start = buffer.readPosition();
+    return buffer.readableByteCount() >= 2
+        && (buffer.getByte(start) & 0xFF) == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+        && (buffer.getByte(start + 1) & 0xFF) == (GZIPInputStream.GZIP_MAGIC >> 8);
+  }
+
+  private DataBuffer decompress(DataBuffer compressed) {
+    try (InputStream input = new GZIPInputStream(compressed.asInputStream(true))) {
+      return bufferFactory.wrap(input.readAllBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private ResponseEntity<Flux<DataBuffer>> message(String message, HttpStatus status) {
+    return new ResponseEntity<>(Flux.just(bufferFactory.wrap(
+        "{ message: \"%s\" }".formatted(message).getBytes(StandardCharsets.UTF_8))), status);
+  }
+}
@@ -1,23 +1,33 @@
 package restapi;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sequencer.core.Track;
 import sequencer.json.TrackSearchResult;
@@ -26,34 +36,100 @@ import sequencer.persistence.FilenameHandler;
 import sequencer.persistence.PersistenceHandler;
 
 /**
- * Controller for the /api/tracks endpoints in the REST API.
+ * Controller for the /api/tracks endpoints in the REST API. Used when the server runs as a
+ * servlet, which is the default, see {@link ReactiveTrackController} for the reactive variant.
  */
 @RestController
 @Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class SequencerRestController {
 
+  private static final String TRACK_ARCHIVE_TYPE = "application/zip";
+  static final int MAX_BATCH_SIZE = 1000;
+
   @Autowired
   private PersistenceHandler persistenceHandler;
   @Autowired
   private ObjectMapper objectMapper;
+  @Autowired
+  private TrackSearchCache searchCache;
+  @Autowired
+  private TrackSearchIndex searchIndex;
+  @Autowired
+  private TrackSimilarityIndex similarityIndex;
+  @Autowired
+  private TrackArchiver trackArchiver;
+  @Autowired
+  private TrackIdAllocator idAllocator;
+  @Autowired
+  private TrackIndices trackIndices;
 
   /**
-   * Returns a {@link List} of all tracks.
+   * Returns a {@link List} of all tracks. Results are served from {@link TrackSearchCache} when
+   * the same search has been performed since the last save. A page of the list is returned if
+   * offset or limit is given, so a client can fetch a long list as it is needed.
+   *
+   * @param offset the number of tracks to skip
+   * @param limit the maximum number of tracks to return, or null to return the rest
    */
   @GetMapping(value = "/api/tracks", produces = MediaType.APPLICATION_JSON_VALUE)
-  public List<TrackSearchResult> getTracks(@RequestParam(required = false) String name,
-      @RequestParam(required = false) String artist,
-      @RequestParam(required = false) Long timestamp) {
+  public ResponseEntity<List<TrackSearchResult>> getTracks(
+      @RequestParam(required = false) String name, @RequestParam(required = false) String artist,
+      @RequestParam(required = false) Long timestamp, @RequestParam(defaultValue = "0") int offset,
+      @RequestParam(required = false) Integer limit) {
+    if (offset < 0 || (limit != null && limit < 0)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
 
     // If no search query is sent, search for "" (matches everything)
     name = name != null ? name : "";
     artist = artist != null ? artist : "";
-    return persistenceHandler.listSavedFiles(name, artist, timestamp).stream()
+
+    final String searchName = name;
+    final String searchArtist = artist;
+    final List<TrackSearchResult> results = searchCache.get(searchName, searchArtist, timestamp,
+        () -> persistenceHandler.listSavedFiles(searchName, searchArtist, timestamp).stream()
+            .map(TrackSearchResult::createFromFileMetaData).toList());
+    return new ResponseEntity<>(page(results, offset, limit), HttpStatus.OK);
+  }
+
+  /**
+   * Returns a {@link List} of tracks matching the search, ranked by relevance. Unlike
+   * {@link #getTracks(String, String, Long, int, Integer)}, words are matched by prefix and
+   * tolerate typos.
+   */
+  @GetMapping(value = "/api/tracks/search", produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<TrackSearchResult> searchTracks(@RequestParam(required = false) String name,
+      @RequestParam(required = false) String artist,
+      @RequestParam(required = false) Long timestamp) {
+    return searchIndex.search(name, artist, timestamp).stream()
         .map(TrackSearchResult::createFromFileMetaData).toList();
   }
 
   /**
-   * Returns a track as a JSON-object.
+   * Returns a {@link List} of the tracks with the most similar patterns to the given track, most
+   * similar first.
+   *
+   * @param id the id of the track to compare with
+   * @param k the maximum number of tracks to return
+   */
+  @GetMapping(value = "/api/tracks/similar/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<TrackSearchResult>> getSimilarTracks(@PathVariable int id,
+      @RequestParam(defaultValue = "10") int k) {
+    if (k < 0) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    return similarityIndex.nearest(id, k)
+        .map(similar -> new ResponseEntity<>(
+            similar.stream().map(TrackSearchResult::createFromFileMetaData).toList(),
+            HttpStatus.OK))
+        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  }
+
+  /**
+   * Returns a track as a JSON-object. The response has an ETag of its content, and is empty with
+   * status 304 if the request has the same ETag in If-None-Match, so clients with a cached copy of
+   * the track do not have to download it again.
    *
    * @param id the id of the track to load
    */
@@ -89,7 +165,11 @@ public class SequencerRestController {
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
     // Load was successful
-    return new ResponseEntity<>(responseBuilder.toString(), HttpStatus.OK);
+    final String content = responseBuilder.toString();
+    final String etag = "\"%s\"".formatted(
+        DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)));
+    // Spring responds with 304 instead if the ETag matches If-None-Match
+    return ResponseEntity.ok().eTag(etag).body(content);
   }
 
   /**
@@ -112,18 +192,15 @@ public class SequencerRestController {
             HttpStatus.BAD_REQUEST);
       }
 
-      // Find the next available id which is greater than those in use.
-      int maxId = persistenceHandler.listSavedFiles().stream().map(trackMeta -> trackMeta.id())
-          .reduce(0, (currMax, next) -> {
-            return currMax > next ? currMax : next;
-          });
-      newId = maxId + 1;
+      // Get the next available id which is greater than those in use.
+      newId = idAllocator.allocate(1);
 
       // Create and write to a new file with the unique id
+      final FileMetaData metaData = new FileMetaData(newId, track.getTrackName(),
+          track.getArtistName(), Instant.now().toEpochMilli());
       String filename;
       try {
-        filename = FilenameHandler.generateFilenameFromMetaData(new FileMetaData(newId,
-            track.getTrackName(), track.getArtistName(), Instant.now().toEpochMilli()));
+        filename = FilenameHandler.generateFilenameFromMetaData(metaData);
       } catch (IllegalArgumentException e) {
         return new ResponseEntity<>(
             "{ message:\"A field has han illegal format. "
@@ -143,6 +220,8 @@ public class SequencerRestController {
 
       });
 
+      trackIndices.onTracksSaved(Map.of(metaData, track));
+
       // Ensure response also gets the written content, as per REST-standards
       responseBody = content;
 
@@ -161,4 +240,169 @@ public class SequencerRestController {
 
     return new ResponseEntity<>(responseBody, headers, HttpStatus.CREATED);
   }
+
+  /**
+   * Returns the tracks with the given ids, by their id. Ids without a saved track are left out.
+   *
+   * @param ids the ids of the tracks to load, at most {@link #MAX_BATCH_SIZE}
+   */
+  @GetMapping(value = "/api/tracks/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Map<Integer, Track>> getTracksBatch(@RequestParam List<Integer> ids) {
+    if (ids.size() > MAX_BATCH_SIZE) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    // The directory is listed once, rather than once for each id
+    final Map<Integer, String> filenames = new HashMap<>();
+    for (String filename : persistenceHandler.listFilenames()) {
+      if (FilenameHandler.isValidFilename(filename)) {
+        filenames.put(FilenameHandler.readMetaData(filename).id(), filename);
+      }
+    }
+
+    final Map<Integer, Track> tracks = new LinkedHashMap<>();
+    try {
+      for (int id : ids) {
+        final String filename = filenames.get(id);
+        if (filename == null || tracks.containsKey(id)) {
+          continue;
+        }
+        persistenceHandler.readFromFile(filename, reader -> {
+          try {
+            tracks.put(id, objectMapper.readValue(reader, Track.class));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      }
+    } catch (IOException | UncheckedIOException e) {
+      e.printStackTrace();
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+    return new ResponseEntity<>(tracks, HttpStatus.OK);
+  }
+
+  /**
+   * Saves several tracks in one request. All tracks are validated before any is saved, and they are
+   * given a range of consecutive ids.
+   *
+   * @param tracksAsJson the tracks as a JSON-array, at most {@link #MAX_BATCH_SIZE}
+   * @return the saved tracks with their ids, in the order they were given
+   */
+  @PostMapping(value = "/api/tracks/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<TrackSearchResult>> postTracksBatch(
+      @RequestBody String tracksAsJson) {
+    final List<Track> tracks;
+    try {
+      tracks = objectMapper.readValue(tracksAsJson, new TypeReference<List<Track>>() {});
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    if (tracks.isEmpty() || tracks.size() > MAX_BATCH_SIZE) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    final long timestamp = Instant.now().toEpochMilli();
+    for (Track track : tracks) {
+      if (track == null || track.getTrackName() == null || track.getTrackName().isBlank()
+          || track.getArtistName() == null || track.getArtistName().isBlank()) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
+      try {
+        // The id does not affect whether the filename is valid
+        FilenameHandler.generateFilenameFromMetaData(
+            new FileMetaData(1, track.getTrackName(), track.getArtistName(), timestamp));
+      } catch (IllegalArgumentException e) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
+    }
+
+    final int firstId = idAllocator.allocate(tracks.size());
+    final Map<FileMetaData, Track> saved = new LinkedHashMap<>();
+    try {
+      for (int i = 0; i < tracks.size(); i++) {
+        final Track track = tracks.get(i);
+        final FileMetaData metaData = new FileMetaData(firstId + i, track.getTrackName(),
+            track.getArtistName(), timestamp);
+        final String content = objectMapper.writeValueAsString(track);
+        persistenceHandler.writeToFile(FilenameHandler.generateFilenameFromMetaData(metaData),
+            writer -> {
+              try {
+                writer.write(content);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+        saved.put(metaData, track);
+      }
+    } catch (IOException | UncheckedIOException e) {
+      e.printStackTrace();
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    } finally {
+      // Tracks saved before a failure are still saved
+      trackIndices.onTracksSaved(saved);
+    }
+
+    return new ResponseEntity<>(
+        saved.keySet().stream().map(TrackSearchResult::createFromFileMetaData).toList(),
+        HttpStatus.CREATED);
+  }
+
+  /**
+   * Returns all saved tracks as a zip archive, where each entry is a saved track file. The archive
+   * is streamed while the tracks are read.
+   */
+  @GetMapping(value = "/api/tracks/archive", produces = TRACK_ARCHIVE_TYPE)
+  public ResponseEntity<StreamingResponseBody> exportTracks() {
+    final HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tracks.zip\"");
+    return new ResponseEntity<>(output -> trackArchiver.exportArchive(output), headers,
+        HttpStatus.OK);
+  }
+
+  /**
+   * Saves all tracks in a zip archive, such as one returned by {@link #exportTracks()}. Tracks
+   * whose id is already in use are given a new id. Archives unpacking to more than the limits of
+   * {@link TrackArchiver} are rejected with 413 Payload Too Large.
+   *
+   * @param archive the zip archive
+   * @return the imported tracks and the names of the rejected entries
+   */
+  @PostMapping(value = "/api/tracks/archive",
+      consumes = {TRACK_ARCHIVE_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<TrackImportResponse> importTracks(InputStream archive) {
+    final TrackArchiver.ImportResult result;
+    try {
+      result = trackArchiver.importArchive(archive);
+    } catch (TrackArchiver.ArchiveTooLargeException e) {
+      // Some tracks may have been saved before the limit was reached
+      trackIndices.invalidate();
+      return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+    } catch (IOException e) {
+      e.printStackTrace();
+      // Some tracks may have been saved before the archive turned out to be invalid
+      trackIndices.invalidate();
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    trackIndices.onTracksSaved(result.imported());
+
+    return new ResponseEntity<>(new TrackImportResponse(result.imported().keySet().stream()
+        .map(TrackSearchResult::createFromFileMetaData).toList(), result.rejected()),
+        HttpStatus.CREATED);
+  }
+
+  // Helpers
+
+  /**
+   * Returns the part of the list starting at offset, with at most limit elements.
+   */
+  private static <T> List<T> page(List<T> list, int offset, Integer limit) {
+    final int start = Math.min(offset, list.size());
+    final int end =
+        limit == null ? list.size() : (int) Math.min((long) start + limit, list.size());
+    return list.subList(start, end);
+  }
 }
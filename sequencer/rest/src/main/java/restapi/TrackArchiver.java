@@ -0,0 +1,357 @@
+package restapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sequencer.core.Track;
+import sequencer.core.TrackMapperInterface;
+import sequencer.json.TrackMapper;
+import sequencer.persistence.FileMetaData;
+import sequencer.persistence.FilenameHandler;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * {@code TrackArchiver} moves tracks in and out of the directory of a {@link PersistenceHandler} in
+ * bulk, using zip archives where each entry is a saved track file.
+ *
+ * <p>
+ * Archives are read and written as streams. Imported entries are parsed and written in parallel
+ * by a pool of at most {@link #IMPORT_THREADS} threads per import, in batches of
+ * {@link #BATCH_SIZE} entries as to bound memory usage, and the imported tracks are returned
+ * together so indices can be updated once at the end. Writes are also bounded by the write permits
+ * of the {@link PersistenceHandler}.
+ * </p>
+ *
+ * <p>
+ * As a small archive may unpack to far more data, each entry may unpack to at most
+ * {@link #MAX_ENTRY_BYTES}, and the whole archive to at most {@link #MAX_ARCHIVE_BYTES}. Larger
+ * archives are rejected with an {@link ArchiveTooLargeException}.
+ * </p>
+ */
+@Component
+public class TrackArchiver {
+
+  static final int BATCH_SIZE = 1024;
+  static final int IMPORT_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+  // A track with every instrument at the maximum length is far smaller than this
+  public static final int MAX_ENTRY_BYTES = 1 << 20;
+  public static final long MAX_ARCHIVE_BYTES = 64L << 20;
+
+  private final PersistenceHandler persistenceHandler;
+  private final TrackMapperInterface trackMapper;
+  private final TrackIdAllocator idAllocator;
+  private final int maxEntryBytes;
+  private final long maxArchiveBytes;
+
+  /**
+   * The result of an import.
+   *
+   * @param imported the metadata of each imported track with the track itself, in archive order
+   * @param rejected the names of the entries which were not valid tracks or could not be saved
+   */
+  public record ImportResult(Map<FileMetaData, Track> imported, List<String> rejected) {
+  }
+
+  /**
+   * Thrown when an archive unpacks to more data than an import allows.
+   */
+  public static class ArchiveTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ArchiveTooLargeException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * An entry read from an archive, which may be parsed into a track.
+   */
+  private record ArchiveEntry(String name, byte[] content, FileMetaData metaData, Track track) {
+  }
+
+  /**
+   * Creates an archiver of the json files in the given directory, taking the ids of imported tracks
+   * from the allocator shared with the other ways of saving tracks.
+   *
+   * @param persistenceHandler the handler of the directory with the tracks
+   * @param idAllocator the allocator of ids for tracks saved in the directory
+   */
+  @Autowired
+  public TrackArchiver(PersistenceHandler persistenceHandler, TrackIdAllocator idAllocator) {
+    this(persistenceHandler, new TrackMapper(false), idAllocator, MAX_ENTRY_BYTES,
+        MAX_ARCHIVE_BYTES);
+  }
+
+  /**
+   * Creates an archiver of the files in the given directory, which is not written by anyone else
+   * while tracks are imported.
+   *
+   * @param persistenceHandler the handler of the directory with the tracks
+   * @param trackMapper the mapper of the format of the saved tracks
+   */
+  public TrackArchiver(PersistenceHandler persistenceHandler, TrackMapperInterface trackMapper) {
+    this(persistenceHandler, trackMapper, MAX_ENTRY_BYTES, MAX_ARCHIVE_BYTES);
+  }
+
+  /**
+   * Creates an archiver of the files in the given directory, which is not written by anyone else
+   * while tracks are imported, with the given limits on imports.
+   *
+   * @param persistenceHandler the handler of the directory with the tracks
+   * @param trackMapper the mapper of the format of the saved tracks
+   * @param maxEntryBytes the most bytes an entry of an imported archive may unpack to
+   * @param maxArchiveBytes the most bytes an imported archive may unpack to
+   * @throws IllegalArgumentException if a limit is not positive
+   */
+  public TrackArchiver(PersistenceHandler persistenceHandler, TrackMapperInterface trackMapper,
+      int maxEntryBytes, long maxArchiveBytes) {
+    this(persistenceHandler, trackMapper, new TrackIdAllocator(persistenceHandler), maxEntryBytes,
+        maxArchiveBytes);
+  }
+
+  /**
+   * Creates an archiver of the files in the given directory, with the given limits on imports.
+   *
+   * @param persistenceHandler the handler of the directory with the tracks
+   * @param trackMapper the mapper of the format of the saved tracks
+   * @param idAllocator the allocator of ids for tracks saved in the directory
+   * @param maxEntryBytes the most bytes an entry of an imported archive may unpack to
+   * @param maxArchiveBytes the most bytes an imported archive may unpack to
+   * @throws IllegalArgumentException if a limit is not positive
+   */
+  public TrackArchiver(PersistenceHandler persistenceHandler, TrackMapperInterface trackMapper,
+      TrackIdAllocator idAllocator, int maxEntryBytes, long maxArchiveBytes) {
+    if (maxEntryBytes <= 0 || maxArchiveBytes <= 0) {
+      throw new IllegalArgumentException("Limits must be positive. Found %s and %s"
+          .formatted(maxEntryBytes, maxArchiveBytes));
+    }
+    this.persistenceHandler = persistenceHandler;
+    this.trackMapper = trackMapper;
+    this.idAllocator = idAllocator;
+    this.maxEntryBytes = maxEntryBytes;
+    this.maxArchiveBytes = maxArchiveBytes;
+  }
+
+  /**
+   * Writes all saved tracks to a zip archive. The output stream is not closed.
+   *
+   * @param output the stream to write the archive to
+   * @return the number of exported tracks
+   * @throws IOException if a track cannot be read or the archive cannot be written
+   */
+  public int exportArchive(OutputStream output) throws IOException {
+    final ZipOutputStream zip = new ZipOutputStream(output);
+    int count = 0;
+    for (String filename : persistenceHandler.listFilenames()) {
+      if (!FilenameHandler.isValidFilename(filename)) {
+        continue;
+      }
+      zip.putNextEntry(
+          new ZipEntry("%s.%s".formatted(filename, persistenceHandler.getAcceptedFiletype())));
+      try {
+        persistenceHandler.readBytesFromFile(filename, input -> {
+          try {
+            input.transferTo(zip);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      zip.closeEntry();
+      count++;
+    }
+    zip.finish();
+    return count;
+  }
+
+  /**
+   * Saves all tracks in a zip archive. Tracks keep the id and timestamp given by the name of their
+   * entry, unless the id is already in use, in which case they are given a new id. The ids are
+   * reserved or allocated by the {@link TrackIdAllocator} before the tracks are written, so tracks
+   * saved while the archive is imported get other ids.
+   *
+   * @param input the stream to read the archive from
+   * @return the imported tracks and the rejected entries
+   * @throws ArchiveTooLargeException if an entry or the whole archive unpacks to more than the
+   *         limits. Tracks of earlier batches are still saved
+   * @throws IOException if the archive cannot be read
+   */
+  public ImportResult importArchive(InputStream input) throws IOException {
+    final Map<FileMetaData, Track> imported = new LinkedHashMap<>();
+    final List<String> rejected = new ArrayList<>();
+    final List<ArchiveEntry> batch = new ArrayList<>();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(IMPORT_THREADS);
+    try {
+      final ZipInputStream zip = new ZipInputStream(input);
+      long archiveBytes = 0;
+      ZipEntry zipEntry;
+      while ((zipEntry = zip.getNextEntry()) != null) {
+        if (zipEntry.isDirectory()) {
+          continue;
+        }
+        // The size in the entry header cannot be trusted, so one byte more than the limit is read
+        final byte[] content = zip.readNBytes(maxEntryBytes + 1);
+        if (content.length > maxEntryBytes) {
+          throw new ArchiveTooLargeException("Entry %s unpacks to more than %s bytes"
+              .formatted(zipEntry.getName(), maxEntryBytes));
+        }
+        archiveBytes += content.length;
+        if (archiveBytes > maxArchiveBytes) {
+          throw new ArchiveTooLargeException(
+              "Archive unpacks to more than %s bytes".formatted(maxArchiveBytes));
+        }
+        batch.add(new ArchiveEntry(zipEntry.getName(), content, null, null));
+        if (batch.size() == BATCH_SIZE) {
+          importBatch(executor, batch, imported, rejected);
+          batch.clear();
+        }
+      }
+      importBatch(executor, batch, imported, rejected);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return new ImportResult(imported, rejected);
+  }
+
+  // Helpers
+
+  private void importBatch(ExecutorService executor, List<ArchiveEntry> batch,
+      Map<FileMetaData, Track> imported, List<String> rejected) throws InterruptedIOException {
+    // Parsing is independent for each entry
+    final List<ArchiveEntry> parsed = invokeAll(executor, batch, this::parse);
+
+    // Ids are assigned in archive order, so the result does not depend on the parallel writes.
+    // Entries keep their id if it can be reserved, and the others get a range of new ids
+    final List<ArchiveEntry> tracks = new ArrayList<>();
+    final List<Boolean> keepsId = new ArrayList<>();
+    int renumbered = 0;
+    for (ArchiveEntry entry : parsed) {
+      if (entry.track() == null) {
+        rejected.add(entry.name());
+        continue;
+      }
+      final int id = entry.metaData().id();
+      final boolean reserved = id > 0 && idAllocator.reserve(id);
+      tracks.add(entry);
+      keepsId.add(reserved);
+      if (!reserved) {
+        renumbered++;
+      }
+    }
+    int nextId = renumbered > 0 ? idAllocator.allocate(renumbered) : 0;
+    final List<ArchiveEntry> toWrite = new ArrayList<>();
+    for (int i = 0; i < tracks.size(); i++) {
+      final ArchiveEntry entry = tracks.get(i);
+      final int id = keepsId.get(i) ? entry.metaData().id() : nextId++;
+      toWrite.add(new ArchiveEntry(entry.name(), null, new FileMetaData(id,
+          entry.track().getTrackName(), entry.track().getArtistName(),
+          entry.metaData().timestamp()), entry.track()));
+    }
+
+    final List<Boolean> written = invokeAll(executor, toWrite, this::write);
+    for (int i = 0; i < toWrite.size(); i++) {
+      final ArchiveEntry entry = toWrite.get(i);
+      if (written.get(i)) {
+        imported.put(entry.metaData(), entry.track());
+      } else {
+        rejected.add(entry.name());
+      }
+    }
+  }
+
+  /**
+   * Applies the function to each element on the threads of the executor, and returns the results
+   * in the order of the elements. The function must not throw.
+   */
+  private static <T, R> List<R> invokeAll(ExecutorService executor, List<T> elements,
+      Function<T, R> function) throws InterruptedIOException {
+    final List<Callable<R>> tasks = new ArrayList<>();
+    for (T element : elements) {
+      tasks.add(() -> function.apply(element));
+    }
+    try {
+      final List<R> results = new ArrayList<>();
+      for (Future<R> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Import was interrupted");
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the entry with its metadata and track, or without a track if the entry is not a valid
+   * track.
+   */
+  private ArchiveEntry parse(ArchiveEntry entry) {
+    final String suffix = "." + persistenceHandler.getAcceptedFiletype();
+    // Entries may be placed in directories within the archive
+    final String name = entry.name().substring(entry.name().lastIndexOf('/') + 1);
+    if (!name.endsWith(suffix)) {
+      return entry;
+    }
+    final String filename = name.substring(0, name.length() - suffix.length());
+    if (!FilenameHandler.isValidFilename(filename)) {
+      return entry;
+    }
+
+    try {
+      final Track track = trackMapper.readTrack(new ByteArrayInputStream(entry.content()));
+      if (track == null || track.getTrackName() == null || track.getTrackName().isBlank()
+          || track.getArtistName() == null || track.getArtistName().isBlank()) {
+        return entry;
+      }
+      return new ArchiveEntry(entry.name(), null, FilenameHandler.readMetaData(filename), track);
+    } catch (IOException | RuntimeException e) {
+      // Invalid tracks are rejected rather than failing the whole import
+      return entry;
+    }
+  }
+
+  /**
+   * Saves the track of an entry, and returns true if it was saved.
+   */
+  private boolean write(ArchiveEntry entry) {
+    try {
+      final String filename = FilenameHandler.generateFilenameFromMetaData(entry.metaData());
+      persistenceHandler.writeBytesToFile(filename, output -> {
+        try {
+          trackMapper.writeTrack(entry.track(), output);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      return true;
+    } catch (IOException | RuntimeException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package restapi;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sequencer.persistence.FileMetaData;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * {@code TrackIdAllocator} hands out ids for new tracks, each greater than all ids in use, and
+ * reserves the ids of tracks which keep their own id, such as imported tracks. The ids in use are
+ * read from the {@link PersistenceHandler} once, and are then kept in memory, so saving a track
+ * does not require listing the save directory. As ids are allocated and reserved before the
+ * tracks are written, two tracks saved at the same time are never given the same id.
+ */
+@Component
+public class TrackIdAllocator {
+
+  private final PersistenceHandler persistenceHandler;
+
+  // The ids in use, including those allocated or reserved for tracks which are being written
+  private final BitSet usedIds = new BitSet();
+  private boolean loaded = false;
+  // A lock rather than synchronized methods, as the save directory is listed while it is
+  // held, which would pin the carrier of a virtual thread
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * Creates an allocator of ids for the tracks in the given directory.
+   *
+   * @param persistenceHandler the handler of the directory with the tracks
+   */
+  @Autowired
+  public TrackIdAllocator(PersistenceHandler persistenceHandler) {
+    this.persistenceHandler = persistenceHandler;
+  }
+
+  /**
+   * Allocates a range of consecutive ids which are not in use.
+   *
+   * @param count the number of ids to allocate
+   * @return the first id of the range
+   * @throws IllegalArgumentException if count is not positive
+   */
+  public int allocate(int count) {
+    lock.lock();
+    try {
+      if (count <= 0) {
+        throw new IllegalArgumentException("count must be positive: " + count);
+      }
+      load();
+      final int firstId = usedIds.length() == 0 ? 1 : usedIds.length();
+      usedIds.set(firstId, firstId + count);
+      return firstId;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reserves an id for a track which keeps its own id, unless the id is already in use.
+   *
+   * @param id the id to reserve
+   * @return true if the id was reserved, and false if it is in use
+   * @throws IllegalArgumentException if id is not positive
+   */
+  public boolean reserve(int id) {
+    lock.lock();
+    try {
+      if (id <= 0) {
+        throw new IllegalArgumentException("id must be positive: " + id);
+      }
+      load();
+      if (usedIds.get(id)) {
+        return false;
+      }
+      usedIds.set(id);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks an id as in use, e.g. for tracks saved with ids which were not allocated here.
+   *
+   * @param id the id in use
+   */
+  public void markUsed(int id) {
+    lock.lock();
+    try {
+      if (loaded && id > 0) {
+        usedIds.set(id);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Discards the ids in use, which will be read from the save directory on the next allocation.
+   * Should be called if files are changed by someone other than the server.
+   */
+  public void invalidate() {
+    lock.lock();
+    try {
+      loaded = false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void load() {
+    if (!loaded) {
+      usedIds.clear();
+      for (FileMetaData metaData : persistenceHandler.listSavedFiles()) {
+        if (metaData.id() > 0) {
+          usedIds.set(metaData.id());
+        }
+      }
+      loaded = true;
+    }
+  }
+}
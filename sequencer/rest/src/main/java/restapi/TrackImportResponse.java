@@ -0,0 +1,13 @@
+package restapi;
+
+import java.util.List;
+import sequencer.json.TrackSearchResult;
+
+/**
+ * Response of an import of a track archive.
+ *
+ * @param imported the imported tracks, which may have been given new ids
+ * @param rejected the names of the archive entries which were not imported
+ */
+public record TrackImportResponse(List<TrackSearchResult> imported, List<String> rejected) {
+}
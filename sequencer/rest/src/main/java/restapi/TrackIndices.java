@@ -0,0 +1,54 @@
+package restapi;
+
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sequencer.core.Track;
+import sequencer.persistence.FileMetaData;
+
+/**
+ * {@code TrackIndices} keeps the in-memory state derived from the saved tracks up to date, i.e. the
+ * {@link TrackSearchCache}, {@link TrackSearchIndex}, {@link TrackSimilarityIndex} and
+ * {@link TrackIdAllocator}. It is shared by the servlet and reactive controllers, so tracks saved
+ * through either are found by both.
+ */
+@Component
+public class TrackIndices {
+
+  @Autowired
+  private TrackSearchCache searchCache;
+  @Autowired
+  private TrackSearchIndex searchIndex;
+  @Autowired
+  private TrackSimilarityIndex similarityIndex;
+  @Autowired
+  private TrackIdAllocator idAllocator;
+
+  /**
+   * Updates the search cache and indices after tracks have been saved.
+   *
+   * @param tracks the metadata of each saved track with the track itself
+   */
+  public void onTracksSaved(Map<FileMetaData, Track> tracks) {
+    if (tracks.isEmpty()) {
+      return;
+    }
+    // The saved tracks may match cached searches
+    searchCache.invalidate();
+    searchIndex.addAll(tracks.keySet());
+    similarityIndex.addAll(tracks);
+    // Imported tracks keep their own ids
+    tracks.keySet().forEach(metaData -> idAllocator.markUsed(metaData.id()));
+  }
+
+  /**
+   * Discards the cache and indices, which will be rebuilt from the save directory when next used.
+   * Should be called if files may have been changed without being reported.
+   */
+  public void invalidate() {
+    searchCache.invalidate();
+    searchIndex.invalidate();
+    similarityIndex.invalidate();
+    idAllocator.invalidate();
+  }
+}
@@ -0,0 +1,75 @@
+package restapi;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import sequencer.json.TrackSearchResult;
+import sequencer.persistence.FileMetaData;
+
+/**
+ * {@code TrackSearchCache} keeps the results of recent searches in a bounded in-memory
+ * {@link Cache} (using caffeine), so repeated searches (e.g. the empty search sent whenever the
+ * track loader is opened) do not list the save directory again.
+ *
+ * <p>
+ * Every entry is tagged with the generation of the index at the time it was computed. Bumping the
+ * generation with {@link #invalidate()} makes all existing entries unreachable, and they are
+ * eventually evicted by the size bound.
+ * </p>
+ */
+@Component
+public class TrackSearchCache {
+
+  public static final int MAXIMUM_SIZE = 1000;
+
+  private final AtomicLong generation = new AtomicLong();
+  private final Cache<SearchKey, List<TrackSearchResult>> cache =
+      Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+  /**
+   * Key of a search. Search is case-insensitive and matches timestamps by day, so the key is
+   * normalized accordingly.
+   */
+  private record SearchKey(long generation, String name, String artist, LocalDate day) {
+
+    static SearchKey of(long generation, String name, String artist, Long timestamp) {
+      return new SearchKey(generation, name.toLowerCase(), artist.toLowerCase(),
+          timestamp != null ? FileMetaData.getDay(timestamp) : null);
+    }
+  }
+
+  /**
+   * Returns the cached result of the given search, or computes and caches it with the given
+   * supplier if it is not present for the current generation.
+   *
+   * @param name the name (or part of it) searched for
+   * @param artist the artist (or part of it) searched for
+   * @param timestamp the timestamp searched for (matches by day), or {@code null}
+   * @param search the supplier performing the actual search
+   * @return an unmodifiable {@link List} of the search results
+   */
+  public List<TrackSearchResult> get(String name, String artist, Long timestamp,
+      Supplier<List<TrackSearchResult>> search) {
+    final SearchKey key = SearchKey.of(generation.get(), name, artist, timestamp);
+    return cache.get(key, k -> List.copyOf(search.get()));
+  }
+
+  /**
+   * Bumps the generation of the index, invalidating all cached results. Must be called every time
+   * a track is saved.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Returns the current generation of the index.
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+}
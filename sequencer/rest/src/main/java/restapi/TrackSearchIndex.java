@@ -0,0 +1,96 @@
+package restapi;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sequencer.persistence.FileMetaData;
+import sequencer.persistence.PersistenceHandler;
+import sequencer.persistence.SearchIndex;
+
+/**
+ * {@code TrackSearchIndex} keeps a {@link SearchIndex} of all saved tracks in memory, used for
+ * typo-tolerant, ranked search. The index is built from the {@link PersistenceHandler} on the first
+ * search, and is then kept up to date as tracks are saved.
+ */
+@Component
+public class TrackSearchIndex {
+
+  @Autowired
+  private PersistenceHandler persistenceHandler;
+
+  private final SearchIndex index = new SearchIndex();
+  private boolean loaded = false;
+  // A lock rather than synchronized methods, as the save directory is listed while it is
+  // held, which would pin the carrier of a virtual thread
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * Returns the saved tracks matching the given search, best match first. See
+   * {@link SearchIndex#search(String, String, Long)}.
+   */
+  public List<FileMetaData> search(String name, String artist, Long timestamp) {
+    return getIndex().search(name, artist, timestamp);
+  }
+
+  /**
+   * Adds a newly saved track to the index.
+   *
+   * @param metaData the metadata of the saved track
+   */
+  public void add(FileMetaData metaData) {
+    lock.lock();
+    try {
+      if (loaded) {
+        index.add(metaData);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds newly saved tracks to the index.
+   *
+   * @param metaData the metadata of the saved tracks
+   */
+  public void addAll(Collection<FileMetaData> metaData) {
+    lock.lock();
+    try {
+      if (loaded) {
+        index.addAll(metaData);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Discards the index, which will be rebuilt from the save directory on the next search. Should be
+   * called if files are changed by someone other than the server.
+   */
+  public void invalidate() {
+    lock.lock();
+    try {
+      loaded = false;
+      index.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private SearchIndex getIndex() {
+    lock.lock();
+    try {
+      if (!loaded) {
+        index.addAll(persistenceHandler.listSavedFiles());
+        loaded = true;
+      }
+      return index;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
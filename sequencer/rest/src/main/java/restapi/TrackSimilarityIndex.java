@@ -0,0 +1,139 @@
+package restapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sequencer.core.PatternIndex;
+import sequencer.core.Track;
+import sequencer.persistence.FileMetaData;
+import sequencer.persistence.FilenameHandler;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * {@code TrackSimilarityIndex} keeps a {@link PatternIndex} of all saved tracks in memory, used to
+ * find tracks with similar rhythms. The index is built by reading every track from the
+ * {@link PersistenceHandler} on the first lookup, and is then kept up to date as tracks are saved.
+ */
+@Component
+public class TrackSimilarityIndex {
+
+  @Autowired
+  private PersistenceHandler persistenceHandler;
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private final PatternIndex index = new PatternIndex();
+  private final Map<Integer, FileMetaData> metaData = new HashMap<>();
+  private boolean loaded = false;
+  // A lock rather than synchronized methods, as files are read while it is
+  // held, which would pin the carrier of a virtual thread
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * Returns the metadata of the k saved tracks with the most similar patterns to the track with the
+   * given id, nearest first.
+   *
+   * @param id the id of the track to compare with
+   * @param k the maximum number of tracks to return
+   * @return the similar tracks, or an empty {@link Optional} if no track has the given id
+   * @throws IllegalArgumentException if k is negative
+   */
+  public Optional<List<FileMetaData>> nearest(int id, int k) {
+    lock.lock();
+    try {
+      load();
+      if (!index.contains(id)) {
+        return Optional.empty();
+      }
+      return Optional.of(index.nearest(id, k).stream().map(metaData::get).toList());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds a newly saved track to the index.
+   *
+   * @param fileMetaData the metadata of the saved track
+   * @param track the saved track
+   */
+  public void add(FileMetaData fileMetaData, Track track) {
+    lock.lock();
+    try {
+      if (loaded) {
+        index.add(fileMetaData.id(), track);
+        metaData.put(fileMetaData.id(), fileMetaData);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds newly saved tracks to the index.
+   *
+   * @param tracks the metadata of each saved track with the track itself
+   */
+  public void addAll(Map<FileMetaData, Track> tracks) {
+    lock.lock();
+    try {
+      if (loaded) {
+        tracks.forEach((fileMetaData, track) -> {
+          index.add(fileMetaData.id(), track);
+          metaData.put(fileMetaData.id(), fileMetaData);
+        });
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Discards the index, which will be rebuilt from the save directory on the next lookup. Should be
+   * called if files are changed by someone other than the server.
+   */
+  public void invalidate() {
+    lock.lock();
+    try {
+      loaded = false;
+      index.clear();
+      metaData.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    for (String filename : persistenceHandler.listFilenames()) {
+      if (!FilenameHandler.isValidFilename(filename)) {
+        continue;
+      }
+      final FileMetaData fileMetaData = FilenameHandler.readMetaData(filename);
+      try {
+        persistenceHandler.readFromFile(filename, reader -> {
+          try {
+            index.add(fileMetaData.id(), objectMapper.readValue(reader, Track.class));
+            metaData.put(fileMetaData.id(), fileMetaData);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+        // Tracks which cannot be read are left out of the index
+        e.printStackTrace();
+      }
+    }
+    loaded = true;
+  }
+}
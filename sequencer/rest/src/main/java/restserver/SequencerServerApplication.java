@@ -5,11 +5,16 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 /**
  * Rest server application. Responsible for initializing all beans and passing them to the necessary
- * controllers.
+ * controllers. The tracks of the server can be exported or imported without starting it, see
+ * {@link TrackArchiveCommand}.
  */
 @SpringBootApplication(scanBasePackages = {"restapi", "restserver"})
 public class SequencerServerApplication {
   public static void main(String[] args) {
+    if (TrackArchiveCommand.isCommand(args)) {
+      TrackArchiveCommand.main(args);
+      return;
+    }
     SpringApplication.run(SequencerServerApplication.class, args);
   }
 }
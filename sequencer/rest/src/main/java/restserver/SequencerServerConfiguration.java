@@ -15,25 +15,37 @@ import sequencer.persistence.PersistenceHandler;
 public class SequencerServerConfiguration {
 
   private static final String remoteSaveDirProperty = "SEQUENCER_REMOTE_SAVE_DIR";
+  private static final String compressFilesProperty = "SEQUENCER_COMPRESS_FILES";
+  private static final String deduplicateFilesProperty = "SEQUENCER_DEDUPLICATE_FILES";
+  private static final String maxConcurrentWritesProperty = "SEQUENCER_MAX_CONCURRENT_WRITES";
 
   /**
    * Use a different remote save directory when the remoteSaveDirProperty is defined (useful for
-   * testing).
+   * testing). Saved tracks are compressed with gzip when the compressFilesProperty is true, and
+   * identical tracks share their data on disk when the deduplicateFilesProperty is true. The number
+   * of tracks written at the same time is bounded by the maxConcurrentWritesProperty, and is
+   * otherwise only bounded by the thread pool of the server.
    */
   @Bean
   public PersistenceHandler persistenceHandler() {
 
+    final PersistenceHandler persistenceHandler;
     final String remoteSaveDir = System.getProperty(remoteSaveDirProperty);
     if (remoteSaveDir == null || remoteSaveDir.isBlank()) {
-      return new PersistenceHandler("drum-sequencer-persistence", TrackMapper.FORMAT);
+      persistenceHandler =
+          new PersistenceHandler("drum-sequencer-persistence", TrackMapper.FORMAT);
     } else {
-      return new PersistenceHandler(remoteSaveDir, TrackMapper.FORMAT);
+      persistenceHandler = new PersistenceHandler(remoteSaveDir, TrackMapper.FORMAT);
     }
+    persistenceHandler.setCompressed(Boolean.getBoolean(compressFilesProperty));
+    persistenceHandler.setDeduplicated(Boolean.getBoolean(deduplicateFilesProperty));
+    persistenceHandler.setMaxConcurrentWrites(Integer.getInteger(maxConcurrentWritesProperty, 0));
+    return persistenceHandler;
   }
 
   @Bean
   public TrackMapperInterface trackSerializer() {
-    return new TrackMapper();
+    return new TrackMapper(false);
   }
 
 }
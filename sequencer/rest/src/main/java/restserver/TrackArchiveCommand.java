@@ -0,0 +1,88 @@
+package restserver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import restapi.TrackArchiver;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * Command line interface for exporting and importing the tracks of the server without starting it.
+ * The tracks are read from and written to the same directory as the server would use, see
+ * {@link SequencerServerConfiguration}.
+ *
+ * <pre>
+ * export &lt;archive.zip&gt;   writes all saved tracks to the archive
+ * import &lt;archive.zip&gt;   saves all tracks in the archive
+ * </pre>
+ */
+public final class TrackArchiveCommand {
+
+  private static final String EXPORT = "export";
+  private static final String IMPORT = "import";
+
+  private TrackArchiveCommand() {}
+
+  /**
+   * Runs the given command, and exits with its status.
+   *
+   * @param args the command and the path of the archive
+   */
+  public static void main(String[] args) {
+    System.exit(run(args));
+  }
+
+  /**
+   * Returns true if the arguments are a command for this interface, rather than arguments for the
+   * server.
+   */
+  public static boolean isCommand(String[] args) {
+    return args.length > 0 && (EXPORT.equals(args[0]) || IMPORT.equals(args[0]));
+  }
+
+  /**
+   * Runs the given command.
+   *
+   * @param args the command and the path of the archive
+   * @return the exit status, which is 0 if the command succeeded
+   */
+  public static int run(String[] args) {
+    if (!isCommand(args) || args.length != 2) {
+      System.err.println("Usage: (export|import) <archive.zip>");
+      return 2;
+    }
+
+    final SequencerServerConfiguration configuration = new SequencerServerConfiguration();
+    final PersistenceHandler persistenceHandler = configuration.persistenceHandler();
+    final TrackArchiver trackArchiver =
+        new TrackArchiver(persistenceHandler, configuration.trackSerializer());
+    final Path archive = Path.of(args[1]);
+
+    try {
+      if (EXPORT.equals(args[0])) {
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(archive))) {
+          final int count = trackArchiver.exportArchive(output);
+          System.out.println("Exported %s tracks from %s to %s".formatted(count,
+              persistenceHandler.getSaveDirectoryPath(), archive));
+        }
+      } else {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(archive))) {
+          final TrackArchiver.ImportResult result = trackArchiver.importArchive(input);
+          System.out.println("Imported %s tracks from %s to %s".formatted(
+              result.imported().size(), archive, persistenceHandler.getSaveDirectoryPath()));
+          for (String rejected : result.rejected()) {
+            System.err.println("Rejected entry: " + rejected);
+          }
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+      return 1;
+    }
+    return 0;
+  }
+}
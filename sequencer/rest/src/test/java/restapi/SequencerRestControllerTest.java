@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
@@ -60,6 +61,24 @@ public class SequencerRestControllerTest extends AbstractUnitTest {
 
   }
 
+  @Test
+  @DisplayName("Test if repeated searches on /api/tracks are served from the cache")
+  public void testGetTracksIsCached() throws Exception {
+    final String uri = "/api/tracks?name=";
+
+    // SETUP
+    mvc.perform(get(uri + "cached").contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    mvc.perform(get(uri + "CACHED").contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    // TEST
+
+    // Searches are case-insensitive, so both requests should share one lookup
+    Mockito.verify(persistenceHandler, Mockito.times(1)).listSavedFiles("cached", "", null);
+    Mockito.verify(persistenceHandler, Mockito.never()).listSavedFiles("CACHED", "", null);
+  }
+
   @Test
   @DisplayName("Test if /api/tracks/{id} responds with the specified track")
   public void testGetTrackById() throws Exception {
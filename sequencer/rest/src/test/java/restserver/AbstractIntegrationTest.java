@@ -8,6 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
+import restapi.TrackIdAllocator;
+import restapi.TrackSearchCache;
+import restapi.TrackSearchIndex;
+import restapi.TrackSimilarityIndex;
 import sequencer.core.Track;
 import sequencer.json.TrackSearchResult;
 import sequencer.persistence.FileMetaData;
@@ -25,6 +29,18 @@ public abstract class AbstractIntegrationTest {
   @Autowired
   PersistenceHandler persistenceHandler;
 
+  @Autowired
+  TrackSearchCache searchCache;
+
+  @Autowired
+  TrackSearchIndex searchIndex;
+
+  @Autowired
+  TrackSimilarityIndex similarityIndex;
+
+  @Autowired
+  TrackIdAllocator idAllocator;
+
   // Test values which can be used to get consistent tests
   protected static final String testTitle = "Moby Dick";
   protected static final String testAuthor = "Herman Melville";
@@ -138,6 +154,12 @@ public abstract class AbstractIntegrationTest {
     }
 
     persistenceHandler.getSaveDirectoryPath().toFile().delete();
+
+    // Files were removed behind the server's back, so cached searches are no longer valid
+    searchCache.invalidate();
+    searchIndex.invalidate();
+    similarityIndex.invalidate();
+    idAllocator.invalidate();
   }
 
 }
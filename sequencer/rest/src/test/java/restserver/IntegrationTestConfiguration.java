@@ -11,9 +11,15 @@ import sequencer.persistence.PersistenceHandler;
 @TestConfiguration
 public class IntegrationTestConfiguration {
 
+  /**
+   * Files are compressed, as to make sure the server handles compressed storage transparently.
+   */
   @Bean
   public PersistenceHandler persistenceHandler() {
-    return new PersistenceHandler("test-remote-drum-sequencer-persistence-test", "json");
+    final PersistenceHandler persistenceHandler =
+        new PersistenceHandler("test-remote-drum-sequencer-persistence-test", "json");
+    persistenceHandler.setCompressed(true);
+    return persistenceHandler;
   }
 
 }
@@ -0,0 +1,150 @@
+package restserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import restapi.ReactiveTrackController;
+import sequencer.core.Track;
+import sequencer.json.TrackSearchResult;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * Integration test with {@link SequencerServerApplication} started with the "reactive" profile,
+ * served by {@link ReactiveTrackController}.
+ */
+// The JCache caches are shared by the JVM, and already created by the servlet context, while the
+// rate limiter using them is disabled in tests
+@SpringBootTest(classes = SequencerServerApplication.class,
+    webEnvironment = WebEnvironment.RANDOM_PORT, properties = "spring.cache.type=none")
+@ActiveProfiles("reactive")
+public class ReactiveTrackControllerTest extends AbstractIntegrationTest {
+
+  // Server
+  @Autowired
+  private WebTestClient client;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Test directory should be cleared after each test.
+   */
+  @AfterEach
+  public void clearTestDirectory() {
+    persistenceHandler.setCompressed(true);
+    persistenceHandler.setMaxConcurrentWrites(0);
+    super.clearTestDirectory();
+  }
+
+  /**
+   * Helper for posting a track and getting its id.
+   */
+  private String postAndGetId(Track track) throws IOException {
+    final String location = client.post().uri("/api/tracks")
+        .bodyValue(objectMapper.writeValueAsString(track)).exchange().expectStatus().isCreated()
+        .returnResult(String.class).getResponseHeaders().getLocation().toString();
+    return location.substring(location.lastIndexOf("/") + 1);
+  }
+
+  private Track getTrack(String id) throws IOException {
+    final byte[] body = client.get().uri("/api/tracks/" + id).exchange().expectStatus().isOk()
+        .expectBody().returnResult().getResponseBody();
+    assertNotNull(body);
+    return objectMapper.readValue(body, Track.class);
+  }
+
+  @Test
+  @DisplayName("Test if tracks are posted and loaded through asynchronous files")
+  public void testPostAndGetTrack() throws IOException {
+
+    // Uncompressed files are written through asynchronous channels
+    persistenceHandler.setCompressed(false);
+    final String id = postAndGetId(testTrackAllContent());
+    assertTrue(tracksAreEqual(testTrackAllContent(), getTrack(id)));
+
+    // Compressed files are written by the persistence handler, and decompressed when loaded
+    persistenceHandler.setCompressed(true);
+    final Track otherTrack = testTrackAllContent();
+    otherTrack.setTrackName("Other");
+    final String otherId = postAndGetId(otherTrack);
+    assertEquals(Integer.parseInt(id) + 1, Integer.parseInt(otherId));
+    assertTrue(tracksAreEqual(otherTrack, getTrack(otherId)));
+
+    client.get().uri("/api/tracks/" + fileNotFoundId).exchange().expectStatus().isNotFound();
+    client.post().uri("/api/tracks").bodyValue(
+        objectMapper.writeValueAsString(testTrackWithoutName())).exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  @DisplayName("Test if tracks written through asynchronous files wait for a write permit")
+  public void testPostTrackWaitsForWritePermit() throws Exception {
+
+    // SETUP
+    persistenceHandler.setCompressed(false);
+    persistenceHandler.setMaxConcurrentWrites(1);
+    final PersistenceHandler.WritePermit permit = persistenceHandler.acquireWritePermit();
+
+    // TEST
+    final CompletableFuture<String> post = CompletableFuture.supplyAsync(() -> {
+      try {
+        return postAndGetId(testTrackAllContent());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    assertThrows(TimeoutException.class, () -> post.get(200, TimeUnit.MILLISECONDS));
+    assertTrue(persistenceHandler.listFilenames().isEmpty());
+
+    permit.close();
+    final String id = post.get(10, TimeUnit.SECONDS);
+    assertTrue(tracksAreEqual(testTrackAllContent(), getTrack(id)));
+  }
+
+  @Test
+  @DisplayName("Test if saved tracks are listed, paged, searched and streamed as ndjson")
+  public void testGetTracks() throws IOException {
+    final Track otherTrack = testTrackAllContent();
+    otherTrack.setTrackName("Other");
+    postAndGetId(testTrackAllContent());
+    postAndGetId(otherTrack);
+
+    client.get().uri("/api/tracks").exchange().expectStatus().isOk()
+        .expectBodyList(TrackSearchResult.class).hasSize(2);
+    final List<TrackSearchResult> results = client.get().uri("/api/tracks/search?name=othr")
+        .exchange().expectStatus().isOk().expectBodyList(TrackSearchResult.class).returnResult()
+        .getResponseBody();
+    assertNotNull(results);
+    assertEquals(List.of("Other"), results.stream().map(TrackSearchResult::name).toList());
+
+    // Each result is sent as its own line
+    final String ndjson = client.get().uri("/api/tracks").accept(MediaType.APPLICATION_NDJSON)
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult()
+        .getResponseBody();
+    assertNotNull(ndjson);
+    assertEquals(2, ndjson.strip().lines().count());
+
+    // Pages of the list
+    client.get().uri("/api/tracks?offset=1&limit=5").exchange().expectStatus().isOk()
+        .expectBodyList(TrackSearchResult.class).hasSize(1);
+    client.get().uri("/api/tracks?limit=-1").exchange().expectStatus().isBadRequest();
+  }
+}
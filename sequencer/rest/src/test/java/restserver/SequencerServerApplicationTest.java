@@ -2,13 +2,33 @@ package restserver;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,11 +40,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import restapi.SequencerRestController;
+import restapi.TrackArchiver;
+import restapi.TrackImportResponse;
 import sequencer.core.Track;
+import sequencer.json.TrackMapper;
 import sequencer.json.TrackSearchResult;
+import sequencer.persistence.FileMetaData;
 import sequencer.persistence.PersistenceHandler;
 
 /**
@@ -149,6 +177,114 @@ public class SequencerServerApplicationTest extends AbstractIntegrationTest {
 
   }
 
+  @Test
+  @DisplayName("Test if /api/tracks with offset and limit params returns a page of the list")
+  public void testGetPageOfTracks() throws IOException {
+    final String uri = "/api/tracks";
+
+    // SETUP
+    for (String artist : List.of("George Orwell", "Aldous Huxley", "Ray Bradbury")) {
+      final Track track = testTrackAllContent().copy();
+      track.setArtistName(artist);
+      postTrack(track, HttpStatus.CREATED);
+    }
+    final List<TrackSearchResult> all = objectMapper.readValue(
+        controller.getForEntity(uri, String.class).getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(3, all.size());
+
+    // TEST
+    final List<TrackSearchResult> firstPage = objectMapper.readValue(
+        controller.getForEntity(uri + "?limit=2", String.class).getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(all.subList(0, 2), firstPage);
+
+    final List<TrackSearchResult> lastPage = objectMapper.readValue(
+        controller.getForEntity(uri + "?offset=2&limit=2", String.class).getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(all.subList(2, 3), lastPage);
+
+    final List<TrackSearchResult> pastEnd = objectMapper.readValue(
+        controller.getForEntity(uri + "?offset=5", String.class).getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(0, pastEnd.size());
+
+    assertEquals(HttpStatus.BAD_REQUEST,
+        controller.getForEntity(uri + "?offset=-1", String.class).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST,
+        controller.getForEntity(uri + "?limit=-1", String.class).getStatusCode());
+  }
+
+  @Test
+  @DisplayName("Test if /api/tracks/search finds tracks with misspelled or partial words")
+  public void testSearchTracks() throws IOException {
+    final String uri = "/api/tracks/search";
+
+    // Populate
+    final Track testTrackAllContentVariant = testTrackAllContent().copy();
+    testTrackAllContentVariant.setArtistName("George Orwell");
+    postTrackTests(testTrackAllContent(), HttpStatus.CREATED);
+    postTrackTests(testTrackAllContentVariant, HttpStatus.CREATED);
+
+    // Check searching with a misspelled artist
+    final ResponseEntity<String> fuzzyResponse =
+        controller.getForEntity(uri + "?artist=melvile", String.class);
+    final List<TrackSearchResult> fuzzyResults = objectMapper.readValue(fuzzyResponse.getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(1, fuzzyResults.size());
+    assertEquals(testAuthor, fuzzyResults.get(0).artist());
+
+    // Check searching with the beginning of a word
+    final ResponseEntity<String> prefixResponse =
+        controller.getForEntity(uri + "?name=mob&artist=geo", String.class);
+    final List<TrackSearchResult> prefixResults = objectMapper.readValue(prefixResponse.getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(1, prefixResults.size());
+    assertEquals("George Orwell", prefixResults.get(0).artist());
+  }
+
+  /**
+   * Helper function to post track and get its id.
+   */
+  private String postAndGetId(Track track) throws IOException {
+    final String location =
+        postTrack(track, HttpStatus.CREATED).getHeaders().get("Location").get(0);
+    return location.substring(location.lastIndexOf("/") + 1);
+  }
+
+  @Test
+  @DisplayName("Test if /api/tracks/similar/{id} responds with the most similar tracks first")
+  public void testGetSimilarTracks() throws IOException {
+    final String uri = "/api/tracks/similar/";
+
+    // Unknown tracks should respond with NOT_FOUND
+    assertEquals(HttpStatus.NOT_FOUND,
+        controller.getForEntity(uri + testId, String.class).getStatusCode());
+
+    // Populate with tracks which are increasingly different from the first
+    final Track original = testTrackAllContent();
+    final Track similar = original.copy();
+    similar.setTrackName("Similar");
+    similar.toggleSixteenth("snare", 4);
+    final Track different = similar.copy();
+    different.setTrackName("Different");
+    different.addInstrument("kick");
+    different.toggleSixteenth("kick", 0);
+    different.toggleSixteenth("kick", 8);
+
+    final String originalId = postAndGetId(original);
+    postAndGetId(different);
+    postAndGetId(similar);
+
+    final ResponseEntity<String> response =
+        controller.getForEntity(uri + originalId + "?k=2", String.class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    final List<TrackSearchResult> results = objectMapper.readValue(response.getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(List.of("Similar", "Different"),
+        results.stream().map(TrackSearchResult::name).toList());
+  }
+
   /**
    * Helper function to post track and get it by Id.
    */
@@ -197,4 +333,257 @@ public class SequencerServerApplicationTest extends AbstractIntegrationTest {
 
   }
 
+  @Test
+  @DisplayName("Test if /api/tracks/{id} responds with 304 when the client has the same ETag")
+  public void testGetTrackEtag() throws IOException {
+    final String uri = "/api/tracks/" + postAndGetId(testTrackAllContent());
+
+    final ResponseEntity<String> response = controller.getForEntity(uri, String.class);
+    final String etag = response.getHeaders().getETag();
+    assertNotNull(etag);
+
+    final HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(etag);
+    final ResponseEntity<String> cachedResponse =
+        controller.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    assertEquals(HttpStatus.NOT_MODIFIED, cachedResponse.getStatusCode());
+    assertNull(cachedResponse.getBody());
+
+    headers.setIfNoneMatch("\"other\"");
+    assertEquals(response.getBody(), controller
+        .exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody());
+  }
+
+  @Test
+  @DisplayName("Test if responses are compressed only when the client accepts gzip")
+  public void testResponseCompression() throws IOException {
+    for (int i = 0; i < 10; i++) {
+      postAndGetId(testTrackAllContent());
+    }
+    final URL url = new URL("http://localhost:%s/api/tracks".formatted(port));
+
+    final HttpURLConnection gzipConnection = (HttpURLConnection) url.openConnection();
+    gzipConnection.setRequestProperty("Accept-Encoding", "gzip");
+    assertEquals(HttpStatus.OK.value(), gzipConnection.getResponseCode());
+    assertEquals("gzip", gzipConnection.getContentEncoding());
+    final List<TrackSearchResult> results;
+    try (InputStream input = new GZIPInputStream(gzipConnection.getInputStream())) {
+      results = objectMapper.readValue(input, new TypeReference<List<TrackSearchResult>>() {});
+    }
+    assertEquals(10, results.size());
+
+    final HttpURLConnection plainConnection = (HttpURLConnection) url.openConnection();
+    assertEquals(HttpStatus.OK.value(), plainConnection.getResponseCode());
+    assertNull(plainConnection.getContentEncoding());
+    plainConnection.getInputStream().close();
+  }
+
+  /**
+   * Helper for importing an archive.
+   */
+  private TrackImportResponse importArchive(byte[] archive) throws IOException {
+    final HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType("application/zip"));
+    final ResponseEntity<String> response = controller.postForEntity("/api/tracks/archive",
+        new HttpEntity<>(archive, headers), String.class);
+    assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    return objectMapper.readValue(response.getBody(), TrackImportResponse.class);
+  }
+
+  @Test
+  @DisplayName("Test if tracks are exported to and imported from an archive")
+  public void testExportAndImportArchive() throws IOException {
+    final String uri = "/api/tracks/archive";
+    final Track otherTrack = testTrackAllContent();
+    otherTrack.setTrackName("Other");
+    postAndGetId(testTrackAllContent());
+    postAndGetId(otherTrack);
+
+    // Export
+    final ResponseEntity<byte[]> exportResponse = controller.getForEntity(uri, byte[].class);
+    assertEquals(HttpStatus.OK, exportResponse.getStatusCode());
+    final byte[] archive = exportResponse.getBody();
+    final List<String> entries = new ArrayList<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        entries.add(entry.getName());
+      }
+    }
+    assertEquals(2, entries.size());
+
+    // Import into an empty directory keeps the ids
+    clearTestDirectory();
+    final TrackImportResponse importResponse = importArchive(archive);
+    assertEquals(List.of(), importResponse.rejected());
+    assertEquals(List.of(1, 2),
+        importResponse.imported().stream().map(TrackSearchResult::id).sorted().toList());
+    final Track importedTrack = objectMapper.readValue(
+        controller.getForEntity("/api/tracks/1", String.class).getBody(), Track.class);
+    assertTrue(tracksAreEqual(testTrackAllContent(), importedTrack)
+        || tracksAreEqual(otherTrack, importedTrack));
+
+    // Importing again gives the tracks new ids, and updates the search index
+    final TrackImportResponse secondResponse = importArchive(archive);
+    assertEquals(List.of(3, 4),
+        secondResponse.imported().stream().map(TrackSearchResult::id).sorted().toList());
+    final List<TrackSearchResult> searchResults = objectMapper.readValue(
+        controller.getForEntity("/api/tracks/search?name=other", String.class).getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    assertEquals(2, searchResults.size());
+  }
+
+  @Test
+  @DisplayName("Test if invalid entries in an archive are rejected")
+  public void testImportInvalidArchive() throws IOException {
+    final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+      zip.putNextEntry(new ZipEntry("1-Moby Dick-Herman Melville-0.json"));
+      zip.write(objectMapper.writeValueAsBytes(testTrackAllContent()));
+      zip.putNextEntry(new ZipEntry("2-Moby Dick-Herman Melville-0.json"));
+      zip.write("not a track".getBytes(StandardCharsets.UTF_8));
+      zip.putNextEntry(new ZipEntry("readme.txt"));
+      zip.write("not a track either".getBytes(StandardCharsets.UTF_8));
+    }
+
+    final TrackImportResponse response = importArchive(archive.toByteArray());
+    assertEquals(1, response.imported().size());
+    assertEquals(List.of("2-Moby Dick-Herman Melville-0.json", "readme.txt"),
+        response.rejected());
+  }
+
+  @Test
+  @DisplayName("Test if archives unpacking to more than the limits are rejected")
+  public void testImportTooLargeArchive() throws IOException {
+    // A single entry of zeros compresses to a few kilobytes
+    final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+      zip.putNextEntry(new ZipEntry("1-Moby Dick-Herman Melville-0.json"));
+      zip.write(new byte[TrackArchiver.MAX_ENTRY_BYTES + 1]);
+    }
+    final HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType("application/zip"));
+    final ResponseEntity<String> response = controller.postForEntity("/api/tracks/archive",
+        new HttpEntity<>(archive.toByteArray(), headers), String.class);
+    assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    assertTrue(persistenceHandler.listFilenames().isEmpty());
+
+    // Entries within their limit still count towards the limit of the archive
+    final ByteArrayOutputStream smallEntries = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(smallEntries)) {
+      for (int id = 1; id <= 3; id++) {
+        zip.putNextEntry(new ZipEntry(id + "-Moby Dick-Herman Melville-0.json"));
+        zip.write(objectMapper.writeValueAsBytes(testTrackAllContent()));
+      }
+    }
+    final int entryBytes = objectMapper.writeValueAsBytes(testTrackAllContent()).length;
+    final TrackArchiver trackArchiver =
+        new TrackArchiver(persistenceHandler, new TrackMapper(false), entryBytes, entryBytes * 2);
+    assertThrows(TrackArchiver.ArchiveTooLargeException.class,
+        () -> trackArchiver.importArchive(new ByteArrayInputStream(smallEntries.toByteArray())));
+  }
+
+  @Test
+  @DisplayName("Test if tracks posted during an import are not given the ids of imported tracks")
+  public void testPostDuringImport() throws Exception {
+    // SETUP
+    // The archive has two entries with id 1, so at least one of them is renumbered
+    final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+      for (String name : List.of("1-Moby Dick-Herman Melville-0.json",
+          "2-Moby Dick-Herman Melville-0.json", "copy/1-Moby Dick-Herman Melville-0.json")) {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(objectMapper.writeValueAsBytes(testTrackAllContent()));
+      }
+    }
+    final Track otherTrack = testTrackAllContent();
+    otherTrack.setTrackName("Other");
+    // Both the import and the post wait for the permit after their ids are chosen
+    persistenceHandler.setMaxConcurrentWrites(1);
+    final PersistenceHandler.WritePermit permit = persistenceHandler.acquireWritePermit();
+
+    // TEST
+    try {
+      final CompletableFuture<TrackImportResponse> imported = CompletableFuture.supplyAsync(() -> {
+        try {
+          return importArchive(archive.toByteArray());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      final CompletableFuture<String> posted = CompletableFuture.supplyAsync(() -> {
+        try {
+          return postAndGetId(otherTrack);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      assertThrows(TimeoutException.class, () -> imported.get(200, TimeUnit.MILLISECONDS));
+      assertThrows(TimeoutException.class, () -> posted.get(200, TimeUnit.MILLISECONDS));
+      permit.close();
+
+      final List<Integer> ids = new ArrayList<>(imported.get(10, TimeUnit.SECONDS).imported()
+          .stream().map(TrackSearchResult::id).toList());
+      assertEquals(3, ids.size());
+      // Id 1 is kept unless the post was given it first, but id 2 is always kept
+      assertTrue(ids.contains(2), "Expected the imported id to be kept: " + ids);
+      ids.add(Integer.parseInt(posted.get(10, TimeUnit.SECONDS)));
+      assertEquals(4, Set.copyOf(ids).size(), "Expected every track to get its own id: " + ids);
+      assertEquals(Set.copyOf(ids), persistenceHandler.listSavedFiles().stream()
+          .map(FileMetaData::id).collect(Collectors.toSet()));
+    } finally {
+      persistenceHandler.setMaxConcurrentWrites(0);
+    }
+  }
+
+  /**
+   * Helper for posting tracks to /api/tracks/batch.
+   */
+  private ResponseEntity<String> postBatch(String request) {
+    final HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    return controller.postForEntity("/api/tracks/batch", new HttpEntity<>(request, headers),
+        String.class);
+  }
+
+  @Test
+  @DisplayName("Test if tracks are posted to and got from /api/tracks/batch")
+  public void testBatch() throws IOException {
+    final Track otherTrack = testTrackAllContent();
+    otherTrack.setTrackName("Other");
+    final String existingId = postAndGetId(testTrackAllContent());
+
+    // Posted tracks should get consecutive ids after those in use, in the given order
+    final ResponseEntity<String> postResponse =
+        postBatch(objectMapper.writeValueAsString(List.of(otherTrack, testTrackAllContent())));
+    assertEquals(HttpStatus.CREATED, postResponse.getStatusCode());
+    final List<TrackSearchResult> posted = objectMapper.readValue(postResponse.getBody(),
+        new TypeReference<List<TrackSearchResult>>() {});
+    final int firstId = Integer.parseInt(existingId) + 1;
+    assertEquals(List.of(firstId, firstId + 1),
+        posted.stream().map(TrackSearchResult::id).toList());
+    assertEquals(List.of("Other", testTitle),
+        posted.stream().map(TrackSearchResult::name).toList());
+
+    // Posted tracks should be searchable
+    assertEquals(1, objectMapper.readValue(
+        controller.getForEntity("/api/tracks/search?name=other", String.class).getBody(),
+        new TypeReference<List<TrackSearchResult>>() {}).size());
+
+    // Unknown ids should be left out
+    final ResponseEntity<String> getResponse = controller.getForEntity(
+        "/api/tracks/batch?ids=" + existingId + "," + firstId + "," + fileNotFoundId, String.class);
+    assertEquals(HttpStatus.OK, getResponse.getStatusCode());
+    final Map<Integer, Track> tracks = objectMapper.readValue(getResponse.getBody(),
+        new TypeReference<Map<Integer, Track>>() {});
+    assertEquals(Set.of(Integer.parseInt(existingId), firstId), tracks.keySet());
+    assertTrue(tracksAreEqual(otherTrack, tracks.get(firstId)));
+
+    // No track should be saved if any track is invalid
+    assertEquals(HttpStatus.BAD_REQUEST, postBatch(objectMapper.writeValueAsString(
+        List.of(otherTrack, testTrackWithoutName()))).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, postBatch("[]").getStatusCode());
+    assertEquals(3, persistenceHandler.listFilenames().size());
+  }
+
 }
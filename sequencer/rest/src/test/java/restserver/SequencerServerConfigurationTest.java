@@ -0,0 +1,33 @@
+package restserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.persistence.PersistenceHandler;
+
+/**
+ * Tests for the {@link SequencerServerConfiguration}, run without starting the server.
+ */
+public class SequencerServerConfigurationTest {
+
+  private static final String MAX_CONCURRENT_WRITES_PROPERTY = "SEQUENCER_MAX_CONCURRENT_WRITES";
+
+  private final SequencerServerConfiguration configuration = new SequencerServerConfiguration();
+
+  @AfterEach
+  public void clearProperty() {
+    System.clearProperty(MAX_CONCURRENT_WRITES_PROPERTY);
+  }
+
+  @Test
+  @DisplayName("Test if concurrent writes are only bounded when the property is set")
+  public void testMaxConcurrentWrites() {
+    assertEquals(0, configuration.persistenceHandler().getMaxConcurrentWrites());
+
+    System.setProperty(MAX_CONCURRENT_WRITES_PROPERTY, "3");
+    final PersistenceHandler persistenceHandler = configuration.persistenceHandler();
+    assertEquals(3, persistenceHandler.getMaxConcurrentWrites());
+  }
+}
@@ -0,0 +1,71 @@
+package restserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link TrackArchiveCommand}, run without starting the server.
+ */
+public class TrackArchiveCommandTest {
+
+  private static final String SAVE_DIR_PROPERTY = "SEQUENCER_REMOTE_SAVE_DIR";
+  private static final String SAVE_DIR = "test-drum-sequencer-archive-command-test";
+
+  @TempDir
+  Path tempDirectory;
+
+  /**
+   * Use a test directory rather than the directory of the server.
+   */
+  @BeforeEach
+  public void setSaveDirectory() {
+    System.setProperty(SAVE_DIR_PROPERTY, SAVE_DIR);
+  }
+
+  /**
+   * Remove the test directory, which is left empty by the tests.
+   */
+  @AfterEach
+  public void clearSaveDirectory() {
+    System.clearProperty(SAVE_DIR_PROPERTY);
+    Path.of(System.getProperty("user.home"), SAVE_DIR).toFile().delete();
+  }
+
+  @Test
+  @DisplayName("Test if the command is recognized and invalid arguments give a usage status")
+  public void testArguments() {
+    assertTrue(TrackArchiveCommand.isCommand(new String[] {"export", "tracks.zip"}));
+    assertFalse(TrackArchiveCommand.isCommand(new String[] {"--server.port=8080"}));
+    assertFalse(TrackArchiveCommand.isCommand(new String[0]));
+    assertEquals(2, TrackArchiveCommand.run(new String[] {"export"}));
+    assertEquals(2, TrackArchiveCommand.run(new String[] {"--server.port=8080"}));
+  }
+
+  @Test
+  @DisplayName("Test if tracks are exported to an archive, and a missing archive fails an import")
+  public void testExportAndImport() throws IOException {
+    final Path archive = tempDirectory.resolve("tracks.zip");
+    assertEquals(0, TrackArchiveCommand.run(new String[] {"export", archive.toString()}));
+    try (InputStream input = Files.newInputStream(archive);
+        ZipInputStream zip = new ZipInputStream(input)) {
+      // The test directory has no tracks
+      assertEquals(null, zip.getNextEntry());
+    }
+    assertEquals(0, TrackArchiveCommand.run(new String[] {"import", archive.toString()}));
+
+    final Path missing = tempDirectory.resolve("missing.zip");
+    assertEquals(1, TrackArchiveCommand.run(new String[] {"import", missing.toString()}));
+  }
+}
@@ -0,0 +1,6 @@
+module sequencer.vectormix {
+  requires sequencer.core;
+  requires jdk.incubator.vector;
+
+  provides sequencer.core.MixKernel with sequencer.vectormix.VectorMixKernel;
+}
@@ -0,0 +1,60 @@
+package sequencer.vectormix;
+
+import java.util.Objects;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+import sequencer.core.MixKernel;
+
+/**
+ * The {@link MixKernel#VECTOR} kernel, adding as many samples at a time as the CPU supports. The
+ * samples after the last full vector are added one at a time.
+ *
+ * <p>
+ * Samples are multiplied and added as separate operations rather than fused, so the results are
+ * rounded exactly as by the scalar kernel.
+ * </p>
+ *
+ * <p>
+ * The kernel is kept in a module of its own, as it is built against the incubating Vector API of
+ * the JDK rather than the API of a release. It is provided to {@link MixKernel#of(String)} as a
+ * service, so it is used when the module is on the module path, or on the class path of a JVM
+ * started with {@code --add-modules jdk.incubator.vector}.
+ * </p>
+ */
+public final class VectorMixKernel implements MixKernel {
+
+  private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+  @Override
+  public String getName() {
+    return VECTOR;
+  }
+
+  @Override
+  public void mix(float[] samples, int sampleOffset, float gain, float[] output, int length) {
+    Objects.checkFromIndexSize(sampleOffset, length, samples.length);
+    Objects.checkFromIndexSize(0, length, output.length);
+    final int bound = SPECIES.loopBound(length);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      FloatVector.fromArray(SPECIES, samples, sampleOffset + i).mul(gain)
+          .add(FloatVector.fromArray(SPECIES, output, i)).intoArray(output, i);
+    }
+    for (; i < length; i++) {
+      output[i] += samples[sampleOffset + i] * gain;
+    }
+  }
+
+  @Override
+  public void clip(float[] output, int length) {
+    Objects.checkFromIndexSize(0, length, output.length);
+    final int bound = SPECIES.loopBound(length);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      FloatVector.fromArray(SPECIES, output, i).max(-1f).min(1f).intoArray(output, i);
+    }
+    for (; i < length; i++) {
+      output[i] = Math.max(-1f, Math.min(1f, output[i]));
+    }
+  }
+}
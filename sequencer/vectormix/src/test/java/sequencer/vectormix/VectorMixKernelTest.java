@@ -0,0 +1,71 @@
+package sequencer.vectormix;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sequencer.core.MixKernel;
+
+/**
+ * Tests for the {@link VectorMixKernel}, comparing it to the scalar kernel.
+ */
+public class VectorMixKernelTest {
+
+  private final MixKernel scalar = MixKernel.of(MixKernel.SCALAR);
+  private final MixKernel vector = new VectorMixKernel();
+
+  @Test
+  @DisplayName("Test if the vector kernel is provided to core, and created as the fastest kernel")
+  public void testProvided() {
+    assertTrue(MixKernel.isVectorAvailable(), "Expected the vector kernel to be available");
+    assertEquals(MixKernel.VECTOR, MixKernel.of(MixKernel.VECTOR).getName());
+    assertEquals(MixKernel.VECTOR, MixKernel.create().getName());
+  }
+
+  @Test
+  @DisplayName("Test if the vector kernel mixes and clips voices exactly as the scalar kernel")
+  public void testMixAndClip() {
+    final Random random = new Random(1901);
+    final float[][] voices = new float[8][];
+    for (int v = 0; v < voices.length; v++) {
+      voices[v] = randomSamples(random, 1000);
+    }
+
+    // Lengths which are not a multiple of any vector length are mixed partly one at a time
+    for (int length : new int[] {0, 1, 7, 64, 333, 512}) {
+      final float[] expected = new float[length + 5];
+      final float[] output = new float[length + 5];
+      for (int v = 0; v < voices.length; v++) {
+        scalar.mix(voices[v], v * 50, 0.25f * v, expected, length);
+        vector.mix(voices[v], v * 50, 0.25f * v, output, length);
+      }
+      scalar.clip(expected, length);
+      vector.clip(output, length);
+      assertArrayEquals(expected, output, "Kernels differed at length " + length);
+    }
+  }
+
+  @Test
+  @DisplayName("Test if the vector kernel rejects buffers shorter than the length")
+  public void testBounds() {
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> vector.mix(new float[10], 5, 1f, new float[10], 6));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> vector.mix(new float[10], 0, 1f, new float[5], 6));
+    assertThrows(IndexOutOfBoundsException.class, () -> vector.clip(new float[5], 6));
+  }
+
+  // Helpers
+
+  private static float[] randomSamples(Random random, int length) {
+    final float[] samples = new float[length];
+    for (int i = 0; i < length; i++) {
+      samples[i] = random.nextFloat() * 2 - 1;
+    }
+    return samples;
+  }
+}